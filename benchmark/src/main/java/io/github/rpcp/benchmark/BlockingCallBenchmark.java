@@ -0,0 +1,101 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.RPCPCallDispatcher;
+import io.github.rpcp.RPCPHost;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10k CALL from 10k session to a method that block 50 ms, on a fixed pool of 200 platform thread or on a virtual
+ * thread per call. One operation is the time until every call is done. The virtual thread executor is in the Java 21
+ * layer of the core jar, run the benchmark on JDK 21 or newer.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlockingCallBenchmark {
+    static final int SESSIONS = 10_000;
+    static final int POOL_THREADS = 200;
+    static final long BLOCK_MILLIS = 50;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String executor;
+
+    private RPCPHost<MemorySession> rpcpHost;
+    private ExecutorService callExecutor;
+    private MemorySession[] sessions;
+    private String call;
+    private volatile CountDownLatch done;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("VIRTUAL".equals(executor)) {
+            if (!RPCPCallDispatcher.isVirtualThreadSupported()) {
+                throw new IllegalStateException("Virtual thread need Java 21 or newer, run on JDK 21");
+            }
+            callExecutor = RPCPCallDispatcher.newVirtualThreadExecutor();
+        } else {
+            callExecutor = RPCPCallDispatcher.newCallExecutor(POOL_THREADS, SESSIONS);
+        }
+
+        rpcpHost = new RPCPHost<>(Frames.VHOST, new MemoryHostHandler());
+        rpcpHost.setCallExecutor(callExecutor);
+        rpcpHost.addMethod(Frames.METHOD, (rpcpSession, messageCall, rpcpBuilder) -> {
+            try {
+                Thread.sleep(BLOCK_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+
+        sessions = new MemorySession[SESSIONS];
+        for (var i = 0; i < SESSIONS; i++) {
+            sessions[i] = new MemorySession();
+            rpcpHost.onWsConnect(sessions[i]);
+            rpcpHost.onGetMessage(Frames.CONNECT, sessions[i]);
+        }
+        call = Frames.Type.CALL.frame(16);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        callExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public long blockingCalls() throws InterruptedException {
+        done = new CountDownLatch(SESSIONS);
+        for (var session : sessions) {
+            rpcpHost.onGetMessage(call, session);
+        }
+        if (!done.await(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Calls not done: " + done.getCount());
+        }
+        return rpcpHost.getCallDispatcher().getCompletedCount();
+    }
+}
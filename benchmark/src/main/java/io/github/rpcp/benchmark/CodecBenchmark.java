@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.RPCPCodec;
+import io.github.rpcp.RPCPUtils;
+import io.github.rpcp.model.RPCPMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and write of every message type, from String with {@link RPCPUtils} and from UTF-8 bytes with
+ * {@link RPCPCodec}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    @Param({"CONNECT", "CONNECTED", "DISCONNECT", "CALL", "RESULT", "PLAN", "PROGRESS", "EVENT", "ERROR",
+            "SUBSCRIBE", "UNSUBSCRIBE", "PING", "PONG"})
+    public Frames.Type type;
+
+    @Param({"16", "1024", "65536"})
+    public int bodySize;
+
+    private String frame;
+    private byte[] bytes;
+    private RPCPMessage message;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() throws Exception {
+        frame = type.frame(bodySize);
+        bytes = frame.getBytes(StandardCharsets.UTF_8);
+        message = RPCPUtils.read(frame);
+        buffer = ByteBuffer.allocate(bytes.length * 2);
+    }
+
+    @Benchmark
+    public RPCPMessage readString() throws Exception {
+        return RPCPUtils.read(frame);
+    }
+
+    @Benchmark
+    public RPCPMessage readBytes() throws Exception {
+        return RPCPCodec.read(ByteBuffer.wrap(bytes));
+    }
+
+    @Benchmark
+    public String writeString() throws Exception {
+        return RPCPUtils.write(message);
+    }
+
+    @Benchmark
+    public int writeBytes() throws Exception {
+        buffer.clear();
+        return RPCPCodec.write(message, buffer);
+    }
+}
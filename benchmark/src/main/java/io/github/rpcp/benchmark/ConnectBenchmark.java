@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.RPCPHost;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connect storm: websocket open, CONNECT and websocket close of many session, with many other session already
+ * connected to the host. One operation is one session.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConnectBenchmark {
+
+    private static final int STORM = 1000;
+
+    @Param({"0", "100000"})
+    public int connected;
+
+    private RPCPHost<MemorySession> rpcpHost;
+    private MemorySession[] storm;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rpcpHost = new RPCPHost<>(Frames.VHOST, new MemoryHostHandler());
+        for (var i = 0; i < connected; i++) {
+            var session = new MemorySession();
+            rpcpHost.onWsConnect(session);
+            rpcpHost.onGetMessage(Frames.CONNECT, session);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void newSessions() {
+        storm = new MemorySession[STORM];
+        for (var i = 0; i < STORM; i++) {
+            storm[i] = new MemorySession();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STORM)
+    public int connectDisconnect() {
+        for (var session : storm) {
+            rpcpHost.onWsConnect(session);
+            rpcpHost.onGetMessage(Frames.CONNECT, session);
+        }
+        for (var session : storm) {
+            rpcpHost.onWsDisconnect(session, "1000");
+        }
+        return rpcpHost.getSessionCount();
+    }
+}
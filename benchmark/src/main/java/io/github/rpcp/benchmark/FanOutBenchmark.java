@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.RPCPPreparedFrame;
+import io.github.rpcp.model.HeaderEvent;
+import io.github.rpcp.model.MessageEvent;
+import io.github.rpcp.model.RPCPEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EVENT fan-out to the subscriber of the event and to all connected session. One operation is one event sent to
+ * every session, the call return after the last session is sent the frame, so the sampled time of an operation is
+ * the latency to the last subscriber. JMH report the p50 and p99 of the samples.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FanOutBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int sessions;
+
+    @Param({"256"})
+    public int bodySize;
+
+    private RPCPHost<MemorySession> rpcpHost;
+    private MessageEvent event;
+    private RPCPPreparedFrame frame;
+
+    @Setup
+    public void setup() throws Exception {
+        rpcpHost = new RPCPHost<>(Frames.VHOST, new MemoryHostHandler());
+        rpcpHost.addEvent(Frames.EVENT, (RPCPEvent) (session, params, eventBuilder, args) -> {
+        });
+
+        for (var i = 0; i < sessions; i++) {
+            var session = new MemorySession();
+            rpcpHost.onWsConnect(session);
+            rpcpHost.onGetMessage(Frames.CONNECT, session);
+            rpcpHost.onGetMessage(Frames.Type.SUBSCRIBE.frame(0), session);
+        }
+
+        event = new MessageEvent(Frames.EVENT, "200", new HeaderEvent("application/json", "001"));
+        event.setBody(Frames.body(bodySize));
+        frame = new RPCPPreparedFrame(event);
+    }
+
+    @TearDown
+    public void check() throws Exception {
+        if (rpcpHost.publish(event) != sessions) {
+            throw new IllegalStateException("Not all session subscribe " + Frames.EVENT);
+        }
+    }
+
+    @Benchmark
+    public int publish() throws Exception {
+        return rpcpHost.publish(event);
+    }
+
+    @Benchmark
+    public int broadcastEvent() throws Exception {
+        return rpcpHost.broadcast(event);
+    }
+
+    @Benchmark
+    public int broadcastPreparedFrame() {
+        return rpcpHost.broadcast(frame);
+    }
+}
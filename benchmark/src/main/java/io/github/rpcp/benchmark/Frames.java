@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+/**
+ * RPCP frame of every message type used by the benchmark
+ */
+public final class Frames {
+    public static final String VHOST = "api.glexpress.id/ws";
+    public static final String METHOD = "io.github.rpcp.benchmark.Echo";
+    public static final String EVENT = "io.github.rpcp.benchmark.Tick";
+
+    public static final String CONNECT = "CONNECT " + VHOST + " RPCP/1.0\r\n" +
+            "agent: menjangan-benchmark/1.0\r\n" +
+            "\r\n";
+
+    private Frames() {
+    }
+
+    /**
+     * Message type and the frame of the type, body is appended for the type that have body
+     */
+    public enum Type {
+        CONNECT(Frames.CONNECT, false),
+        CONNECTED("CONNECTED " + VHOST + " RPCP/1.0\r\n" +
+                "server: menjangan/1.0\r\n" +
+                "event: " + Frames.EVENT + "\r\n" +
+                "method: " + METHOD + "\r\n" +
+                "\r\n", false),
+        DISCONNECT("DISCONNECT " + VHOST + "\r\n\r\n", false),
+        CALL("CALL " + METHOD + "\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n", true),
+        RESULT("RESULT " + METHOD + " 200\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n", true),
+        PLAN("PLAN " + METHOD + "\r\n" +
+                "planing-code: SEARCH_DRIVER, FOUND_DRIVER_CANDIDATE, FOUND_DRIVER\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n", true),
+        PROGRESS("PROGRESS " + METHOD + " 200\r\n" +
+                "plan-code: FOUND_DRIVER_CANDIDATE\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n", true),
+        EVENT("EVENT " + Frames.EVENT + " 200\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n", true),
+        ERROR("ERROR " + METHOD + "\r\n" +
+                "message: method not found\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n", true),
+        SUBSCRIBE("SUBSCRIBE " + Frames.EVENT + "\r\n\r\n", false),
+        UNSUBSCRIBE("UNSUBSCRIBE " + Frames.EVENT + "\r\n\r\n", false),
+        PING("PING\r\n\r\n", false),
+        PONG("PONG\r\n\r\n", false);
+
+        private final String head;
+        private final boolean hasBody;
+
+        Type(String head, boolean hasBody) {
+            this.head = head;
+            this.hasBody = hasBody;
+        }
+
+        /**
+         * @param bodySize length of the body in characters, ignored for the type without body
+         * @return complete frame
+         */
+        public String frame(int bodySize) {
+            return hasBody ? head + body(bodySize) : head;
+        }
+    }
+
+    /**
+     * JSON body of the given length
+     *
+     * @param size length in characters, at least 11
+     * @return {"data":"xxx..."}
+     */
+    public static String body(int size) {
+        var padding = Math.max(0, size - 11);
+        return "{\"data\":\"" + "x".repeat(padding) + "\"}";
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.RPCPBuilder;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.RPCPUtils;
+import io.github.rpcp.model.MessageCall;
+import io.github.rpcp.model.RPCPMethod;
+import io.github.rpcp.model.RPCPSession;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CALL end to end from {@link RPCPHost#onGetMessage(String, Object)} to the RESULT sent to the session: read the frame,
+ * find the session and the method, execute the method and write the result. Invalid frame is measured until the
+ * ERROR reply, the cost of a client that send garbage.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HostBenchmark {
+
+    /**
+     * Send the body of the call back as the result
+     */
+    public static class Echo implements RPCPMethod {
+        @Override
+        public void execute(RPCPSession rpcpSession, MessageCall messageCall, RPCPBuilder rpcpBuilder) {
+            try {
+                rpcpSession.sendMessage(RPCPUtils.write(rpcpBuilder.result("200", messageCall.getBody())));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    @Param({"16", "1024", "65536"})
+    public int bodySize;
+
+    private RPCPHost<MemorySession> rpcpHost;
+    private MemorySession session;
+    private MemorySession invalidSession;
+    private String call;
+    private String invalid;
+    private byte[] callBytes;
+
+    @Setup
+    public void setup() {
+        rpcpHost = new RPCPHost<>(Frames.VHOST, new MemoryHostHandler());
+        rpcpHost.addMethod(Frames.METHOD, new Echo());
+
+        session = new MemorySession();
+        rpcpHost.onWsConnect(session);
+        rpcpHost.onGetMessage(Frames.CONNECT, session);
+
+        invalidSession = new MemorySession();
+        rpcpHost.onWsConnect(invalidSession);
+
+        call = Frames.Type.CALL.frame(bodySize);
+        invalid = "CAL" + call.substring(4);
+        callBytes = call.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void check() {
+        if (!session.getLastMessage().startsWith("RESULT " + Frames.METHOD + " 200")) {
+            throw new IllegalStateException("Unexpected reply " + session.getLastMessage());
+        }
+    }
+
+    @Benchmark
+    public long callString() {
+        rpcpHost.onGetMessage(call, session);
+        return session.getSentCount();
+    }
+
+    @Benchmark
+    public long callBytes() {
+        rpcpHost.onGetMessage(ByteBuffer.wrap(callBytes), session);
+        return session.getSentCount();
+    }
+
+    @Benchmark
+    public long invalidFrame() {
+        rpcpHost.onGetMessage(invalid, invalidSession);
+        return invalidSession.getSentCount();
+    }
+}
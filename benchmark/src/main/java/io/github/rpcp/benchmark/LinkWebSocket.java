@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.RPCPHost;
+
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process websocket from a client to a {@link RPCPHost}. Every connection has its own link thread, a message sent
+ * by the client wait the link time on the link thread before the host read it, the same as a connection that
+ * deliver one message at a time. The reply of the host is delivered to the client on the link thread.
+ */
+public class LinkWebSocket implements WebSocket {
+    private final RPCPHost<MemorySession> rpcpHost;
+    private final Listener listener;
+    private final long linkNanos;
+    private final ExecutorService link;
+    private final MemorySession session;
+    private volatile boolean outputClosed;
+
+    public LinkWebSocket(RPCPHost<MemorySession> rpcpHost, Listener listener, long linkNanos) {
+        this.rpcpHost = rpcpHost;
+        this.listener = listener;
+        this.linkNanos = linkNanos;
+        this.link = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "bench-link");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.session = new MemorySession() {
+            @Override
+            public void sendMessage(String msg) {
+                listener.onText(LinkWebSocket.this, msg, true);
+            }
+        };
+    }
+
+    /**
+     * Open the websocket to the host
+     */
+    public void open() {
+        rpcpHost.onWsConnect(session);
+        listener.onOpen(this);
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendText(CharSequence data, boolean last) {
+        if (outputClosed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Output closed"));
+        }
+
+        var message = data.toString();
+        link.execute(() -> {
+            LockSupport.parkNanos(linkNanos);
+            rpcpHost.onGetMessage(message, session);
+        });
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendBinary(ByteBuffer data, boolean last) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException());
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendPing(ByteBuffer message) {
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendPong(ByteBuffer message) {
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendClose(int statusCode, String reason) {
+        outputClosed = true;
+        var closed = new CompletableFuture<WebSocket>();
+        link.execute(() -> {
+            rpcpHost.onWsDisconnect(session, reason);
+            listener.onClose(this, statusCode, reason);
+            closed.complete(this);
+        });
+        link.shutdown();
+        return closed;
+    }
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public String getSubprotocol() {
+        return "";
+    }
+
+    @Override
+    public boolean isOutputClosed() {
+        return outputClosed;
+    }
+
+    @Override
+    public boolean isInputClosed() {
+        return link.isShutdown();
+    }
+
+    @Override
+    public void abort() {
+        sendClose(NORMAL_CLOSURE, "abort");
+    }
+
+    /**
+     * Builder that open {@link LinkWebSocket} to the host of the uri
+     */
+    public static class Builder implements WebSocket.Builder {
+        private final Map<URI, RPCPHost<MemorySession>> hosts;
+        private final long linkNanos;
+
+        /**
+         * @param hosts     host of every uri
+         * @param linkNanos time a message wait on the link before the host read it
+         */
+        public Builder(Map<URI, RPCPHost<MemorySession>> hosts, long linkNanos) {
+            this.hosts = hosts;
+            this.linkNanos = linkNanos;
+        }
+
+        @Override
+        public WebSocket.Builder header(String name, String value) {
+            return this;
+        }
+
+        @Override
+        public WebSocket.Builder connectTimeout(Duration timeout) {
+            return this;
+        }
+
+        @Override
+        public WebSocket.Builder subprotocols(String mostPreferred, String... lesserPreferred) {
+            return this;
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> buildAsync(URI uri, Listener listener) {
+            var rpcpHost = hosts.get(uri);
+            if (rpcpHost == null) {
+                return CompletableFuture.failedFuture(new Exception("Unknown host " + uri));
+            }
+
+            var webSocket = new LinkWebSocket(rpcpHost, listener, linkNanos);
+            webSocket.open();
+            return CompletableFuture.completedFuture(webSocket);
+        }
+    }
+}
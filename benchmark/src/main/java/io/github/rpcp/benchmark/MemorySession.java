@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.model.RPCPWebSocketSession;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory websocket session, the message sent is counted and kept until the next message.
+ * The same object is used as native websocket session and as RPCP websocket session.
+ */
+public class MemorySession implements RPCPWebSocketSession {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final String id = "bench-" + SEQUENCE.incrementAndGet();
+    private volatile boolean open = true;
+    private String lastMessage;
+    private long sentCount;
+
+    @Override
+    public void sendMessage(String msg) {
+        lastMessage = msg;
+        sentCount++;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    public String getLastMessage() {
+        return lastMessage;
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.RPCPBalancePolicy;
+import io.github.rpcp.RPCPClientPool;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.model.MessageResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link RPCPClientPool} by the pool size against two in-process hosts. Every connection is a
+ * {@link LinkWebSocket} that deliver one message at a time, so one connection cap the throughput and the throughput
+ * should grow with the pool size until the CPU is the limit.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PoolBenchmark {
+    static final int BATCH = 256;
+    static final long LINK_NANOS = 50_000;
+    static final URI NODE1 = URI.create("ws://node1/ws");
+    static final URI NODE2 = URI.create("ws://node2/ws");
+
+    @Param({"1", "2", "4", "8"})
+    public int poolSize;
+
+    @Param({"POWER_OF_TWO_CHOICES", "LEAST_OUTSTANDING"})
+    public RPCPBalancePolicy balance;
+
+    private RPCPClientPool pool;
+    private String body;
+
+    @Setup
+    public void setup() throws Exception {
+        var builder = new LinkWebSocket.Builder(Map.of(NODE1, host(), NODE2, host()), LINK_NANOS);
+        // a pool of one connection has one endpoint
+        var endpoints = poolSize == 1 ? List.of(NODE1) : List.of(NODE1, NODE2);
+        pool = new RPCPClientPool(builder, endpoints, poolSize, Frames.VHOST, "menjangan-benchmark/1.0");
+        pool.setBalancePolicy(balance);
+        pool.connect().get(10, TimeUnit.SECONDS);
+        while (pool.getHealthyCount() < poolSize) {
+            Thread.sleep(10);
+        }
+        body = Frames.body(16);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    private static RPCPHost<MemorySession> host() {
+        var rpcpHost = new RPCPHost<MemorySession>(Frames.VHOST, new MemoryHostHandler());
+        rpcpHost.addMethod(Frames.METHOD, new HostBenchmark.Echo());
+        return rpcpHost;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void call() throws Exception {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<MessageResult>[] calls = new CompletableFuture[BATCH];
+        for (var i = 0; i < BATCH; i++) {
+            calls[i] = pool.call(Frames.METHOD, "application/json", body);
+        }
+        CompletableFuture.allOf(calls).get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.rpcp.benchmark;
+
+import java.io.IOException;
+
+/**
+ * Blocking client of {@link TransportBenchmark}, the frame is prepared once and the reply is skipped without decoding
+ */
+public interface RawClient extends AutoCloseable {
+    /**
+     * Write the frame count times in one flush
+     */
+    void write(byte[] frame, int count) throws IOException;
+
+    /**
+     * Read and skip count messages
+     *
+     * @return total payload bytes
+     */
+    long readMessages(int count) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.rpcp.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal blocking client of the length prefixed TCP transport, the same wire cost as {@link RawWebSocketClient}
+ * without the handshake and the mask.
+ */
+public class RawTcpClient implements RawClient {
+    private final Socket socket;
+    private final OutputStream output;
+    private final DataInputStream input;
+
+    /**
+     * Connect and send the RPCP CONNECT
+     *
+     * @param port port of the server on loopback
+     */
+    public RawTcpClient(int port) throws IOException {
+        socket = new Socket("127.0.0.1", port);
+        socket.setTcpNoDelay(true);
+        output = socket.getOutputStream();
+        input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+
+        write(frame(Frames.CONNECT), 1);
+        readMessages(1);
+    }
+
+    /**
+     * @param text RPCP message
+     * @return length prefixed message
+     */
+    public static byte[] frame(String text) {
+        var payload = text.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(4 + payload.length).putInt(payload.length).put(payload).array();
+    }
+
+    @Override
+    public void write(byte[] frame, int count) throws IOException {
+        for (var i = 0; i < count; i++) {
+            output.write(frame);
+        }
+        output.flush();
+    }
+
+    @Override
+    public long readMessages(int count) throws IOException {
+        var total = 0L;
+        for (var i = 0; i < count; i++) {
+            var length = input.readInt();
+            input.skipNBytes(length);
+            total += length;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal blocking RFC 6455 client, the frame is masked once when prepared and the reply is skipped without decoding,
+ * so the time measured is mostly the server.
+ */
+public class RawWebSocketClient implements RawClient {
+    private static final byte[] MASK = {0x37, (byte) 0xFA, 0x21, 0x3D};
+
+    private final Socket socket;
+    private final OutputStream output;
+    private final DataInputStream input;
+
+    /**
+     * Connect, upgrade and send the RPCP CONNECT
+     *
+     * @param port port of the server on loopback
+     * @param path path of the websocket endpoint
+     */
+    public RawWebSocketClient(int port, String path) throws IOException {
+        socket = new Socket("127.0.0.1", port);
+        socket.setTcpNoDelay(true);
+        output = socket.getOutputStream();
+        input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+
+        var request = "GET " + path + " HTTP/1.1\r\n" +
+                "Host: 127.0.0.1:" + port + "\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                "Sec-WebSocket-Version: 13\r\n" +
+                "\r\n";
+        output.write(request.getBytes(StandardCharsets.ISO_8859_1));
+        output.flush();
+
+        var status = new StringBuilder();
+        var lineBreaks = 0;
+        while (lineBreaks < 4) {
+            var c = input.read();
+            if (c < 0) {
+                throw new IOException("Connection closed during handshake");
+            }
+            status.append((char) c);
+            lineBreaks = c == '\r' || c == '\n' ? lineBreaks + 1 : 0;
+        }
+        if (!status.toString().startsWith("HTTP/1.1 101")) {
+            throw new IOException("Handshake failed: " + status);
+        }
+
+        write(frame(Frames.CONNECT), 1);
+        readMessages(1);
+    }
+
+    /**
+     * @param text RPCP message
+     * @return masked text frame
+     */
+    public static byte[] frame(String text) {
+        var payload = text.getBytes(StandardCharsets.UTF_8);
+        var frame = ByteBuffer.allocate(14 + payload.length);
+        frame.put((byte) 0x81);
+        if (payload.length < 126) {
+            frame.put((byte) (0x80 | payload.length));
+        } else if (payload.length < 65536) {
+            frame.put((byte) (0x80 | 126)).putShort((short) payload.length);
+        } else {
+            frame.put((byte) (0x80 | 127)).putLong(payload.length);
+        }
+        frame.put(MASK);
+        for (var i = 0; i < payload.length; i++) {
+            frame.put((byte) (payload[i] ^ MASK[i & 3]));
+        }
+
+        var bytes = new byte[frame.position()];
+        frame.flip().get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void write(byte[] frame, int count) throws IOException {
+        for (var i = 0; i < count; i++) {
+            output.write(frame);
+        }
+        output.flush();
+    }
+
+    /**
+     * The message can be fragmented in many frames
+     */
+    @Override
+    public long readMessages(int count) throws IOException {
+        var total = 0L;
+        for (var i = 0; i < count; i++) {
+            var fin = false;
+            while (!fin) {
+                fin = (input.readUnsignedByte() & 0x80) != 0;
+                var length = (long) (input.readUnsignedByte() & 0x7F);
+                if (length == 126) {
+                    length = input.readUnsignedShort();
+                } else if (length == 127) {
+                    length = input.readLong();
+                }
+                input.skipNBytes(length);
+                total += length;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.RPCPHost;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Heap retained by the host per connected session. The {@link MemorySession} are created first, then N session are
+ * connected to a new host and the heap used after a full GC is compared. Only the session registry, the records and
+ * the maps of the host are counted. Run with the serial GC so the heap used after {@link System#gc()} is exact:
+ * <pre>
+ * java -XX:+UseSerialGC -Xmx3g -cp target/benchmarks.jar io.github.rpcp.benchmark.SessionFootprint 100000 1000000
+ * </pre>
+ */
+public final class SessionFootprint {
+    private SessionFootprint() {
+    }
+
+    public static void main(String[] args) {
+        var counts = args.length == 0 ? new String[]{"100000", "1000000"} : args;
+        for (var count : counts) {
+            // first round warm up the host classes
+            measure(Integer.parseInt(count));
+            var bytes = measure(Integer.parseInt(count));
+            System.out.printf("sessions: %d, host retained: %d B/session%n", Integer.parseInt(count), bytes);
+        }
+    }
+
+    private static long measure(int count) {
+        var memorySessions = new MemorySession[count];
+        for (var i = 0; i < count; i++) {
+            memorySessions[i] = new MemorySession();
+        }
+
+        var before = usedHeap();
+        var rpcpHost = new RPCPHost<>(Frames.VHOST, new MemoryHostHandler());
+        for (var session : memorySessions) {
+            rpcpHost.onWsConnect(session);
+            rpcpHost.onGetMessage(Frames.CONNECT, session);
+        }
+        var after = usedHeap();
+        if (rpcpHost.getSessionCount() != count) {
+            throw new IllegalStateException("Sessions not connected: " + rpcpHost.getSessionCount());
+        }
+        return (after - before) / count;
+    }
+
+    private static long usedHeap() {
+        for (var i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
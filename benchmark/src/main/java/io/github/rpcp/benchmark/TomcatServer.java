@@ -0,0 +1,176 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.model.MessageConnect;
+import io.github.rpcp.model.MessageDisconnect;
+import io.github.rpcp.model.RPCPHostHandler;
+import io.github.rpcp.model.RPCPWebSocketSession;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.MessageHandler;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.ServerContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.websocket.server.WsSci;
+
+import java.nio.file.Files;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Embedded Tomcat with a JSR 356 endpoint that forward to {@link RPCPHost} the same way as the framework adapters:
+ * the text frame is decoded to String by the container and the reply is sent with the basic remote.
+ */
+public class TomcatServer implements AutoCloseable {
+    private static final Logger TOMCAT_LOGGER = Logger.getLogger("org.apache");
+
+    static {
+        TOMCAT_LOGGER.setLevel(Level.WARNING);
+    }
+
+    private final Tomcat tomcat = new Tomcat();
+
+    /**
+     * Start Tomcat on a free port with the endpoint at "/ws"
+     *
+     * @param rpcpHost host of the connections
+     */
+    public TomcatServer(RPCPHost<Session> rpcpHost) throws Exception {
+        tomcat.setBaseDir(Files.createTempDirectory("bench-tomcat").toString());
+        tomcat.setPort(0);
+        tomcat.getConnector();
+
+        var context = tomcat.addContext("", null);
+        // the upgrade filter run only for a request mapped to a servlet, like the dispatcher servlet of Spring
+        Tomcat.addServlet(context, "default", new HttpServlet() {
+        });
+        context.addServletMappingDecoded("/", "default");
+        context.addServletContainerInitializer(new WsSci(), null);
+        context.addServletContainerInitializer((classes, servletContext) -> {
+            var container = (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+            try {
+                container.addEndpoint(ServerEndpointConfig.Builder.create(RPCPEndpoint.class, "/ws")
+                        .configurator(new ServerEndpointConfig.Configurator() {
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public <T> T getEndpointInstance(Class<T> endpointClass) {
+                                return (T) new RPCPEndpoint(rpcpHost);
+                            }
+                        })
+                        .build());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, null);
+        tomcat.start();
+    }
+
+    public int getPort() {
+        return tomcat.getConnector().getLocalPort();
+    }
+
+    @Override
+    public void close() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    /**
+     * Endpoint of the host, one instance per connection
+     */
+    public static class RPCPEndpoint extends Endpoint {
+        private final RPCPHost<Session> rpcpHost;
+
+        public RPCPEndpoint(RPCPHost<Session> rpcpHost) {
+            this.rpcpHost = rpcpHost;
+        }
+
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+            // message size limit of the framework configuration, the default 8 KiB is too small for the body size
+            session.setMaxTextMessageBufferSize(1024 * 1024);
+            rpcpHost.onWsConnect(session);
+            session.addMessageHandler(String.class,
+                    (MessageHandler.Whole<String>) message -> rpcpHost.onGetMessage(message, session));
+        }
+
+        @Override
+        public void onClose(Session session, CloseReason closeReason) {
+            rpcpHost.onWsDisconnect(session, closeReason.getReasonPhrase());
+        }
+    }
+
+    /**
+     * Host handler that accept every connect and wrap the JSR 356 session
+     */
+    public static class HostHandler implements RPCPHostHandler<Session> {
+        @Override
+        public boolean onPreConnect(MessageConnect messageConnect, RPCPWebSocketSession session) {
+            return true;
+        }
+
+        @Override
+        public void onConnect(MessageConnect messageConnect, RPCPWebSocketSession session) {
+
+        }
+
+        @Override
+        public void onDisconnect(MessageDisconnect messageDisconnect, RPCPWebSocketSession session) {
+
+        }
+
+        @Override
+        public String getWsSessionId(Session session) {
+            return session.getId();
+        }
+
+        @Override
+        public RPCPWebSocketSession buildWebsocketSession(Session session) {
+            return new RPCPWebSocketSession() {
+                @Override
+                public void sendMessage(String msg) throws Exception {
+                    // the basic remote is not thread safe
+                    synchronized (session) {
+                        session.getBasicRemote().sendText(msg);
+                    }
+                }
+
+                @Override
+                public void close() throws Exception {
+                    session.close();
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return session.isOpen();
+                }
+
+                @Override
+                public String getId() {
+                    return session.getId();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.benchmark;
+
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.model.MessageConnect;
+import io.github.rpcp.model.MessageDisconnect;
+import io.github.rpcp.model.RPCPHostHandler;
+import io.github.rpcp.model.RPCPWebSocketSession;
+import io.github.rpcp.transport.NioTcpSession;
+import io.github.rpcp.transport.NioWebSocketSession;
+import io.github.rpcp.transport.RPCPTcpServer;
+import io.github.rpcp.transport.RPCPWebSocketServer;
+import jakarta.websocket.Session;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CALL over loopback websocket served by {@link RPCPWebSocketServer} or by embedded Tomcat with the JSR 356 adapter
+ * that the framework integrations use, and over the length prefixed TCP of {@link RPCPTcpServer}. Round trip of one
+ * call, throughput of pipelined calls and the time to start and stop the server. The client is {@link RawClient}, the
+ * JDK websocket client cost more than the server and hide the difference.
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+    static final int BATCH = 256;
+    // the blocking container stop reading while its reply is not read, the calls in flight are limited by bytes
+    static final int WINDOW_BYTES = 256 * 1024;
+
+    @Param({"NIO", "TCP", "TOMCAT"})
+    public String transport;
+
+    @Param({"16", "16384"})
+    public int bodySize;
+
+    private AutoCloseable server;
+    private RawClient client;
+    private byte[] call;
+    private int window;
+
+    /**
+     * Host handler of {@link NioWebSocketSession} and {@link NioTcpSession}, the session is the RPCP websocket session
+     */
+    public static class NioHostHandler<S extends RPCPWebSocketSession> implements RPCPHostHandler<S> {
+        @Override
+        public boolean onPreConnect(MessageConnect messageConnect, RPCPWebSocketSession session) {
+            return true;
+        }
+
+        @Override
+        public void onConnect(MessageConnect messageConnect, RPCPWebSocketSession session) {
+
+        }
+
+        @Override
+        public void onDisconnect(MessageDisconnect messageDisconnect, RPCPWebSocketSession session) {
+
+        }
+
+        @Override
+        public String getWsSessionId(S session) {
+            return session.getId();
+        }
+
+        @Override
+        public RPCPWebSocketSession buildWebsocketSession(S session) {
+            return session;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        var text = Frames.Type.CALL.frame(bodySize);
+        if ("NIO".equals(transport)) {
+            var nio = startNio();
+            server = nio;
+            client = new RawWebSocketClient(nio.getPort(), "/ws");
+            call = RawWebSocketClient.frame(text);
+        } else if ("TCP".equals(transport)) {
+            var tcp = startTcp();
+            server = tcp;
+            client = new RawTcpClient(tcp.getPort());
+            call = RawTcpClient.frame(text);
+        } else {
+            var tomcat = startTomcat();
+            server = tomcat;
+            client = new RawWebSocketClient(tomcat.getPort(), "/ws");
+            call = RawWebSocketClient.frame(text);
+        }
+        window = Math.min(BATCH, Math.max(1, WINDOW_BYTES / call.length));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    private static RPCPWebSocketServer startNio() throws Exception {
+        var rpcpHost = new RPCPHost<NioWebSocketSession>(Frames.VHOST, new NioHostHandler<>());
+        rpcpHost.addMethod(Frames.METHOD, new HostBenchmark.Echo());
+        var nio = new RPCPWebSocketServer(rpcpHost, new InetSocketAddress("127.0.0.1", 0));
+        nio.setPath("/ws");
+        return nio.start();
+    }
+
+    private static RPCPTcpServer startTcp() throws Exception {
+        var rpcpHost = new RPCPHost<NioTcpSession>(Frames.VHOST, new NioHostHandler<>());
+        rpcpHost.addMethod(Frames.METHOD, new HostBenchmark.Echo());
+        return new RPCPTcpServer(rpcpHost, new InetSocketAddress("127.0.0.1", 0)).start();
+    }
+
+    private static TomcatServer startTomcat() throws Exception {
+        var rpcpHost = new RPCPHost<Session>(Frames.VHOST, new TomcatServer.HostHandler());
+        rpcpHost.addMethod(Frames.METHOD, new HostBenchmark.Echo());
+        return new TomcatServer(rpcpHost);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long roundTrip() throws Exception {
+        client.write(call, 1);
+        return client.readMessages(1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long pipelined() throws Exception {
+        client.write(call, window);
+        var total = 0L;
+        for (var sent = window; sent < BATCH; sent++) {
+            total += client.readMessages(1);
+            client.write(call, 1);
+        }
+        return total + client.readMessages(window);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public void startStop() throws Exception {
+        try (var started = start()) {
+            // started and listening
+        }
+    }
+
+    private AutoCloseable start() throws Exception {
+        switch (transport) {
+            case "NIO":
+                return startNio();
+            case "TCP":
+                return startTcp();
+            default:
+                return startTomcat();
+        }
+    }
+}
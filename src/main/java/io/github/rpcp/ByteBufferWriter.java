@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Appendable that encode the characters as UTF-8 directly into a ByteBuffer, ASCII character is written as is.
+ * Unpaired surrogate is written as '?' same as the JDK UTF-8 encoder.
+ * @author Eric A. Sanjaya
+ */
+final class ByteBufferWriter implements Appendable {
+    private final ByteBuffer target;
+
+    ByteBufferWriter(ByteBuffer target) {
+        this.target = target;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) {
+        if (csq == null) {
+            csq = "null";
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+        if (csq == null) {
+            csq = "null";
+        }
+
+        for (var i = start; i < end; i++) {
+            var c = csq.charAt(i);
+            if (c < 0x80) {
+                target.put((byte) c);
+            } else if (c < 0x800) {
+                target.put((byte) (0xC0 | (c >> 6)));
+                target.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(csq.charAt(i + 1))) {
+                var codePoint = Character.toCodePoint(c, csq.charAt(++i));
+                target.put((byte) (0xF0 | (codePoint >> 18)));
+                target.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                target.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                target.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                target.put((byte) '?');
+            } else {
+                target.put((byte) (0xE0 | (c >> 12)));
+                target.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                target.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+        if (c < 0x80) {
+            target.put((byte) c);
+            return this;
+        }
+        return append(String.valueOf(c), 0, 1);
+    }
+}
@@ -26,4 +26,24 @@ public class Config {
     public static List<String> supportProtocolVersion = List.of("1.0");
 
     public static String hostVersion = "Menjangan/1.0";
+
+    /**
+     * Maximum characters of command and header when message received in parts
+     */
+    public static int maxHeadLength = 8192;
+
+    /**
+     * Number of thread of {@link RPCPCallDispatcher#newCallExecutor()}
+     */
+    public static int callThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * Maximum call waiting in queue of {@link RPCPCallDispatcher#newCallExecutor()}
+     */
+    public static int callQueueCapacity = 10000;
+
+    /**
+     * Minimum number of target session before broadcast is sent in parallel on the common pool
+     */
+    public static long broadcastParallelismThreshold = 1024;
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+/**
+ * How {@link RPCPClientPool} choose the connection for a call, by the number of call waiting the reply on the
+ * connection
+ * @author Eric A. Sanjaya
+ */
+public enum RPCPBalancePolicy {
+    /**
+     * Check every healthy connection and choose the one with the fewest call waiting the reply
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * Choose two healthy connection at random and take the one with fewer call waiting the reply. Almost as even as
+     * {@link #LEAST_OUTSTANDING} with a constant cost for any pool size.
+     */
+    POWER_OF_TWO_CHOICES
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Run the CALL of {@link RPCPHost} on an {@link Executor}, so a slow method does not hold the websocket I/O thread
+ * and delay the other session. Count the call that wait in queue, running, completed and rejected.
+ * <p>
+ * In session ordered mode every session have a serial queue on the shared executor, the call of one session run
+ * one by one in arrival order and the call of different session run in parallel, without a thread per session.
+ * The serial queue hold the call before the executor see it, so the call waiting in all serial queue are bounded by
+ * the queue capacity of the executor, the call over it is rejected like the executor does.
+ * <pre>
+ * {@code
+ *      rpcpHost.setCallExecutor(RPCPCallDispatcher.newCallExecutor(16, 10000), true);
+ *      rpcpHost.getCallDispatcher().getQueueDepth();
+ * }
+ * </pre>
+ * @author Eric A. Sanjaya
+ */
+public final class RPCPCallDispatcher {
+    private final Executor executor;
+    private final boolean sessionOrdered;
+    private final int maxQueueDepth;
+    private final ConcurrentHashMap<String, SerialExecutor> sessionExecutors = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Create dispatcher that run the call on the executor
+     * @param executor executor for the call, null to run the call on the thread that receive the message
+     */
+    public RPCPCallDispatcher(Executor executor) {
+        this(executor, false);
+    }
+
+    /**
+     * Create dispatcher that run the call on the executor
+     * @param executor       executor for the call, null to run the call on the thread that receive the message
+     * @param sessionOrdered true to run the call of one session one by one in arrival order
+     */
+    public RPCPCallDispatcher(Executor executor, boolean sessionOrdered) {
+        this.executor = executor;
+        this.sessionOrdered = sessionOrdered;
+        this.maxQueueDepth = queueCapacity(executor);
+    }
+
+    /**
+     * @return capacity of the queue of the thread pool, {@link Config#callQueueCapacity} for other executor or a pool
+     * without queue
+     */
+    private static int queueCapacity(Executor executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            var queue = ((ThreadPoolExecutor) executor).getQueue();
+            var capacity = (long) queue.size() + queue.remainingCapacity();
+            if (capacity > 0) {
+                return (int) Math.min(capacity, Integer.MAX_VALUE);
+            }
+        }
+        return Config.callQueueCapacity;
+    }
+
+    /**
+     * @return new dispatcher that run the call on the thread that receive the message, the default of RPCP Host.
+     * An exception of the method reach the caller of onGetMessage of the host
+     */
+    public static RPCPCallDispatcher direct() {
+        return new RPCPCallDispatcher(null);
+    }
+
+    /**
+     * Create executor with fixed number of daemon thread and bounded queue, call that does not fit the queue is
+     * rejected and the client receive ERROR frame "Server busy".
+     * @param threads       number of thread
+     * @param queueCapacity maximum call waiting in queue
+     * @return new executor, shutdown the executor when not used anymore
+     */
+    public static ExecutorService newCallExecutor(int threads, int queueCapacity) {
+        var threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+            var thread = new Thread(runnable, "rpcp-call-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create executor with {@link Config#callThreads} thread and {@link Config#callQueueCapacity} queue
+     * @return new executor, shutdown the executor when not used anymore
+     * @see #newCallExecutor(int, int)
+     */
+    public static ExecutorService newCallExecutor() {
+        return newCallExecutor(Config.callThreads, Config.callQueueCapacity);
+    }
+
+    /**
+     * Create executor that run every call on a new virtual thread, so blocking method does not hold a platform
+     * thread. Available when running on Java 21 or newer.
+     * <pre>
+     * {@code
+     *      if (RPCPCallDispatcher.isVirtualThreadSupported()) {
+     *          rpcpHost.setCallExecutor(RPCPCallDispatcher.newVirtualThreadExecutor());
+     *      }
+     * }
+     * </pre>
+     * @return new executor, shutdown the executor when not used anymore
+     * @throws UnsupportedOperationException if running on Java older than 21
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        return VirtualThreads.newExecutor();
+    }
+
+    /**
+     * @return true if {@link #newVirtualThreadExecutor()} is available on the running Java
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.isSupported();
+    }
+
+    /**
+     * @return executor of the call, null in direct mode
+     */
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return true if the call run on the thread that receive the message
+     */
+    public boolean isDirect() {
+        return executor == null;
+    }
+
+    /**
+     * @return true if the call of one session run one by one in arrival order
+     */
+    public boolean isSessionOrdered() {
+        return sessionOrdered;
+    }
+
+    /**
+     * Run the task on the executor, or on the caller thread in direct mode
+     * @param sessionId id of the session that send the call
+     * @param task      the call, an exception of the task is thrown to the caller in direct mode
+     * @return false if the executor reject the task, or the session ordered queue is full
+     */
+    boolean dispatch(String sessionId, Runnable task) {
+        if (executor == null) {
+            run(task);
+            return true;
+        }
+
+        var depth = queueDepth.incrementAndGet();
+        if (sessionOrdered && depth > maxQueueDepth) {
+            // the serial queue does not pass the call to the executor while a call of the session run
+            queueDepth.decrementAndGet();
+            rejectedCount.increment();
+            return false;
+        }
+        peakQueueDepth.accumulateAndGet(depth, Math::max);
+        var target = sessionOrdered
+                ? sessionExecutors.computeIfAbsent(sessionId, id -> new SerialExecutor(executor))
+                : executor;
+        try {
+            target.execute(() -> {
+                queueDepth.decrementAndGet();
+                run(task);
+            });
+        } catch (RejectedExecutionException e) {
+            queueDepth.decrementAndGet();
+            rejectedCount.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Forget the serial queue of the session, the call already in the queue still run
+     * @param sessionId id of the session
+     */
+    void removeSession(String sessionId) {
+        if (sessionOrdered) {
+            sessionExecutors.remove(sessionId);
+        }
+    }
+
+    private void run(Runnable task) {
+        activeCount.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            activeCount.decrementAndGet();
+            completedCount.increment();
+        }
+    }
+
+    /**
+     * @return number of call waiting for a thread
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return maximum call waiting in the serial queue of all session in session ordered mode, the call over it is
+     * rejected
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return highest number of call waiting for a thread since created
+     */
+    public int getPeakQueueDepth() {
+        return peakQueueDepth.get();
+    }
+
+    /**
+     * @return number of call running now
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * @return number of call finished, include the call that throw exception
+     */
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    /**
+     * @return number of session that have a serial queue in session ordered mode, the queue is removed when the
+     * session disconnect
+     */
+    public int getSessionQueueCount() {
+        return sessionExecutors.size();
+    }
+
+    /**
+     * @return number of call rejected by the executor or the full session ordered queue
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.MessageError;
+
+/**
+ * The host reply the call with ERROR, the error is kept so the caller can read the body of the error
+ * @author Eric A. Sanjaya
+ */
+public class RPCPCallException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final transient MessageError error;
+
+    public RPCPCallException(MessageError error) {
+        super(error.getHeader().getMessage());
+        this.error = error;
+    }
+
+    /**
+     * @return ERROR sent by the host
+     */
+    public MessageError getError() {
+        return error;
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * RPCP client over the JDK websocket. The CALL is sent without waiting the reply of the previous call, every call
+ * have an unique id and the RESULT or ERROR is matched to the call by the id header, so many call can be in flight
+ * on one websocket and the reply can come in any order.
+ * <pre>
+ * {@code
+ *      var client = RPCPClient.connect(URI.create("wss://api.glexpress.id/ws"), "api.glexpress.id/ws", "my-service/1.0")
+ *              .get(10, TimeUnit.SECONDS);
+ *      client.call("procedure.sum", "application/json", "{\"a\": 10, \"b\": 20}")
+ *              .thenAccept(result -> System.out.println(result.getBody()));
+ * }
+ * </pre>
+ * The future of the call is completed on the thread that read the websocket, use the async method of the future for
+ * a long task. The future of a call that never replied is never completed, use
+ * {@link CompletableFuture#orTimeout(long, java.util.concurrent.TimeUnit)}, the call is forgotten when the future
+ * completed.
+ * @author Eric A. Sanjaya
+ */
+public class RPCPClient implements AutoCloseable {
+    public static final String PROTOCOL_VERSION = "RPCP/1.0";
+    private static final Object CLOSE = new Object();
+
+    private final String vHost;
+    private final String agent;
+
+    private final ConcurrentHashMap<String, PendingCall> pendingCalls = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Consumer<MessageEvent>> eventListeners = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+
+    private final ConcurrentLinkedQueue<Object> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicBoolean closing = new AtomicBoolean();
+
+    private final CompletableFuture<RPCPClient> connectFuture = new CompletableFuture<>();
+    private final CompletableFuture<Void> closeFuture = new CompletableFuture<>();
+    private volatile WebSocket webSocket;
+    private volatile MessageConnected connected;
+
+    private static final class PendingCall {
+        final CompletableFuture<MessageResult> future = new CompletableFuture<>();
+        final RPCPCallListener listener;
+
+        PendingCall(RPCPCallListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    private RPCPClient(String vHost, String agent) {
+        this.vHost = vHost;
+        this.agent = agent;
+    }
+
+    /**
+     * Open websocket to the host and connect to the vHost with a new {@link HttpClient}
+     *
+     * @param uri   websocket uri of the host, ex. wss://api.glexpress.id/ws
+     * @param vHost vHost to connect
+     * @param agent agent header of the CONNECT
+     * @return future completed after CONNECTED received, completed exceptionally when the websocket failed to open
+     * or the host reply with ERROR
+     */
+    public static CompletableFuture<RPCPClient> connect(URI uri, String vHost, String agent) {
+        return connect(HttpClient.newHttpClient().newWebSocketBuilder(), uri, vHost, agent);
+    }
+
+    /**
+     * Open websocket to the host and connect to the vHost
+     *
+     * @param builder websocket builder, ex. with the header or connect timeout of the application
+     * @param uri     websocket uri of the host
+     * @param vHost   vHost to connect
+     * @param agent   agent header of the CONNECT
+     * @return future completed after CONNECTED received
+     */
+    public static CompletableFuture<RPCPClient> connect(WebSocket.Builder builder, URI uri, String vHost,
+                                                        String agent) {
+        var client = new RPCPClient(vHost, agent);
+        builder.buildAsync(uri, client.new Listener()).whenComplete((webSocket, error) -> {
+            if (error != null) {
+                client.connectFuture.completeExceptionally(error);
+                client.closeFuture.complete(null);
+            }
+        });
+        return client.connectFuture;
+    }
+
+    /**
+     * Call the method of the host, the call is sent without waiting the reply of the previous call
+     *
+     * @param method      method name
+     * @param contentType content type of the body
+     * @param body        body of the call
+     * @return future completed with the RESULT, completed exceptionally with {@link RPCPCallException} when the host
+     * reply with ERROR, or with Exception "Connection closed" when the websocket closed before the reply
+     */
+    public CompletableFuture<MessageResult> call(String method, String contentType, String body) {
+        return call(method, contentType, body, null);
+    }
+
+    /**
+     * Call the method of the host and receive the PLAN and PROGRESS of the call
+     *
+     * @param method      method name
+     * @param contentType content type of the body
+     * @param body        body of the call
+     * @param listener    receiver of the PLAN and PROGRESS, can be null
+     * @return future completed with the RESULT
+     * @see #call(String, String, String)
+     */
+    public CompletableFuture<MessageResult> call(String method, String contentType, String body,
+                                                 RPCPCallListener listener) {
+        var id = Long.toString(nextId.incrementAndGet());
+        var pending = new PendingCall(listener);
+        var future = pending.future;
+
+        var call = new MessageCall(method, new HeaderCall(contentType, id));
+        call.setBody(body);
+        String frame;
+        try {
+            frame = RPCPUtils.write(call);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        // registered before sent, the reply can come before send return
+        pendingCalls.put(id, pending);
+        future.whenComplete((result, error) -> pendingCalls.remove(id, pending));
+        if (closing.get()) {
+            future.completeExceptionally(new Exception("Connection closed"));
+            return future;
+        }
+
+        send(frame);
+        return future;
+    }
+
+    /**
+     * Subscribe the event, the listener receive every EVENT with the event name. Subscribe the same event again
+     * replace the listener.
+     *
+     * @param event    event name
+     * @param listener receiver of the event, called on the thread that read the websocket
+     */
+    public void subscribe(String event, Consumer<MessageEvent> listener) {
+        eventListeners.put(event, listener);
+        send("SUBSCRIBE " + event + "\r\n\r\n");
+    }
+
+    /**
+     * @param event event name
+     */
+    public void unsubscribe(String event) {
+        eventListeners.remove(event);
+        send("UNSUBSCRIBE " + event + "\r\n\r\n");
+    }
+
+    /**
+     * @return CONNECTED of the host, with the method and event of the vHost
+     */
+    public MessageConnected getConnected() {
+        return connected;
+    }
+
+    /**
+     * @return vHost of the client
+     */
+    public String getVHost() {
+        return vHost;
+    }
+
+    /**
+     * @return number of call waiting the reply
+     */
+    public int getPendingCallCount() {
+        return pendingCalls.size();
+    }
+
+    /**
+     * @return true until the websocket closed or {@link #close()} called
+     */
+    public boolean isOpen() {
+        return !closing.get() && !closeFuture.isDone();
+    }
+
+    /**
+     * @return future completed when the websocket closed, by the host or by {@link #close()}
+     */
+    public CompletableFuture<Void> getCloseFuture() {
+        return closeFuture;
+    }
+
+    /**
+     * Send DISCONNECT and close the websocket after the frames already queued, call waiting the reply is failed
+     */
+    @Override
+    public void close() {
+        if (!closing.compareAndSet(false, true)) {
+            return;
+        }
+
+        failPendingCalls(new Exception("Connection closed"));
+        if (webSocket == null) {
+            closed(new Exception("Connection closed"));
+            return;
+        }
+        send(write(new MessageDisconnect(vHost)));
+        send(CLOSE);
+    }
+
+    /**
+     * Queue the frame, the JDK websocket does not allow the next send before the previous send complete, so the
+     * frames are sent one by one by the thread that win the sending flag.
+     */
+    private void send(Object frame) {
+        outbound.offer(frame);
+        flush();
+    }
+
+    private void flush() {
+        while (!outbound.isEmpty() && webSocket != null && sending.compareAndSet(false, true)) {
+            Object frame;
+            while ((frame = outbound.poll()) != null) {
+                var sent = frame == CLOSE
+                        ? webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "")
+                        : webSocket.sendText((String) frame, true);
+                if (frame == CLOSE) {
+                    sent.whenComplete((ws, error) -> closed(new Exception("Connection closed")));
+                }
+                if (!sent.isDone()) {
+                    // continue when the send complete, on the websocket thread
+                    sent.whenComplete((ws, error) -> {
+                        sending.set(false);
+                        if (error != null) {
+                            closed(error);
+                            return;
+                        }
+                        flush();
+                    });
+                    return;
+                }
+                if (sent.isCompletedExceptionally()) {
+                    sending.set(false);
+                    sent.exceptionally(error -> {
+                        closed(error);
+                        return null;
+                    });
+                    return;
+                }
+            }
+            sending.set(false);
+        }
+    }
+
+    private static String write(RPCPMessage message) {
+        try {
+            return RPCPUtils.write(message);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void closed(Throwable error) {
+        closing.set(true);
+        outbound.clear();
+        failPendingCalls(error);
+        connectFuture.completeExceptionally(error);
+        closeFuture.complete(null);
+    }
+
+    private void failPendingCalls(Throwable error) {
+        for (var id : pendingCalls.keySet()) {
+            var pending = pendingCalls.remove(id);
+            if (pending != null) {
+                pending.future.completeExceptionally(error);
+            }
+        }
+    }
+
+    private void onMessage(String text) {
+        var parsed = RPCPUtils.parse(text);
+        if (!parsed.isSuccess()) {
+            return;
+        }
+
+        var message = parsed.getMessage();
+        if (message instanceof MessageResult) {
+            var result = (MessageResult) message;
+            var pending = pendingCalls.remove(result.getHeader().getId());
+            if (pending != null) {
+                pending.future.complete(result);
+            }
+        } else if (message instanceof MessagePlan) {
+            var plan = (MessagePlan) message;
+            var pending = pendingCalls.get(plan.getHeader().getId());
+            if (pending != null && pending.listener != null) {
+                pending.listener.onPlan(plan);
+            }
+        } else if (message instanceof MessageProgress) {
+            var progress = (MessageProgress) message;
+            var pending = pendingCalls.get(progress.getHeader().getId());
+            if (pending != null && pending.listener != null) {
+                pending.listener.onProgress(progress);
+            }
+        } else if (message instanceof MessageEvent) {
+            var event = (MessageEvent) message;
+            var listener = eventListeners.get(event.getMethod());
+            if (listener != null) {
+                listener.accept(event);
+            }
+        } else if (message instanceof MessageError) {
+            onError((MessageError) message);
+        } else if (message instanceof MessageConnected) {
+            connected = (MessageConnected) message;
+            connectFuture.complete(this);
+        } else if (message instanceof MessagePing) {
+            send(write(new MessagePong()));
+        }
+    }
+
+    private void onError(MessageError error) {
+        var id = error.getHeader().getId();
+        var pending = id == null ? null : pendingCalls.remove(id);
+        if (pending != null) {
+            pending.future.completeExceptionally(new RPCPCallException(error));
+        } else if (!connectFuture.isDone()) {
+            // connect rejected by the host
+            connectFuture.completeExceptionally(new RPCPCallException(error));
+        }
+    }
+
+    private class Listener implements WebSocket.Listener {
+        private final StringBuilder parts = new StringBuilder();
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            RPCPClient.this.webSocket = webSocket;
+            webSocket.request(1);
+            var connect = new MessageConnect(vHost, PROTOCOL_VERSION, new HeaderConnect(agent));
+            send(write(connect));
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            if (!last) {
+                parts.append(data);
+            } else if (parts.length() == 0) {
+                onMessage(data.toString());
+            } else {
+                parts.append(data);
+                var text = parts.toString();
+                parts.setLength(0);
+                onMessage(text);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            closed(new Exception("Connection closed"));
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            closed(error);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.MessageEvent;
+import io.github.rpcp.model.MessageResult;
+import io.github.rpcp.model.RPCPCallListener;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Pool of connections to a set of RPCP hosts, every call is sent on one connection chosen by the
+ * {@link RPCPBalancePolicy}, the default is {@link RPCPBalancePolicy#POWER_OF_TWO_CHOICES}. The connections are
+ * spread over the endpoints in turn, a pool of 4 over 2 endpoints has 2 connections to each host.
+ * <p>
+ * Every connection is a {@link RPCPReconnectingClient}. A connection that is not connected is unhealthy, it is not
+ * chosen until it reconnect. When no connection is healthy the call is given to the connections in turn and handled
+ * by the {@link RPCPRetryPolicy} of the method.
+ * <p>
+ * An event is subscribed on one connection of every endpoint, so the event published by a host is received once.
+ * <pre>
+ * {@code
+ *      var pool = new RPCPClientPool(List.of(uri1, uri2), 8, "api.glexpress.id/ws", "my-service/1.0");
+ *      pool.connect().get(10, TimeUnit.SECONDS);
+ *      pool.call("procedure.getPrice", "application/json", "{\"symbol\": \"BBCA\"}")
+ *          .thenAccept(result -> System.out.println(result.getBody()));
+ * }
+ * </pre>
+ * @author Eric A. Sanjaya
+ */
+public class RPCPClientPool implements AutoCloseable {
+    private final RPCPReconnectingClient[] members;
+    private final RPCPReconnectingClient[] eventMembers;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile RPCPBalancePolicy balancePolicy = RPCPBalancePolicy.POWER_OF_TWO_CHOICES;
+
+    /**
+     * Create pool with a new {@link HttpClient}, call {@link #connect()} to start
+     *
+     * @param endpoints websocket uri of the hosts
+     * @param size      number of connections
+     * @param vHost     vHost to connect
+     * @param agent     agent header of the CONNECT
+     */
+    public RPCPClientPool(List<URI> endpoints, int size, String vHost, String agent) {
+        this(HttpClient.newHttpClient().newWebSocketBuilder(), endpoints, size, vHost, agent);
+    }
+
+    /**
+     * Create pool, call {@link #connect()} to start
+     *
+     * @param builder   websocket builder used for every connect
+     * @param endpoints websocket uri of the hosts
+     * @param size      number of connections, at least the number of endpoints
+     * @param vHost     vHost to connect
+     * @param agent     agent header of the CONNECT
+     */
+    public RPCPClientPool(WebSocket.Builder builder, List<URI> endpoints, int size, String vHost, String agent) {
+        if (endpoints.isEmpty() || size < endpoints.size()) {
+            throw new IllegalArgumentException("Pool size must be at least the number of endpoints");
+        }
+
+        members = new RPCPReconnectingClient[size];
+        eventMembers = new RPCPReconnectingClient[endpoints.size()];
+        for (var i = 0; i < size; i++) {
+            members[i] = new RPCPReconnectingClient(builder, endpoints.get(i % endpoints.size()), vHost, agent);
+            if (i < endpoints.size()) {
+                eventMembers[i] = members[i];
+            }
+        }
+    }
+
+    /**
+     * @param policy how the connection for a call is chosen
+     */
+    public void setBalancePolicy(RPCPBalancePolicy policy) {
+        this.balancePolicy = policy;
+    }
+
+    /**
+     * Set the reconnect delay of every connection, see {@link RPCPReconnectingClient#setBackoff(long, long)}
+     *
+     * @param initialMillis ceiling of the first delay
+     * @param maxMillis     maximum delay
+     */
+    public void setBackoff(long initialMillis, long maxMillis) {
+        for (var member : members) {
+            member.setBackoff(initialMillis, maxMillis);
+        }
+    }
+
+    /**
+     * @param method method name
+     * @param policy what to do with the call of the method when the connection lost
+     */
+    public void setRetryPolicy(String method, RPCPRetryPolicy policy) {
+        for (var member : members) {
+            member.setRetryPolicy(method, policy);
+        }
+    }
+
+    /**
+     * @param policy policy of the method without {@link #setRetryPolicy(String, RPCPRetryPolicy)}
+     */
+    public void setDefaultRetryPolicy(RPCPRetryPolicy policy) {
+        for (var member : members) {
+            member.setDefaultRetryPolicy(policy);
+        }
+    }
+
+    /**
+     * Start connect all the connections
+     *
+     * @return future completed when the first connection is CONNECTED, failed when the pool is closed before
+     */
+    public CompletableFuture<RPCPClientPool> connect() {
+        var connected = new CompletableFuture<RPCPClientPool>();
+        var failed = new AtomicInteger();
+        for (var member : members) {
+            member.connect().whenComplete((client, error) -> {
+                if (error == null) {
+                    connected.complete(this);
+                } else if (failed.incrementAndGet() == members.length) {
+                    connected.completeExceptionally(error);
+                }
+            });
+        }
+        return connected;
+    }
+
+    /**
+     * Send CALL on the chosen connection
+     *
+     * @param method      method name
+     * @param contentType content type of the body
+     * @param body        body of the call
+     * @return future of the RESULT
+     */
+    public CompletableFuture<MessageResult> call(String method, String contentType, String body) {
+        return call(method, contentType, body, null);
+    }
+
+    /**
+     * Send CALL on the chosen connection
+     *
+     * @param method      method name
+     * @param contentType content type of the body
+     * @param body        body of the call
+     * @param listener    receive PLAN and PROGRESS of the call, nullable
+     * @return future of the RESULT
+     */
+    public CompletableFuture<MessageResult> call(String method, String contentType, String body,
+                                                 RPCPCallListener listener) {
+        return choose().call(method, contentType, body, listener);
+    }
+
+    /**
+     * Subscribe event on one connection of every endpoint, the subscription is restored after reconnect
+     *
+     * @param event    event name
+     * @param listener receive the event
+     */
+    public void subscribe(String event, Consumer<MessageEvent> listener) {
+        for (var member : eventMembers) {
+            member.subscribe(event, listener);
+        }
+    }
+
+    /**
+     * Unsubscribe event
+     *
+     * @param event event name
+     */
+    public void unsubscribe(String event) {
+        for (var member : eventMembers) {
+            member.unsubscribe(event);
+        }
+    }
+
+    /**
+     * @return number of connections
+     */
+    public int getSize() {
+        return members.length;
+    }
+
+    /**
+     * @return number of connections that is connected now
+     */
+    public int getHealthyCount() {
+        var count = 0;
+        for (var member : members) {
+            if (member.isConnected()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return number of call waiting the reply on all the connections
+     */
+    public int getPendingCallCount() {
+        var count = 0;
+        for (var member : members) {
+            count += member.getPendingCallCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the connections of the pool, connection i is to the endpoint i modulo the number of endpoints
+     */
+    public List<RPCPReconnectingClient> getMembers() {
+        return List.of(members);
+    }
+
+    /**
+     * Close all the connections
+     */
+    @Override
+    public void close() {
+        for (var member : members) {
+            member.close();
+        }
+    }
+
+    RPCPReconnectingClient choose() {
+        RPCPReconnectingClient chosen;
+        if (members.length == 1) {
+            chosen = members[0];
+        } else if (balancePolicy == RPCPBalancePolicy.POWER_OF_TWO_CHOICES) {
+            chosen = twoChoices();
+        } else {
+            chosen = leastOutstanding();
+        }
+
+        if (chosen == null || !chosen.isConnected()) {
+            // nothing healthy, let the retry policy of the connection decide
+            return members[Math.floorMod(next.getAndIncrement(), members.length)];
+        }
+        return chosen;
+    }
+
+    private RPCPReconnectingClient twoChoices() {
+        var random = ThreadLocalRandom.current();
+        var first = random.nextInt(members.length);
+        var second = random.nextInt(members.length - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        var a = members[first];
+        var b = members[second];
+        var aHealthy = a.isConnected();
+        var bHealthy = b.isConnected();
+        if (aHealthy && bHealthy) {
+            return a.getPendingCallCount() <= b.getPendingCallCount() ? a : b;
+        }
+        if (aHealthy) {
+            return a;
+        }
+        if (bHealthy) {
+            return b;
+        }
+        return leastOutstanding();
+    }
+
+    private RPCPReconnectingClient leastOutstanding() {
+        RPCPReconnectingClient chosen = null;
+        var fewest = Integer.MAX_VALUE;
+        // start from a different connection every call, the tie is spread
+        var start = next.getAndIncrement();
+        for (var i = 0; i < members.length; i++) {
+            var member = members[Math.floorMod(start + i, members.length)];
+            if (!member.isConnected()) {
+                continue;
+            }
+
+            var pending = member.getPendingCallCount();
+            if (pending < fewest) {
+                fewest = pending;
+                chosen = member;
+            }
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.*;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RPCP codec to read and write RPCP message as UTF-8 bytes, without convert the whole frame to String.
+ * Command and header section is handled as ASCII bytes, the body of {@link MessageCall} is kept as bytes and
+ * decoded only when {@link MessageCall#getBody()} called.
+ * @author Eric A. Sanjaya
+ */
+public final class RPCPCodec {
+
+    private RPCPCodec() {
+    }
+
+    /**
+     * Read RPCP Object from UTF-8 bytes, the bytes from position to limit is one RPCP message.
+     * After read the buffer position is set to the limit. The body of {@link MessageCall} share the content of the
+     * buffer, the buffer content must not change while the message in use.
+     * @param buffer UTF-8 bytes of RPCP message
+     * @return RPCPMessage representation from the RPCP bytes given
+     * @throws Exception if RPCP bytes not a valid RPCP specification, the exception message is same as
+     * {@link RPCPUtils#read(String)}
+     */
+    public static RPCPMessage read(ByteBuffer buffer) throws Exception {
+        return parse(buffer).getMessageOrThrow();
+    }
+
+    /**
+     * Read RPCP Object from UTF-8 bytes without exception, same as {@link #read(ByteBuffer)} but the frame that is not
+     * valid is returned as error code.
+     * @param buffer UTF-8 bytes of RPCP message, the position is set to the limit
+     * @return the message or the reason the bytes is not a valid RPCP message
+     */
+    public static RPCPParseResult parse(ByteBuffer buffer) {
+        var frame = slice(buffer);
+        buffer.position(buffer.limit());
+        return frame.toResult();
+    }
+
+    /**
+     * Write RPCP Object as UTF-8 bytes into the buffer, start from the buffer position.
+     * @param rpcpMessage RPCPMessage Object want to write
+     * @param buffer destination buffer
+     * @return number of bytes written
+     * @throws BufferOverflowException if the buffer remaining is not enough, the buffer position is not changed
+     * @throws Exception if rpcpMessage not compatible will throw Exception with message "Not Compatible".
+     */
+    public static int write(RPCPMessage rpcpMessage, ByteBuffer buffer) throws Exception {
+        var start = buffer.position();
+        try {
+            RPCPUtils.write(rpcpMessage, new ByteBufferWriter(buffer));
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        }
+        return buffer.position() - start;
+    }
+
+    static RPCPFrame slice(ByteBuffer buffer) {
+        var frame = new RPCPFrame();
+        var limit = buffer.limit();
+
+        var lineEnd = lineEnd(buffer, buffer.position(), limit);
+        commandLine(buffer, buffer.position(), lineEnd, frame);
+
+        var position = lineEnd + 2;
+        while (position < limit) {
+            lineEnd = lineEnd(buffer, position, limit);
+            if (lineEnd == position) {
+                body(buffer, position + 2, limit, frame);
+                break;
+            }
+
+            if (!headerLine(buffer, position, lineEnd, frame)) {
+                break;
+            }
+            position = lineEnd + 2;
+        }
+
+        return frame;
+    }
+
+    private static int lineEnd(ByteBuffer buffer, int from, int limit) {
+        for (var i = from; i < limit - 1; i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte b, int from, int end) {
+        for (var i = from; i < end; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void commandLine(ByteBuffer buffer, int start, int end, RPCPFrame frame) {
+        // trailing space is not a token
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+
+        var tokenStart = start;
+        var index = 0;
+        while (true) {
+            var space = indexOf(buffer, (byte) ' ', tokenStart, end);
+            if (space < 0) {
+                space = end;
+            }
+
+            if (index == 0) {
+                frame.command = command(buffer, tokenStart, space);
+            } else if (index == 1) {
+                frame.target = string(buffer, tokenStart, space);
+            } else if (index == 2) {
+                frame.argument = string(buffer, tokenStart, space);
+            }
+            index++;
+
+            if (space == end) {
+                break;
+            }
+            tokenStart = space + 1;
+        }
+
+        frame.commandLength = index;
+    }
+
+    private static String command(ByteBuffer buffer, int start, int end) {
+        for (var command : RPCPFrame.COMMANDS) {
+            if (asciiMatches(buffer, start, end, command, false)) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    private static boolean headerLine(ByteBuffer buffer, int start, int end, RPCPFrame frame) {
+        var colon = indexOf(buffer, (byte) ':', start, end);
+        if (colon < 0) {
+            frame.fail(RPCPParseError.BAD_HEADER);
+            return false;
+        }
+
+        var slot = RPCPFrame.HEADER_UNKNOWN;
+        for (var i = 0; i < RPCPFrame.HEADER_NAMES.length; i++) {
+            if (asciiMatches(buffer, start, colon, RPCPFrame.HEADER_NAMES[i], true)) {
+                slot = i;
+                break;
+            }
+        }
+        if (slot == RPCPFrame.HEADER_UNKNOWN) {
+            frame.header(slot, null);
+            return true;
+        }
+
+        var valueStart = colon + 1;
+        if (valueStart < end && buffer.get(valueStart) == ' ') {
+            valueStart++;
+        }
+        frame.header(slot, string(buffer, valueStart, end));
+        return true;
+    }
+
+    private static void body(ByteBuffer buffer, int start, int limit, RPCPFrame frame) {
+        if (start >= limit) {
+            return;
+        }
+
+        if ("CALL".equals(frame.command) && lineEnd(buffer, start, limit) == limit) {
+            var body = buffer.duplicate();
+            body.limit(limit);
+            body.position(start);
+            frame.rawBody = body.slice();
+        } else {
+            frame.body = RPCPParser.body(string(buffer, start, limit), 0);
+        }
+    }
+
+    private static boolean asciiMatches(ByteBuffer buffer, int start, int end, String value, boolean ignoreCase) {
+        if (end - start != value.length()) {
+            return false;
+        }
+
+        for (var i = 0; i < value.length(); i++) {
+            var b = buffer.get(start + i);
+            if (ignoreCase && b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String string(ByteBuffer buffer, int start, int end) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        }
+
+        var bytes = new byte[end - start];
+        for (var i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
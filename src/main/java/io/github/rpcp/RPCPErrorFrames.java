@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.rpcp.model.HeaderError;
+import io.github.rpcp.model.MessageBodyError;
+import io.github.rpcp.model.MessageError;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of ERROR frame that written once and sent as is, so sending an error does not need to build and write
+ * the message again. Every {@link RPCPHost} have the registry for the internal error, application can register
+ * the own static error frame to the same registry.
+ * <pre>
+ * {@code
+ *      rpcpHost.getErrorFrames().register("QUOTA_EXCEEDED", "Quota exceeded", "Your quota is exceeded", "QUOTA_EXCEEDED");
+ *      rpcpSession.sendMessage(rpcpHost.getErrorFrames().get("QUOTA_EXCEEDED"));
+ * }
+ * </pre>
+ * @author Eric A. Sanjaya
+ */
+public final class RPCPErrorFrames {
+    public static final String INVALID_RPCP = "INVALID_RPCP";
+    public static final String INCORRECT_PROTOCOL_FORMAT = "INCORRECT_PROTOCOL_FORMAT";
+    public static final String VHOST_NOT_FOUND = "VHOST_NOT_FOUND";
+    public static final String PROTOCOL_NOT_SUPPORTED = "PROTOCOL_NOT_SUPPORTED";
+    public static final String PRE_CONNECT_INVALID = "PRE_CONNECT_INVALID";
+    public static final String RPCP_SESSION_NOT_FOUND = "RPCP_SESSION_NOT_FOUND";
+    public static final String EVENT_NOT_FOUND = "Event_NOT_FOUND";
+    public static final String SESSION_NOT_VALID = "SESSION_NOT_VALID";
+    public static final String SLOW_CONSUMER = "SLOW_CONSUMER";
+    public static final String IDLE_TIMEOUT = "IDLE_TIMEOUT";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ConcurrentHashMap<String, RPCPPreparedFrame> frames = new ConcurrentHashMap<>();
+
+    /**
+     * Create registry with the internal error frames
+     */
+    public RPCPErrorFrames() {
+        register(INVALID_RPCP, "Invalid RPCP", "Invalid RPCP, check your RPCP message", "INVALID_RPCP");
+        register(INCORRECT_PROTOCOL_FORMAT, "Incorrect protocol format", "Incorrect protocol format, check your RPCP message", "INVALID_RPCP");
+        register(VHOST_NOT_FOUND, "Connect failed", "Connect to RPCP failed, check your vHost", "VHOST_NOT_FOUND");
+        register(PROTOCOL_NOT_SUPPORTED, new MessageError(".internal", new HeaderError("connect failed", "application/json")));
+        register(PRE_CONNECT_INVALID, "Connect failed", "Connect to RPCP failed, check pre-connect validation", "PRE_CONNECT_INVALID");
+        register(RPCP_SESSION_NOT_FOUND, "Disconnect failed", "Disconnect to RPCP failed, your RPCP session not found", "RPCP_SESSION_NOT_FOUND");
+        register(EVENT_NOT_FOUND, "Event Not Found", "Event Not Found", "Event_NOT_FOUND");
+        register(SESSION_NOT_VALID, new MessageError(".internal", new HeaderError("Session not valid", "application/json")));
+        register(SLOW_CONSUMER, "Slow consumer", "Outbound queue is full, the session is closed", "SLOW_CONSUMER");
+        register(IDLE_TIMEOUT, "Idle timeout", "No message receive in the idle timeout, the session is closed", "IDLE_TIMEOUT");
+    }
+
+    /**
+     * Register error frame, the frame is written once when registered. Registered frame with the same key is replaced.
+     * @param key   key to get the frame
+     * @param error the error message
+     */
+    public void register(String key, MessageError error) {
+        try {
+            frames.put(key, new RPCPPreparedFrame(error));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Register internal error frame with json body, same format as the internal error of RPCP Host
+     * <pre>
+     * ERROR .internal
+     * message: {message}
+     * content-type: application/json
+     *
+     * {"detail":"{detail}","code":"{code}"}
+     * </pre>
+     * @param key     key to get the frame
+     * @param message message header
+     * @param detail  detail of the error in the body
+     * @param code    code of the error in the body
+     */
+    public void register(String key, String message, String detail, String code) {
+        var error = new MessageError(".internal", new HeaderError(message, "application/json"));
+        error.setBody(body(detail, code));
+        register(key, error);
+    }
+
+    /**
+     * Write json body of error, {"detail":"{detail}","code":"{code}"}
+     */
+    static String body(String detail, String code) {
+        try {
+            return objectMapper.writeValueAsString(new MessageBodyError(detail, code));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param key key of the frame
+     * @return the error frame or null if not registered
+     */
+    public RPCPPreparedFrame get(String key) {
+        return frames.get(key);
+    }
+}
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.MessageError;
+import io.github.rpcp.model.*;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Holder of the pieces sliced out from one RPCP frame by the parser, command tokens, known header values and body.
+ * The frame know how to validate it self and build the RPCPMessage object.
+ * @author Eric A. Sanjaya
+ */
+final class RPCPFrame {
+    static final int HEADER_UNKNOWN = -1;
+    static final int HEADER_ID = 0;
+    static final int HEADER_AGENT = 1;
+    static final int HEADER_EVENT = 2;
+    static final int HEADER_SERVER = 3;
+    static final int HEADER_METHOD = 4;
+    static final int HEADER_MESSAGE = 5;
+    static final int HEADER_PLAN_CODE = 6;
+    static final int HEADER_CONTENT_TYPE = 7;
+    static final int HEADER_PLANING_CODE = 8;
+
+    static final String[] HEADER_NAMES = {
+            "id", "agent", "event", "server", "method", "message", "plan-code", "content-type", "planing-code"
+    };
+
+    static final String[] COMMANDS = {
+            "CONNECT", "CONNECTED", "DISCONNECT", "CALL", "RESULT", "PLAN", "PROGRESS", "EVENT", "ERROR",
+            "SUBSCRIBE", "UNSUBSCRIBE", "PING", "PONG"
+    };
+
+    String command;
+    String target;
+    String argument;
+    int commandLength;
+
+    int headerCount;
+    final String[] headers = new String[HEADER_NAMES.length];
+
+    String body = "";
+    ByteBuffer rawBody;
+
+    /**
+     * First reason the frame is not valid, null while the frame is valid
+     */
+    RPCPParseError error;
+
+    void header(int slot, String value) {
+        headerCount++;
+        if (slot != HEADER_UNKNOWN) {
+            headers[slot] = value;
+        }
+    }
+
+    /**
+     * Find the header slot of header name without create a new String of the name
+     * @param source the frame
+     * @param start first index of header name
+     * @param end last index (exclusive) of header name
+     * @return header slot or {@link #HEADER_UNKNOWN}
+     */
+    static int headerSlot(String source, int start, int end) {
+        var length = end - start;
+        for (var slot = 0; slot < HEADER_NAMES.length; slot++) {
+            var name = HEADER_NAMES[slot];
+            if (name.length() == length && source.regionMatches(true, start, name, 0, length)) {
+                return slot;
+            }
+        }
+        return HEADER_UNKNOWN;
+    }
+
+    /**
+     * Validate the frame and build the RPCPMessage object
+     * @return RPCPMessage representation of the frame
+     * @throws Exception if the frame is not a valid RPCP specification
+     */
+    RPCPMessage toMessage() throws Exception {
+        return toResult().getMessageOrThrow();
+    }
+
+    /**
+     * Validate the frame and build the RPCPMessage object, without exception
+     * @return the message or the reason the frame is not valid
+     */
+    RPCPParseResult toResult() {
+        var message = error == null ? build() : null;
+        return message == null ? RPCPParseResult.failure(error) : RPCPParseResult.success(message);
+    }
+
+    private RPCPMessage build() {
+        if (command == null) {
+            return fail(RPCPParseError.INVALID_COMMAND);
+        }
+
+        switch (command) {
+            case "CONNECT": {
+                return generateConnect();
+            }
+            case "CONNECTED": {
+                return generateConnected();
+            }
+            case "DISCONNECT": {
+                return generateDisconnect();
+            }
+            case "CALL": {
+                return generateCall();
+            }
+            case "RESULT": {
+                return generateResult();
+            }
+            case "PLAN": {
+                return generatePlan();
+            }
+            case "PROGRESS": {
+                return generateProgress();
+            }
+            case "EVENT": {
+                return generateEvent();
+            }
+            case "ERROR": {
+                return generateError();
+            }
+            case "SUBSCRIBE": {
+                return generateSubscribe();
+            }
+            case "UNSUBSCRIBE": {
+                return generateUnsubscribe();
+            }
+            case "PING": {
+                return new MessagePing();
+            }
+            case "PONG": {
+                return new MessagePong();
+            }
+            default: {
+                return fail(RPCPParseError.INVALID_COMMAND);
+            }
+        }
+    }
+
+    private MessageConnect generateConnect() {
+        if (commandLength < 3) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        if (headerCount == 0) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var agent = headers[HEADER_AGENT];
+        if (agent == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (!validateProtocol(argument)) {
+            return fail(RPCPParseError.BAD_PROTOCOL);
+        }
+
+        return new MessageConnect(target, argument, new HeaderConnect(agent));
+    }
+
+    private MessageConnected generateConnected() {
+        if (commandLength < 3) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        if (headerCount == 0) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var server = headers[HEADER_SERVER];
+        var event = headers[HEADER_EVENT];
+        var method = headers[HEADER_METHOD];
+
+        if (server == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (event == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (method == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (!validateProtocol(argument)) {
+            return fail(RPCPParseError.BAD_PROTOCOL);
+        }
+
+        return new MessageConnected(target, argument, new HeaderConnected(server, listConstruct(event), listConstruct(method)));
+    }
+
+    private MessageDisconnect generateDisconnect() {
+        if (commandLength < 2) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        return new MessageDisconnect(target);
+    }
+
+    private MessageCall generateCall() {
+        if (commandLength < 2) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        if (headerCount == 0) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var contentType = headers[HEADER_CONTENT_TYPE];
+        var id = headers[HEADER_ID];
+
+        if (contentType == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (id == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var call = new MessageCall(target, new HeaderCall(contentType, id));
+        if (rawBody != null) {
+            call.setBodyBuffer(rawBody);
+        } else {
+            call.setBody(body);
+        }
+        return call;
+    }
+
+    private MessageResult generateResult() {
+        if (commandLength < 3) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        if (headerCount == 0) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var contentType = headers[HEADER_CONTENT_TYPE];
+        var id = headers[HEADER_ID];
+
+        if (contentType == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (id == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var result = new MessageResult(target, argument, new HeaderResult(headers[HEADER_PLAN_CODE], contentType, id));
+        result.setBody(body);
+        return result;
+    }
+
+    private MessagePlan generatePlan() {
+        if (commandLength < 2) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        if (headerCount == 0) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var contentType = headers[HEADER_CONTENT_TYPE];
+        var id = headers[HEADER_ID];
+        var planingCode = headers[HEADER_PLANING_CODE];
+
+        if (contentType == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (id == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (planingCode == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var plan = new MessagePlan(target, new HeaderPlan(listConstruct(planingCode), contentType, id));
+        plan.setBody(body);
+        return plan;
+    }
+
+    private MessageProgress generateProgress() {
+        if (commandLength < 3) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        if (headerCount == 0) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var contentType = headers[HEADER_CONTENT_TYPE];
+        var id = headers[HEADER_ID];
+        var planCode = headers[HEADER_PLAN_CODE];
+
+        if (contentType == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (id == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (planCode == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var progress = new MessageProgress(target, argument, new HeaderProgress(planCode, contentType, id));
+        progress.setBody(body);
+        return progress;
+    }
+
+    private MessageEvent generateEvent() {
+        if (commandLength < 3) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        if (headerCount == 0) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var contentType = headers[HEADER_CONTENT_TYPE];
+        var id = headers[HEADER_ID];
+
+        if (contentType == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (id == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var event = new MessageEvent(target, argument, new HeaderEvent(contentType, id));
+        event.setBody(body);
+        return event;
+    }
+
+    private MessageError generateError() {
+        if (commandLength < 2) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        if (headerCount == 0) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var message = headers[HEADER_MESSAGE];
+        var contentType = headers[HEADER_CONTENT_TYPE];
+
+        if (message == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        if (contentType == null) {
+            return fail(RPCPParseError.MISSING_HEADER);
+        }
+
+        var error = new MessageError(target, new HeaderError(message, contentType, headers[HEADER_ID]));
+        error.setBody(body);
+        return error;
+    }
+
+    private MessageSubscribe generateSubscribe() {
+        if (commandLength < 2) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        return new MessageSubscribe(target);
+    }
+
+    private MessageUnsubscribe generateUnsubscribe() {
+        if (commandLength < 2) {
+            return fail(RPCPParseError.MISSING_ARGUMENT);
+        }
+
+        return new MessageUnsubscribe(target);
+    }
+
+    /**
+     * Keep the reason the frame is not valid
+     * @return always null, so the generate method can return it as the message
+     */
+    <T> T fail(RPCPParseError reason) {
+        if (error == null) {
+            error = reason;
+        }
+        return null;
+    }
+
+    private static boolean validateProtocol(String protocol) {
+        if (protocol.indexOf('/') != 4 || !protocol.regionMatches(true, 0, "RPCP", 0, 4)) {
+            return false;
+        }
+
+        // need a version after the slash
+        for (var i = 5; i < protocol.length(); i++) {
+            if (protocol.charAt(i) != '/') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build array from comma separated header value, all space inside the item will be removed.
+     * Used by planing-code, event and method header.
+     */
+    private static String[] listConstruct(String value) {
+        var length = value.length();
+        if (value.indexOf(',') >= 0) {
+            // trailing empty item is not counted, same as String.split
+            while (length > 0 && value.charAt(length - 1) == ',') {
+                length--;
+            }
+            if (length == 0) {
+                return new String[0];
+            }
+        }
+
+        var count = 1;
+        for (var i = 0; i < length; i++) {
+            if (value.charAt(i) == ',') {
+                count++;
+            }
+        }
+
+        var list = new String[count];
+        var start = 0;
+        for (var i = 0; i < count; i++) {
+            var end = value.indexOf(',', start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+            list[i] = removeSpace(value, start, end);
+            start = end + 1;
+        }
+
+        return list;
+    }
+
+    private static String removeSpace(String value, int start, int end) {
+        var space = value.indexOf(' ', start);
+        if (space < 0 || space >= end) {
+            return value.substring(start, end);
+        }
+
+        var stringBuilder = new StringBuilder(end - start);
+        for (var i = start; i < end; i++) {
+            var c = value.charAt(i);
+            if (c != ' ') {
+                stringBuilder.append(c);
+            }
+        }
+        return stringBuilder.toString();
+    }
+}
@@ -16,17 +16,21 @@
 
 package io.github.rpcp;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.rpcp.model.MessageError;
 import io.github.rpcp.model.*;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Object to create a vHost RPCP in top of websocket.
@@ -48,13 +52,36 @@ public class RPCPHost<NativeWSSession> {
     final String vHost;
     RPCPHostHandler<NativeWSSession> rpcpHostHandler;
 
-    private final ConcurrentHashMap<String, RPCPWebSocketSession> rpcpWebSocketSessions = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, RPCPSession> rpcpSessions = new ConcurrentHashMap<>();
+    private final SessionRegistry sessions = new SessionRegistry();
 
     private final ConcurrentHashMap<String, RPCPEvent> events = new ConcurrentHashMap<>();
     private final Set<String> eventsName = new CopyOnWriteArraySet<>();
     private final ConcurrentHashMap<String, RPCPMethod> methods = new ConcurrentHashMap<>();
     private final Set<String> methodsName = new CopyOnWriteArraySet<>();
+    private final ConcurrentHashMap<String, RPCPStreamingMethod> streamingMethods = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AsyncRPCPMethod> asyncMethods = new ConcurrentHashMap<>();
+
+    private final TopicIndex sessionGroups = new TopicIndex();
+    private final TopicIndex subscriptions = new TopicIndex();
+
+    private final RPCPErrorFrames errorFrames = new RPCPErrorFrames();
+    private final RPCPMetrics metrics = new RPCPMetrics();
+
+    private volatile ConnectedFrames connectedFrames = new ConnectedFrames(Config.hostVersion);
+
+    private volatile RPCPCallDispatcher callDispatcher = RPCPCallDispatcher.direct();
+
+    private volatile Executor outboundExecutor;
+    private volatile int outboundCapacity;
+    private volatile RPCPOverflowPolicy outboundPolicy;
+    private final LongAdder droppedFrameCount = new LongAdder();
+
+    private static final Function<SessionRecord, RPCPSession> CONNECTED_SESSION =
+            record -> record.isConnected() ? record : null;
+
+    private static final RPCPPreparedFrame PING_FRAME = new RPCPPreparedFrame("PING\r\n\r\n");
+    private static final RPCPPreparedFrame PONG_FRAME = new RPCPPreparedFrame("PONG\r\n\r\n");
+    private volatile RPCPIdleReaper idleReaper;
 
     /**
      * Create new RPCP Host
@@ -78,6 +105,173 @@ public class RPCPHost<NativeWSSession> {
         this.rpcpHostHandler = rpcpHostHandler;
     }
 
+    /**
+     * Run the CALL on the executor instead of the thread that receive the message, ex. the websocket I/O thread.
+     * CONNECT and DISCONNECT is still handled on the thread that receive the message. A call to streaming method
+     * received in one frame run on the executor like the other call, a body received in many parts with
+     * {@link #onGetMessagePart(ByteBuffer, boolean, Object)} is streamed on the receiving thread to keep the order of
+     * the parts.
+     * <pre>
+     * {@code
+     *      rpcpHost.setCallExecutor(RPCPCallDispatcher.newCallExecutor());
+     * }
+     * </pre>
+     *
+     * @param executor executor for the call, null to run the call on the thread that receive the message (default)
+     */
+    public void setCallExecutor(Executor executor) {
+        setCallExecutor(executor, false);
+    }
+
+    /**
+     * Run the CALL on the executor, when session ordered the call of one session run one by one in arrival order
+     * so the RESULT, PLAN and PROGRESS of the calls are not mixed, the call of different session still run in
+     * parallel on the executor. The order of {@link AsyncRPCPMethod} is kept until the method return the stage,
+     * the result is sent when the stage complete. A streaming call whose body is received in many parts is the
+     * exception: it is streamed on the receiving thread as the parts arrive, so it can run before the call of the
+     * same session still waiting in the queue.
+     *
+     * @param executor       executor shared by all session, null to run the call on the thread that receive the
+     *                       message (default)
+     * @param sessionOrdered true to run the call of one session one by one in arrival order
+     * @see #setCallExecutor(Executor)
+     */
+    public void setCallExecutor(Executor executor, boolean sessionOrdered) {
+        this.callDispatcher = executor == null
+                ? RPCPCallDispatcher.direct()
+                : new RPCPCallDispatcher(executor, sessionOrdered);
+    }
+
+    /**
+     * @return dispatcher of the call with the queue depth and counter of the call
+     */
+    public RPCPCallDispatcher getCallDispatcher() {
+        return callDispatcher;
+    }
+
+    /**
+     * Give every websocket session connected after this a bounded outbound queue with a single writer. The frame
+     * sent to the session is added to the queue and sent by the writer on the executor, so the websocket session is
+     * never used by two thread at the same time and a slow client does not block the sender.
+     * <pre>
+     * {@code
+     *      rpcpHost.setOutboundQueue(1024, RPCPOverflowPolicy.DROP_OLDEST, RPCPOutboundQueue.newWriterExecutor(8));
+     * }
+     * </pre>
+     *
+     * The writer wait while the websocket session is not writable, ex. {@link RPCPWebSocketSession#isWritable()} of
+     * the standalone transport over its writable watermark, so the policy apply to a client that read slowly.
+     *
+     * @param capacity       maximum frame waiting in the queue of one session
+     * @param policy         what to do when the queue is full
+     * @param writerExecutor executor of the writer shared by all session, null to send on the thread that send
+     *                       the message (default)
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public void setOutboundQueue(int capacity, RPCPOverflowPolicy policy, Executor writerExecutor) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.outboundCapacity = capacity;
+        this.outboundPolicy = policy;
+        this.outboundExecutor = writerExecutor;
+    }
+
+    /**
+     * @param sessionId Session id
+     * @return outbound queue of the session, null if the session not found or the session does not have the queue
+     */
+    public RPCPOutboundQueue getOutboundQueue(String sessionId) {
+        var session = getWebsocketSession(sessionId);
+        return session instanceof RPCPOutboundQueue ? (RPCPOutboundQueue) session : null;
+    }
+
+    /**
+     * @return number of frame dropped by the outbound queue of all session
+     */
+    public long getDroppedFrameCount() {
+        return droppedFrameCount.sum();
+    }
+
+    /**
+     * Close the RPCP session that does not send any message in the idle timeout, ex. half-open connection where the
+     * client is gone without close the websocket. The session idle longer than the keepalive interval receive PING
+     * once, the client answer with PONG to stay connected. The idle session receive IDLE_TIMEOUT error, is closed
+     * and removed like disconnected websocket.
+     * <p>
+     * All session is watched by one timer thread with a hashed timing wheel, every message receive only write the
+     * last activity time of the session. The PING, the close and {@link RPCPHostHandler#onDisconnect} of the idle
+     * session run on the outbound queue writer or the call executor when set, otherwise on a thread pool of the
+     * reaper, so a send that block on a stalled client does not delay the other session.
+     * <pre>
+     * {@code
+     *      rpcpHost.setIdleTimeout(60_000, 20_000);
+     * }
+     * </pre>
+     *
+     * @param idleTimeoutMillis       close the session after no message in this milliseconds, 0 to disable (default)
+     * @param keepAliveIntervalMillis send PING after no message in this milliseconds, 0 to disable
+     */
+    public void setIdleTimeout(long idleTimeoutMillis, long keepAliveIntervalMillis) {
+        var previous = idleReaper;
+        if (previous != null) {
+            previous.stop();
+        }
+
+        if (idleTimeoutMillis <= 0) {
+            idleReaper = null;
+            return;
+        }
+
+        var reaper = new RPCPIdleReaper(idleTimeoutMillis, keepAliveIntervalMillis,
+                rpcpSession -> getRPCPSession(rpcpSession.getId()) == rpcpSession,
+                rpcpSession -> rpcpSession.sendMessage(PING_FRAME),
+                this::onIdle,
+                () -> {
+                    var writerExecutor = outboundExecutor;
+                    return writerExecutor != null ? writerExecutor : callDispatcher.getExecutor();
+                });
+        idleReaper = reaper;
+        for (var record : sessions.records().values()) {
+            if (record.isConnected()) {
+                reaper.add(record);
+            }
+        }
+    }
+
+    /**
+     * @return number of session closed because idle
+     */
+    public long getIdleClosedCount() {
+        var reaper = idleReaper;
+        return reaper == null ? 0 : reaper.getIdleCount();
+    }
+
+    /**
+     * @return number of PING sent to idle session
+     */
+    public long getKeepAliveCount() {
+        var reaper = idleReaper;
+        return reaper == null ? 0 : reaper.getKeepAliveCount();
+    }
+
+    /**
+     * @return call count, error count and latency of every method, and the number of message failed to parse
+     */
+    public RPCPMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registry of pre-written ERROR frames used by this host. Application can register the own static error frame
+     * here and send it without build and write the message again.
+     *
+     * @return error frames registry of this host
+     */
+    public RPCPErrorFrames getErrorFrames() {
+        return errorFrames;
+    }
+
     /**
      * Add new event to RPCP Host with auto generate name/ destination. the name/destination will use the package name.
      * ex. rpcp.event.alarm
@@ -87,6 +281,7 @@ public class RPCPHost<NativeWSSession> {
     public void addEvent(RPCPEvent event) {
         this.eventsName.add(event.getClass().getName());
         this.events.put(event.getClass().getName(), event);
+        invalidateConnectedFrames();
     }
 
     /**
@@ -98,221 +293,733 @@ public class RPCPHost<NativeWSSession> {
     public void addEvent(String eventName, RPCPEvent event) {
         this.eventsName.add(eventName);
         this.events.put(eventName, event);
+        invalidateConnectedFrames();
     }
 
     /**
      * Add new method to RPCP Host with auto generate name/ destination. the name/ destination will use the package name.
      * ex. rpcp.method.sum
      *
-     * @param method Method object want to add to Host
+     * @param method Method object want to add to Host
+     */
+    public void addMethod(RPCPMethod method) {
+        this.methodsName.add(method.getClass().getName());
+        this.methods.put(method.getClass().getName(), method);
+        invalidateConnectedFrames();
+    }
+
+    /**
+     * Add new method to RPCP Host with custom name
+     *
+     * @param methodName The method name want to register
+     * @param method     Method object want to add to Host
+     */
+    public void addMethod(String methodName, RPCPMethod method) {
+        this.methodsName.add(methodName);
+        this.methods.put(methodName, method);
+        invalidateConnectedFrames();
+    }
+
+    /**
+     * Add new streaming method to RPCP Host with auto generate name/ destination. the name/ destination will use the
+     * package name. The body of the call is streamed to the method when the message forwarded in parts by
+     * {@link #onGetMessagePart(ByteBuffer, boolean, Object)}.
+     *
+     * @param method Method object want to add to Host
+     */
+    public void addStreamingMethod(RPCPStreamingMethod method) {
+        addStreamingMethod(method.getClass().getName(), method);
+    }
+
+    /**
+     * Add new streaming method to RPCP Host with custom name
+     *
+     * @param methodName The method name want to register
+     * @param method     Method object want to add to Host
+     */
+    public void addStreamingMethod(String methodName, RPCPStreamingMethod method) {
+        this.methodsName.add(methodName);
+        this.streamingMethods.put(methodName, method);
+        invalidateConnectedFrames();
+    }
+
+    /**
+     * Add new asynchronous method to RPCP Host with auto generate name/ destination. the name/ destination will use
+     * the package name. The result is sent when the stage returned by the method complete.
+     *
+     * @param method Method object want to add to Host
+     */
+    public void addAsyncMethod(AsyncRPCPMethod method) {
+        addAsyncMethod(method.getClass().getName(), method);
+    }
+
+    /**
+     * Add new asynchronous method to RPCP Host with custom name
+     *
+     * @param methodName The method name want to register
+     * @param method     Method object want to add to Host
+     */
+    public void addAsyncMethod(String methodName, AsyncRPCPMethod method) {
+        this.methodsName.add(methodName);
+        this.asyncMethods.put(methodName, method);
+        invalidateConnectedFrames();
+    }
+
+    /**
+     * Used to forward websocket open event to RPCP mechanism, the websocket session is registered and wait for
+     * CONNECT message.
+     *
+     * @param session Websocket Session
+     */
+    public void onWsConnect(NativeWSSession session) {
+        getOrRegisterSession(session);
+    }
+
+    /**
+     * Used to forward websocket close event to RPCP mechanism. The session is removed from the registry, group,
+     * subscription, call queue and stream decoder, the frame waiting in the outbound queue is dropped. If the RPCP
+     * session is still connected {@link RPCPHostHandler#onDisconnect(MessageDisconnect, RPCPWebSocketSession)} is
+     * called, the handler is called once per session even when the client send DISCONNECT before closing.
+     *
+     * @param session     Websocket Session
+     * @param closeStatus close status from websocket framework
+     */
+    public void onWsDisconnect(NativeWSSession session, String closeStatus) {
+        var sessionId = rpcpHostHandler.getWsSessionId(session);
+        if (sessionId == null) {
+            return;
+        }
+
+        var wsSession = getWebsocketSession(sessionId);
+        if (wsSession instanceof RPCPOutboundQueue) {
+            ((RPCPOutboundQueue) wsSession).discard();
+        }
+
+        var rpcpSession = removeSession(sessionId);
+        if (rpcpSession != null) {
+            rpcpHostHandler.onDisconnect(new MessageDisconnect(vHost), wsSession);
+        }
+    }
+
+    /**
+     * @return number of connected RPCP session
+     */
+    public int getSessionCount() {
+        return sessions.connectedCount();
+    }
+
+    /**
+     * @return number of registered websocket session, include the session that not send CONNECT yet
+     */
+    public int getWebsocketSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Integer handle of the session, for the application that index the session in array or primitive map.
+     * The handle is assigned when the websocket session registered and unique until 2^32 connection.
+     *
+     * @param sessionId Session id
+     * @return handle of the session, -1 if the session not found
+     */
+    public int getSessionHandle(String sessionId) {
+        var record = sessions.get(sessionId);
+        return record == null ? -1 : record.getHandle();
+    }
+
+    /**
+     * Used to forward message receive by websocket to RPCP mechanism
+     *
+     * @param message   Message string receive by websocket want to forward to RPCP
+     * @param wsSession Websocket Session
+     */
+    public void onGetMessage(String message, NativeWSSession wsSession) {
+
+        var record = getOrRegisterSession(wsSession);
+        received(record);
+        var session = record.getWebSocketSession();
+
+        var result = RPCPUtils.parse(message);
+        if (!result.isSuccess()) {
+            onReadFailed(result.getError(), session);
+            return;
+        }
+
+        onRPCPMessage(result.getMessage(), session);
+    }
+
+    /**
+     * Used to forward message receive by websocket as UTF-8 bytes to RPCP mechanism, without decode the whole message
+     * to String. The body of a CALL message share the buffer content, the buffer must not be reused by the websocket
+     * container until the message handled. When call executor is set, or the call is to an {@link AsyncRPCPMethod}
+     * that can read the body after the stage is returned, the body is copied before this method return.
+     *
+     * @param message   UTF-8 bytes receive by websocket want to forward to RPCP, from position to limit
+     * @param wsSession Websocket Session
+     */
+    public void onGetMessage(ByteBuffer message, NativeWSSession wsSession) {
+
+        var record = getOrRegisterSession(wsSession);
+        received(record);
+        var session = record.getWebSocketSession();
+
+        var result = RPCPCodec.parse(message);
+        if (!result.isSuccess()) {
+            onReadFailed(result.getError(), session);
+            return;
+        }
+
+        var rpcpMessage = result.getMessage();
+        if (rpcpMessage instanceof MessageCall && (!callDispatcher.isDirect()
+                || asyncMethods.containsKey(((MessageCall) rpcpMessage).getMethod()))) {
+            // the call run after this method return, the body must not share the buffer of the container
+            var call = (MessageCall) rpcpMessage;
+            var body = call.getBodyBuffer();
+            if (body != null) {
+                call.setBodyBuffer(ByteBuffer.allocate(body.remaining()).put(body).flip());
+            }
+        }
+
+        onRPCPMessage(rpcpMessage, session);
+    }
+
+    /**
+     * Used to forward part of message receive by websocket to RPCP mechanism, ex. continuation frame of a large
+     * message. Command and header is handled as soon as complete, the body of a call to streaming method is streamed
+     * to the method, so the host does not need to collect the whole message.
+     *
+     * @param part      UTF-8 bytes of the part, from position to limit
+     * @param last      true if this is the last part of the message
+     * @param wsSession Websocket Session
+     */
+    public void onGetMessagePart(ByteBuffer part, boolean last, NativeWSSession wsSession) {
+        var record = getOrRegisterSession(wsSession);
+        if (last) {
+            received(record);
+        } else {
+            touch(record);
+        }
+
+        var decoder = getOrRegisterStreamDecoder(record);
+        decoder.feed(part);
+        if (last) {
+            decoder.end();
+        }
+    }
+
+    /**
+     * Used to forward part of message receive by websocket to RPCP mechanism, ex. continuation frame of a large
+     * message.
+     *
+     * @param part      Part of the message
+     * @param last      true if this is the last part of the message
+     * @param wsSession Websocket Session
+     * @see #onGetMessagePart(ByteBuffer, boolean, Object)
+     */
+    public void onGetMessagePart(CharSequence part, boolean last, NativeWSSession wsSession) {
+        var record = getOrRegisterSession(wsSession);
+        if (last) {
+            received(record);
+        } else {
+            touch(record);
+        }
+
+        var decoder = getOrRegisterStreamDecoder(record);
+        decoder.feed(part);
+        if (last) {
+            decoder.end();
+        }
+    }
+
+    /**
+     * The decoder is only used by the thread that receive the message of the session
+     */
+    private RPCPStreamDecoder getOrRegisterStreamDecoder(SessionRecord record) {
+        var decoder = record.decoder;
+        if (decoder == null) {
+            decoder = new RPCPStreamDecoder(new StreamListener(record.getWebSocketSession()), Config.maxHeadLength);
+            record.decoder = decoder;
+        }
+        return decoder;
+    }
+
+    /**
+     * Count a complete message receive from the session
+     */
+    private void received(SessionRecord record) {
+        record.received();
+        touch(record);
+    }
+
+    /**
+     * Mark the RPCP session active when idle timeout is enabled
+     */
+    private void touch(SessionRecord record) {
+        var reaper = idleReaper;
+        if (reaper != null && record.isConnected()) {
+            record.touch(reaper.now());
+        }
+    }
+
+    /**
+     * Called by the idle reaper off its timer thread for the session that idle too long
+     */
+    private void onIdle(RPCPSession rpcpSession) {
+        var session = getWebsocketSession(rpcpSession.getId());
+        if (session == null) {
+            return;
+        }
+
+        sendInternalError(RPCPErrorFrames.IDLE_TIMEOUT, session);
+        if (removeSession(rpcpSession.getId()) != null) {
+            rpcpHostHandler.onDisconnect(new MessageDisconnect(vHost), session);
+        }
+    }
+
+    /**
+     * Reply the pre-written error frame of the parse error, no exception is built for the invalid message
+     */
+    private void onReadFailed(RPCPParseError error, RPCPWebSocketSession session) {
+        metrics.parseFailed(error);
+        var errorKey = error.getErrorFrameKey();
+        if (errorKey != null) {
+            sendInternalError(errorKey, session);
+        }
+    }
+
+    /**
+     * Send pre-written error frame and close the websocket session
+     */
+    private void sendInternalError(String errorKey, RPCPWebSocketSession session) {
+        try {
+            session.sendMessage(errorFrames.get(errorKey));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        try {
+            session.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void onRPCPMessage(RPCPMessage rpcpMessage, RPCPWebSocketSession session) {
+        if (rpcpMessage instanceof MessageConnect) {
+            var connect = (MessageConnect) rpcpMessage;
+            onRPCPConnect(connect, session);
+        } else if (rpcpMessage instanceof MessageDisconnect) {
+            var disconnect = (MessageDisconnect) rpcpMessage;
+            onRPCPDisconnect(disconnect, session);
+        } else if (rpcpMessage instanceof MessageCall) {
+            var call = (MessageCall) rpcpMessage;
+            onRPCPCall(call, session);
+        } else if (rpcpMessage instanceof MessageSubscribe) {
+            var subscribe = (MessageSubscribe) rpcpMessage;
+            onRPCPSubscribe(subscribe, session);
+        } else if (rpcpMessage instanceof MessageUnsubscribe) {
+            var unsubscribe = (MessageUnsubscribe) rpcpMessage;
+            onRPCPUnsubscribe(unsubscribe, session);
+        } else if (rpcpMessage instanceof MessagePing) {
+            try {
+                session.sendMessage(PONG_FRAME);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Trigger available event in RPCP Host
+     *
+     * @param eventName Name of Event want to Trigger
+     * @param params    Value want to pass to the event
+     * @param sessionId Session id where the event want to send
+     * @throws Exception If RPCP session not found will throw Exception with message "RPCP Session Not Found"
+     */
+    public void triggerEvent(String eventName, Map<String, Object> params, String sessionId) throws Exception {
+        var rpcpSession = getRPCPSession(sessionId);
+        if (rpcpSession == null) {
+            throw new Exception("RPCP Session Not Found");
+        }
+
+        var event = this.events.get(eventName);
+        if (event == null) {
+            try {
+                rpcpSession.sendMessage(errorFrames.get(RPCPErrorFrames.EVENT_NOT_FOUND));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        var eventBuilder = new EventBuilder(eventName);
+        event.execute(rpcpSession, params, eventBuilder);
+    }
+
+    /**
+     * Run the call with the call dispatcher. In direct mode an exception of the method is thrown to the caller of
+     * onGetMessage, on the executor there is no caller so the client receive ERROR "Call failed".
+     */
+    private void dispatch(RPCPSession rpcpSession, MessageCall messageCall, RPCPBuilder builder, Runnable call) {
+        var dispatcher = callDispatcher;
+        Runnable task = dispatcher.isDirect() ? call : () -> {
+            try {
+                call.run();
+            } catch (RuntimeException e) {
+                onCallFailed(e, builder, messageCall, rpcpSession);
+            }
+        };
+        var sessionId = rpcpSession.getId();
+        if (!dispatcher.dispatch(sessionId, task)) {
+            onCallRejected(builder, messageCall, rpcpSession);
+        }
+        if (dispatcher.isSessionOrdered() && sessions.get(sessionId) == null) {
+            // disconnected while dispatch, the serial queue created after the disconnect is not removed by it
+            dispatcher.removeSession(sessionId);
+        }
+    }
+
+    /**
+     * Call streaming method with the whole body, the message is received in one frame
+     */
+    private void executeStreaming(RPCPStreamingMethod method, RPCPSession rpcpSession, MessageCall messageCall,
+                                  RPCPBuilder builder) {
+        var start = System.nanoTime();
+        var failed = true;
+        try {
+            var stream = method.execute(rpcpSession, messageCall, builder);
+            if (messageCall.getBody() != null && !messageCall.getBody().isEmpty()) {
+                stream.onBody(messageCall.getBody());
+            }
+            stream.onEnd();
+            failed = false;
+        } finally {
+            metrics.method(messageCall.getMethod()).record(System.nanoTime() - start, failed);
+        }
+    }
+
+    private void execute(RPCPMethod method, RPCPSession rpcpSession, MessageCall messageCall, RPCPBuilder builder) {
+        var start = System.nanoTime();
+        var failed = true;
+        try {
+            method.execute(rpcpSession, messageCall, builder);
+            failed = false;
+        } finally {
+            metrics.method(messageCall.getMethod()).record(System.nanoTime() - start, failed);
+        }
+    }
+
+    private void executeAsync(AsyncRPCPMethod method, RPCPSession rpcpSession, MessageCall messageCall,
+                              RPCPBuilder builder) {
+        var methodMetrics = metrics.method(messageCall.getMethod());
+        var start = System.nanoTime();
+        CompletionStage<MessageResult> stage;
+        try {
+            stage = method.execute(rpcpSession, messageCall, builder);
+        } catch (Exception e) {
+            methodMetrics.record(System.nanoTime() - start, true);
+            onCallFailed(e, builder, messageCall, rpcpSession);
+            return;
+        }
+
+        if (stage == null) {
+            methodMetrics.record(System.nanoTime() - start, false);
+            return;
+        }
+        stage.whenComplete((result, error) -> {
+            methodMetrics.record(System.nanoTime() - start, error != null);
+            if (error != null) {
+                onCallFailed(error, builder, messageCall, rpcpSession);
+                return;
+            }
+            if (result == null) {
+                return;
+            }
+
+            try {
+                rpcpSession.sendMessage(RPCPUtils.write(result));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void onCallFailed(Throwable error, RPCPBuilder builder, MessageCall messageCall,
+                                   RPCPSession rpcpSession) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+
+        var detail = error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage();
+        var messageError = builder.error("Call failed", RPCPErrorFrames.body(detail, "CALL_FAILED"),
+                messageCall.getHeader().getId());
+        try {
+            rpcpSession.sendMessage(RPCPUtils.write(messageError));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void onCallRejected(RPCPBuilder builder, MessageCall messageCall, RPCPSession rpcpSession) {
+        var error = builder.error("Server busy",
+                RPCPErrorFrames.body("Call rejected, too many call in queue", "SERVER_BUSY"),
+                messageCall.getHeader().getId());
+        try {
+            rpcpSession.sendMessage(RPCPUtils.write(error));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Trigger available event to all RPCP session that subscribe the event with SUBSCRIBE message. The subscriber
+     * is found from the subscription index, the event is executed once for every subscriber.
+     *
+     * @param eventName Name of Event want to Trigger
+     * @param params    Value want to pass to the event
+     * @return number of subscriber
+     * @throws Exception If event not found will throw Exception with message "Event Not Found"
+     */
+    public int triggerEvent(String eventName, Map<String, Object> params) throws Exception {
+        var event = this.events.get(eventName);
+        if (event == null) {
+            throw new Exception("Event Not Found");
+        }
+
+        var members = subscriptions.subscribers(eventName);
+        if (members == null) {
+            return 0;
+        }
+
+        var eventBuilder = new EventBuilder(eventName);
+        var count = 0;
+        for (var rpcpSession : members.values()) {
+            event.execute(rpcpSession, params, eventBuilder);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Send the event to all RPCP session that subscribe the event, the event is written once.
+     *
+     * @param event event want to send, the subscriber is found by the event name
+     * @return number of session the event sent to
+     * @throws Exception if event not compatible will throw Exception with message "Not Compatible".
+     * @see #broadcast(MessageEvent)
+     */
+    public int publish(MessageEvent event) throws Exception {
+        var members = subscriptions.subscribers(event.getMethod());
+        if (members == null) {
+            return 0;
+        }
+        return broadcast(new RPCPPreparedFrame(event), members, Function.identity(), null, null);
+    }
+
+    /**
+     * Send the latest value of the event to all RPCP session that subscribe the event. For session with outbound
+     * queue, an unsent event with the same event name and conflation key is replaced in place, so a slow subscriber
+     * hold at most one frame per key and receive only the latest value.
+     *
+     * @param event         event want to send, the subscriber is found by the event name
+     * @param conflationKey key of the value inside the event, ex. the symbol of a price event
+     * @return number of session the event sent to
+     * @throws Exception if event not compatible will throw Exception with message "Not Compatible".
+     * @see #setOutboundQueue(int, RPCPOverflowPolicy, Executor)
+     */
+    public int publish(MessageEvent event, String conflationKey) throws Exception {
+        var members = subscriptions.subscribers(event.getMethod());
+        if (members == null) {
+            return 0;
+        }
+        return broadcast(new RPCPPreparedFrame(event), members, Function.identity(), null, conflationKey);
+    }
+
+    /**
+     * @param sessionId Session id
+     * @return name of event subscribed by the session
+     */
+    public Set<String> getSubscriptions(String sessionId) {
+        return subscriptions.topics(sessionId);
+    }
+
+    /**
+     * Send the event to all connected RPCP session. The event is written once and the same frame is sent to every
+     * session, when the number of session reach {@link Config#broadcastParallelismThreshold} the frame is sent in
+     * parallel on the common pool. This method return after the frame sent to all session.
+     *
+     * @param event event want to send
+     * @return number of session the event sent to
+     * @throws Exception if event not compatible will throw Exception with message "Not Compatible".
+     */
+    public int broadcast(MessageEvent event) throws Exception {
+        return broadcast(new RPCPPreparedFrame(event));
+    }
+
+    /**
+     * Send the event to the connected RPCP session accepted by the filter
+     *
+     * @param event  event want to send
+     * @param filter select the session, called from many thread when sent in parallel
+     * @return number of session the event sent to
+     * @throws Exception if event not compatible will throw Exception with message "Not Compatible".
+     * @see #broadcast(MessageEvent)
      */
-    public void addMethod(RPCPMethod method) {
-        this.methodsName.add(method.getClass().getName());
-        this.methods.put(method.getClass().getName(), method);
+    public int broadcast(MessageEvent event, Predicate<RPCPSession> filter) throws Exception {
+        return broadcast(new RPCPPreparedFrame(event), filter);
     }
 
     /**
-     * Add new method to RPCP Host with custom name
+     * Send the event to the RPCP session in the group
      *
-     * @param methodName The method name want to register
-     * @param method     Method object want to add to Host
+     * @param event event want to send
+     * @param group name of the group
+     * @return number of session the event sent to
+     * @throws Exception if event not compatible will throw Exception with message "Not Compatible".
+     * @see #joinGroup(String, String)
      */
-    public void addMethod(String methodName, RPCPMethod method) {
-        this.methodsName.add(methodName);
-        this.methods.put(methodName, method);
+    public int broadcast(MessageEvent event, String group) throws Exception {
+        return broadcast(new RPCPPreparedFrame(event), group);
     }
 
-    public void onWsConnect(NativeWSSession session) {
-
+    /**
+     * Send written frame to all connected RPCP session
+     *
+     * @param frame written frame
+     * @return number of session the frame sent to
+     * @see #broadcast(MessageEvent)
+     */
+    public int broadcast(RPCPPreparedFrame frame) {
+        return broadcast(frame, sessions.records(), CONNECTED_SESSION, null, null);
     }
 
-    public void onWsDisconnect(NativeWSSession session, String closeStatus) {
-
+    /**
+     * Send written frame to the connected RPCP session accepted by the filter
+     *
+     * @param frame  written frame
+     * @param filter select the session, called from many thread when sent in parallel
+     * @return number of session the frame sent to
+     * @see #broadcast(MessageEvent, Predicate)
+     */
+    public int broadcast(RPCPPreparedFrame frame, Predicate<RPCPSession> filter) {
+        return broadcast(frame, sessions.records(), CONNECTED_SESSION, filter, null);
     }
 
     /**
-     * Used to forward message receive by websocket to RPCP mechanism
+     * Send written frame to the RPCP session in the group
      *
-     * @param message   Message string receive by websocket want to forward to RPCP
-     * @param wsSession Websocket Session
+     * @param frame written frame
+     * @param group name of the group
+     * @return number of session the frame sent to
+     * @see #broadcast(MessageEvent, String)
      */
-    public void onGetMessage(String message, NativeWSSession wsSession) {
-
-        var session = getOrRegisterWebsocketSession(wsSession);
-
-        RPCPMessage rpcpMessage = null;
-        try {
-            rpcpMessage = RPCPUtils.read(message);
-        } catch (Exception e) {
-            e.printStackTrace();
-            if (e.getMessage().equalsIgnoreCase("Invalid RPCP")) {
-                var xxx = new MessageError(".internal", new HeaderError("Invalid RPCP", "application/json"));
-                var bodyError = new MessageBodyError("Invalid RPCP, check your RPCP message", "INVALID_RPCP");
-                var objectMapper = new ObjectMapper();
-
-                String bodyStr = null;
-                try {
-                    bodyStr = objectMapper.writeValueAsString(bodyError);
-                } catch (JsonProcessingException ex) {
-                    ex.printStackTrace();
-                }
-                xxx.setBody(bodyStr);
-                String z = null;
-                try {
-                    z = RPCPUtils.write(xxx);
-                } catch (Exception ex) {
-                    e.printStackTrace();
-                }
-                try {
-                    session.sendMessage(z);
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
-                try {
-                    session.close();
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
-            } else if (e.getMessage().equalsIgnoreCase("Incorrect protocol format")) {
-                var xxx = new MessageError(".internal", new HeaderError("Incorrect protocol format", "application/json"));
-                var bodyError = new MessageBodyError("Incorrect protocol format, check your RPCP message", "INVALID_RPCP");
-                var objectMapper = new ObjectMapper();
+    public int broadcast(RPCPPreparedFrame frame, String group) {
+        var members = sessionGroups.subscribers(group);
+        if (members == null) {
+            return 0;
+        }
+        return broadcast(frame, members, Function.identity(), null, null);
+    }
 
-                String bodyStr = null;
-                try {
-                    bodyStr = objectMapper.writeValueAsString(bodyError);
-                } catch (JsonProcessingException ex) {
-                    ex.printStackTrace();
-                }
-                xxx.setBody(bodyStr);
-                String z = null;
-                try {
-                    z = RPCPUtils.write(xxx);
-                } catch (Exception ex) {
-                    e.printStackTrace();
-                }
-                try {
-                    session.sendMessage(z);
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
-                try {
-                    session.close();
-                } catch (Exception ex) {
-                    ex.printStackTrace();
+    /**
+     * @param session get the RPCP session of the target value, the value is skipped when return null
+     */
+    private <V> int broadcast(RPCPPreparedFrame frame, ConcurrentHashMap<String, V> targets,
+                              Function<? super V, ? extends RPCPSession> session, Predicate<RPCPSession> filter,
+                              String conflationKey) {
+        var sent = new LongAdder();
+        targets.forEachValue(Config.broadcastParallelismThreshold, session, rpcpSession -> {
+            if (filter != null && !filter.test(rpcpSession)) {
+                return;
+            }
+            try {
+                if (conflationKey == null) {
+                    rpcpSession.sendMessage(frame);
+                } else {
+                    rpcpSession.sendMessage(frame, conflationKey);
                 }
+                sent.increment();
+            } catch (Exception e) {
+                e.printStackTrace();
             }
-        }
-
-        if (rpcpMessage instanceof MessageConnect) {
-            var connect = (MessageConnect) rpcpMessage;
-            onRPCPConnect(connect, session);
-        } else if (rpcpMessage instanceof MessageDisconnect) {
-            var disconnect = (MessageDisconnect) rpcpMessage;
-            onRPCPDisconnect(disconnect, session);
-        } else if (rpcpMessage instanceof MessageCall) {
-            var call = (MessageCall) rpcpMessage;
-            onRPCPCall(call, session);
-        }
+        });
+        return sent.intValue();
     }
 
     /**
-     * Trigger available event in RPCP Host
+     * Add RPCP session to the group, the session leave all group when disconnected
      *
-     * @param eventName Name of Event want to Trigger
-     * @param params    Value want to pass to the event
-     * @param sessionId Session id where the event want to send
+     * @param group     name of the group
+     * @param sessionId Session id want to add
      * @throws Exception If RPCP session not found will throw Exception with message "RPCP Session Not Found"
      */
-    public void triggerEvent(String eventName, Map<String, Object> params, String sessionId) throws Exception {
-        var rpcpSession = rpcpSessions.get(sessionId);
+    public void joinGroup(String group, String sessionId) throws Exception {
+        var rpcpSession = getRPCPSession(sessionId);
         if (rpcpSession == null) {
             throw new Exception("RPCP Session Not Found");
         }
 
-        var event = this.events.get(eventName);
-        if (event == null) {
-            var xxx = new MessageError(".internal", new HeaderError("Event Not Found", "application/json"));
+        sessionGroups.subscribe(group, rpcpSession);
+        if (getRPCPSession(sessionId) == null) {
+            // disconnected while join, the group entry added after the disconnect is not removed by it
+            sessionGroups.removeSession(sessionId);
+            throw new Exception("RPCP Session Not Found");
+        }
+    }
 
-            var bodyError = new MessageBodyError("Event Not Found", "Event_NOT_FOUND");
-            var objectMapper = new ObjectMapper();
+    /**
+     * Remove RPCP session from the group, empty group is removed
+     *
+     * @param group     name of the group
+     * @param sessionId Session id want to remove
+     */
+    public void leaveGroup(String group, String sessionId) {
+        sessionGroups.unsubscribe(group, sessionId);
+    }
 
-            String bodyStr = null;
-            try {
-                bodyStr = objectMapper.writeValueAsString(bodyError);
-            } catch (JsonProcessingException ex) {
-                ex.printStackTrace();
-            }
-            xxx.setBody(bodyStr);
+    private void onRPCPSubscribe(MessageSubscribe messageSubscribe, RPCPWebSocketSession session) {
+        var rpcpSession = getRPCPSession(session.getId());
+        if (rpcpSession == null) {
+            sendInternalError(RPCPErrorFrames.SESSION_NOT_VALID, session);
+            return;
+        }
 
-            String z = null;
+        if (!events.containsKey(messageSubscribe.getEvent())) {
             try {
-                z = RPCPUtils.write(xxx);
+                session.sendMessage(errorFrames.get(RPCPErrorFrames.EVENT_NOT_FOUND));
             } catch (Exception e) {
                 e.printStackTrace();
             }
+            return;
+        }
 
-            try {
-                rpcpSession.sendMessage(z);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        subscriptions.subscribe(messageSubscribe.getEvent(), rpcpSession);
+        if (getRPCPSession(session.getId()) == null) {
+            // disconnected while subscribe
+            subscriptions.removeSession(session.getId());
+        }
+    }
+
+    private void onRPCPUnsubscribe(MessageUnsubscribe messageUnsubscribe, RPCPWebSocketSession session) {
+        if (getRPCPSession(session.getId()) == null) {
+            sendInternalError(RPCPErrorFrames.SESSION_NOT_VALID, session);
             return;
         }
 
-        var eventBuilder = new EventBuilder(eventName);
-        event.execute(rpcpSession, params, eventBuilder);
+        subscriptions.unsubscribe(messageUnsubscribe.getEvent(), session.getId());
     }
 
     private void onRPCPConnect(MessageConnect messageConnect, RPCPWebSocketSession session) {
 
         if (!messageConnect.getvHost().equalsIgnoreCase(vHost)) {
-            var xxx = new MessageError(".internal", new HeaderError("Connect failed", "application/json"));
-
-            var bodyError = new MessageBodyError("Connect to RPCP failed, check your vHost", "VHOST_NOT_FOUND");
-            var objectMapper = new ObjectMapper();
-
-            String bodyStr = null;
-            try {
-                bodyStr = objectMapper.writeValueAsString(bodyError);
-            } catch (JsonProcessingException ex) {
-                ex.printStackTrace();
-            }
-            xxx.setBody(bodyStr);
-
-            String z = null;
-            try {
-                z = RPCPUtils.write(xxx);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-
-            try {
-                session.sendMessage(z);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            try {
-                session.close();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            sendInternalError(RPCPErrorFrames.VHOST_NOT_FOUND, session);
             return;
         }
 
         String protocol = null;
         try {
             if (!validateProtocolVersion(messageConnect.getProtocolVersion())) {
-                var xxx = new MessageError(".internal", new HeaderError("connect failed", "application/json"));
-                String z = null;
-                try {
-                    z = RPCPUtils.write(xxx);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-
-                session.sendMessage(z);
-                session.close();
+                sendInternalError(RPCPErrorFrames.PROTOCOL_NOT_SUPPORTED, session);
                 return;
             } else {
                 protocol = messageConnect.getProtocolVersion();
@@ -323,53 +1030,21 @@ public class RPCPHost<NativeWSSession> {
 
         var preConnectResult = rpcpHostHandler.onPreConnect(messageConnect, session);
         if (!preConnectResult) {
-            var rpcpError = new MessageError(".internal", new HeaderError("Connect failed", "application/json"));
-
-            var bodyError = new MessageBodyError("Connect to RPCP failed, check pre-connect validation", "PRE_CONNECT_INVALID");
-            var objectMapper = new ObjectMapper();
-
-            String bodyStr = null;
-            try {
-                bodyStr = objectMapper.writeValueAsString(bodyError);
-            } catch (JsonProcessingException ex) {
-                ex.printStackTrace();
-            }
-            rpcpError.setBody(bodyStr);
-
-            String rpcpMsgStr = null;
-            try {
-                rpcpMsgStr = RPCPUtils.write(rpcpError);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-
-            try {
-                session.sendMessage(rpcpMsgStr);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            try {
-                session.close();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            sendInternalError(RPCPErrorFrames.PRE_CONNECT_INVALID, session);
             return;
         }
 
-        String[] eventsNameArray = this.eventsName.toArray(new String[0]);
-        String[] methodsNameArray = this.methodsName.toArray(new String[0]);
-        var a = new MessageConnected(vHost, protocol, new HeaderConnected(Config.hostVersion, eventsNameArray, methodsNameArray));
-        String rpcpMsgStr = null;
-        try {
-            rpcpMsgStr = RPCPUtils.write(a);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        var connected = getConnectedFrame(protocol);
 
-        var rpcpSession = new RPCPSession(session);
-        registerRPCPSession(rpcpSession);
+        var record = sessions.get(session.getId());
+        if (record != null && sessions.connect(record)) {
+            var reaper = idleReaper;
+            if (reaper != null) {
+                reaper.add(record);
+            }
+        }
         try {
-            session.sendMessage(rpcpMsgStr);
+            session.sendMessage(connected);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -380,36 +1055,7 @@ public class RPCPHost<NativeWSSession> {
     private void onRPCPDisconnect(MessageDisconnect messageDisconnect, RPCPWebSocketSession session) {
 
         if (getRPCPSession(session.getId()) == null) {
-            var xxx = new MessageError(".internal", new HeaderError("Disconnect failed", "application/json"));
-
-            var bodyError = new MessageBodyError("Disconnect to RPCP failed, your RPCP session not found", "RPCP_SESSION_NOT_FOUND");
-            var objectMapper = new ObjectMapper();
-
-            String bodyStr = null;
-            try {
-                bodyStr = objectMapper.writeValueAsString(bodyError);
-            } catch (JsonProcessingException ex) {
-                ex.printStackTrace();
-            }
-            xxx.setBody(bodyStr);
-
-            String z = null;
-            try {
-                z = RPCPUtils.write(xxx);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-
-            try {
-                session.sendMessage(z);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            try {
-                session.close();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            sendInternalError(RPCPErrorFrames.RPCP_SESSION_NOT_FOUND, session);
             return;
         }
 
@@ -427,9 +1073,9 @@ public class RPCPHost<NativeWSSession> {
             e.printStackTrace();
         }
 
-        removeWebsocketSession(session.getId());
-        removeRPCPSession(session.getId());
-        rpcpHostHandler.onDisconnect(messageDisconnect, session);
+        if (removeSession(session.getId()) != null) {
+            rpcpHostHandler.onDisconnect(messageDisconnect, session);
+        }
         try {
             session.close();
         } catch (Exception e) {
@@ -439,97 +1085,246 @@ public class RPCPHost<NativeWSSession> {
 
     private void onRPCPCall(MessageCall messageCall, RPCPWebSocketSession session) {
 
-        RPCPSession rpcpSession;
-        if (getRPCPSession(session.getId()) == null) {
-            var xxx = new MessageError(".internal", new HeaderError("Session not valid", "application/json"));
-            String z = null;
-            try {
-                z = RPCPUtils.write(xxx);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-
-            try {
-                session.sendMessage(z);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            try {
-                session.close();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        RPCPSession rpcpSession = getRPCPSession(session.getId());
+        if (rpcpSession == null) {
+            sendInternalError(RPCPErrorFrames.SESSION_NOT_VALID, session);
             return;
-        } else {
-            rpcpSession = getRPCPSession(session.getId());
         }
 
-        if (methods.containsKey(messageCall.getMethod())) {
+        var streamingMethod = streamingMethods.get(messageCall.getMethod());
+        if (streamingMethod != null) {
+            var builder = new RPCPBuilder(messageCall);
+
+            dispatch(rpcpSession, messageCall, builder,
+                    () -> executeStreaming(streamingMethod, rpcpSession, messageCall, builder));
+        } else if (methods.containsKey(messageCall.getMethod())) {
             var method = methods.get(messageCall.getMethod());
 
             var builder = new RPCPBuilder(messageCall);
 
-            method.execute(rpcpSession, messageCall, builder);
+            dispatch(rpcpSession, messageCall, builder, () -> execute(method, rpcpSession, messageCall, builder));
+        } else if (asyncMethods.containsKey(messageCall.getMethod())) {
+            var method = asyncMethods.get(messageCall.getMethod());
+
+            var builder = new RPCPBuilder(messageCall);
+
+            dispatch(rpcpSession, messageCall, builder,
+                    () -> executeAsync(method, rpcpSession, messageCall, builder));
         } else {
-            try {
-                session.sendMessage("method not found");
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            onMethodNotFound(messageCall, rpcpSession);
         }
     }
 
-    private void registerWebsocketSession(RPCPWebSocketSession session) {
-        rpcpWebSocketSessions.putIfAbsent(session.getId(), session);
+    /**
+     * Reply ERROR with the id of the call so the caller can complete the call
+     */
+    private void onMethodNotFound(MessageCall messageCall, RPCPSession rpcpSession) {
+        var error = new RPCPBuilder(messageCall).error("Method not found",
+                RPCPErrorFrames.body("Method not found: " + messageCall.getMethod(), "METHOD_NOT_FOUND"),
+                messageCall.getHeader().getId());
+        try {
+            rpcpSession.sendMessage(RPCPUtils.write(error));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
     }
 
     private RPCPWebSocketSession getWebsocketSession(String id) {
-        return rpcpWebSocketSessions.get(id);
+        var record = sessions.get(id);
+        return record == null ? null : record.getWebSocketSession();
     }
 
     /**
-     * Create a websocket session wrap by RPCP WebsocketSession if the session id not found in sessions list,
-     * if websocket session id found in sessions list these object will return.
+     * Get the session record of the native websocket session, the record and the websocket session wrap by
+     * RPCP WebsocketSession is created atomically when the session id not found in the registry.
      *
      * @param session native session from websocket framework ex: spring, micronaut
-     * @return WebsocketSession
+     * @return session record
      */
-    private RPCPWebSocketSession getOrRegisterWebsocketSession(NativeWSSession session) {
+    private SessionRecord getOrRegisterSession(NativeWSSession session) {
         var sessionId = rpcpHostHandler.getWsSessionId(session);
-        if (getWebsocketSession(sessionId) != null) {
-            return getWebsocketSession(sessionId);
-        } else {
+        return sessions.getOrCreate(sessionId, id -> {
             var newSession = rpcpHostHandler.buildWebsocketSession(session);
-            registerWebsocketSession(newSession);
+            var executor = outboundExecutor;
+            if (executor != null) {
+                newSession = new RPCPOutboundQueue(newSession, outboundCapacity, outboundPolicy, executor,
+                        errorFrames.get(RPCPErrorFrames.SLOW_CONSUMER), droppedFrameCount);
+            }
             return newSession;
-        }
+        });
     }
 
-    private void removeWebsocketSession(String id) {
-        rpcpWebSocketSessions.remove(id);
+    /**
+     * @return connected RPCP session, null if not found or not send CONNECT yet
+     */
+    private RPCPSession getRPCPSession(String id) {
+        return sessions.getConnected(id);
     }
 
-    private void registerRPCPSession(RPCPSession session) {
-        rpcpSessions.putIfAbsent(session.getId(), session);
+    /**
+     * Remove every state of the session
+     *
+     * @return removed RPCP session, null if the RPCP session already removed
+     */
+    private RPCPSession removeSession(String id) {
+        var rpcpSession = sessions.remove(id);
+        callDispatcher.removeSession(id);
+        sessionGroups.removeSession(id);
+        subscriptions.removeSession(id);
+        return rpcpSession;
     }
 
-    private RPCPSession getRPCPSession(String id) {
-        return rpcpSessions.get(id);
+    /**
+     * Handle the decoded parts of message from one websocket session
+     */
+    private class StreamListener implements RPCPStreamDecoder.Listener {
+        private final RPCPWebSocketSession session;
+        private final StringBuilder body = new StringBuilder();
+
+        private RPCPMessage message;
+        private RPCPBodyStream stream;
+        private RPCPMethodMetrics streamMetrics;
+        private long streamStart;
+
+        StreamListener(RPCPWebSocketSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public void onHead(RPCPMessage message) {
+            if (message instanceof MessageCall) {
+                var call = (MessageCall) message;
+                var streamingMethod = streamingMethods.get(call.getMethod());
+                var rpcpSession = getRPCPSession(session.getId());
+
+                if (streamingMethod != null && rpcpSession != null) {
+                    streamMetrics = metrics.method(call.getMethod());
+                    streamStart = System.nanoTime();
+                    try {
+                        stream = streamingMethod.execute(rpcpSession, call, new RPCPBuilder(call));
+                    } catch (RuntimeException e) {
+                        streamMetrics.record(System.nanoTime() - streamStart, true);
+                        throw e;
+                    }
+                    return;
+                }
+
+                if (rpcpSession == null
+                        || !methods.containsKey(call.getMethod()) && !asyncMethods.containsKey(call.getMethod())) {
+                    // the call will be rejected, no need to collect the body
+                    onRPCPMessage(call, session);
+                    return;
+                }
+            }
+            this.message = message;
+        }
+
+        @Override
+        public void onBody(CharSequence chunk) {
+            if (stream != null) {
+                stream.onBody(chunk);
+            } else if (message != null) {
+                body.append(chunk);
+            }
+        }
+
+        @Override
+        public void onEnd() {
+            if (stream != null) {
+                var current = stream;
+                stream = null;
+                var failed = true;
+                try {
+                    current.onEnd();
+                    failed = false;
+                } finally {
+                    streamMetrics.record(System.nanoTime() - streamStart, failed);
+                }
+            } else if (message != null) {
+                var current = message;
+                message = null;
+                if (current instanceof MessageCall) {
+                    ((MessageCall) current).setBody(body.toString());
+                }
+                body.setLength(0);
+                onRPCPMessage(current, session);
+            }
+        }
+
+        @Override
+        public void onError(Exception e) {
+            // the decoder report parse error as RPCPParseError
+            e.printStackTrace();
+        }
+
+        @Override
+        public void onError(RPCPParseError error) {
+            if (stream != null) {
+                streamMetrics.record(System.nanoTime() - streamStart, true);
+            }
+            stream = null;
+            message = null;
+            body.setLength(0);
+            onReadFailed(error, session);
+        }
     }
 
-    private RPCPSession getOrRegisterRPCPSession(RPCPWebSocketSession session) {
-        var sessionId = session.getId();
-        if (getWebsocketSession(sessionId) != null) {
-            return getRPCPSession(sessionId);
-        } else {
-            var newSession = new RPCPSession(session);
-            registerRPCPSession(newSession);
-            return newSession;
+    /**
+     * Get the CONNECTED frame for the protocol version, the frame is written once and reused until event or method
+     * registered or {@link Config#hostVersion} changed.
+     */
+    private RPCPPreparedFrame getConnectedFrame(String protocol) {
+        var frames = connectedFrames;
+        if (!frames.hostVersion.equals(Config.hostVersion)) {
+            invalidateConnectedFrames();
+            frames = connectedFrames;
+        }
+
+        // protocol is sent by the client, only keep a few version to bound the cache
+        var frame = frames.frames.get(protocol);
+        if (frame == null) {
+            frame = writeConnectedFrame(frames.hostVersion, protocol);
+            if (frames.frames.size() < ConnectedFrames.MAX_PROTOCOL) {
+                var previous = frames.frames.putIfAbsent(protocol, frame);
+                if (previous != null) {
+                    frame = previous;
+                }
+            }
         }
+        return frame;
     }
 
-    private void removeRPCPSession(String id) {
-        rpcpSessions.remove(id);
+    private RPCPPreparedFrame writeConnectedFrame(String hostVersion, String protocol) {
+        String[] eventsNameArray = this.eventsName.toArray(new String[0]);
+        String[] methodsNameArray = this.methodsName.toArray(new String[0]);
+        var a = new MessageConnected(vHost, protocol, new HeaderConnected(hostVersion, eventsNameArray, methodsNameArray));
+        try {
+            return new RPCPPreparedFrame(a);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Drop all cached CONNECTED frame. The name is registered before this called, so the frame written in the new
+     * cache always contain the new name, frame written from the old names only goes to the old cache.
+     */
+    private void invalidateConnectedFrames() {
+        connectedFrames = new ConnectedFrames(Config.hostVersion);
+    }
+
+    /**
+     * CONNECTED frame per protocol version written with the same events, methods and host version
+     */
+    private static final class ConnectedFrames {
+        private static final int MAX_PROTOCOL = 8;
+
+        private final String hostVersion;
+        private final ConcurrentHashMap<String, RPCPPreparedFrame> frames = new ConcurrentHashMap<>();
+
+        private ConnectedFrames(String hostVersion) {
+            this.hostVersion = hostVersion;
+        }
     }
 
     private static boolean validateProtocolVersion(String protocol) throws Exception {
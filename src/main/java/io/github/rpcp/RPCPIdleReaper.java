@@ -0,0 +1,266 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPSession;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Detect idle RPCP session with one hashed timing wheel and one timer thread. Every session has one timeout in the
+ * wheel, the message hot path only write the last activity time of the session with {@link RPCPSession#touch(long)}
+ * and never touch the wheel. When the timeout expire the timer thread check the last activity, a session that was
+ * active is rescheduled from the last activity, a session idle longer than the keepalive interval receive PING once,
+ * a session idle longer than the idle timeout is closed.
+ * <p>
+ * The timer thread only keep the wheel, the PING and the close of idle session run on an executor, so a send that
+ * block on a stalled client does not stop the idle detection of the other session.
+ * <p>
+ * Add, expire and reschedule is O(1), the timer thread visit a session once per keepalive interval or idle timeout.
+ * Removed session is not removed from the wheel, it is dropped when the timeout expire.
+ *
+ * @author Eric A. Sanjaya
+ */
+final class RPCPIdleReaper {
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final long idleTimeout;
+    private final long keepAliveInterval;
+    private final long tickDuration;
+    private final Predicate<RPCPSession> active;
+    private final Consumer<RPCPSession> onKeepAlive;
+    private final Consumer<RPCPSession> onIdle;
+    private final Supplier<Executor> executor;
+    private final ExecutorService callbackPool;
+
+    private final Timeout[] wheel = new Timeout[WHEEL_SIZE];
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private final long start;
+    private volatile long now;
+    private volatile boolean stopped;
+    private long tick;
+
+    private final LongAdder keepAliveCount = new LongAdder();
+    private final LongAdder idleCount = new LongAdder();
+
+    /**
+     * Create and start the timer thread
+     *
+     * @param idleTimeout       close the session after no message in this milliseconds
+     * @param keepAliveInterval send PING after no message in this milliseconds, 0 to disable
+     * @param active            false if the session already removed from the host
+     * @param onKeepAlive       send the keepalive frame
+     * @param onIdle            close and remove the session
+     * @param executor          executor of onKeepAlive and onIdle, supply null or reject to run on the own thread
+     *                          pool of the reaper
+     */
+    RPCPIdleReaper(long idleTimeout, long keepAliveInterval, Predicate<RPCPSession> active,
+                   Consumer<RPCPSession> onKeepAlive, Consumer<RPCPSession> onIdle, Supplier<Executor> executor) {
+        if (idleTimeout <= 0) {
+            throw new IllegalArgumentException("Idle timeout must be positive");
+        }
+        this.idleTimeout = idleTimeout;
+        this.keepAliveInterval = keepAliveInterval > 0 && keepAliveInterval < idleTimeout ? keepAliveInterval : 0;
+        var shortest = this.keepAliveInterval > 0 ? this.keepAliveInterval : idleTimeout;
+        this.tickDuration = Math.max(1, Math.min(1000, shortest / 8));
+        this.active = active;
+        this.onKeepAlive = onKeepAlive;
+        this.onIdle = onIdle;
+        this.executor = executor;
+        var threadNumber = new AtomicInteger();
+        this.callbackPool = Executors.newCachedThreadPool(runnable -> {
+            var callbackThread = new Thread(runnable, "rpcp-idle-callback-" + threadNumber.incrementAndGet());
+            callbackThread.setDaemon(true);
+            return callbackThread;
+        });
+
+        this.start = System.nanoTime();
+        this.now = System.currentTimeMillis();
+        this.thread = new Thread(this::run, "rpcp-idle-reaper");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Clock of the reaper, updated once per tick. Use this value for {@link RPCPSession#touch(long)}, it is cheaper
+     * than reading the system clock for every message.
+     *
+     * @return current time in milliseconds with tick resolution
+     */
+    long now() {
+        return now;
+    }
+
+    /**
+     * Start watching the session, the session is active from now
+     */
+    void add(RPCPSession session) {
+        session.touch(now);
+        added.add(new Timeout(session));
+    }
+
+    void stop() {
+        stopped = true;
+        LockSupport.unpark(thread);
+        callbackPool.shutdown();
+    }
+
+    long getKeepAliveCount() {
+        return keepAliveCount.sum();
+    }
+
+    long getIdleCount() {
+        return idleCount.sum();
+    }
+
+    private void run() {
+        while (!stopped) {
+            var deadline = start + TimeUnit.MILLISECONDS.toNanos((tick + 1) * tickDuration);
+            var sleep = deadline - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+
+            now = System.currentTimeMillis();
+            tick++;
+            try {
+                transferAdded();
+                expire((int) (tick & MASK));
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            schedule(timeout, timeout.session.getLastActivity() + firstDeadline());
+        }
+    }
+
+    private void expire(int bucket) {
+        var timeout = wheel[bucket];
+        wheel[bucket] = null;
+        while (timeout != null) {
+            var next = timeout.next;
+            timeout.next = null;
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+                timeout.next = wheel[bucket];
+                wheel[bucket] = timeout;
+            } else {
+                check(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void check(Timeout timeout) {
+        var session = timeout.session;
+        if (!active.test(session)) {
+            return;
+        }
+
+        var lastActivity = session.getLastActivity();
+        var idle = now - lastActivity;
+        if (idle >= idleTimeout) {
+            idleCount.increment();
+            call(onIdle, session);
+            return;
+        }
+
+        if (keepAliveInterval > 0 && idle >= keepAliveInterval && timeout.keepAliveFor != lastActivity) {
+            // PING once per quiet period, any message after this change the last activity
+            timeout.keepAliveFor = lastActivity;
+            keepAliveCount.increment();
+            call(onKeepAlive, session);
+            schedule(timeout, lastActivity + idleTimeout);
+            return;
+        }
+
+        schedule(timeout, lastActivity + (timeout.keepAliveFor != lastActivity ? firstDeadline() : idleTimeout));
+    }
+
+    private long firstDeadline() {
+        return keepAliveInterval > 0 ? keepAliveInterval : idleTimeout;
+    }
+
+    /**
+     * Put the timeout to the bucket of the deadline, a deadline already passed expire on the next tick
+     */
+    private void schedule(Timeout timeout, long deadline) {
+        var ticks = Math.max(1, (deadline - now + tickDuration - 1) / tickDuration);
+        var bucket = (int) ((tick + ticks) & MASK);
+        timeout.rounds = (ticks - 1) / WHEEL_SIZE;
+        timeout.next = wheel[bucket];
+        wheel[bucket] = timeout;
+    }
+
+    /**
+     * Run the callback off the timer thread
+     */
+    private void call(Consumer<RPCPSession> callback, RPCPSession session) {
+        Runnable task = () -> {
+            try {
+                callback.accept(session);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        };
+
+        var target = executor.get();
+        if (target != null) {
+            try {
+                target.execute(task);
+                return;
+            } catch (RejectedExecutionException e) {
+                // full or shutdown, the session must still be closed
+            }
+        }
+        try {
+            callbackPool.execute(task);
+        } catch (RejectedExecutionException e) {
+            // the reaper is stopped
+        }
+    }
+
+    private static final class Timeout {
+        private final RPCPSession session;
+        private Timeout next;
+        private long rounds;
+        private long keepAliveFor = Long.MIN_VALUE;
+
+        Timeout(RPCPSession session) {
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency histogram with log-linear bucket like HdrHistogram, every power of two is split to 16 bucket so the value
+ * of a bucket is within 6.25% of the recorded value. Value from 0 to about 73 minutes in nanoseconds is recorded,
+ * bigger value is counted in the last bucket.
+ * <p>
+ * Recording does not allocate and does not lock. The buckets are striped by thread, the stripe is created on the
+ * first record of a thread that use the stripe, so thread on different stripe never write the same counter.
+ * The stripes are merged when {@link #snapshot()} called.
+ *
+ * @author Eric A. Sanjaya
+ */
+public final class RPCPLatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 42;
+
+    /**
+     * Number of bucket
+     */
+    public static final int BUCKETS = ((MAX_EXPONENT - SUB_BITS + 1) << SUB_BITS) + SUB_COUNT;
+
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+    private static final int STRIPES = stripes();
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    /**
+     * Record one value
+     *
+     * @param nanos latency in nanoseconds, negative value is recorded as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        var stripe = stripe();
+        stripe.getAndIncrement(bucket(nanos));
+        stripe.getAndAdd(SUM, nanos);
+        if (nanos > stripe.get(MAX)) {
+            stripe.accumulateAndGet(MAX, nanos, Math::max);
+        }
+    }
+
+    /**
+     * @return merged count of all stripes at the time of the call
+     */
+    public Snapshot snapshot() {
+        var counts = new long[BUCKETS];
+        var sum = 0L;
+        var max = 0L;
+        for (var i = 0; i < STRIPES; i++) {
+            var stripe = stripes.get(i);
+            if (stripe == null) {
+                continue;
+            }
+            for (var bucket = 0; bucket < BUCKETS; bucket++) {
+                counts[bucket] += stripe.get(bucket);
+            }
+            sum += stripe.get(SUM);
+            max = Math.max(max, stripe.get(MAX));
+        }
+        return new Snapshot(counts, sum, max);
+    }
+
+    /**
+     * @param nanos value
+     * @return index of the bucket of the value
+     */
+    static int bucket(long nanos) {
+        if (nanos < SUB_COUNT) {
+            return (int) nanos;
+        }
+
+        var exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        return ((exponent - SUB_BITS + 1) << SUB_BITS) + (int) ((nanos >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1));
+    }
+
+    /**
+     * @param bucket index of the bucket
+     * @return highest value counted in the bucket
+     */
+    public static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+
+        var exponent = (bucket >> SUB_BITS) + SUB_BITS - 1;
+        var sub = bucket & (SUB_COUNT - 1);
+        var lower = (long) (SUB_COUNT + sub) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    private AtomicLongArray stripe() {
+        var id = Thread.currentThread().getId();
+        var index = (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & (STRIPES - 1);
+        var stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS + 2));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    private static int stripes() {
+        var processors = Math.min(64, Runtime.getRuntime().availableProcessors());
+        return Integer.highestOneBit(Math.max(1, processors * 2 - 1));
+    }
+
+    /**
+     * Merged content of the histogram
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long sum, long max) {
+            this.counts = counts;
+            this.sum = sum;
+            this.max = max;
+            var total = 0L;
+            for (var value : counts) {
+                total += value;
+            }
+            this.count = total;
+        }
+
+        /**
+         * @return number of recorded value
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return sum of recorded value in nanoseconds
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * @return highest recorded value in nanoseconds
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @return mean of recorded value in nanoseconds, 0 if empty
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @param percentile percentile from 0 to 100
+         * @return highest value of the bucket where the percentile is, not more than the max, 0 if empty
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            var target = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+            var seen = 0L;
+            for (var bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += counts[bucket];
+                if (seen >= target) {
+                    return Math.min(max, bucketUpperBound(bucket));
+                }
+            }
+            return max;
+        }
+
+        /**
+         * @param bucket index of the bucket
+         * @return number of value in the bucket
+         * @see RPCPLatencyHistogram#bucketUpperBound(int)
+         */
+        public long getBucketCount(int bucket) {
+            return counts[bucket];
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter and latency of one method of {@link RPCPHost}. The latency is the time of the method execution, for
+ * {@link io.github.rpcp.model.AsyncRPCPMethod} until the stage complete, for
+ * {@link io.github.rpcp.model.RPCPStreamingMethod} until the body stream end.
+ *
+ * @author Eric A. Sanjaya
+ */
+public final class RPCPMethodMetrics {
+    private final String name;
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final RPCPLatencyHistogram latency = new RPCPLatencyHistogram();
+
+    RPCPMethodMetrics(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos, boolean failed) {
+        callCount.increment();
+        if (failed) {
+            errorCount.increment();
+        }
+        latency.record(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of completed call, include the failed call
+     */
+    public long getCallCount() {
+        return callCount.sum();
+    }
+
+    /**
+     * @return number of call that throw exception or complete exceptionally
+     */
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * @return latency of the call in nanoseconds
+     */
+    public RPCPLatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    @Override
+    public String toString() {
+        var snapshot = latency.snapshot();
+        return name + "[calls=" + getCallCount() + ", errors=" + getErrorCount()
+                + ", p50=" + snapshot.getValueAtPercentile(50) + "ns, p99=" + snapshot.getValueAtPercentile(99)
+                + "ns, max=" + snapshot.getMax() + "ns]";
+    }
+}
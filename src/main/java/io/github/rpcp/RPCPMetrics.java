@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of {@link RPCPHost}: call count, error count and latency of every method, and the number of message that
+ * failed to parse by {@link RPCPParseError}. Recording does not allocate and does not lock, the values are read as snapshot so
+ * they can be exported to any monitoring system.
+ * <pre>
+ * {@code
+ *      for (var method : rpcpHost.getMetrics().getMethods().values()) {
+ *          var latency = method.getLatency();
+ *          gauge(method.getName() + ".p99", latency.getValueAtPercentile(99));
+ *      }
+ * }
+ * </pre>
+ *
+ * @author Eric A. Sanjaya
+ */
+public final class RPCPMetrics {
+    private final ConcurrentHashMap<String, RPCPMethodMetrics> methods = new ConcurrentHashMap<>();
+    private final LongAdder[] parseFailures = parseFailureCounters();
+
+    /**
+     * @return metrics of the method, created on the first call
+     */
+    RPCPMethodMetrics method(String name) {
+        var metrics = methods.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        return methods.computeIfAbsent(name, RPCPMethodMetrics::new);
+    }
+
+    /**
+     * Count a message that failed to parse
+     *
+     * @param error reason the message is not valid
+     */
+    void parseFailed(RPCPParseError error) {
+        parseFailures[error.ordinal()].increment();
+    }
+
+    /**
+     * @param name method name
+     * @return metrics of the method, null if the method never called
+     */
+    public RPCPMethodMetrics getMethod(String name) {
+        return methods.get(name);
+    }
+
+    /**
+     * @return metrics of all method that has been called, by method name
+     */
+    public Map<String, RPCPMethodMetrics> getMethods() {
+        return Collections.unmodifiableMap(methods);
+    }
+
+    /**
+     * @return number of message that failed to parse by reason, reason that never happen is not in the map
+     */
+    public Map<RPCPParseError, Long> getParseFailures() {
+        var snapshot = new EnumMap<RPCPParseError, Long>(RPCPParseError.class);
+        for (var error : RPCPParseError.values()) {
+            var count = parseFailures[error.ordinal()].sum();
+            if (count > 0) {
+                snapshot.put(error, count);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return number of message that failed to parse
+     */
+    public long getParseFailureCount() {
+        var total = 0L;
+        for (var counter : parseFailures) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    private static LongAdder[] parseFailureCounters() {
+        var counters = new LongAdder[RPCPParseError.values().length];
+        for (var i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPWebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded outbound queue of one websocket session. Sending only add the frame to the queue, the frames are sent one
+ * by one by a single writer on the writer executor, so the websocket session is never used by two thread at the same
+ * time and a slow client does not block the thread that send, ex. a broadcast. When the queue is full the frame is
+ * handled by the {@link RPCPOverflowPolicy}.
+ * <p>
+ * The writer stop while the websocket session is not writable ({@link RPCPWebSocketSession#isWritable()}), ex. a
+ * non-blocking transport with many bytes not written to the network yet, so the frames wait in this queue and the
+ * overflow policy apply to a slow client. The writer continue when the session is writable again.
+ * <p>
+ * Close is queued after the frames already in the queue, so an ERROR followed by close is sent before the session
+ * closed.
+ * @author Eric A. Sanjaya
+ */
+public final class RPCPOutboundQueue implements RPCPWebSocketSession {
+    private static final int BATCH = 64;
+    private static final Object CLOSE = new Object();
+
+    private final RPCPWebSocketSession target;
+    private final int capacity;
+    private final RPCPOverflowPolicy policy;
+    private final Executor executor;
+    private final RPCPPreparedFrame slowConsumerError;
+    private final LongAdder hostDroppedCount;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Entry> frames = new ArrayDeque<>();
+    private final HashMap<String, Entry> pendingByKey = new HashMap<>();
+    private boolean scheduled;
+    // the writer wait the session writable, scheduled stay true
+    private boolean paused;
+    private boolean closing;
+
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder conflatedCount = new LongAdder();
+
+    /**
+     * Create outbound queue
+     * @param target            the websocket session
+     * @param capacity          maximum frame waiting in the queue
+     * @param policy            what to do when the queue is full
+     * @param executor          executor of the writer, shared by many queue
+     * @param slowConsumerError frame sent before close when the policy is {@link RPCPOverflowPolicy#DISCONNECT}
+     * @param hostDroppedCount  counter of dropped frame of all queue, can be null
+     */
+    RPCPOutboundQueue(RPCPWebSocketSession target, int capacity, RPCPOverflowPolicy policy, Executor executor,
+                      RPCPPreparedFrame slowConsumerError, LongAdder hostDroppedCount) {
+        this.target = target;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.executor = executor;
+        this.slowConsumerError = slowConsumerError;
+        this.hostDroppedCount = hostDroppedCount;
+    }
+
+    /**
+     * Create executor for the writer with fixed number of daemon thread, the queue of the executor is not bounded
+     * because every session only have one writer task at a time.
+     * @param threads number of thread
+     * @return new executor, shutdown the executor when not used anymore
+     */
+    public static ExecutorService newWriterExecutor(int threads) {
+        var threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "rpcp-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void sendMessage(String msg) {
+        offer(msg, RPCPPreparedFrame.eventName(msg), false);
+    }
+
+    /**
+     * Queue the bytes, the buffer content must not change until sent
+     */
+    @Override
+    public void sendMessage(ByteBuffer msg) {
+        offer(msg, null, false);
+    }
+
+    @Override
+    public void sendMessage(RPCPPreparedFrame frame) {
+        offer(frame, frame.getEventName(), false);
+    }
+
+    /**
+     * Queue the EVENT, an unsent EVENT with the same event name and conflation key in the queue is replaced in place
+     * by this frame, so the queue only hold the latest value of every key.
+     */
+    @Override
+    public void sendMessage(RPCPPreparedFrame frame, String conflationKey) {
+        if (frame.getEventName() == null || conflationKey == null) {
+            sendMessage(frame);
+            return;
+        }
+        offer(frame, frame.getEventName() + ' ' + conflationKey, true);
+    }
+
+    /**
+     * Close the session after the frames already in the queue sent, frame sent after this is dropped
+     */
+    @Override
+    public void close() {
+        boolean schedule;
+        synchronized (lock) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            frames.add(new Entry(CLOSE, null));
+            schedule = schedule() || resume();
+        }
+        if (schedule) {
+            startWriter();
+        }
+    }
+
+    @Override
+    public boolean isOpen() throws Exception {
+        synchronized (lock) {
+            if (closing) {
+                return false;
+            }
+        }
+        return target.isOpen();
+    }
+
+    @Override
+    public String getId() {
+        return target.getId();
+    }
+
+    /**
+     * @return number of frame waiting in the queue
+     */
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return frames.size();
+        }
+    }
+
+    /**
+     * @return number of frame sent to the websocket session
+     */
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    /**
+     * @return number of unsent EVENT replaced by a newer EVENT with the same conflation key
+     */
+    public long getConflatedCount() {
+        return conflatedCount.sum();
+    }
+
+    /**
+     * @return number of frame dropped or replaced because the queue full or the session closing
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * @return the websocket session
+     */
+    public RPCPWebSocketSession getTarget() {
+        return target;
+    }
+
+    /**
+     * The connection is already closed, drop the frame waiting in the queue and refuse the next frame
+     */
+    void discard() {
+        synchronized (lock) {
+            if (!frames.isEmpty()) {
+                dropped(frames.size());
+                frames.clear();
+                pendingByKey.clear();
+            }
+            closing = true;
+        }
+    }
+
+    private void offer(Object frame, String key, boolean conflate) {
+        boolean schedule;
+        synchronized (lock) {
+            if (closing) {
+                dropped(1);
+                return;
+            }
+
+            if (conflate) {
+                var pending = pendingByKey.get(key);
+                if (pending != null) {
+                    pending.frame = frame;
+                    conflatedCount.increment();
+                    return;
+                }
+            }
+
+            if (frames.size() < capacity || overflow(frame, key)) {
+                var entry = new Entry(frame, key);
+                frames.add(entry);
+                if (key != null) {
+                    pendingByKey.put(key, entry);
+                }
+            }
+            // the frames after disconnect are sent without waiting the session writable
+            schedule = !frames.isEmpty() && (schedule() || (closing && resume()));
+        }
+        if (schedule) {
+            startWriter();
+        }
+    }
+
+    /**
+     * Make space for the new frame, called with the lock held
+     * @return true if the new frame should be added to the queue
+     */
+    private boolean overflow(Object frame, String key) {
+        switch (policy) {
+            case DROP_NEWEST: {
+                dropped(1);
+                return false;
+            }
+            case CONFLATE: {
+                var pending = key == null ? null : pendingByKey.get(key);
+                if (pending != null) {
+                    pending.frame = frame;
+                    dropped(1);
+                    return false;
+                }
+                dropOldest();
+                return true;
+            }
+            case DISCONNECT: {
+                dropped(frames.size() + 1);
+                frames.clear();
+                pendingByKey.clear();
+                closing = true;
+                frames.add(new Entry(slowConsumerError, null));
+                frames.add(new Entry(CLOSE, null));
+                return false;
+            }
+            default: {
+                dropOldest();
+                return true;
+            }
+        }
+    }
+
+    private void dropOldest() {
+        var oldest = frames.poll();
+        if (oldest != null) {
+            forget(oldest);
+            dropped(1);
+        }
+    }
+
+    private void dropped(int count) {
+        droppedCount.add(count);
+        if (hostDroppedCount != null) {
+            hostDroppedCount.add(count);
+        }
+    }
+
+    private void forget(Entry entry) {
+        if (entry.key != null && pendingByKey.get(entry.key) == entry) {
+            pendingByKey.remove(entry.key);
+        }
+    }
+
+    /**
+     * @return true if the writer need to be started, called with the lock held
+     */
+    private boolean schedule() {
+        if (scheduled) {
+            return false;
+        }
+        scheduled = true;
+        return true;
+    }
+
+    /**
+     * @return true if the paused writer need to be started again, called with the lock held
+     */
+    private boolean resume() {
+        if (!paused) {
+            return false;
+        }
+        paused = false;
+        return true;
+    }
+
+    /**
+     * The session is writable again
+     */
+    private void writable() {
+        synchronized (lock) {
+            if (!resume()) {
+                // already resumed by close
+                return;
+            }
+        }
+        startWriter();
+    }
+
+    private void startWriter() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // the writer executor is full or shut down, drain on this thread in a loop so the stack does not grow
+            while (drainBatch()) {
+                // next batch
+            }
+        }
+    }
+
+    private void drain() {
+        if (drainBatch()) {
+            // give the thread to the other session
+            startWriter();
+        }
+    }
+
+    /**
+     * Write up to one batch of frames
+     *
+     * @return true if frames remain and the writer is still scheduled, false if the queue is empty or paused
+     */
+    private boolean drainBatch() {
+        for (var i = 0; i < BATCH; i++) {
+            Object frame;
+            synchronized (lock) {
+                var entry = frames.peek();
+                if (entry == null) {
+                    scheduled = false;
+                    return false;
+                }
+                if (!closing && !target.isWritable()) {
+                    paused = true;
+                    frame = null;
+                } else {
+                    frames.poll();
+                    forget(entry);
+                    frame = entry.frame;
+                }
+            }
+            if (frame == null) {
+                target.onWritable(this::writable);
+                return false;
+            }
+            write(frame);
+        }
+        return true;
+    }
+
+    private void write(Object frame) {
+        try {
+            if (frame == CLOSE) {
+                target.close();
+                return;
+            }
+
+            if (frame instanceof String) {
+                target.sendMessage((String) frame);
+            } else if (frame instanceof ByteBuffer) {
+                target.sendMessage((ByteBuffer) frame);
+            } else {
+                target.sendMessage((RPCPPreparedFrame) frame);
+            }
+            sentCount.increment();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final class Entry {
+        private Object frame;
+        private final String key;
+
+        private Entry(Object frame, String key) {
+            this.frame = frame;
+            this.key = key;
+        }
+    }
+}
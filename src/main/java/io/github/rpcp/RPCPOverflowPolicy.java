@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+/**
+ * What to do when the outbound queue of a session is full
+ * @author Eric A. Sanjaya
+ */
+public enum RPCPOverflowPolicy {
+    /**
+     * Drop the oldest frame in the queue and add the new frame
+     */
+    DROP_OLDEST,
+
+    /**
+     * Drop the new frame
+     */
+    DROP_NEWEST,
+
+    /**
+     * Replace the unsent EVENT with the same event name by the new frame in place, if there is no such EVENT drop
+     * the oldest frame
+     */
+    CONFLATE,
+
+    /**
+     * Drop all frame in the queue, send ERROR "Slow consumer" and close the session
+     */
+    DISCONNECT
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+/**
+ * Reason the RPCP frame is not valid, returned in {@link RPCPParseResult} instead of thrown. Every code keep the
+ * exception message of the throwing read, so {@link RPCPUtils#read(String)} throw the same message as before.
+ * @author Eric A. Sanjaya
+ */
+public enum RPCPParseError {
+    /**
+     * Command is empty or not an RPCP command
+     */
+    INVALID_COMMAND("Invalid RPCP", RPCPErrorFrames.INVALID_RPCP),
+    /**
+     * Command line does not have the vHost, method, event or status required by the command
+     */
+    MISSING_ARGUMENT("Parse error", null),
+    /**
+     * Header line is not in "name: value" format
+     */
+    BAD_HEADER("Invalid RPCP", RPCPErrorFrames.INVALID_RPCP),
+    /**
+     * Header required by the command is not found
+     */
+    MISSING_HEADER("Invalid RPCP", RPCPErrorFrames.INVALID_RPCP),
+    /**
+     * Protocol of CONNECT or CONNECTED is not in "RPCP/{version}" format
+     */
+    BAD_PROTOCOL("Incorrect Protocol Format", RPCPErrorFrames.INCORRECT_PROTOCOL_FORMAT),
+    /**
+     * Command and header is longer than the limit of {@link RPCPStreamDecoder}
+     */
+    HEAD_TOO_LONG("Invalid RPCP", RPCPErrorFrames.INVALID_RPCP);
+
+    private final String message;
+    private final String errorFrameKey;
+
+    RPCPParseError(String message, String errorFrameKey) {
+        this.message = message;
+        this.errorFrameKey = errorFrameKey;
+    }
+
+    /**
+     * @return message of the exception thrown by {@link RPCPUtils#read(String)}
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return key of the ERROR frame in {@link RPCPErrorFrames} sent by {@link RPCPHost} to the client,
+     * null if the host does not reply
+     */
+    public String getErrorFrameKey() {
+        return errorFrameKey;
+    }
+
+    /**
+     * @return exception of the throwing read
+     */
+    Exception toException() {
+        return new Exception(message);
+    }
+}
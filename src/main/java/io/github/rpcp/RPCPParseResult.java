@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPMessage;
+
+/**
+ * Result of {@link RPCPUtils#parse(String)} and {@link RPCPCodec#parse(java.nio.ByteBuffer)}, the message or the
+ * reason the frame is not valid. Failed parse does not build an exception, the result of every error code is created
+ * once and shared.
+ * <pre>
+ * {@code
+ *      var result = RPCPUtils.parse(frame);
+ *      if (!result.isSuccess()) {
+ *          log.debug("Drop frame: {}", result.getError());
+ *          return;
+ *      }
+ *      handle(result.getMessage());
+ * }
+ * </pre>
+ * @author Eric A. Sanjaya
+ */
+public final class RPCPParseResult {
+    private static final RPCPParseResult[] FAILURES = failures();
+
+    private final RPCPMessage message;
+    private final RPCPParseError error;
+
+    private RPCPParseResult(RPCPMessage message, RPCPParseError error) {
+        this.message = message;
+        this.error = error;
+    }
+
+    static RPCPParseResult success(RPCPMessage message) {
+        return new RPCPParseResult(message, null);
+    }
+
+    static RPCPParseResult failure(RPCPParseError error) {
+        return FAILURES[error.ordinal()];
+    }
+
+    /**
+     * @return true if the frame is a valid RPCP message
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return the message, null if the frame is not valid
+     */
+    public RPCPMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * @return reason the frame is not valid, null if the frame is valid
+     */
+    public RPCPParseError getError() {
+        return error;
+    }
+
+    /**
+     * @return the message
+     * @throws Exception if the frame is not valid, with the message of {@link RPCPParseError#getMessage()}
+     */
+    public RPCPMessage getMessageOrThrow() throws Exception {
+        if (error != null) {
+            throw error.toException();
+        }
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return error == null ? "RPCPParseResult{message=" + message + "}" : "RPCPParseResult{error=" + error + "}";
+    }
+
+    private static RPCPParseResult[] failures() {
+        var errors = RPCPParseError.values();
+        var failures = new RPCPParseResult[errors.length];
+        for (var error : errors) {
+            failures[error.ordinal()] = new RPCPParseResult(null, error);
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPMessage;
+
+/**
+ * Single pass RPCP frame parser. The frame is scanned once by index, command token, header value and body are sliced
+ * directly from the frame without regex and without intermediate array of lines.
+ * @author Eric A. Sanjaya
+ */
+final class RPCPParser {
+    private RPCPParser() {
+    }
+
+    /**
+     * Read RPCP Object from RPCP Message String
+     * @param rpcp RPCP Message String
+     * @return RPCPMessage representation from the RPCP Message String given
+     * @throws Exception if RPCP Message String not a valid RPCP specification
+     */
+    static RPCPMessage read(String rpcp) throws Exception {
+        return parse(rpcp).toMessage();
+    }
+
+    /**
+     * Slice the RPCP Message String to the frame parts, the frame is not validated yet. A header line that is not in
+     * "name: value" format stop the slicing and set {@link RPCPParseError#BAD_HEADER} to the frame.
+     * @param rpcp RPCP Message String
+     * @return frame parts
+     */
+    static RPCPFrame parse(String rpcp) {
+        var frame = new RPCPFrame();
+        var length = rpcp.length();
+
+        var lineEnd = lineEnd(rpcp, 0);
+        commandLine(rpcp, 0, lineEnd, frame);
+
+        var position = lineEnd + 2;
+        while (position < length) {
+            lineEnd = lineEnd(rpcp, position);
+            if (lineEnd == position) {
+                frame.body = body(rpcp, position + 2);
+                break;
+            }
+
+            if (!headerLine(rpcp, position, lineEnd, frame)) {
+                break;
+            }
+            position = lineEnd + 2;
+        }
+
+        return frame;
+    }
+
+    private static int lineEnd(String rpcp, int from) {
+        var index = rpcp.indexOf("\r\n", from);
+        return index < 0 ? rpcp.length() : index;
+    }
+
+    private static void commandLine(String rpcp, int start, int end, RPCPFrame frame) {
+        // trailing space is not a token
+        while (end > start && rpcp.charAt(end - 1) == ' ') {
+            end--;
+        }
+
+        var tokenStart = start;
+        var index = 0;
+        while (true) {
+            var space = rpcp.indexOf(' ', tokenStart);
+            if (space < 0 || space > end) {
+                space = end;
+            }
+
+            if (index == 0) {
+                frame.command = command(rpcp, tokenStart, space);
+            } else if (index == 1) {
+                frame.target = rpcp.substring(tokenStart, space);
+            } else if (index == 2) {
+                frame.argument = rpcp.substring(tokenStart, space);
+            }
+            index++;
+
+            if (space == end) {
+                break;
+            }
+            tokenStart = space + 1;
+        }
+
+        frame.commandLength = index;
+    }
+
+    private static String command(String rpcp, int start, int end) {
+        var length = end - start;
+        for (var command : RPCPFrame.COMMANDS) {
+            if (command.length() == length && rpcp.startsWith(command, start)) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    private static boolean headerLine(String rpcp, int start, int end, RPCPFrame frame) {
+        var colon = rpcp.indexOf(':', start);
+        if (colon < 0 || colon > end) {
+            frame.fail(RPCPParseError.BAD_HEADER);
+            return false;
+        }
+
+        var slot = RPCPFrame.headerSlot(rpcp, start, colon);
+        if (slot == RPCPFrame.HEADER_UNKNOWN) {
+            frame.header(slot, null);
+            return true;
+        }
+
+        var valueStart = colon + 1;
+        if (valueStart < end && rpcp.charAt(valueStart) == ' ') {
+            valueStart++;
+        }
+        frame.header(slot, rpcp.substring(valueStart, end));
+        return true;
+    }
+
+    /**
+     * Get the body start from index, line break is not part of the body
+     */
+    static String body(String rpcp, int start) {
+        if (start >= rpcp.length()) {
+            return "";
+        }
+
+        var lineBreak = rpcp.indexOf("\r\n", start);
+        if (lineBreak < 0) {
+            return rpcp.substring(start);
+        }
+
+        var stringBuilder = new StringBuilder(rpcp.length() - start);
+        var from = start;
+        while (lineBreak >= 0) {
+            stringBuilder.append(rpcp, from, lineBreak);
+            from = lineBreak + 2;
+            lineBreak = rpcp.indexOf("\r\n", from);
+        }
+        stringBuilder.append(rpcp, from, rpcp.length());
+        return stringBuilder.toString();
+    }
+}
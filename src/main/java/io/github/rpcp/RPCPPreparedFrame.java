@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Immutable RPCP message that already written to RPCP String and UTF-8 bytes, used for frame that is sent many times
+ * with the same content.
+ * @author Eric A. Sanjaya
+ */
+public final class RPCPPreparedFrame {
+    private final String text;
+    private final ByteBuffer bytes;
+    private final String eventName;
+
+    /**
+     * Write the message once and keep the result
+     * @param rpcpMessage RPCP message want to prepare, the message can be changed after this without change the frame
+     * @throws Exception if rpcpMessage not compatible will throw Exception with message "Not Compatible".
+     */
+    public RPCPPreparedFrame(RPCPMessage rpcpMessage) throws Exception {
+        this(RPCPUtils.write(rpcpMessage));
+    }
+
+    RPCPPreparedFrame(String text) {
+        this.text = text;
+        this.bytes = StandardCharsets.UTF_8.encode(text).asReadOnlyBuffer();
+        this.eventName = eventName(text);
+    }
+
+    /**
+     * @return RPCP String of the frame
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return read only UTF-8 bytes of the frame, every call return a new buffer position so it can be sent concurrently
+     */
+    public ByteBuffer getBytes() {
+        return bytes.duplicate();
+    }
+
+    /**
+     * @return event name if the frame is an EVENT, otherwise null
+     */
+    public String getEventName() {
+        return eventName;
+    }
+
+    /**
+     * Get the event name from the command line of EVENT frame
+     * @return event name or null if not an EVENT frame
+     */
+    static String eventName(String frame) {
+        if (frame == null || !frame.startsWith("EVENT ")) {
+            return null;
+        }
+        var end = frame.indexOf(' ', 6);
+        var lineEnd = frame.indexOf('\r', 6);
+        if (end < 0 || (lineEnd >= 0 && lineEnd < end)) {
+            end = lineEnd < 0 ? frame.length() : lineEnd;
+        }
+        return frame.substring(6, end);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
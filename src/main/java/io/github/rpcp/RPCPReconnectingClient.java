@@ -0,0 +1,474 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.MessageEvent;
+import io.github.rpcp.model.MessageResult;
+import io.github.rpcp.model.RPCPCallListener;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * {@link RPCPClient} that reconnect when the connection lost. The reconnect wait a random delay between 0 and an
+ * exponential ceiling (full jitter), so the clients of a restarted host does not reconnect at the same time, and run
+ * the CONNECT handshake again. The subscription is restored after every reconnect.
+ * <p>
+ * A call waiting the reply when the connection lost is replayed or failed by the {@link RPCPRetryPolicy} of the
+ * method, the default is {@link RPCPRetryPolicy#FAIL_FAST}. The call waiting the connection is limited by
+ * {@link #setMaxWaitingCalls(int)} and {@link #setCallDeadline(long)}.
+ * <pre>
+ * {@code
+ *      var client = new RPCPReconnectingClient(uri, "api.glexpress.id/ws", "my-service/1.0");
+ *      client.setBackoff(100, 30_000);
+ *      client.setRetryPolicy("procedure.getPrice", RPCPRetryPolicy.REPLAY);
+ *      client.connect().get(10, TimeUnit.SECONDS);
+ * }
+ * </pre>
+ * @author Eric A. Sanjaya
+ */
+public class RPCPReconnectingClient implements AutoCloseable {
+    private final WebSocket.Builder builder;
+    private final URI uri;
+    private final String vHost;
+    private final String agent;
+
+    private final ConcurrentHashMap<String, RPCPRetryPolicy> retryPolicies = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Consumer<MessageEvent>> subscriptions = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Call> waitingCalls = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final CompletableFuture<RPCPReconnectingClient> connectFuture = new CompletableFuture<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile RPCPRetryPolicy defaultRetryPolicy = RPCPRetryPolicy.FAIL_FAST;
+    private volatile long initialBackoffMillis = 100;
+    private volatile long maxBackoffMillis = 30_000;
+    private volatile int maxWaitingCalls = 10_000;
+    private volatile long callDeadlineMillis = 60_000;
+    private volatile RPCPClient current;
+    private volatile boolean closed;
+    private int attempt;
+
+    private final LongAdder reconnectCount = new LongAdder();
+    private final LongAdder connectFailedCount = new LongAdder();
+    private final LongAdder replayedCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+
+    private final class Call {
+        final String method;
+        final String contentType;
+        final String body;
+        final RPCPCallListener listener;
+        final boolean replay;
+        final long deadline;
+        final CompletableFuture<MessageResult> future = new CompletableFuture<>();
+
+        Call(String method, String contentType, String body, RPCPCallListener listener) {
+            this.method = method;
+            this.contentType = contentType;
+            this.body = body;
+            this.listener = listener;
+            this.replay = retryPolicies.getOrDefault(method, defaultRetryPolicy) == RPCPRetryPolicy.REPLAY;
+            var deadlineMillis = callDeadlineMillis;
+            this.deadline = replay && deadlineMillis > 0
+                    ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis) : 0;
+        }
+
+        boolean isExpired() {
+            return deadline != 0 && System.nanoTime() - deadline >= 0;
+        }
+    }
+
+    /**
+     * Create client with a new {@link HttpClient}, call {@link #connect()} to start
+     *
+     * @param uri   websocket uri of the host
+     * @param vHost vHost to connect
+     * @param agent agent header of the CONNECT
+     */
+    public RPCPReconnectingClient(URI uri, String vHost, String agent) {
+        this(HttpClient.newHttpClient().newWebSocketBuilder(), uri, vHost, agent);
+    }
+
+    /**
+     * Create client, call {@link #connect()} to start
+     *
+     * @param builder websocket builder used for every connect
+     * @param uri     websocket uri of the host
+     * @param vHost   vHost to connect
+     * @param agent   agent header of the CONNECT
+     */
+    public RPCPReconnectingClient(WebSocket.Builder builder, URI uri, String vHost, String agent) {
+        this.builder = builder;
+        this.uri = uri;
+        this.vHost = vHost;
+        this.agent = agent;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "rpcp-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the delay before reconnect. The delay of the n-th attempt is random between 0 and
+     * min(maxMillis, initialMillis * 2^n), the first reconnect after a connection lost is attempt 0.
+     *
+     * @param initialMillis ceiling of the first delay
+     * @param maxMillis     maximum ceiling of the delay
+     */
+    public void setBackoff(long initialMillis, long maxMillis) {
+        this.initialBackoffMillis = initialMillis;
+        this.maxBackoffMillis = maxMillis;
+    }
+
+    /**
+     * Set the maximum call waiting the connection, the call over the limit is completed exceptionally with
+     * "Replay queue full" instead of waiting.
+     *
+     * @param maxWaitingCalls maximum call waiting the connection, default 10000
+     */
+    public void setMaxWaitingCalls(int maxWaitingCalls) {
+        if (maxWaitingCalls <= 0) {
+            throw new IllegalArgumentException("maxWaitingCalls must be positive: " + maxWaitingCalls);
+        }
+        this.maxWaitingCalls = maxWaitingCalls;
+    }
+
+    /**
+     * Set the deadline of the call with {@link RPCPRetryPolicy#REPLAY}, counted from the call. The call still
+     * waiting the connection at the deadline is completed exceptionally with "Call deadline exceeded", the call lost
+     * with the connection after the deadline is failed instead of replayed. Only apply to the call made after.
+     *
+     * @param deadlineMillis deadline in milliseconds, 0 without deadline, default 60000
+     */
+    public void setCallDeadline(long deadlineMillis) {
+        if (deadlineMillis < 0) {
+            throw new IllegalArgumentException("deadlineMillis must not be negative: " + deadlineMillis);
+        }
+        this.callDeadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * @param method method name
+     * @param policy what to do with the call of the method when the connection lost
+     */
+    public void setRetryPolicy(String method, RPCPRetryPolicy policy) {
+        retryPolicies.put(method, policy);
+    }
+
+    /**
+     * @param policy policy of the method without own policy, default {@link RPCPRetryPolicy#FAIL_FAST}
+     */
+    public void setDefaultRetryPolicy(RPCPRetryPolicy policy) {
+        this.defaultRetryPolicy = policy;
+    }
+
+    /**
+     * Start connect, a failed connect is retried with the backoff. Calling again return the same future.
+     *
+     * @return future completed on the first CONNECTED
+     */
+    public CompletableFuture<RPCPReconnectingClient> connect() {
+        if (started.compareAndSet(false, true)) {
+            scheduler.execute(this::attempt);
+        }
+        return connectFuture;
+    }
+
+    /**
+     * Call the method of the host
+     *
+     * @param method      method name
+     * @param contentType content type of the body
+     * @param body        body of the call
+     * @return future completed with the RESULT
+     * @see RPCPClient#call(String, String, String)
+     */
+    public CompletableFuture<MessageResult> call(String method, String contentType, String body) {
+        return call(method, contentType, body, null);
+    }
+
+    /**
+     * Call the method of the host and receive the PLAN and PROGRESS of the call. A replayed call can receive the
+     * PLAN and PROGRESS again.
+     *
+     * @param method      method name
+     * @param contentType content type of the body
+     * @param body        body of the call
+     * @param listener    receiver of the PLAN and PROGRESS, can be null
+     * @return future completed with the RESULT
+     */
+    public CompletableFuture<MessageResult> call(String method, String contentType, String body,
+                                                 RPCPCallListener listener) {
+        var call = new Call(method, contentType, body, listener);
+        dispatch(call);
+        return call.future;
+    }
+
+    /**
+     * Subscribe the event, the subscription is sent again after every reconnect
+     *
+     * @param event    event name
+     * @param listener receiver of the event
+     */
+    public void subscribe(String event, Consumer<MessageEvent> listener) {
+        subscriptions.put(event, listener);
+        var client = current;
+        if (client != null && client.isOpen()) {
+            client.subscribe(event, listener);
+        }
+    }
+
+    /**
+     * @param event event name
+     */
+    public void unsubscribe(String event) {
+        subscriptions.remove(event);
+        var client = current;
+        if (client != null && client.isOpen()) {
+            client.unsubscribe(event);
+        }
+    }
+
+    /**
+     * @return true if connected to the host now
+     */
+    public boolean isConnected() {
+        var client = current;
+        return client != null && client.isOpen();
+    }
+
+    /**
+     * @return number of call waiting the reply on the current connection and call waiting the connection
+     */
+    public int getPendingCallCount() {
+        var client = current;
+        var pending = client == null ? 0 : client.getPendingCallCount();
+        return pending + waitingCount.get();
+    }
+
+    /**
+     * @return number of reconnect after the connection lost
+     */
+    public long getReconnectCount() {
+        return reconnectCount.sum();
+    }
+
+    /**
+     * @return number of failed connect attempt
+     */
+    public long getConnectFailedCount() {
+        return connectFailedCount.sum();
+    }
+
+    /**
+     * @return number of call sent again after the connection lost
+     */
+    public long getReplayedCallCount() {
+        return replayedCount.sum();
+    }
+
+    /**
+     * @return number of call failed by the deadline or because the replay queue is full
+     */
+    public long getExpiredCallCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * Close the connection and stop reconnect, call waiting the reply or the connection is failed
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        var client = current;
+        if (client != null) {
+            client.close();
+        }
+
+        Call call;
+        while ((call = pollWaitingCall()) != null) {
+            call.future.completeExceptionally(new Exception("Connection closed"));
+        }
+        connectFuture.completeExceptionally(new Exception("Connection closed"));
+    }
+
+    /**
+     * Delay of the reconnect attempt, random between 0 and the exponential ceiling
+     */
+    static long backoff(int attempt, long initialMillis, long maxMillis) {
+        var ceiling = Math.min(maxMillis, initialMillis << Math.min(attempt, 30));
+        if (ceiling <= 0) {
+            ceiling = maxMillis;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void dispatch(Call call) {
+        if (closed) {
+            call.future.completeExceptionally(new Exception("Connection closed"));
+            return;
+        }
+
+        var client = current;
+        if (client == null || !client.isOpen()) {
+            if (!call.replay) {
+                call.future.completeExceptionally(new Exception("Not connected"));
+                return;
+            }
+
+            if (call.isExpired()) {
+                expire(call, "Call deadline exceeded");
+                return;
+            }
+            if (waitingCount.incrementAndGet() > maxWaitingCalls) {
+                waitingCount.decrementAndGet();
+                expire(call, "Replay queue full");
+                return;
+            }
+            waitingCalls.offer(call);
+            scheduleDeadline(call);
+            // the connection can be restored between the check and the offer
+            if (isConnected()) {
+                sendWaitingCalls();
+            }
+            return;
+        }
+
+        client.call(call.method, call.contentType, call.body, call.listener).whenComplete((result, error) -> {
+            if (error == null) {
+                call.future.complete(result);
+            } else if (error instanceof RPCPCallException || !call.replay || closed) {
+                call.future.completeExceptionally(error);
+            } else if (call.isExpired()) {
+                expire(call, "Call deadline exceeded");
+            } else {
+                // connection lost before the reply
+                replayedCount.increment();
+                dispatch(call);
+            }
+        });
+    }
+
+    private void sendWaitingCalls() {
+        Call call;
+        while (isConnected() && (call = pollWaitingCall()) != null) {
+            dispatch(call);
+        }
+    }
+
+    private Call pollWaitingCall() {
+        var call = waitingCalls.poll();
+        if (call != null) {
+            waitingCount.decrementAndGet();
+        }
+        return call;
+    }
+
+    /**
+     * Fail the call at the deadline if it still waiting the connection
+     */
+    private void scheduleDeadline(Call call) {
+        if (call.deadline == 0) {
+            return;
+        }
+        try {
+            var delay = Math.max(0, call.deadline - System.nanoTime());
+            scheduler.schedule(() -> {
+                if (waitingCalls.remove(call)) {
+                    waitingCount.decrementAndGet();
+                    expire(call, "Call deadline exceeded");
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // closed, the waiting call is failed by close
+        }
+    }
+
+    private void expire(Call call, String reason) {
+        // counted before completed so the caller see the count after the future
+        expiredCount.increment();
+        call.future.completeExceptionally(new Exception(reason));
+    }
+
+    /**
+     * Run on the scheduler thread only
+     */
+    private void attempt() {
+        if (closed) {
+            return;
+        }
+
+        RPCPClient.connect(builder, uri, vHost, agent).whenComplete((client, error) -> {
+            if (error != null) {
+                connectFailedCount.increment();
+                schedule();
+                return;
+            }
+            scheduler.execute(() -> connected(client));
+        });
+    }
+
+    private void connected(RPCPClient client) {
+        if (closed) {
+            client.close();
+            return;
+        }
+
+        if (current != null) {
+            reconnectCount.increment();
+        }
+        attempt = 0;
+        current = client;
+        client.getCloseFuture().thenRun(() -> disconnected(client));
+
+        subscriptions.forEach(client::subscribe);
+        sendWaitingCalls();
+        connectFuture.complete(this);
+    }
+
+    private void disconnected(RPCPClient client) {
+        if (!closed && current == client) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (closed) {
+            return;
+        }
+
+        try {
+            scheduler.execute(() -> {
+                var delay = backoff(attempt++, initialBackoffMillis, maxBackoffMillis);
+                scheduler.schedule(this::attempt, delay, TimeUnit.MILLISECONDS);
+            });
+        } catch (RejectedExecutionException e) {
+            // closed
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+/**
+ * What {@link RPCPReconnectingClient} do with a call when the connection is lost before the reply
+ * @author Eric A. Sanjaya
+ */
+public enum RPCPRetryPolicy {
+    /**
+     * Send the call again after reconnect. Only for idempotent method, the host may have executed the call before
+     * the connection lost. While reconnecting the new call wait for the connection.
+     */
+    REPLAY,
+
+    /**
+     * Fail the call with the connection error. While reconnecting the new call is failed immediately.
+     */
+    FAIL_FAST
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPHostHandler;
+import io.github.rpcp.model.RPCPWebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Router that serve many {@link RPCPHost} from one websocket endpoint. The connection is routed by the vHost of the
+ * CONNECT message with one hash lookup, then pinned to the host, the next message of the connection is forwarded
+ * to the host directly without looking at the message again.
+ * <pre>
+ * {@code
+ *      RPCPServer<WebSocketSession> rpcpServer = new RPCPServer<>(new MyRPCPHostHandler<>());
+ *      rpcpServer.addHost(new RPCPHost<>("tenant-a.glexpress.id/ws", new MyRPCPHostHandler<>()));
+ *      rpcpServer.addHost(new RPCPHost<>("tenant-b.glexpress.id/ws", new MyRPCPHostHandler<>()));
+ * }
+ * </pre>
+ * The websocket handler forward the event to the server the same way as to a single host. The message of a
+ * connection that is not routed yet and is not a CONNECT is answered with "Session not valid" error, a CONNECT
+ * to unknown vHost is answered with VHOST_NOT_FOUND error, then the connection is closed.
+ * <p>
+ * The route of a connection is kept in the server next to the session of the host. The route is found with one
+ * lookup by session id for every message, the host only knows its own session so finding the host from the session
+ * registry would need one lookup per host. The route only hold a reference to the host, the session state stays
+ * in the host.
+ *
+ * @param <NativeWSSession> Object native from websocket session (Java websocket, Spring, Micronaut, or Quarkus)
+ * @author Eric A. Sanjaya
+ */
+public class RPCPServer<NativeWSSession> {
+    private final RPCPHostHandler<NativeWSSession> rpcpHostHandler;
+
+    private final ConcurrentHashMap<String, Tenant<NativeWSSession>> tenants = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Tenant<NativeWSSession>> routes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Object> pendingConnects = new ConcurrentHashMap<>();
+
+    /**
+     * Max length of the CONNECT line collected from the parts of a connection that is not routed yet
+     */
+    static final int MAX_CONNECT_LINE = 4096;
+
+    private final RPCPErrorFrames errorFrames = new RPCPErrorFrames();
+    private final LongAdder unknownVHostCount = new LongAdder();
+
+    /**
+     * Create new RPCP Server
+     *
+     * @param rpcpHostHandler used to get the id and to wrap the websocket session that is not routed to a host yet,
+     *                        the routed session is handled by the handler of the host
+     */
+    public RPCPServer(RPCPHostHandler<NativeWSSession> rpcpHostHandler) {
+        this.rpcpHostHandler = rpcpHostHandler;
+    }
+
+    /**
+     * Add host to the server, the vHost of the host is compared ignore case like in {@link RPCPHost}
+     *
+     * @param rpcpHost host want to add
+     * @throws IllegalArgumentException if the server already has host with the same vHost
+     */
+    public void addHost(RPCPHost<NativeWSSession> rpcpHost) {
+        var previous = tenants.putIfAbsent(key(rpcpHost.vHost), new Tenant<>(rpcpHost));
+        if (previous != null) {
+            throw new IllegalArgumentException("vHost already added: " + rpcpHost.vHost);
+        }
+    }
+
+    /**
+     * Remove the host from the server, the connection already routed to the host still forwarded to the host
+     * until disconnected.
+     *
+     * @param vHost vHost of the host
+     * @return removed host, null if not found
+     */
+    public RPCPHost<NativeWSSession> removeHost(String vHost) {
+        var tenant = tenants.remove(key(vHost));
+        return tenant == null ? null : tenant.host;
+    }
+
+    /**
+     * @param vHost vHost of the host
+     * @return host of the vHost, null if not found
+     */
+    public RPCPHost<NativeWSSession> getHost(String vHost) {
+        var tenant = tenants.get(key(vHost));
+        return tenant == null ? null : tenant.host;
+    }
+
+    /**
+     * @return vHost of all host in lower case
+     */
+    public Set<String> getVHosts() {
+        return tenants.keySet();
+    }
+
+    /**
+     * Used to forward websocket open event, the connection is routed by the first CONNECT message so nothing is
+     * registered until the first message.
+     *
+     * @param session Websocket Session
+     */
+    public void onWsConnect(NativeWSSession session) {
+    }
+
+    /**
+     * Used to forward websocket close event, the connection is removed from the route and the close event is
+     * forwarded to the host.
+     *
+     * @param session     Websocket Session
+     * @param closeStatus close status from websocket framework
+     */
+    public void onWsDisconnect(NativeWSSession session, String closeStatus) {
+        var sessionId = rpcpHostHandler.getWsSessionId(session);
+        if (sessionId == null) {
+            return;
+        }
+        pendingConnects.remove(sessionId);
+        var tenant = routes.remove(sessionId);
+        if (tenant != null) {
+            tenant.connectionCount.decrement();
+            tenant.host.onWsDisconnect(session, closeStatus);
+        }
+    }
+
+    /**
+     * Used to forward message receive by websocket to the host of the connection
+     *
+     * @param message   Message string receive by websocket
+     * @param wsSession Websocket Session
+     * @see RPCPHost#onGetMessage(String, Object)
+     */
+    public void onGetMessage(String message, NativeWSSession wsSession) {
+        var tenant = route(message, wsSession);
+        if (tenant != null) {
+            tenant.messageCount.increment();
+            tenant.host.onGetMessage(message, wsSession);
+        }
+    }
+
+    /**
+     * Used to forward message receive by websocket as UTF-8 bytes to the host of the connection
+     *
+     * @param message   UTF-8 bytes receive by websocket, from position to limit
+     * @param wsSession Websocket Session
+     * @see RPCPHost#onGetMessage(ByteBuffer, Object)
+     */
+    public void onGetMessage(ByteBuffer message, NativeWSSession wsSession) {
+        var tenant = route(message, wsSession);
+        if (tenant != null) {
+            tenant.messageCount.increment();
+            tenant.host.onGetMessage(message, wsSession);
+        }
+    }
+
+    /**
+     * Used to forward part of message receive by websocket to the host of the connection. The parts of a connection
+     * that is not routed yet are collected until the CONNECT line is complete, then forwarded to the host as one
+     * part.
+     *
+     * @param part      UTF-8 bytes of the part, from position to limit
+     * @param last      true if this is the last part of the message
+     * @param wsSession Websocket Session
+     * @see RPCPHost#onGetMessagePart(ByteBuffer, boolean, Object)
+     */
+    public void onGetMessagePart(ByteBuffer part, boolean last, NativeWSSession wsSession) {
+        var sessionId = rpcpHostHandler.getWsSessionId(wsSession);
+        var tenant = sessionId == null ? null : routes.get(sessionId);
+        if (tenant == null && sessionId != null) {
+            part = collectConnect(sessionId, part, last, wsSession);
+            if (part == null) {
+                return;
+            }
+        }
+        if (tenant == null) {
+            tenant = route(part, wsSession);
+        }
+        if (tenant != null) {
+            if (last) {
+                tenant.messageCount.increment();
+            }
+            tenant.host.onGetMessagePart(part, last, wsSession);
+        }
+    }
+
+    /**
+     * Used to forward part of message receive by websocket to the host of the connection
+     *
+     * @param part      Part of the message
+     * @param last      true if this is the last part of the message
+     * @param wsSession Websocket Session
+     * @see #onGetMessagePart(ByteBuffer, boolean, Object)
+     */
+    public void onGetMessagePart(CharSequence part, boolean last, NativeWSSession wsSession) {
+        var sessionId = rpcpHostHandler.getWsSessionId(wsSession);
+        var tenant = sessionId == null ? null : routes.get(sessionId);
+        if (tenant == null && sessionId != null) {
+            part = collectConnect(sessionId, part, last, wsSession);
+            if (part == null) {
+                return;
+            }
+        }
+        if (tenant == null) {
+            tenant = route(part, wsSession);
+        }
+        if (tenant != null) {
+            if (last) {
+                tenant.messageCount.increment();
+            }
+            tenant.host.onGetMessagePart(part, last, wsSession);
+        }
+    }
+
+    /**
+     * @param vHost vHost of the host
+     * @return number of connection routed to the host and not disconnected yet, -1 if the host not found
+     */
+    public long getConnectionCount(String vHost) {
+        var tenant = tenants.get(key(vHost));
+        return tenant == null ? -1 : tenant.connectionCount.sum();
+    }
+
+    /**
+     * @param vHost vHost of the host
+     * @return number of connection routed to the host since the host added, -1 if the host not found
+     */
+    public long getConnectCount(String vHost) {
+        var tenant = tenants.get(key(vHost));
+        return tenant == null ? -1 : tenant.connectCount.sum();
+    }
+
+    /**
+     * @param vHost vHost of the host
+     * @return number of message forwarded to the host, -1 if the host not found
+     */
+    public long getMessageCount(String vHost) {
+        var tenant = tenants.get(key(vHost));
+        return tenant == null ? -1 : tenant.messageCount.sum();
+    }
+
+    /**
+     * @return number of CONNECT rejected because the vHost not found
+     */
+    public long getUnknownVHostCount() {
+        return unknownVHostCount.sum();
+    }
+
+    /**
+     * @return number of connection routed to any host
+     */
+    public int getRouteCount() {
+        return routes.size();
+    }
+
+    /**
+     * Find the host of the connection, a connection that is not routed is routed by the vHost of CONNECT
+     *
+     * @param message whole message or the first part, only read when the connection is not routed
+     * @return host of the connection, null if the message is rejected
+     */
+    private Tenant<NativeWSSession> route(Object message, NativeWSSession wsSession) {
+        var sessionId = rpcpHostHandler.getWsSessionId(wsSession);
+        if (sessionId == null) {
+            reject(RPCPErrorFrames.SESSION_NOT_VALID, wsSession);
+            return null;
+        }
+        var tenant = routes.get(sessionId);
+        if (tenant != null) {
+            return tenant;
+        }
+
+        var vHost = message instanceof ByteBuffer
+                ? connectVHost((ByteBuffer) message)
+                : connectVHost((CharSequence) message);
+        if (vHost == null) {
+            reject(RPCPErrorFrames.SESSION_NOT_VALID, wsSession);
+            return null;
+        }
+
+        tenant = tenants.get(key(vHost));
+        if (tenant == null) {
+            unknownVHostCount.increment();
+            reject(RPCPErrorFrames.VHOST_NOT_FOUND, wsSession);
+            return null;
+        }
+
+        var previous = routes.putIfAbsent(sessionId, tenant);
+        if (previous != null) {
+            return previous;
+        }
+        tenant.connectCount.increment();
+        tenant.connectionCount.increment();
+        return tenant;
+    }
+
+    /**
+     * Collect the part of a connection that is not routed yet until the CONNECT line is complete
+     *
+     * @return the collected parts as one part when the line is complete or the part is the last, null to wait for
+     * the next part or when the line is too long and the connection is rejected
+     */
+    private ByteBuffer collectConnect(String sessionId, ByteBuffer part, boolean last, NativeWSSession wsSession) {
+        var pending = (ByteBuffer) pendingConnects.get(sessionId);
+        if (pending == null && (last || hasLineEnd(part))) {
+            return part;
+        }
+
+        var size = (pending == null ? 0 : pending.position()) + part.remaining();
+        if (size > MAX_CONNECT_LINE) {
+            pendingConnects.remove(sessionId);
+            reject(RPCPErrorFrames.SESSION_NOT_VALID, wsSession);
+            return null;
+        }
+        if (pending == null || pending.remaining() < part.remaining()) {
+            var grown = ByteBuffer.allocate(Math.min(MAX_CONNECT_LINE, Math.max(size, 256) * 2));
+            if (pending != null) {
+                grown.put(pending.flip());
+            }
+            pending = grown;
+            pendingConnects.put(sessionId, pending);
+        }
+        var lineEnd = hasLineEnd(part);
+        pending.put(part);
+        if (!last && !lineEnd) {
+            return null;
+        }
+        pendingConnects.remove(sessionId);
+        return pending.flip();
+    }
+
+    /**
+     * Collect the part of a connection that is not routed yet until the CONNECT line is complete
+     *
+     * @return the collected parts as one part when the line is complete or the part is the last, null to wait for
+     * the next part or when the line is too long and the connection is rejected
+     */
+    private CharSequence collectConnect(String sessionId, CharSequence part, boolean last,
+                                        NativeWSSession wsSession) {
+        var pending = (StringBuilder) pendingConnects.get(sessionId);
+        if (pending == null && (last || hasLineEnd(part))) {
+            return part;
+        }
+
+        var size = (pending == null ? 0 : pending.length()) + part.length();
+        if (size > MAX_CONNECT_LINE) {
+            pendingConnects.remove(sessionId);
+            reject(RPCPErrorFrames.SESSION_NOT_VALID, wsSession);
+            return null;
+        }
+        if (pending == null) {
+            pending = new StringBuilder(Math.max(size, 256));
+            pendingConnects.put(sessionId, pending);
+        }
+        pending.append(part);
+        if (!last && !hasLineEnd(part)) {
+            return null;
+        }
+        pendingConnects.remove(sessionId);
+        return pending;
+    }
+
+    private static boolean hasLineEnd(ByteBuffer part) {
+        for (var i = part.position(); i < part.limit(); i++) {
+            if (part.get(i) == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasLineEnd(CharSequence part) {
+        for (var i = 0; i < part.length(); i++) {
+            if (part.charAt(i) == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reject(String errorKey, NativeWSSession wsSession) {
+        RPCPWebSocketSession session = rpcpHostHandler.buildWebsocketSession(wsSession);
+        try {
+            session.sendMessage(errorFrames.get(errorKey));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        try {
+            session.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Get the vHost from the command line of CONNECT message
+     *
+     * @return vHost, null if the message is not CONNECT
+     */
+    static String connectVHost(CharSequence message) {
+        var length = message.length();
+        if (!startsWithConnect(message, length)) {
+            return null;
+        }
+
+        var end = 8;
+        while (end < length && message.charAt(end) != ' ' && message.charAt(end) != '\r') {
+            end++;
+        }
+        return end == 8 ? null : message.subSequence(8, end).toString();
+    }
+
+    /**
+     * Get the vHost from the command line of CONNECT message, the position of the buffer is not changed
+     *
+     * @return vHost, null if the message is not CONNECT
+     */
+    static String connectVHost(ByteBuffer message) {
+        var start = message.position();
+        var limit = message.limit();
+        for (var i = 0; i < 8; i++) {
+            if (start + i >= limit || message.get(start + i) != "CONNECT ".charAt(i)) {
+                return null;
+            }
+        }
+
+        var end = start + 8;
+        while (end < limit && message.get(end) != ' ' && message.get(end) != '\r') {
+            end++;
+        }
+        if (end == start + 8) {
+            return null;
+        }
+
+        var bytes = new byte[end - start - 8];
+        for (var i = 0; i < bytes.length; i++) {
+            bytes[i] = message.get(start + 8 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean startsWithConnect(CharSequence message, int length) {
+        if (length < 8) {
+            return false;
+        }
+        for (var i = 0; i < 8; i++) {
+            if (message.charAt(i) != "CONNECT ".charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String key(String vHost) {
+        return vHost.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Host with the counter of the host
+     */
+    private static final class Tenant<NativeWSSession> {
+        private final RPCPHost<NativeWSSession> host;
+        private final LongAdder connectCount = new LongAdder();
+        private final LongAdder connectionCount = new LongAdder();
+        private final LongAdder messageCount = new LongAdder();
+
+        Tenant(RPCPHost<NativeWSSession> host) {
+            this.host = host;
+        }
+    }
+}
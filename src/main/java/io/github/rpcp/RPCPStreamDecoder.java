@@ -0,0 +1,271 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stateful and resumable RPCP decoder for message that arrive in parts, ex. websocket continuation frame.
+ * The command and header is emitted as soon as the blank line is seen, the body is streamed to the listener
+ * as it arrives, so the memory used is bounded by the head size and the part size, not by the body size.
+ * <p>
+ * One decoder is used for one websocket session, it is not thread safe. Call {@link #end()} after the last part of
+ * every RPCP message, then the decoder is ready for the next message.
+ *
+ * @author Eric A. Sanjaya
+ */
+public class RPCPStreamDecoder {
+
+    /**
+     * Receive the decoded parts of RPCP message
+     */
+    public interface Listener {
+        /**
+         * Command and header of the message is complete. The body of the message is empty, the body follows
+         * in {@link #onBody(CharSequence)}
+         *
+         * @param message RPCP message without body
+         */
+        void onHead(RPCPMessage message);
+
+        /**
+         * Next part of the body, line break is not part of the body.
+         *
+         * @param chunk part of the body, only valid until this method return
+         */
+        void onBody(CharSequence chunk);
+
+        /**
+         * The message is complete
+         */
+        void onEnd();
+
+        /**
+         * The message is not a valid RPCP, the rest of the message is ignored.
+         *
+         * @param e exception with same message as {@link RPCPUtils#read(String)}
+         */
+        void onError(Exception e);
+
+        /**
+         * The message is not a valid RPCP, the rest of the message is ignored. The default implementation build the
+         * exception of the error and call {@link #onError(Exception)}, override this method to skip the exception.
+         *
+         * @param error reason the message is not valid
+         */
+        default void onError(RPCPParseError error) {
+            onError(error.toException());
+        }
+    }
+
+    private static final int STATE_HEAD = 0;
+    private static final int STATE_BODY = 1;
+    private static final int STATE_SKIP = 2;
+
+    private final Listener listener;
+    private final int maxHeadLength;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer carry = ByteBuffer.allocate(4);
+    private final CharBuffer chars = CharBuffer.allocate(4096);
+
+    private final StringBuilder head = new StringBuilder();
+    private final StringBuilder bodyChunk = new StringBuilder();
+    private int state = STATE_HEAD;
+    private int headMatch;
+    private boolean pendingCarriageReturn;
+
+    /**
+     * Create new decoder
+     *
+     * @param listener      receiver of the decoded parts
+     * @param maxHeadLength maximum characters of command and header, bigger head is reported as
+     *                      {@link RPCPParseError#HEAD_TOO_LONG}
+     */
+    public RPCPStreamDecoder(Listener listener, int maxHeadLength) {
+        this.listener = listener;
+        this.maxHeadLength = maxHeadLength;
+    }
+
+    /**
+     * Feed the next part of the message in UTF-8 bytes, multibyte character can be split between parts.
+     *
+     * @param part UTF-8 bytes from position to limit, the buffer is consumed
+     */
+    public void feed(ByteBuffer part) {
+        // finish the character split in the previous part
+        while (carry.position() > 0 && part.hasRemaining()) {
+            carry.put(part.get());
+            carry.flip();
+            decode(carry, false);
+            carry.compact();
+        }
+
+        decode(part, false);
+        carry.put(part);
+    }
+
+    /**
+     * Feed the next part of the message in characters
+     *
+     * @param part part of the message
+     */
+    public void feed(CharSequence part) {
+        process(part, 0, part.length());
+    }
+
+    /**
+     * The last part of the message has been fed
+     */
+    public void end() {
+        if (carry.position() > 0) {
+            carry.flip();
+            decode(carry, true);
+            carry.clear();
+        }
+        decoder.reset();
+
+        try {
+            if (state == STATE_HEAD) {
+                head(head.toString());
+            }
+
+            if (state == STATE_BODY) {
+                if (pendingCarriageReturn) {
+                    bodyChunk.setLength(0);
+                    bodyChunk.append('\r');
+                    listener.onBody(bodyChunk);
+                }
+                listener.onEnd();
+            }
+        } finally {
+            head.setLength(0);
+            state = STATE_HEAD;
+            headMatch = 0;
+            pendingCarriageReturn = false;
+        }
+    }
+
+    private void decode(ByteBuffer in, boolean endOfInput) {
+        while (true) {
+            var result = decoder.decode(in, chars, endOfInput);
+            if (endOfInput && result.isUnderflow()) {
+                decoder.flush(chars);
+            }
+            chars.flip();
+            process(chars, 0, chars.length());
+            chars.clear();
+
+            if (result.isUnderflow()) {
+                return;
+            }
+        }
+    }
+
+    private void process(CharSequence part, int start, int end) {
+        if (state == STATE_HEAD) {
+            start = head(part, start, end);
+        }
+
+        if (state == STATE_BODY && start < end) {
+            body(part, start, end);
+        }
+    }
+
+    /**
+     * Collect the head until blank line
+     *
+     * @return index of first character after the head
+     */
+    private int head(CharSequence part, int start, int end) {
+        var i = start;
+        while (i < end && headMatch < 4) {
+            var c = part.charAt(i++);
+            if (c == '\r') {
+                headMatch = headMatch == 2 ? 3 : 1;
+            } else if (c == '\n' && (headMatch == 1 || headMatch == 3)) {
+                headMatch++;
+            } else {
+                headMatch = 0;
+            }
+        }
+
+        head.append(part, start, i);
+        if (headMatch == 4) {
+            head(head.toString());
+        } else if (head.length() > maxHeadLength) {
+            error(RPCPParseError.HEAD_TOO_LONG);
+        }
+        return i;
+    }
+
+    private void head(String rpcp) {
+        if (rpcp.length() > maxHeadLength) {
+            error(RPCPParseError.HEAD_TOO_LONG);
+            return;
+        }
+
+        var result = RPCPParser.parse(rpcp).toResult();
+        if (!result.isSuccess()) {
+            error(result.getError());
+            return;
+        }
+
+        var message = result.getMessage();
+        head.setLength(0);
+        state = STATE_BODY;
+        listener.onHead(message);
+    }
+
+    private void body(CharSequence part, int start, int end) {
+        bodyChunk.setLength(0);
+        for (var i = start; i < end; i++) {
+            var c = part.charAt(i);
+            if (pendingCarriageReturn) {
+                pendingCarriageReturn = false;
+                if (c == '\n') {
+                    continue;
+                }
+                bodyChunk.append('\r');
+            }
+
+            if (c == '\r') {
+                pendingCarriageReturn = true;
+            } else {
+                bodyChunk.append(c);
+            }
+        }
+
+        if (bodyChunk.length() > 0) {
+            listener.onBody(bodyChunk);
+        }
+    }
+
+    private void error(RPCPParseError error) {
+        head.setLength(0);
+        state = STATE_SKIP;
+        listener.onError(error);
+    }
+}
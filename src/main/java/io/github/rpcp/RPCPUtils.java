@@ -19,7 +19,8 @@ package io.github.rpcp;
 import io.github.rpcp.model.MessageError;
 import io.github.rpcp.model.*;
 
-import java.util.*;
+import java.io.IOException;
+import java.util.StringJoiner;
 
 /**
  * RPCP Utilities to help for Read and Write RPCP Object/ String.
@@ -31,331 +32,345 @@ public class RPCPUtils {
      * Help to write RPCP String from RPCPMessage Object
      * @param rpcpMessage an RPCPMessage Object want to convert to RPCP String. It can use one of {@link MessageConnect},
      *                    {@link MessageConnected}, {@link MessageDisconnect}, {@link MessageCall}, {@link MessageResult},
-     *                    {@link MessagePlan}, {@link MessageProgress}, {@link MessageEvent}, {@link MessageError}.
+     *                    {@link MessagePlan}, {@link MessageProgress}, {@link MessageEvent}, {@link MessageError},
+     *                    {@link MessageSubscribe}, {@link MessageUnsubscribe}, {@link MessagePing}, {@link MessagePong}.
      * @return RPCP String representation of RPCP Message Object
      * @throws Exception if rpcpMessage not in instance one of {@link MessageConnect}, {@link MessageConnected},
      * {@link MessageDisconnect}, {@link MessageCall}, {@link MessageResult}, {@link MessagePlan}, {@link MessageProgress},
-     * {@link MessageEvent}, {@link MessageError} will throw Exception with message "Not Compatible".
+     * {@link MessageEvent}, {@link MessageError}, {@link MessageSubscribe}, {@link MessageUnsubscribe},
+     * {@link MessagePing}, {@link MessagePong} will throw Exception with message "Not Compatible".
      */
     public static String write(RPCPMessage rpcpMessage) throws Exception {
+        var stringBuilder = new StringBuilder();
+        write(rpcpMessage, stringBuilder);
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Write RPCP String from RPCPMessage Object to the writer, so the caller can choose where the characters go
+     * @param rpcpMessage an RPCPMessage Object want to write
+     * @param writer destination of the RPCP characters
+     * @throws Exception if rpcpMessage not compatible will throw Exception with message "Not Compatible".
+     */
+    static void write(RPCPMessage rpcpMessage, Appendable writer) throws Exception {
         if (rpcpMessage instanceof MessageConnect) {
             var connect = (MessageConnect) rpcpMessage;
-            return writeConnect(connect);
+            writeConnect(connect, writer);
         } else if (rpcpMessage instanceof MessageConnected) {
             var connected = (MessageConnected) rpcpMessage;
-            return writeConnected(connected);
+            writeConnected(connected, writer);
         } else if (rpcpMessage instanceof MessageDisconnect) {
             var disconnect = (MessageDisconnect) rpcpMessage;
-            return writeDisconnect(disconnect);
+            writeDisconnect(disconnect, writer);
         } else if (rpcpMessage instanceof MessageCall) {
             var call = (MessageCall) rpcpMessage;
-            return writeCall(call);
+            writeCall(call, writer);
         } else if (rpcpMessage instanceof MessageResult) {
             var result = (MessageResult) rpcpMessage;
-            return writeResult(result);
+            writeResult(result, writer);
         } else if (rpcpMessage instanceof MessagePlan) {
             var plan = (MessagePlan) rpcpMessage;
-            return writePlan(plan);
+            writePlan(plan, writer);
         } else if (rpcpMessage instanceof MessageProgress) {
             var progress = (MessageProgress) rpcpMessage;
-            return writeProgress(progress);
+            writeProgress(progress, writer);
         } else if (rpcpMessage instanceof MessageEvent) {
             var event = (MessageEvent) rpcpMessage;
-            return writeEvent(event);
+            writeEvent(event, writer);
         } else if (rpcpMessage instanceof MessageError) {
             var error = (MessageError) rpcpMessage;
-            return writeError(error);
+            writeError(error, writer);
+        } else if (rpcpMessage instanceof MessageSubscribe) {
+            var subscribe = (MessageSubscribe) rpcpMessage;
+            writeSubscribe(subscribe, writer);
+        } else if (rpcpMessage instanceof MessageUnsubscribe) {
+            var unsubscribe = (MessageUnsubscribe) rpcpMessage;
+            writeUnsubscribe(unsubscribe, writer);
+        } else if (rpcpMessage instanceof MessagePing) {
+            writer.append("PING\r\n\r\n");
+        } else if (rpcpMessage instanceof MessagePong) {
+            writer.append("PONG\r\n\r\n");
         } else {
             throw new Exception("Not Compatible");
         }
     }
 
-    private static String writeConnect(MessageConnect messageConnect) {
-        var stringBuilder = new StringBuilder();
-        stringBuilder.append("CONNECT ");
-        stringBuilder.append(messageConnect.getvHost());
-        stringBuilder.append(" ");
-        stringBuilder.append(messageConnect.getProtocolVersion());
-        stringBuilder.append("\r\n");
-        stringBuilder.append("agent: ");
+    private static void writeConnect(MessageConnect messageConnect, Appendable writer) throws IOException {
+        writer.append("CONNECT ");
+        writer.append(messageConnect.getvHost());
+        writer.append(" ");
+        writer.append(messageConnect.getProtocolVersion());
+        writer.append("\r\n");
+        writer.append("agent: ");
 
         if (messageConnect.getHeader() != null) {
-            stringBuilder.append(messageConnect.getHeader().getAgent());
+            writer.append(messageConnect.getHeader().getAgent());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
 
-        stringBuilder.append("\r\n");
-        stringBuilder.append("\r\n");
-        return stringBuilder.toString();
+        writer.append("\r\n");
+        writer.append("\r\n");
     }
 
-    private static String writeConnected(MessageConnected connected) {
-        var stringBuilder = new StringBuilder();
-        stringBuilder.append("CONNECTED ");
-        stringBuilder.append(connected.getvHost());
-        stringBuilder.append(" ");
-        stringBuilder.append(connected.getProtocolVersion());
-        stringBuilder.append("\r\n");
+    private static void writeConnected(MessageConnected connected, Appendable writer) throws IOException {
+        writer.append("CONNECTED ");
+        writer.append(connected.getvHost());
+        writer.append(" ");
+        writer.append(connected.getProtocolVersion());
+        writer.append("\r\n");
 
-        stringBuilder.append("server: ");
+        writer.append("server: ");
         if (connected.getHeader() != null) {
-            stringBuilder.append(connected.getHeader().getServer());
+            writer.append(connected.getHeader().getServer());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("event: ");
+        writer.append("event: ");
         if (connected.getHeader() != null) {
-            stringBuilder.append(arrayToStringArray(connected.getHeader().getEvent()));
+            writer.append(arrayToStringArray(connected.getHeader().getEvent()));
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("method: ");
+        writer.append("method: ");
         if (connected.getHeader() != null) {
-            stringBuilder.append(arrayToStringArray(connected.getHeader().getMethod()));
+            writer.append(arrayToStringArray(connected.getHeader().getMethod()));
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
 
-        stringBuilder.append("\r\n");
-        stringBuilder.append("\r\n");
-        return stringBuilder.toString();
+        writer.append("\r\n");
+        writer.append("\r\n");
     }
 
-    private static String writeDisconnect(MessageDisconnect messageDisconnect) {
-        var stringBuilder = new StringBuilder();
-        stringBuilder.append("DISCONNECT ");
-        stringBuilder.append(messageDisconnect.getvHost());
-        stringBuilder.append("\r\n");
-        stringBuilder.append("\r\n");
-        return stringBuilder.toString();
+    private static void writeDisconnect(MessageDisconnect messageDisconnect, Appendable writer) throws IOException {
+        writer.append("DISCONNECT ");
+        writer.append(messageDisconnect.getvHost());
+        writer.append("\r\n");
+        writer.append("\r\n");
     }
 
-    private static String writeCall(MessageCall messageCall) {
-        var stringBuilder = new StringBuilder();
-        stringBuilder.append("CALL ");
-        stringBuilder.append(messageCall.getMethod());
-        stringBuilder.append("\r\n");
+    private static void writeCall(MessageCall messageCall, Appendable writer) throws IOException {
+        writer.append("CALL ");
+        writer.append(messageCall.getMethod());
+        writer.append("\r\n");
 
-        stringBuilder.append("content-type: ");
+        writer.append("content-type: ");
         if (messageCall.getHeader() != null) {
-            stringBuilder.append(messageCall.getHeader().getContentType());
+            writer.append(messageCall.getHeader().getContentType());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("id: ");
+        writer.append("id: ");
         if (messageCall.getHeader() != null) {
-            stringBuilder.append(messageCall.getHeader().getId());
+            writer.append(messageCall.getHeader().getId());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
         if (messageCall.getBody() != null) {
-            stringBuilder.append(messageCall.getBody());
+            writer.append(messageCall.getBody());
         }
-
-        return stringBuilder.toString();
     }
 
-    private static String writeResult(MessageResult messageResult) {
-        var stringBuilder = new StringBuilder();
-        stringBuilder.append("RESULT ");
-        stringBuilder.append(messageResult.getMethod());
-        stringBuilder.append(" ");
-        stringBuilder.append(messageResult.getStatusCode());
-        stringBuilder.append("\r\n");
+    private static void writeResult(MessageResult messageResult, Appendable writer) throws IOException {
+        writer.append("RESULT ");
+        writer.append(messageResult.getMethod());
+        writer.append(" ");
+        writer.append(messageResult.getStatusCode());
+        writer.append("\r\n");
 
         if (messageResult.getHeader() != null && messageResult.getHeader().getPlanCode() != null) {
-            stringBuilder.append("plan-code: ");
-            stringBuilder.append(messageResult.getHeader().getPlanCode());
-            stringBuilder.append("\r\n");
+            writer.append("plan-code: ");
+            writer.append(messageResult.getHeader().getPlanCode());
+            writer.append("\r\n");
         }
 
-        stringBuilder.append("content-type: ");
+        writer.append("content-type: ");
         if (messageResult.getHeader() != null && messageResult.getHeader().getContentType() != null) {
-            stringBuilder.append(messageResult.getHeader().getContentType());
+            writer.append(messageResult.getHeader().getContentType());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("id: ");
+        writer.append("id: ");
         if (messageResult.getHeader() != null && messageResult.getHeader().getId() != null) {
-            stringBuilder.append(messageResult.getHeader().getId());
+            writer.append(messageResult.getHeader().getId());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
         if (messageResult.getBody() != null) {
-            stringBuilder.append(messageResult.getBody());
+            writer.append(messageResult.getBody());
         }
-
-        return stringBuilder.toString();
     }
 
-    private static String writePlan(MessagePlan messagePlan) {
-        var stringBuilder = new StringBuilder();
-        stringBuilder.append("PLAN ");
-        stringBuilder.append(messagePlan.getMethod());
-        stringBuilder.append("\r\n");
+    private static void writePlan(MessagePlan messagePlan, Appendable writer) throws IOException {
+        writer.append("PLAN ");
+        writer.append(messagePlan.getMethod());
+        writer.append("\r\n");
 
-        stringBuilder.append("planing-code: ");
+        writer.append("planing-code: ");
         if (messagePlan.getHeader() != null) {
-            stringBuilder.append(arrayToStringArray(messagePlan.getHeader().getPlaningCode()));
+            writer.append(arrayToStringArray(messagePlan.getHeader().getPlaningCode()));
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("content-type: ");
+        writer.append("content-type: ");
         if (messagePlan.getHeader() != null) {
-            stringBuilder.append(messagePlan.getHeader().getContentType());
+            writer.append(messagePlan.getHeader().getContentType());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("id: ");
+        writer.append("id: ");
         if (messagePlan.getHeader() != null) {
-            stringBuilder.append(messagePlan.getHeader().getId());
+            writer.append(messagePlan.getHeader().getId());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
         if (messagePlan.getBody() != null) {
-            stringBuilder.append(messagePlan.getBody());
+            writer.append(messagePlan.getBody());
         }
-
-        return stringBuilder.toString();
     }
 
-    private static String writeProgress(MessageProgress messageProgress) {
-        var stringBuilder = new StringBuilder();
-        stringBuilder.append("PROGRESS ");
-        stringBuilder.append(messageProgress.getMethod());
-        stringBuilder.append(" ");
-        stringBuilder.append(messageProgress.getStatusCode());
-        stringBuilder.append("\r\n");
+    private static void writeProgress(MessageProgress messageProgress, Appendable writer) throws IOException {
+        writer.append("PROGRESS ");
+        writer.append(messageProgress.getMethod());
+        writer.append(" ");
+        writer.append(messageProgress.getStatusCode());
+        writer.append("\r\n");
 
-        stringBuilder.append("plan-code: ");
+        writer.append("plan-code: ");
         if (messageProgress.getHeader() != null && messageProgress.getHeader().getPlanCode() != null) {
 
-            stringBuilder.append(messageProgress.getHeader().getPlanCode());
+            writer.append(messageProgress.getHeader().getPlanCode());
 
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("content-type: ");
+        writer.append("content-type: ");
         if (messageProgress.getHeader() != null && messageProgress.getHeader().getContentType() != null) {
-            stringBuilder.append(messageProgress.getHeader().getContentType());
+            writer.append(messageProgress.getHeader().getContentType());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("id: ");
+        writer.append("id: ");
         if (messageProgress.getHeader() != null && messageProgress.getHeader().getId() != null) {
-            stringBuilder.append(messageProgress.getHeader().getId());
+            writer.append(messageProgress.getHeader().getId());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
         if (messageProgress.getBody() != null) {
-            stringBuilder.append(messageProgress.getBody());
+            writer.append(messageProgress.getBody());
         }
-
-        return stringBuilder.toString();
     }
 
-    private static String writeEvent(MessageEvent messageEvent) {
-        var stringBuilder = new StringBuilder();
-        stringBuilder.append("EVENT ");
-        stringBuilder.append(messageEvent.getMethod());
-        stringBuilder.append(" ");
-        stringBuilder.append(messageEvent.getStatusCode());
-        stringBuilder.append("\r\n");
+    private static void writeEvent(MessageEvent messageEvent, Appendable writer) throws IOException {
+        writer.append("EVENT ");
+        writer.append(messageEvent.getMethod());
+        writer.append(" ");
+        writer.append(messageEvent.getStatusCode());
+        writer.append("\r\n");
 
-        stringBuilder.append("content-type: ");
+        writer.append("content-type: ");
         if (messageEvent.getHeader() != null && messageEvent.getHeader().getContentType() != null) {
-            stringBuilder.append(messageEvent.getHeader().getContentType());
+            writer.append(messageEvent.getHeader().getContentType());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("id: ");
+        writer.append("id: ");
         if (messageEvent.getHeader() != null && messageEvent.getHeader().getId() != null) {
-            stringBuilder.append(messageEvent.getHeader().getId());
+            writer.append(messageEvent.getHeader().getId());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
         if (messageEvent.getBody() != null) {
-            stringBuilder.append(messageEvent.getBody());
+            writer.append(messageEvent.getBody());
         }
-
-        return stringBuilder.toString();
     }
 
-    private static String writeError(MessageError error) {
-        var stringBuilder = new StringBuilder();
-        stringBuilder.append("ERROR ");
-        stringBuilder.append(error.getMethod());
-        stringBuilder.append("\r\n");
+    private static void writeError(MessageError error, Appendable writer) throws IOException {
+        writer.append("ERROR ");
+        writer.append(error.getMethod());
+        writer.append("\r\n");
 
-        stringBuilder.append("message: ");
+        writer.append("message: ");
         if (error.getHeader() != null) {
-            stringBuilder.append(error.getHeader().getMessage());
+            writer.append(error.getHeader().getMessage());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
-        stringBuilder.append("content-type: ");
+        writer.append("content-type: ");
         if (error.getHeader() != null) {
-            stringBuilder.append(error.getHeader().getContentType());
+            writer.append(error.getHeader().getContentType());
         } else {
-            stringBuilder.append("null");
+            writer.append("null");
         }
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
 
         if (error.getHeader() != null && error.getHeader().getId() != null) {
-            stringBuilder.append("id: ");
-            stringBuilder.append(error.getHeader().getId());
-            stringBuilder.append("\r\n");
+            writer.append("id: ");
+            writer.append(error.getHeader().getId());
+            writer.append("\r\n");
         }
 
-        stringBuilder.append("\r\n");
+        writer.append("\r\n");
 
         if (error.getBody() != null) {
-            stringBuilder.append(error.getBody());
+            writer.append(error.getBody());
         }
+    }
 
-        return stringBuilder.toString();
+    private static void writeSubscribe(MessageSubscribe messageSubscribe, Appendable writer) throws IOException {
+        writer.append("SUBSCRIBE ");
+        writer.append(messageSubscribe.getEvent());
+        writer.append("\r\n");
+        writer.append("\r\n");
+    }
+
+    private static void writeUnsubscribe(MessageUnsubscribe messageUnsubscribe, Appendable writer) throws IOException {
+        writer.append("UNSUBSCRIBE ");
+        writer.append(messageUnsubscribe.getEvent());
+        writer.append("\r\n");
+        writer.append("\r\n");
     }
 
     private static String arrayToStringArray(String[] list) {
@@ -374,440 +389,16 @@ public class RPCPUtils {
      * @throws Exception if RPCP Message String not a valid RPCP specification will throw Exception with message "Invalid RPCP".
      */
     public static RPCPMessage read(String rpcp) throws Exception {
-        var strings = rpcp.split("\\r\\n");
-        var haveBody = false;
-        var haveHeader = false;
-        var headerLastIndex = 0;
-        var bodyFirstIndex = 0;
-        List<String[]> headerLines = new ArrayList<>();
-
-        var blankLineIndex = 0;
-
-        // Get Body & header line
-        for (var i = 0; i < strings.length; i++) {
-            if (strings[i].equals("")) {
-                blankLineIndex = i;
-                break;
-            }
-        }
-
-        if (blankLineIndex > 0) {
-            if (blankLineIndex - 1 > 0) {
-                haveHeader = true;
-                headerLastIndex = blankLineIndex - 1;
-            }
-
-            if (blankLineIndex + 1 < strings.length) {
-                haveBody = true;
-                bodyFirstIndex = blankLineIndex + 1;
-            }
-        } else if (strings.length > 0) {
-            haveHeader = true;
-            headerLastIndex = strings.length - 1;
-        }
-
-        //Command
-        var commands = strings[0].split(" ");
-
-        //Header
-        if (haveHeader) {
-            for (var i = 1; i <= headerLastIndex; i++) {
-                headerLines.add(strings[i].split(":"));
-            }
-        }
-
-        String body;
-        if (haveBody) {
-            // generate string body
-            StringBuilder stringBody = new StringBuilder();
-            for (var i = bodyFirstIndex; i < strings.length; i++) {
-                stringBody.append(strings[i]);
-            }
-            body = stringBody.toString();
-        } else {
-            body = "";
-        }
-
-        //clean the header value
-        for (var x : headerLines) {
-            x[1] = headerCleaner(x[1]);
-        }
-
-        switch (commands[0]) {
-            case "CONNECT": {
-                return generateConnect(commands, headerLines);
-            }
-            case "CONNECTED": {
-                return generateConnected(commands, headerLines);
-            }
-            case "DISCONNECT": {
-                return generateDisconnect(commands);
-            }
-            case "CALL": {
-                return generateCall(commands, headerLines, body);
-            }
-            case "RESULT": {
-                return generateResult(commands, headerLines, body);
-            }
-            case "PLAN": {
-                return generatePlan(commands, headerLines, body);
-            }
-            case "PROGRESS": {
-                return generateProgress(commands, headerLines, body);
-            }
-            case "EVENT": {
-                return generateEvent(commands, headerLines, body);
-            }
-            case "ERROR": {
-                return generateError(commands, headerLines, body);
-            }
-            default: {
-                throw new Exception("Invalid RPCP");
-            }
-        }
-    }
-
-    private static MessageConnect generateConnect(String[] commands, List<String[]> headerLines) throws Exception {
-        if (commands.length < 3) {
-            throw new Exception("Parse error");
-        }
-
-        if (headerLines.isEmpty()) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        String agent = null;
-        for (var headerLine : headerLines) {
-            if (headerLine[0].equalsIgnoreCase("agent")) {
-                agent = headerLine[1];
-            }
-        }
-
-        if (agent == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (!validateProtocol(commands[2])) {
-            throw new Exception("Incorrect Protocol Format");
-        }
-
-        return new MessageConnect(commands[1], commands[2], new HeaderConnect(agent));
-    }
-
-    private static MessageConnected generateConnected(String[] commands, List<String[]> headerLines) throws Exception {
-        if (commands.length < 3) {
-            throw new Exception("Parse error");
-        }
-
-        if (headerLines.isEmpty()) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        String server = null;
-        String event = null;
-        String method = null;
-        for (var headerLine : headerLines) {
-            if (headerLine[0].equalsIgnoreCase("server")) {
-                server = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("event")) {
-                event = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("method")) {
-                method = headerLine[1];
-            }
-        }
-
-        if (server == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (event == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (method == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (!validateProtocol(commands[2])) {
-            throw new Exception("Incorrect Protocol Format");
-        }
-
-        var events = eventConstruct(event);
-        var methods = methodConstruct(method);
-        return new MessageConnected(commands[1], commands[2], new HeaderConnected(server, events, methods));
-    }
-
-    private static MessageDisconnect generateDisconnect(String[] commands) throws Exception {
-        if (commands.length < 2) {
-            throw new Exception("Parse error");
-        }
-
-        return new MessageDisconnect(commands[1]);
-    }
-
-    private static MessageCall generateCall(String[] commands, List<String[]> headerLines, String body) throws Exception {
-        if (commands.length < 2) {
-            throw new Exception("Parse error");
-        }
-
-        if (headerLines.isEmpty()) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        String contentType = null;
-        String id = null;
-        for (var headerLine : headerLines) {
-            if (headerLine[0].equalsIgnoreCase("content-type")) {
-                contentType = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("id")) {
-                id = headerLine[1];
-            }
-        }
-
-        if (contentType == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (id == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        var call = new MessageCall(commands[1], new HeaderCall(contentType, id));
-        call.setBody(body);
-        return call;
-    }
-
-    private static MessageResult generateResult(String[] commands, List<String[]> headerLines, String body) throws Exception {
-        if (commands.length < 3) {
-            throw new Exception("Parse error");
-        }
-
-        if (headerLines.isEmpty()) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        String contentType = null;
-        String id = null;
-        String planCode = null;
-        for (var headerLine : headerLines) {
-            if (headerLine[0].equalsIgnoreCase("content-type")) {
-                contentType = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("id")) {
-                id = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("plan-code")) {
-                planCode = headerLine[1];
-            }
-        }
-
-        if (contentType == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (id == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        var result = new MessageResult(commands[1], commands[2], new HeaderResult(planCode, contentType, id));
-        result.setBody(body);
-        return result;
-    }
-
-    private static MessagePlan generatePlan(String[] commands, List<String[]> headerLines, String body) throws Exception {
-        if (commands.length < 2) {
-            throw new Exception("Parse error");
-        }
-
-        if (headerLines.isEmpty()) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        String contentType = null;
-        String id = null;
-        String planingCode = null;
-        for (var headerLine : headerLines) {
-            if (headerLine[0].equalsIgnoreCase("content-type")) {
-                contentType = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("id")) {
-                id = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("planing-code")) {
-                planingCode = headerLine[1];
-            }
-        }
-
-        if (contentType == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (id == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (planingCode == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        var planingCodes = planingConstruct(planingCode);
-        var plan = new MessagePlan(commands[1], new HeaderPlan(planingCodes, contentType, id));
-        plan.setBody(body);
-        return plan;
-    }
-
-    private static MessageProgress generateProgress(String[] commands, List<String[]> headerLines, String body) throws Exception {
-        if (commands.length < 3) {
-            throw new Exception("Parse error");
-        }
-
-        if (headerLines.isEmpty()) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        String contentType = null;
-        String id = null;
-        String planCode = null;
-        for (var headerLine : headerLines) {
-            if (headerLine[0].equalsIgnoreCase("content-type")) {
-                contentType = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("id")) {
-                id = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("plan-code")) {
-                planCode = headerLine[1];
-            }
-        }
-
-        if (contentType == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (id == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (planCode == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        var progress = new MessageProgress(commands[1], commands[2], new HeaderProgress(planCode, contentType, id));
-        progress.setBody(body);
-        return progress;
+        return RPCPParser.read(rpcp);
     }
 
-    private static MessageEvent generateEvent(String[] commands, List<String[]> headerLines, String body) throws Exception {
-        if (commands.length < 3) {
-            throw new Exception("Parse error");
-        }
-
-        if (headerLines.isEmpty()) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        String contentType = null;
-        String id = null;
-        for (var headerLine : headerLines) {
-            if (headerLine[0].equalsIgnoreCase("content-type")) {
-                contentType = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("id")) {
-                id = headerLine[1];
-            }
-        }
-
-        if (contentType == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (id == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        var event = new MessageEvent(commands[1], commands[2], new HeaderEvent(contentType, id));
-        event.setBody(body);
-        return event;
-    }
-
-    private static MessageError generateError(String[] commands, List<String[]> headerLines, String body) throws Exception {
-        if (commands.length < 2) {
-            throw new Exception("Parse error");
-        }
-
-        if (headerLines.isEmpty()) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        String message = null;
-        String contentType = null;
-        String id = null;
-        for (var headerLine : headerLines) {
-            if (headerLine[0].equalsIgnoreCase("message")) {
-                message = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("content-type")) {
-                contentType = headerLine[1];
-            } else if (headerLine[0].equalsIgnoreCase("id")) {
-                id = headerLine[1];
-            }
-        }
-
-        if (message == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        if (contentType == null) {
-            throw new Exception("Invalid RPCP");
-        }
-
-        var error = new MessageError(commands[1], new HeaderError(message, contentType, id));
-        error.setBody(body);
-        return error;
-    }
-
-    private static boolean validateProtocol(String protocol) {
-        var protocols = protocol.split("/");
-        if (protocols.length < 2) {
-            return false;
-        }
-
-        return protocols[0].equalsIgnoreCase("RPCP");
-    }
-
-    private static String[] planingConstruct(String string) {
-        var planing = string.split(",");
-        var newPlaning = new String[planing.length];
-        var i = 0;
-        for (var plan : planing) {
-            newPlaning[i] = plan.replace(" ", "");
-            i++;
-        }
-
-        return newPlaning;
-    }
-
-    private static String[] eventConstruct(String string) {
-        var events = string.split(",");
-        var newEvents = new String[events.length];
-        int i = 0;
-        for (var event : events) {
-            newEvents[i] = event.replace(" ", "");
-            i++;
-        }
-
-        return newEvents;
-    }
-
-    private static String[] methodConstruct(String string) {
-        var methods = string.split(",");
-        var newMethods = new String[methods.length];
-        var i = 0;
-        for (var method : methods) {
-            newMethods[i] = method.replace(" ", "");
-            i++;
-        }
-
-        return newMethods;
-    }
-
-    private static String headerCleaner(String value) {
-        if (value.charAt(0) == ' ') {
-            return value.substring(1);
-        } else {
-            return value;
-        }
+    /**
+     * Help to read RPCP Object from RPCP Message String without exception. Frame that is not valid is returned as
+     * error code, so a client that send many invalid frame does not cost a stack trace for every frame.
+     * @param rpcp RPCP Message String
+     * @return the message or the reason the RPCP Message String is not valid
+     */
+    public static RPCPParseResult parse(String rpcp) {
+        return RPCPParser.parse(rpcp).toResult();
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executor that run the task one by one in submit order on a shared executor, without own thread. Many serial
+ * executor can share one pool, task of different serial executor run in parallel.
+ * @author Eric A. Sanjaya
+ */
+final class SerialExecutor implements Executor, Runnable {
+    /**
+     * Maximum task run before give the thread back to the shared executor, so a busy session does not hold the thread
+     */
+    private static final int BATCH = 64;
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @throws RejectedExecutionException if the shared executor reject, the task is not run
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                tasks.remove(task);
+                scheduled.set(false);
+                // the task added by other thread while scheduled was true is accepted, it must run
+                if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                    run();
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            for (var i = 0; i < BATCH; i++) {
+                var task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    // an error must not leave the queue scheduled and never run again
+                    e.printStackTrace();
+                }
+            }
+
+            scheduled.set(false);
+            // task added after the last poll
+            if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this);
+                return;
+            } catch (RejectedExecutionException e) {
+                // keep running on this thread, the order must be kept
+            }
+        }
+    }
+}
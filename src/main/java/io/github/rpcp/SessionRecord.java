@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPSession;
+import io.github.rpcp.model.RPCPWebSocketSession;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * One record per websocket connection in the {@link SessionRegistry}. The record is the RPCP session itself, so the
+ * websocket session, the RPCP state, the attributes and the counters are kept in one object under one map entry.
+ * The record is created when the websocket connect and become a connected RPCP session after CONNECT.
+ *
+ * @author Eric A. Sanjaya
+ */
+final class SessionRecord extends RPCPSession {
+    static final int REGISTERED = 0;
+    static final int CONNECTED = 1;
+    static final int CLOSED = 2;
+
+    private static final AtomicIntegerFieldUpdater<SessionRecord> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(SessionRecord.class, "state");
+
+    private final int handle;
+    private volatile int state;
+    private volatile long receivedCount;
+
+    /**
+     * Created on the first message part, only used by the thread that receive the message of this session
+     */
+    RPCPStreamDecoder decoder;
+
+    SessionRecord(RPCPWebSocketSession session, int handle) {
+        super(session);
+        this.handle = handle;
+    }
+
+    /**
+     * The reference is kept once by {@link RPCPSession}, overridden to open it to the host
+     */
+    @Override
+    protected RPCPWebSocketSession getWebSocketSession() {
+        return super.getWebSocketSession();
+    }
+
+    /**
+     * Count a message receive from the client, called by the thread that receive the message of this session
+     */
+    void received() {
+        receivedCount++;
+    }
+
+    @Override
+    public long getReceivedCount() {
+        return receivedCount;
+    }
+
+    int getHandle() {
+        return handle;
+    }
+
+    boolean isConnected() {
+        return state == CONNECTED;
+    }
+
+    /**
+     * @return true if the record change from registered to connected
+     */
+    boolean connect() {
+        return STATE.compareAndSet(this, REGISTERED, CONNECTED);
+    }
+
+    /**
+     * @return state before closed
+     */
+    int markClosed() {
+        return STATE.getAndSet(this, CLOSED);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPWebSocketSession;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Registry of all connection of a host, one {@link SessionRecord} per websocket session id. Get-or-create is atomic,
+ * the websocket session is built once even when the first messages of a session arrive on many thread.
+ * <p>
+ * Every record has an integer handle, unique until 2^32 connection, for the application that index the session
+ * in array or primitive map instead of the String id.
+ *
+ * @author Eric A. Sanjaya
+ */
+final class SessionRegistry {
+    private final ConcurrentHashMap<String, SessionRecord> records = new ConcurrentHashMap<>();
+    private final AtomicInteger nextHandle = new AtomicInteger();
+    private final LongAdder connectedCount = new LongAdder();
+
+    SessionRecord get(String id) {
+        return records.get(id);
+    }
+
+    /**
+     * @return record of the id, the record is created with the websocket session built by the factory if not found
+     */
+    SessionRecord getOrCreate(String id, Function<String, RPCPWebSocketSession> factory) {
+        var record = records.get(id);
+        if (record != null) {
+            return record;
+        }
+        return records.computeIfAbsent(id, key -> new SessionRecord(factory.apply(key), nextHandle.getAndIncrement()));
+    }
+
+    /**
+     * @return record of the connected RPCP session, null if not found or not connected yet
+     */
+    SessionRecord getConnected(String id) {
+        var record = records.get(id);
+        return record != null && record.isConnected() ? record : null;
+    }
+
+    /**
+     * Mark the record as connected RPCP session
+     *
+     * @return false if the record already connected or removed
+     */
+    boolean connect(SessionRecord record) {
+        if (!record.connect()) {
+            return false;
+        }
+        connectedCount.increment();
+        return true;
+    }
+
+    /**
+     * @return removed record that was a connected RPCP session, null if not found or not connected
+     */
+    SessionRecord remove(String id) {
+        var record = records.remove(id);
+        if (record == null || record.markClosed() != SessionRecord.CONNECTED) {
+            return null;
+        }
+        connectedCount.decrement();
+        return record;
+    }
+
+    ConcurrentHashMap<String, SessionRecord> records() {
+        return records;
+    }
+
+    int size() {
+        return records.size();
+    }
+
+    int connectedCount() {
+        return connectedCount.intValue();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPSession;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent index from topic to the RPCP session, with the reverse index from session to the topics. Subscribe,
+ * unsubscribe and find the subscriber of a topic is O(1), remove a session is O(number of topic of the session).
+ * Empty topic is removed from the index.
+ * @author Eric A. Sanjaya
+ */
+final class TopicIndex {
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, RPCPSession>> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> topics = new ConcurrentHashMap<>();
+
+    /**
+     * The member is added before the topic of the session, and the topic is added atomically with a concurrent
+     * {@link #removeSession(String)}, so the remove see the topic or the caller that check the session after this
+     * method return remove it again
+     */
+    void subscribe(String topic, RPCPSession session) {
+        subscribers.compute(topic, (name, members) -> {
+            if (members == null) {
+                members = new ConcurrentHashMap<>();
+            }
+            members.put(session.getId(), session);
+            return members;
+        });
+        topics.compute(session.getId(), (id, sessionTopics) -> {
+            if (sessionTopics == null) {
+                sessionTopics = ConcurrentHashMap.newKeySet();
+            }
+            sessionTopics.add(topic);
+            return sessionTopics;
+        });
+    }
+
+    void unsubscribe(String topic, String sessionId) {
+        var sessionTopics = topics.get(sessionId);
+        if (sessionTopics != null) {
+            sessionTopics.remove(topic);
+        }
+        removeSubscriber(topic, sessionId);
+    }
+
+    /**
+     * Remove the session from all topic
+     */
+    void removeSession(String sessionId) {
+        var sessionTopics = topics.remove(sessionId);
+        if (sessionTopics == null) {
+            return;
+        }
+        for (var topic : sessionTopics) {
+            removeSubscriber(topic, sessionId);
+        }
+    }
+
+    private void removeSubscriber(String topic, String sessionId) {
+        subscribers.computeIfPresent(topic, (name, members) -> {
+            members.remove(sessionId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    /**
+     * @return live view of the subscriber of the topic by session id, null if no subscriber
+     */
+    ConcurrentHashMap<String, RPCPSession> subscribers(String topic) {
+        return subscribers.get(topic);
+    }
+
+    /**
+     * @return topics of the session
+     */
+    Set<String> topics(String sessionId) {
+        var sessionTopics = topics.get(sessionId);
+        return sessionTopics == null ? Collections.emptySet() : Collections.unmodifiableSet(sessionTopics);
+    }
+}
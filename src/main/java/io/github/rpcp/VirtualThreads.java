@@ -0,0 +1,37 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Virtual thread support, Java 11 layer of the multi-release jar. Virtual thread is not available, the Java 21 layer
+ * in META-INF/versions/21 replace this class.
+ * @author Eric A. Sanjaya
+ */
+final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return false;
+    }
+
+    static ExecutorService newExecutor() {
+        throw new UnsupportedOperationException("Virtual thread need Java 21 or newer");
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp.model;
+
+import io.github.rpcp.RPCPBuilder;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Interface to create RPCP Method that reply later without hold the thread, ex. the method call another service.
+ * The host write and send the result when the stage complete, exceptional completion is sent as ERROR with the id
+ * of the call.
+ */
+public interface AsyncRPCPMethod {
+
+    /**
+     * Start the call
+     *
+     * @param rpcpSession RPCP session of the caller
+     * @param messageCall the call
+     * @param rpcpBuilder builder for the reply
+     * @return stage that complete with the result of the call, complete with null to send nothing
+     */
+    CompletionStage<MessageResult> execute(RPCPSession rpcpSession, MessageCall messageCall, RPCPBuilder rpcpBuilder);
+}
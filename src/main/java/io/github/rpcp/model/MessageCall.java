@@ -16,12 +16,15 @@
 
 package io.github.rpcp.model;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.StringJoiner;
 
 public class MessageCall implements RPCPMessage {
     private final String method;
     private final HeaderCall header;
     private String body;
+    private ByteBuffer rawBody;
 
     public MessageCall(String method, HeaderCall header) {
         this.method = method;
@@ -36,12 +39,41 @@ public class MessageCall implements RPCPMessage {
         return header;
     }
 
+    /**
+     * Get the body, when the body set from UTF-8 bytes it will decode on the first call
+     * @return body of the call
+     */
     public String getBody() {
+        if (body == null && rawBody != null) {
+            body = StandardCharsets.UTF_8.decode(rawBody.duplicate()).toString();
+        }
         return body;
     }
 
+    /**
+     * Get the body as UTF-8 bytes, without decode the body when the body set from bytes
+     * @return read only UTF-8 bytes of the body or null if no body
+     */
+    public ByteBuffer getBodyBuffer() {
+        if (rawBody != null) {
+            return rawBody.asReadOnlyBuffer();
+        }
+        return body == null ? null : StandardCharsets.UTF_8.encode(body).asReadOnlyBuffer();
+    }
+
     public void setBody(String body) {
         this.body = body;
+        this.rawBody = null;
+    }
+
+    /**
+     * Set the body from UTF-8 bytes, the bytes is not decoded until {@link #getBody()} called.
+     * The content of the buffer must not change while this object in use.
+     * @param body UTF-8 bytes of the body, from position to limit
+     */
+    public void setBodyBuffer(ByteBuffer body) {
+        this.body = null;
+        this.rawBody = body == null ? null : body.slice();
     }
 
     @Override
@@ -49,7 +81,7 @@ public class MessageCall implements RPCPMessage {
         return new StringJoiner(", ", MessageCall.class.getSimpleName() + "[", "]")
                 .add("method='" + method + "'")
                 .add("header=" + header)
-                .add("body='" + body + "'")
+                .add("body='" + getBody() + "'")
                 .toString();
     }
 }
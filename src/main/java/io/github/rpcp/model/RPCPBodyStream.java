@@ -0,0 +1,35 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp.model;
+
+/**
+ * Receiver of the body of one call to {@link RPCPStreamingMethod}
+ */
+public interface RPCPBodyStream {
+
+    /**
+     * Next part of the body
+     *
+     * @param chunk part of the body, only valid until this method return
+     */
+    void onBody(CharSequence chunk);
+
+    /**
+     * All the body has been received
+     */
+    void onEnd();
+}
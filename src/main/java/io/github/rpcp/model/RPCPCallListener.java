@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.model;
+
+/**
+ * Receiver of the PLAN and PROGRESS of one call made by {@link io.github.rpcp.RPCPClient}, the RESULT or ERROR
+ * complete the future of the call. Called on the thread that read the websocket, must not block.
+ */
+public interface RPCPCallListener {
+
+    /**
+     * The host plan the steps of the call
+     *
+     * @param plan PLAN of the call
+     */
+    default void onPlan(MessagePlan plan) {
+    }
+
+    /**
+     * The host finish one step of the call
+     *
+     * @param progress PROGRESS of the call
+     */
+    default void onProgress(MessageProgress progress) {
+    }
+}
@@ -16,8 +16,16 @@
 
 package io.github.rpcp.model;
 
+import io.github.rpcp.RPCPPreparedFrame;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class RPCPSession {
     private final RPCPWebSocketSession rpcpWebSocketSession;
+    private volatile long lastActivity;
+    private volatile Map<String, Object> attributes;
 
     public RPCPSession(RPCPWebSocketSession rpcpWebSocketSession) {
         this.rpcpWebSocketSession = rpcpWebSocketSession;
@@ -31,6 +39,52 @@ public class RPCPSession {
         }
     }
 
+    public void sendMessage(ByteBuffer message) {
+        try {
+            rpcpWebSocketSession.sendMessage(message);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void sendMessage(RPCPPreparedFrame frame) {
+        try {
+            rpcpWebSocketSession.sendMessage(frame);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Send EVENT that can be replaced by a newer EVENT with the same event name and conflation key while waiting in
+     * the outbound queue.
+     *
+     * @param frame         written EVENT message
+     * @param conflationKey key of the value inside the event, ex. the symbol of a price event
+     */
+    public void sendMessage(RPCPPreparedFrame frame, String conflationKey) {
+        try {
+            rpcpWebSocketSession.sendMessage(frame, conflationKey);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Write and send EVENT with conflation key
+     *
+     * @param event         EVENT message
+     * @param conflationKey key of the value inside the event, ex. the symbol of a price event
+     * @see #sendMessage(RPCPPreparedFrame, String)
+     */
+    public void sendMessage(MessageEvent event, String conflationKey) {
+        try {
+            rpcpWebSocketSession.sendMessage(new RPCPPreparedFrame(event), conflationKey);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public void close() {
         try {
             rpcpWebSocketSession.close();
@@ -52,4 +106,58 @@ public class RPCPSession {
         return rpcpWebSocketSession.getId();
     }
 
+    /**
+     * @return websocket session that send the message of this session
+     */
+    protected RPCPWebSocketSession getWebSocketSession() {
+        return rpcpWebSocketSession;
+    }
+
+    /**
+     * Attributes of the session for the application, ex. the user after authentication. The map is created on the
+     * first call and removed with the session.
+     *
+     * @return thread safe map of the attributes
+     */
+    public Map<String, Object> getAttributes() {
+        var map = attributes;
+        if (map == null) {
+            synchronized (this) {
+                map = attributes;
+                if (map == null) {
+                    map = new ConcurrentHashMap<>(4);
+                    attributes = map;
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @return number of message receive from the client, always 0 for a session not created by the host
+     */
+    public long getReceivedCount() {
+        return 0;
+    }
+
+    /**
+     * @return time of the last message receive from the client in milliseconds, only updated when idle timeout is
+     * enabled in the host
+     */
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Mark the session active, the value is only written when changed so the session receive many message in the
+     * same clock tick does not write the field again.
+     *
+     * @param now current time in milliseconds
+     */
+    public void touch(long now) {
+        if (lastActivity != now) {
+            lastActivity = now;
+        }
+    }
+
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp.model;
+
+import io.github.rpcp.RPCPBuilder;
+
+/**
+ * Interface to create RPCP Method that receive the body of the call as a stream.
+ * Used for a large call body that arrive in many websocket frame, the body is not collected in memory by the host.
+ */
+public interface RPCPStreamingMethod {
+
+    /**
+     * Start the call, command and header of the call is complete but the body is not received yet.
+     *
+     * @param rpcpSession RPCP session of the caller
+     * @param messageCall the call without body
+     * @param rpcpBuilder builder for the reply
+     * @return receiver of the body of this call
+     */
+    RPCPBodyStream execute(RPCPSession rpcpSession, MessageCall messageCall, RPCPBuilder rpcpBuilder);
+}
@@ -16,10 +16,71 @@
 
 package io.github.rpcp.model;
 
+import io.github.rpcp.RPCPPreparedFrame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 public interface RPCPWebSocketSession {
     void sendMessage(String msg) throws Exception;
 
+    /**
+     * Send RPCP message in UTF-8 bytes, from position to limit of the buffer.
+     * The default implementation decode the bytes and call {@link #sendMessage(String)}, websocket that can send
+     * the bytes as text frame directly should override this method.
+     *
+     * @param msg UTF-8 bytes of RPCP message
+     * @throws Exception if failed to send
+     */
+    default void sendMessage(ByteBuffer msg) throws Exception {
+        sendMessage(StandardCharsets.UTF_8.decode(msg).toString());
+    }
+
+    /**
+     * Send RPCP message that already written, the same frame can be sent to many session.
+     * The default implementation send the text of the frame with {@link #sendMessage(String)}, websocket that can
+     * send the bytes as text frame directly can override this method and send {@link RPCPPreparedFrame#getBytes()}.
+     *
+     * @param frame written RPCP message
+     * @throws Exception if failed to send
+     */
+    default void sendMessage(RPCPPreparedFrame frame) throws Exception {
+        sendMessage(frame.getText());
+    }
+
+    /**
+     * Send EVENT with conflation key. When the session have outbound queue, an unsent EVENT with the same event name
+     * and conflation key is replaced by this frame, so a slow client only receive the latest value of every key.
+     * The default implementation send the frame directly with {@link #sendMessage(RPCPPreparedFrame)}.
+     *
+     * @param frame         written EVENT message
+     * @param conflationKey key of the value inside the event, ex. the symbol of a price event
+     * @throws Exception if failed to send
+     */
+    default void sendMessage(RPCPPreparedFrame frame, String conflationKey) throws Exception {
+        sendMessage(frame);
+    }
+
+    /**
+     * Write pressure of the session, used by the outbound queue to stop sending while the frames already sent are not
+     * written to the network yet. The default is always writable, websocket that buffer the frame without blocking
+     * should override this method and {@link #onWritable(Runnable)}.
+     *
+     * @return false if the bytes sent and not written yet are over the watermark of the session
+     */
+    default boolean isWritable() {
+        return true;
+    }
+
+    /**
+     * Run the task once when the session is writable again or closed. The default run the task now.
+     *
+     * @param task task to run, can be run on the thread that write the session
+     */
+    default void onWritable(Runnable task) {
+        task.run();
+    }
+
     void close() throws Exception;
 
     boolean isOpen() throws Exception;
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Connection of a {@link NioLoop}. The frame can be sent from any thread, it is queued and written by the loop with
+ * gathering write, many frames in one system call. The read is done by the loop into the read buffer of the loop,
+ * the bytes not consumed by {@link #onRead(ByteBuffer)} are kept until the next read.
+ * <p>
+ * The bytes queued and not written yet are counted, a connection that does not read fast enough to stay under the
+ * max pending bytes is closed without writing the queued frames. Over the writable watermark the connection is not
+ * writable, the task given to {@link #onWritable(Runnable)} is run when the bytes are under half of the watermark.
+ * @author Eric A. Sanjaya
+ */
+abstract class NioConnection {
+    // close the channel after the frames queued before
+    private static final ByteBuffer[] CLOSE = new ByteBuffer[0];
+
+    static final String END_OF_STREAM = "End of stream";
+    static final String SLOW_CONSUMER = "Slow consumer";
+
+    final SocketChannel channel;
+    final NioLoop loop;
+    SelectionKey key;
+    // set before the connection is registered
+    long maxPendingBytes = Long.MAX_VALUE;
+    long writableWatermark = Long.MAX_VALUE;
+
+    private final ConcurrentLinkedQueue<ByteBuffer[]> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean closing = new AtomicBoolean();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicReference<Runnable> writableTask = new AtomicReference<>();
+    private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>();
+    private boolean closeAfterWrite;
+    private ByteBuffer leftover;
+    private volatile String abortReason;
+    private volatile boolean closed;
+
+    NioConnection(SocketChannel channel, NioLoop loop) {
+        this.channel = channel;
+        this.loop = loop;
+    }
+
+    /**
+     * The channel is registered to the loop, called on the loop thread
+     */
+    void opened() {
+    }
+
+    /**
+     * The loop is stopping, queue the last frame of the protocol. The queued frames are written once without waiting,
+     * then the channel is closed.
+     */
+    void stopping() {
+    }
+
+    /**
+     * Consume the bytes read, the bytes not consumed are given again with the next read
+     *
+     * @param buffer bytes read from position to limit
+     */
+    abstract void onRead(ByteBuffer buffer);
+
+    /**
+     * The channel is closed, called once on the loop thread
+     *
+     * @param reason reason of the close
+     */
+    abstract void onClosed(String reason);
+
+    /**
+     * Queue the buffers of one frame, the buffers is written in order without frame of other thread in between
+     *
+     * @param frame buffers of the frame, must not be changed after sent
+     * @return false if the connection is closing or closed because the pending bytes over the max
+     */
+    final boolean send(ByteBuffer... frame) {
+        if (closing.get()) {
+            return false;
+        }
+        var size = size(frame);
+        var pending = pendingBytes.addAndGet(size);
+        if (pending > maxPendingBytes && pending != size) {
+            // a frame bigger than the max is still sent when nothing else is pending
+            abort(SLOW_CONSUMER);
+            return false;
+        }
+        outbound.add(frame);
+        scheduleFlush();
+        return true;
+    }
+
+    /**
+     * Queue the last frame, the channel is closed after the frame is written and the next frame is refused
+     *
+     * @param frame buffers of the frame
+     * @return false if the connection is already closing
+     */
+    final boolean sendLast(ByteBuffer... frame) {
+        if (!closing.compareAndSet(false, true)) {
+            return false;
+        }
+        pendingBytes.addAndGet(size(frame));
+        outbound.add(frame);
+        outbound.add(CLOSE);
+        scheduleFlush();
+        return true;
+    }
+
+    /**
+     * @return bytes queued and not written yet
+     */
+    final long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * @return false if the bytes queued and not written yet are over the writable watermark
+     */
+    public boolean isWritable() {
+        return pendingBytes.get() <= writableWatermark;
+    }
+
+    /**
+     * Run the task once when the bytes queued and not written yet are under half of the writable watermark or the
+     * connection is closed, the task is run on the loop thread or now if already writable
+     *
+     * @param task task to run
+     */
+    public void onWritable(Runnable task) {
+        writableTask.set(task);
+        // the bytes can be written between the check of the caller and the set
+        if (pendingBytes.get() <= writableWatermark / 2 || closed) {
+            runWritableTask();
+        }
+    }
+
+    /**
+     * Run the writable task if the bytes written bring the pending bytes under half of the watermark
+     */
+    private void writtenDown() {
+        if (writableTask.get() != null && pendingBytes.get() <= writableWatermark / 2) {
+            runWritableTask();
+        }
+    }
+
+    private void runWritableTask() {
+        var task = writableTask.getAndSet(null);
+        if (task != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Close the channel on the loop thread without writing the queued frames, the next frame is refused
+     */
+    private void abort(String reason) {
+        if (closing.compareAndSet(false, true)) {
+            abortReason = reason;
+            scheduleFlush();
+        }
+    }
+
+    private static long size(ByteBuffer[] frame) {
+        var size = 0L;
+        for (var buffer : frame) {
+            size += buffer.remaining();
+        }
+        return size;
+    }
+
+    final boolean isClosing() {
+        return closing.get();
+    }
+
+    final boolean isClosed() {
+        return closed;
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.flushLater(this);
+        }
+    }
+
+    final void read(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        if (leftover != null) {
+            buffer.put(leftover);
+            leftover = null;
+        }
+
+        var count = channel.read(buffer);
+        buffer.flip();
+        if (count < 0) {
+            closeNow(END_OF_STREAM);
+            return;
+        }
+
+        onRead(buffer);
+        if (!closed && buffer.hasRemaining()) {
+            leftover = ByteBuffer.allocate(buffer.remaining()).put(buffer).flip();
+        }
+    }
+
+    final void flush() throws IOException {
+        flushScheduled.set(false);
+        if (closed) {
+            return;
+        }
+        if (abortReason != null) {
+            closeNow(abortReason);
+            return;
+        }
+
+        ByteBuffer[] frame;
+        while (!closeAfterWrite && (frame = outbound.poll()) != null) {
+            if (frame == CLOSE) {
+                closeAfterWrite = true;
+                break;
+            }
+            for (var buffer : frame) {
+                writing.add(buffer);
+            }
+        }
+
+        var gather = loop.gather();
+        while (!writing.isEmpty()) {
+            var count = 0;
+            for (var buffer : writing) {
+                gather[count++] = buffer;
+                if (count == gather.length) {
+                    break;
+                }
+            }
+
+            pendingBytes.addAndGet(-channel.write(gather, 0, count));
+            Arrays.fill(gather, 0, count, null);
+            var written = 0;
+            while (!writing.isEmpty() && !writing.peekFirst().hasRemaining()) {
+                writing.pollFirst();
+                written++;
+            }
+
+            if (written < count) {
+                // socket buffer full, continue when writable
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                writtenDown();
+                return;
+            }
+        }
+
+        if (key.isValid() && (key.interestOps() & SelectionKey.OP_WRITE) != 0) {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+        writtenDown();
+        if (closeAfterWrite) {
+            closeNow(null);
+        }
+    }
+
+    /**
+     * Close the channel now without writing the queued frames, called on the loop thread
+     *
+     * @param reason reason of the close, null if closed after the last frame
+     */
+    final void closeNow(String reason) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closing.set(true);
+        if (key != null) {
+            key.cancel();
+        }
+        NioLoop.closeQuietly(channel);
+        outbound.clear();
+        writing.clear();
+        leftover = null;
+        onClosed(reason);
+        runWritableTask();
+    }
+}
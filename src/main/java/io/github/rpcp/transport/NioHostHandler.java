@@ -0,0 +1,60 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp.transport;
+
+import io.github.rpcp.model.MessageConnect;
+import io.github.rpcp.model.MessageDisconnect;
+import io.github.rpcp.model.RPCPHostHandler;
+import io.github.rpcp.model.RPCPWebSocketSession;
+
+/**
+ * Host handler of the standalone transport, {@link NioWebSocketSession} and {@link NioTcpSession} are the native
+ * session and the RPCP websocket session at the same time so the session is used as is. Every CONNECT is accepted,
+ * extend the handler to check the CONNECT or to be notified of the connect and disconnect.
+ * <pre>
+ * {@code
+ *      var rpcpHost = new RPCPHost<NioWebSocketSession>("api.glexpress.id/ws", new NioHostHandler<>());
+ * }
+ * </pre>
+ *
+ * @param <S> session of the transport, {@link NioWebSocketSession} or {@link NioTcpSession}
+ * @author Eric A. Sanjaya
+ */
+public class NioHostHandler<S extends RPCPWebSocketSession> implements RPCPHostHandler<S> {
+    @Override
+    public boolean onPreConnect(MessageConnect messageConnect, RPCPWebSocketSession session) {
+        return true;
+    }
+
+    @Override
+    public void onConnect(MessageConnect messageConnect, RPCPWebSocketSession session) {
+    }
+
+    @Override
+    public void onDisconnect(MessageDisconnect messageDisconnect, RPCPWebSocketSession session) {
+    }
+
+    @Override
+    public String getWsSessionId(S session) {
+        return session.getId();
+    }
+
+    @Override
+    public RPCPWebSocketSession buildWebsocketSession(S session) {
+        return session;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.transport;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Selector loop on one thread. The connection is read, written and closed only on the loop thread, other thread
+ * queue the frame to the connection and wake the loop. One read buffer is shared by all the connections of the loop,
+ * the connection keep only the bytes of an incomplete frame.
+ * @author Eric A. Sanjaya
+ */
+final class NioLoop implements Runnable {
+    static final int MAX_GATHER = 64;
+
+    private final Selector selector;
+    private final Thread thread;
+    private final ByteBuffer readBuffer;
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<NioConnection> flushes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeup = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    NioLoop(String name, int readBufferSize) throws IOException {
+        this.selector = Selector.open();
+        this.readBuffer = ByteBuffer.allocate(readBufferSize);
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Accept the connection of the server channel on this loop
+     *
+     * @param serverChannel non blocking server channel
+     * @param acceptor      receive the accepted channel
+     */
+    void listen(ServerSocketChannel serverChannel, Consumer<SocketChannel> acceptor) {
+        execute(() -> {
+            try {
+                serverChannel.register(selector, SelectionKey.OP_ACCEPT, acceptor);
+            } catch (ClosedChannelException e) {
+                // server closed before the loop start
+            }
+        });
+    }
+
+    /**
+     * Register the accepted channel to this loop
+     *
+     * @param channel accepted channel
+     * @param factory create the connection of the channel
+     */
+    void register(SocketChannel channel, Function<SocketChannel, NioConnection> factory) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                var connection = factory.apply(channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connection.opened();
+            } catch (IOException e) {
+                closeQuietly(channel);
+            }
+        });
+    }
+
+    /**
+     * Connect the channel of the connection on this loop, {@link NioConnection#opened()} is called when connected
+     *
+     * @param connection connection of an unconnected channel
+     * @param remote     address to connect
+     */
+    void connect(NioConnection connection, SocketAddress remote) {
+        execute(() -> {
+            var channel = connection.channel;
+            try {
+                channel.configureBlocking(false);
+                if (channel.connect(remote)) {
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connection.opened();
+                } else {
+                    connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+                }
+            } catch (IOException e) {
+                connection.closeNow(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Run the task on the loop thread
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        wakeup();
+    }
+
+    /**
+     * Write the queued frame of the connection before the next select
+     */
+    void flushLater(NioConnection connection) {
+        flushes.add(connection);
+        wakeup();
+    }
+
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    ByteBuffer[] gather() {
+        return gather;
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    void join(long millis) throws InterruptedException {
+        thread.join(millis);
+    }
+
+    private void wakeup() {
+        if (!inLoop() && wakeup.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                runTasks();
+                flush();
+                selector.select();
+                wakeup.set(false);
+
+                var keys = selector.selectedKeys();
+                for (var key : keys) {
+                    handle(key);
+                }
+                keys.clear();
+                // the reply of the message read above is written in one gathering write
+                flush();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            for (var key : selector.keys()) {
+                if (key.attachment() instanceof NioConnection) {
+                    stop((NioConnection) key.attachment());
+                } else {
+                    closeQuietly(key.channel());
+                }
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+
+        if (key.isAcceptable()) {
+            accept((ServerSocketChannel) key.channel(), (Consumer<SocketChannel>) key.attachment());
+            return;
+        }
+
+        var connection = (NioConnection) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                if (connection.channel.finishConnect()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    connection.opened();
+                }
+                return;
+            }
+            if (key.isWritable()) {
+                connection.flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.read(readBuffer);
+            }
+        } catch (IOException e) {
+            connection.closeNow(e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            connection.closeNow(e.getMessage());
+        }
+    }
+
+    private void accept(ServerSocketChannel serverChannel, Consumer<SocketChannel> acceptor) {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                acceptor.accept(channel);
+            }
+        } catch (IOException e) {
+            if (serverChannel.isOpen()) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void flush() {
+        NioConnection connection;
+        while ((connection = flushes.poll()) != null) {
+            try {
+                connection.flush();
+            } catch (IOException e) {
+                connection.closeNow(e.getMessage());
+            }
+        }
+    }
+
+    private void stop(NioConnection connection) {
+        connection.stopping();
+        try {
+            connection.flush();
+        } catch (IOException e) {
+            // closed below
+        }
+        connection.closeNow("Loop stopped");
+    }
+
+    static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // nothing to do
+        }
+    }
+}
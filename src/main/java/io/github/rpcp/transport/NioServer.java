@@ -0,0 +1,182 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.rpcp.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Listening socket and selector loops of a server, the accepted connections are spread over the loops round-robin.
+ * The protocol of the connection is given by {@link #connection(SocketChannel, NioLoop)}.
+ * @author Eric A. Sanjaya
+ */
+abstract class NioServer implements AutoCloseable {
+    private final InetSocketAddress address;
+    private final String name;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private int loopCount = Runtime.getRuntime().availableProcessors();
+    private int readBufferSize = 64 * 1024;
+    private int maxMessageSize = 16 * 1024 * 1024;
+    private long maxPendingBytes = 16 * 1024 * 1024;
+    private long writableWatermark = 256 * 1024;
+
+    private ServerSocketChannel serverChannel;
+    private NioLoop[] loops;
+
+    NioServer(InetSocketAddress address, String name) {
+        this.address = address;
+        this.name = name;
+    }
+
+    /**
+     * @param loopCount number of selector loop, default is the number of core
+     */
+    public void setLoopCount(int loopCount) {
+        this.loopCount = loopCount;
+    }
+
+    /**
+     * @param readBufferSize size of the read buffer of every loop, a frame bigger than the buffer is given to the host
+     *                       in parts. Default 64 KiB
+     */
+    public void setReadBufferSize(int readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    /**
+     * @param maxMessageSize maximum length of a message in bytes, the connection that send a bigger message is
+     *                       closed before the message is read. Default 16 MiB
+     */
+    public void setMaxMessageSize(int maxMessageSize) {
+        if (maxMessageSize <= 0) {
+            throw new IllegalArgumentException("maxMessageSize must be positive: " + maxMessageSize);
+        }
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    int getMaxMessageSize() {
+        return maxMessageSize;
+    }
+
+    /**
+     * @param maxPendingBytes maximum bytes sent to one connection and not written to the socket yet, the connection
+     *                        of a client that does not read fast enough is closed when the bytes pass the max.
+     *                        A single frame bigger than the max is still sent when nothing else is pending.
+     *                        Default 16 MiB
+     */
+    public void setMaxPendingBytes(long maxPendingBytes) {
+        if (maxPendingBytes <= 0) {
+            throw new IllegalArgumentException("maxPendingBytes must be positive: " + maxPendingBytes);
+        }
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    /**
+     * @param writableWatermark bytes sent to one connection and not written to the socket yet over which the
+     *                          connection report not writable, the outbound queue of the host stop sending and
+     *                          apply the overflow policy until the bytes are under half of the watermark.
+     *                          Default 256 KiB
+     * @see io.github.rpcp.RPCPHost#setOutboundQueue(int, io.github.rpcp.RPCPOverflowPolicy, java.util.concurrent.Executor)
+     */
+    public void setWritableWatermark(long writableWatermark) {
+        if (writableWatermark <= 0) {
+            throw new IllegalArgumentException("writableWatermark must be positive: " + writableWatermark);
+        }
+        this.writableWatermark = writableWatermark;
+    }
+
+    /**
+     * Create the connection of an accepted channel, called on the loop thread
+     */
+    abstract NioConnection connection(SocketChannel channel, NioLoop loop);
+
+    /**
+     * Bind the address and start the selector loops
+     */
+    synchronized void listen() throws IOException {
+        if (serverChannel != null) {
+            throw new IllegalStateException("Server already started");
+        }
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+
+        loops = new NioLoop[loopCount];
+        for (var i = 0; i < loopCount; i++) {
+            loops[i] = new NioLoop(name + "-" + i, readBufferSize);
+            loops[i].start();
+        }
+        loops[0].listen(serverChannel, this::accepted);
+    }
+
+    /**
+     * @return port listened, the port chosen by the system if the address port is 0
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void accepted(SocketChannel channel) {
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException e) {
+            NioLoop.closeQuietly(channel);
+            return;
+        }
+
+        var loop = loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+        var maxPending = maxPendingBytes;
+        var watermark = writableWatermark;
+        loop.register(channel, socketChannel -> {
+            var connection = connection(socketChannel, loop);
+            connection.maxPendingBytes = maxPending;
+            connection.writableWatermark = watermark;
+            return connection;
+        });
+    }
+
+    /**
+     * Stop listening and close every connection, the host is notified of every disconnect
+     */
+    @Override
+    public synchronized void close() {
+        if (serverChannel == null) {
+            return;
+        }
+
+        NioLoop.closeQuietly(serverChannel);
+        for (var loop : loops) {
+            loop.stop();
+        }
+        for (var loop : loops) {
+            try {
+                loop.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.rpcp.transport;
+
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.RPCPPreparedFrame;
+import io.github.rpcp.model.RPCPWebSocketSession;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.github.rpcp.transport.TcpCodec.*;
+
+/**
+ * TCP connection of {@link RPCPTcpServer}, used as native session and as RPCP websocket session of the host. The
+ * session is connected to the host once accepted, there is no handshake before the CONNECT of the client. The message
+ * is given to the host as UTF-8 bytes of the read buffer, a message bigger than the read buffer is given in parts.
+ * The connection that send a message longer than the max message size is closed.
+ * @author Eric A. Sanjaya
+ */
+public class NioTcpSession extends NioConnection implements RPCPWebSocketSession {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final String id = "tcp-" + SEQUENCE.incrementAndGet();
+    private final RPCPHost<NioTcpSession> rpcpHost;
+    private final int maxMessageSize;
+    private String closeReason;
+
+    // message bigger than the read buffer
+    private long streamRemaining;
+
+    NioTcpSession(SocketChannel channel, NioLoop loop, RPCPHost<NioTcpSession> rpcpHost, int maxMessageSize) {
+        super(channel, loop);
+        this.rpcpHost = rpcpHost;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    @Override
+    public void sendMessage(String msg) throws Exception {
+        var bytes = msg.getBytes(StandardCharsets.UTF_8);
+        sendPayload(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public void sendMessage(ByteBuffer msg) throws Exception {
+        // the caller can reuse the buffer after return
+        var copy = ByteBuffer.allocate(msg.remaining()).put(msg).flip();
+        sendPayload(copy);
+    }
+
+    @Override
+    public void sendMessage(RPCPPreparedFrame frame) throws Exception {
+        sendPayload(frame.getBytes());
+    }
+
+    private void sendPayload(ByteBuffer payload) throws Exception {
+        if (!send(header(payload.remaining()), payload)) {
+            throw new Exception("Session closed");
+        }
+    }
+
+    /**
+     * Close the connection after the message queued before is written
+     */
+    @Override
+    public void close() {
+        close("Closed by server");
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !isClosing();
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return address of the client, null if not connected
+     */
+    public SocketAddress getRemoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    void opened() {
+        rpcpHost.onWsConnect(this);
+    }
+
+    @Override
+    void stopping() {
+        close("Server stopped");
+    }
+
+    private void close(String reason) {
+        if (!isClosing()) {
+            closeReason = reason;
+            sendLast();
+        }
+    }
+
+    @Override
+    void onRead(ByteBuffer buffer) {
+        while (!isClosing()) {
+            if (streamRemaining > 0) {
+                if (!buffer.hasRemaining()) {
+                    return;
+                }
+                streamPart(buffer);
+                continue;
+            }
+
+            if (buffer.remaining() < HEADER_LENGTH) {
+                return;
+            }
+            var position = buffer.position();
+            var length = buffer.getInt(position);
+            if (length < 0 || length > maxMessageSize) {
+                close(length < 0 ? "Protocol error" : "Message too big");
+                break;
+            }
+
+            var payloadStart = position + HEADER_LENGTH;
+            if (length > buffer.capacity() - HEADER_LENGTH) {
+                // bigger than the read buffer, the payload is given to the host as it arrive
+                buffer.position(payloadStart);
+                streamRemaining = length;
+                continue;
+            }
+            if (buffer.remaining() < HEADER_LENGTH + length) {
+                return;
+            }
+
+            var payloadEnd = payloadStart + length;
+            var payload = buffer.duplicate().position(payloadStart).limit(payloadEnd).slice();
+            buffer.position(payloadEnd);
+            rpcpHost.onGetMessage(payload, this);
+        }
+        // the bytes after the close are ignored
+        buffer.position(buffer.limit());
+    }
+
+    private void streamPart(ByteBuffer buffer) {
+        var start = buffer.position();
+        var length = (int) Math.min(buffer.remaining(), streamRemaining);
+        streamRemaining -= length;
+
+        var part = buffer.duplicate().position(start).limit(start + length).slice();
+        buffer.position(start + length);
+        rpcpHost.onGetMessagePart(part, streamRemaining == 0, this);
+    }
+
+    @Override
+    void onClosed(String reason) {
+        rpcpHost.onWsDisconnect(this, closeReason != null ? closeReason : reason);
+    }
+}
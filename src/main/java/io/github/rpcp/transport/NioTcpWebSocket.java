@@ -0,0 +1,192 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.rpcp.transport;
+
+import java.io.IOException;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static io.github.rpcp.transport.TcpCodec.*;
+
+/**
+ * Client connection of {@link NioTcpWebSocketBuilder}, the TCP transport behind the JDK websocket interface. Every
+ * text is sent as one length prefixed message, the message received is given to the listener whole on the loop
+ * thread. The transport has no control frame, ping and pong are not sent and the close has no status.
+ * @author Eric A. Sanjaya
+ */
+final class NioTcpWebSocket extends NioConnection implements WebSocket {
+    private final Listener listener;
+    private final int maxMessageSize;
+    private final CompletableFuture<WebSocket> opening = new CompletableFuture<>();
+    private boolean opened;
+
+    // message bigger than the read buffer
+    private ByteBuffer message;
+
+    NioTcpWebSocket(SocketChannel channel, NioLoop loop, Listener listener, int maxMessageSize) {
+        super(channel, loop);
+        this.listener = listener;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * @return completed with this websocket when connected
+     */
+    CompletableFuture<WebSocket> getOpening() {
+        return opening;
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendText(CharSequence data, boolean last) {
+        if (!last) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Message part is not supported by TCP transport"));
+        }
+
+        var bytes = data.toString().getBytes(StandardCharsets.UTF_8);
+        if (!send(header(bytes.length), ByteBuffer.wrap(bytes))) {
+            return CompletableFuture.failedFuture(new IOException("Output closed"));
+        }
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendBinary(ByteBuffer data, boolean last) {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException("Binary message is not supported by TCP transport"));
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendPing(ByteBuffer message) {
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendPong(ByteBuffer message) {
+        return CompletableFuture.completedFuture(this);
+    }
+
+    /**
+     * Close the connection after the message queued before is written, the status and the reason are not sent
+     */
+    @Override
+    public CompletableFuture<WebSocket> sendClose(int statusCode, String reason) {
+        sendLast();
+        return CompletableFuture.completedFuture(this);
+    }
+
+    /**
+     * The message is given to the listener as it is read, the demand is not counted
+     */
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public String getSubprotocol() {
+        return "";
+    }
+
+    @Override
+    public boolean isOutputClosed() {
+        return isClosing();
+    }
+
+    @Override
+    public boolean isInputClosed() {
+        return isClosed();
+    }
+
+    @Override
+    public void abort() {
+        loop.execute(() -> closeNow("Aborted"));
+    }
+
+    @Override
+    void opened() {
+        if (opening.isDone()) {
+            // connect timeout
+            closeNow("Connect timeout");
+            return;
+        }
+
+        opened = true;
+        listener.onOpen(this);
+        opening.complete(this);
+    }
+
+    @Override
+    void onRead(ByteBuffer buffer) {
+        while (!isClosed()) {
+            if (message != null) {
+                var length = Math.min(buffer.remaining(), message.remaining());
+                message.put(buffer.duplicate().limit(buffer.position() + length));
+                buffer.position(buffer.position() + length);
+                if (message.hasRemaining()) {
+                    return;
+                }
+
+                var text = StandardCharsets.UTF_8.decode(message.flip());
+                message = null;
+                listener.onText(this, text, true);
+                continue;
+            }
+
+            if (buffer.remaining() < HEADER_LENGTH) {
+                return;
+            }
+            var position = buffer.position();
+            var length = buffer.getInt(position);
+            if (length < 0 || length > maxMessageSize) {
+                closeNow(length < 0 ? "Protocol error" : "Message too big");
+                return;
+            }
+
+            var payloadStart = position + HEADER_LENGTH;
+            if (length > buffer.capacity() - HEADER_LENGTH) {
+                // bigger than the read buffer, collected until complete
+                buffer.position(payloadStart);
+                message = ByteBuffer.allocate(length);
+                continue;
+            }
+            if (buffer.remaining() < HEADER_LENGTH + length) {
+                return;
+            }
+
+            var payloadEnd = payloadStart + length;
+            var text = StandardCharsets.UTF_8.decode(buffer.duplicate().position(payloadStart).limit(payloadEnd));
+            buffer.position(payloadEnd);
+            listener.onText(this, text, true);
+        }
+    }
+
+    @Override
+    void onClosed(String reason) {
+        if (!opened) {
+            opening.completeExceptionally(new IOException(reason));
+        } else if (reason == null || END_OF_STREAM.equals(reason)) {
+            listener.onClose(this, NORMAL_CLOSURE, "");
+        } else {
+            listener.onError(this, new IOException(reason));
+        }
+    }
+}
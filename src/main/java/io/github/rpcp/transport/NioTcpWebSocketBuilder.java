@@ -0,0 +1,138 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.rpcp.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builder of the client connection to {@link RPCPTcpServer}, the TCP transport is given as JDK websocket so
+ * {@link io.github.rpcp.RPCPClient}, {@link io.github.rpcp.RPCPReconnectingClient} and
+ * {@link io.github.rpcp.RPCPClientPool} work unchanged. The uri is "tcp://host:port", the path is not used.
+ * <pre>
+ * {@code
+ *      var builder = new NioTcpWebSocketBuilder();
+ *      var client = RPCPClient.connect(builder, URI.create("tcp://localhost:9090"), vHost, agent).get();
+ * }
+ * </pre>
+ * The connections of the builder share one selector loop, close the builder to close every connection.
+ * @author Eric A. Sanjaya
+ */
+public class NioTcpWebSocketBuilder implements WebSocket.Builder, AutoCloseable {
+    private final NioLoop loop;
+    private Duration connectTimeout;
+    private int maxMessageSize = 16 * 1024 * 1024;
+
+    /**
+     * Create builder with 64 KiB read buffer
+     *
+     * @throws IOException if the selector can not be opened
+     */
+    public NioTcpWebSocketBuilder() throws IOException {
+        this(64 * 1024);
+    }
+
+    /**
+     * @param readBufferSize size of the read buffer, a message bigger than the buffer is collected in its own buffer
+     * @throws IOException if the selector can not be opened
+     */
+    public NioTcpWebSocketBuilder(int readBufferSize) throws IOException {
+        loop = new NioLoop("rpcp-tcp-client", readBufferSize);
+        loop.start();
+    }
+
+    /**
+     * @param maxMessageSize maximum size of a message received in bytes, the connection is closed if a message is
+     *                       bigger. Default 16 MiB
+     * @return this builder
+     */
+    public NioTcpWebSocketBuilder maxMessageSize(int maxMessageSize) {
+        this.maxMessageSize = maxMessageSize;
+        return this;
+    }
+
+    /**
+     * Not used, the TCP transport has no header
+     */
+    @Override
+    public WebSocket.Builder header(String name, String value) {
+        return this;
+    }
+
+    @Override
+    public WebSocket.Builder connectTimeout(Duration timeout) {
+        this.connectTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Not used, the TCP transport has no subprotocol
+     */
+    @Override
+    public WebSocket.Builder subprotocols(String mostPreferred, String... lesserPreferred) {
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> buildAsync(URI uri, WebSocket.Listener listener) {
+        if (uri.getHost() == null || uri.getPort() < 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Host and port required: " + uri));
+        }
+
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open();
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        var webSocket = new NioTcpWebSocket(channel, loop, listener, maxMessageSize);
+        loop.connect(webSocket, new InetSocketAddress(uri.getHost(), uri.getPort()));
+        var opening = webSocket.getOpening();
+        if (connectTimeout != null) {
+            opening.orTimeout(connectTimeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((ws, error) -> {
+                if (error != null) {
+                    webSocket.abort();
+                }
+            });
+        }
+        return opening;
+    }
+
+    /**
+     * Close every connection of the builder and stop the loop
+     */
+    @Override
+    public void close() {
+        loop.stop();
+        try {
+            loop.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
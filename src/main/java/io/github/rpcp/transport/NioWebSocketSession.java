@@ -0,0 +1,384 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.transport;
+
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.RPCPPreparedFrame;
+import io.github.rpcp.model.RPCPWebSocketSession;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.github.rpcp.transport.WebSocketCodec.*;
+
+/**
+ * Websocket connection of {@link RPCPWebSocketServer}, used as native websocket session and as RPCP websocket
+ * session of the host. The text frame is given to the host as UTF-8 bytes of the read buffer, a frame bigger than the
+ * read buffer and a fragmented message is given in parts. The frame is sent without converting the bytes again,
+ * the prepared frame of a broadcast is shared by every session.
+ * <p>
+ * A message longer than the max message size is closed with 1009 before the payload is read, a text message that is
+ * not valid UTF-8 is closed with 1007.
+ * @author Eric A. Sanjaya
+ */
+public class NioWebSocketSession extends NioConnection implements RPCPWebSocketSession {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private static final int STATE_HANDSHAKE = 0;
+    private static final int STATE_OPEN = 1;
+    private static final int STATE_CLOSING = 2;
+
+    private final String id = "nio-" + SEQUENCE.incrementAndGet();
+    private final RPCPHost<NioWebSocketSession> rpcpHost;
+    private final String path;
+    private final int maxMessageSize;
+    private volatile int state = STATE_HANDSHAKE;
+    private String closeReason;
+
+    // frame bigger than the read buffer
+    private long streamRemaining;
+    private boolean streamFin;
+    private int streamMask;
+    private int streamOffset;
+    // a message without FIN is not complete
+    private boolean fragmented;
+    // message of the frames read so far
+    private long messageLength;
+    private boolean textMessage;
+    private int utf8State;
+
+    NioWebSocketSession(SocketChannel channel, NioLoop loop, RPCPHost<NioWebSocketSession> rpcpHost, String path,
+                        int maxMessageSize) {
+        super(channel, loop);
+        this.rpcpHost = rpcpHost;
+        this.path = path;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    @Override
+    public void sendMessage(String msg) throws Exception {
+        var bytes = msg.getBytes(StandardCharsets.UTF_8);
+        sendText(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public void sendMessage(ByteBuffer msg) throws Exception {
+        // the caller can reuse the buffer after return
+        var copy = ByteBuffer.allocate(msg.remaining()).put(msg).flip();
+        sendText(copy);
+    }
+
+    @Override
+    public void sendMessage(RPCPPreparedFrame frame) throws Exception {
+        sendText(frame.getBytes());
+    }
+
+    private void sendText(ByteBuffer payload) throws Exception {
+        if (state != STATE_OPEN || !send(header(OPCODE_TEXT, payload.remaining()), payload)) {
+            throw new Exception("Session closed");
+        }
+    }
+
+    /**
+     * Send close frame with normal closure, the connection is closed after the frame queued before is written
+     */
+    @Override
+    public void close() {
+        close(CLOSE_NORMAL, "Closed by server");
+    }
+
+    @Override
+    public boolean isOpen() {
+        return state == STATE_OPEN && !isClosing();
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return address of the client, null if not connected
+     */
+    public SocketAddress getRemoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    void stopping() {
+        close(CLOSE_GOING_AWAY, "Server stopped");
+    }
+
+    private void close(int code, String reason) {
+        if (state == STATE_OPEN) {
+            state = STATE_CLOSING;
+            closeReason = reason;
+            var payload = closePayload(code);
+            sendLast(header(OPCODE_CLOSE, payload.remaining()), payload);
+        }
+    }
+
+    @Override
+    void onRead(ByteBuffer buffer) {
+        if (state == STATE_HANDSHAKE) {
+            handshake(buffer);
+        }
+        if (state == STATE_OPEN) {
+            frames(buffer);
+        }
+        if (state == STATE_CLOSING) {
+            // the client may still send until it get the close frame
+            buffer.position(buffer.limit());
+        }
+    }
+
+    @Override
+    void onClosed(String reason) {
+        var opened = state != STATE_HANDSHAKE;
+        state = STATE_CLOSING;
+        if (opened) {
+            rpcpHost.onWsDisconnect(this, closeReason != null ? closeReason : reason);
+        }
+    }
+
+    private void handshake(ByteBuffer buffer) {
+        var end = headEnd(buffer);
+        if (end < 0) {
+            if (buffer.limit() == buffer.capacity()) {
+                sendLast(ascii("HTTP/1.1 431 Request Header Fields Too Large\r\n" +
+                        "Connection: close\r\n" +
+                        "Content-Length: 0\r\n" +
+                        "\r\n"));
+                buffer.position(buffer.limit());
+            }
+            return;
+        }
+
+        var request = StandardCharsets.ISO_8859_1.decode(buffer.duplicate().limit(end)).toString();
+        buffer.position(end);
+        var response = WebSocketCodec.handshake(request, path);
+        if (!response.startsWith("HTTP/1.1 101")) {
+            sendLast(ascii(response));
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        send(ascii(response));
+        state = STATE_OPEN;
+        rpcpHost.onWsConnect(this);
+    }
+
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private void frames(ByteBuffer buffer) {
+        while (state == STATE_OPEN) {
+            if (streamRemaining > 0) {
+                if (!buffer.hasRemaining()) {
+                    return;
+                }
+                streamPart(buffer);
+                continue;
+            }
+
+            var remaining = buffer.remaining();
+            if (remaining < 2) {
+                return;
+            }
+
+            var position = buffer.position();
+            var b0 = buffer.get(position);
+            var b1 = buffer.get(position + 1);
+            var fin = (b0 & 0x80) != 0;
+            var opcode = b0 & 0x0F;
+            if ((b0 & 0x70) != 0 || (b1 & 0x80) == 0) {
+                // no extension is negotiated and the client must mask the frame
+                close(CLOSE_PROTOCOL_ERROR, "Protocol error");
+                return;
+            }
+
+            long length = b1 & 0x7F;
+            var headerLength = 6;
+            if (length == 126) {
+                if (remaining < 4) {
+                    return;
+                }
+                length = buffer.getShort(position + 2) & 0xFFFF;
+                headerLength = 8;
+            } else if (length == 127) {
+                if (remaining < 10) {
+                    return;
+                }
+                length = buffer.getLong(position + 2);
+                headerLength = 14;
+            }
+            if (length < 0) {
+                close(CLOSE_PROTOCOL_ERROR, "Protocol error");
+                return;
+            }
+            if (remaining < headerLength) {
+                return;
+            }
+            var mask = buffer.getInt(position + headerLength - 4);
+            var payloadStart = position + headerLength;
+
+            if (opcode >= OPCODE_CLOSE) {
+                if (!fin || length > 125) {
+                    close(CLOSE_PROTOCOL_ERROR, "Protocol error");
+                    return;
+                }
+                if (remaining < headerLength + length) {
+                    return;
+                }
+                var payloadEnd = payloadStart + (int) length;
+                unmask(buffer, payloadStart, payloadEnd, mask, 0);
+                buffer.position(payloadEnd);
+                control(opcode, buffer.duplicate().position(payloadStart).limit(payloadEnd));
+                continue;
+            }
+
+            if (opcode == OPCODE_CONTINUATION ? !fragmented
+                    : (opcode != OPCODE_TEXT && opcode != OPCODE_BINARY) || fragmented) {
+                close(CLOSE_PROTOCOL_ERROR, "Protocol error");
+                return;
+            }
+            var continuation = opcode == OPCODE_CONTINUATION;
+            if (length > maxMessageSize - (continuation ? messageLength : 0)) {
+                close(CLOSE_MESSAGE_TOO_BIG, "Message too big");
+                return;
+            }
+
+            if (headerLength + length > buffer.capacity()) {
+                // bigger than the read buffer, the payload is given to the host as it arrive
+                buffer.position(payloadStart);
+                startFrame(continuation, opcode, length);
+                streamRemaining = length;
+                streamFin = fin;
+                streamMask = mask;
+                streamOffset = 0;
+                fragmented = true;
+                continue;
+            }
+            if (remaining < headerLength + length) {
+                return;
+            }
+
+            var payloadEnd = payloadStart + (int) length;
+            var ascii = unmask(buffer, payloadStart, payloadEnd, mask, 0);
+            startFrame(continuation, opcode, length);
+            if (!validText(buffer, payloadStart, payloadEnd, fin, ascii)) {
+                return;
+            }
+            var payload = buffer.duplicate().position(payloadStart).limit(payloadEnd).slice();
+            buffer.position(payloadEnd);
+            if (fin && !fragmented) {
+                rpcpHost.onGetMessage(payload, this);
+            } else {
+                fragmented = !fin;
+                rpcpHost.onGetMessagePart(payload, fin, this);
+            }
+        }
+    }
+
+    private void streamPart(ByteBuffer buffer) {
+        var start = buffer.position();
+        var length = (int) Math.min(buffer.remaining(), streamRemaining);
+        var ascii = unmask(buffer, start, start + length, streamMask, streamOffset);
+        streamOffset = (streamOffset + length) & 3;
+        streamRemaining -= length;
+
+        var last = streamRemaining == 0 && streamFin;
+        if (!validText(buffer, start, start + length, last, ascii)) {
+            return;
+        }
+        var part = buffer.duplicate().position(start).limit(start + length).slice();
+        buffer.position(start + length);
+        if (last) {
+            fragmented = false;
+        }
+        rpcpHost.onGetMessagePart(part, last, this);
+    }
+
+    /**
+     * The data frame is read, a frame that is not a continuation start a new message
+     */
+    private void startFrame(boolean continuation, int opcode, long length) {
+        if (!continuation) {
+            messageLength = 0;
+            textMessage = opcode == OPCODE_TEXT;
+            utf8State = UTF8_ACCEPT;
+        }
+        messageLength += length;
+    }
+
+    /**
+     * Validate the unmasked payload of a text message, the connection is closed with 1007 if not valid
+     *
+     * @param ascii true if every byte of the payload is ASCII
+     * @return true if valid so far
+     */
+    private boolean validText(ByteBuffer buffer, int start, int end, boolean last, boolean ascii) {
+        if (!textMessage || (ascii && utf8State == UTF8_ACCEPT)) {
+            return true;
+        }
+        utf8State = validateUtf8(utf8State, buffer, start, end);
+        if (utf8State == UTF8_REJECT || (last && utf8State != UTF8_ACCEPT)) {
+            close(CLOSE_INVALID_PAYLOAD, "Invalid UTF-8");
+            return false;
+        }
+        return true;
+    }
+
+    private void control(int opcode, ByteBuffer payload) {
+        switch (opcode) {
+            case OPCODE_CLOSE:
+                if (payload.remaining() == 1) {
+                    close(CLOSE_PROTOCOL_ERROR, "Protocol error");
+                    break;
+                }
+                var code = payload.remaining() >= 2 ? payload.getShort() & 0xFFFF : CLOSE_NO_STATUS;
+                if (code != CLOSE_NO_STATUS && !isValidCloseCode(code)) {
+                    close(CLOSE_PROTOCOL_ERROR, "Protocol error");
+                } else if (validateUtf8(UTF8_ACCEPT, payload, payload.position(), payload.limit()) != UTF8_ACCEPT) {
+                    // the reason after the code
+                    close(CLOSE_INVALID_PAYLOAD, "Invalid UTF-8");
+                } else {
+                    close(code == CLOSE_NO_STATUS ? CLOSE_NORMAL : code, String.valueOf(code));
+                }
+                break;
+            case OPCODE_PING:
+                var pong = ByteBuffer.allocate(payload.remaining()).put(payload).flip();
+                send(header(OPCODE_PONG, pong.remaining()), pong);
+                break;
+            case OPCODE_PONG:
+                break;
+            default:
+                close(CLOSE_PROTOCOL_ERROR, "Protocol error");
+                break;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.rpcp.transport;
+
+import io.github.rpcp.RPCPHost;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+
+/**
+ * TCP server of a {@link RPCPHost} for the connection between backend services, without websocket framing and HTTP
+ * upgrade. Every RPCP message is sent as a 4 bytes big-endian length followed by the UTF-8 bytes of the message, the
+ * client send CONNECT right after the TCP connection is established.
+ * <p>
+ * The connections are spread over the selector loops, one loop per core by default. The method of the host is
+ * executed on the loop thread unless the host has a call executor, a method that block should run on the executor.
+ * <pre>
+ * {@code
+ *      var rpcpHost = new RPCPHost<NioTcpSession>("api.glexpress.id/ws", new NioHostHandler<>());
+ *      rpcpHost.addMethod(new Sum());
+ *      var server = new RPCPTcpServer(rpcpHost, new InetSocketAddress(9090)).start();
+ * }
+ * </pre>
+ * {@link NioTcpWebSocketBuilder} connect {@link io.github.rpcp.RPCPClient} to the server.
+ * @author Eric A. Sanjaya
+ */
+public class RPCPTcpServer extends NioServer {
+    private final RPCPHost<NioTcpSession> rpcpHost;
+
+    /**
+     * Create server, call {@link #start()} to listen
+     *
+     * @param rpcpHost host of the connections
+     * @param address  address to listen, port 0 for any free port
+     */
+    public RPCPTcpServer(RPCPHost<NioTcpSession> rpcpHost, InetSocketAddress address) {
+        super(address, "rpcp-tcp");
+        this.rpcpHost = rpcpHost;
+    }
+
+    /**
+     * Bind the address and start the selector loops
+     *
+     * @return this server
+     * @throws IOException if the address can not be bound
+     * @throws IllegalStateException if the server is already started
+     */
+    public RPCPTcpServer start() throws IOException {
+        listen();
+        return this;
+    }
+
+    @Override
+    NioConnection connection(SocketChannel channel, NioLoop loop) {
+        return new NioTcpSession(channel, loop, rpcpHost, getMaxMessageSize());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.transport;
+
+import io.github.rpcp.RPCPHost;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Standalone websocket server of a {@link RPCPHost} on JDK NIO, without websocket framework. The RFC 6455 handshake
+ * and framing is done by the server, the frame is given to the host as bytes without String conversion.
+ * <p>
+ * The connections are spread over the selector loops, one loop per core by default. The method of the host is
+ * executed on the loop thread unless the host has a call executor, a method that block should run on the executor.
+ * <pre>
+ * {@code
+ *      var rpcpHost = new RPCPHost<NioWebSocketSession>("api.glexpress.id/ws", new NioHostHandler<>());
+ *      rpcpHost.addMethod(new Sum());
+ *      var server = new RPCPWebSocketServer(rpcpHost, new InetSocketAddress(8080));
+ *      server.setPath("/ws");
+ *      server.start();
+ * }
+ * </pre>
+ * {@link NioWebSocketSession} is the native and the RPCP websocket session, {@link NioHostHandler} use the session
+ * as is.
+ * @author Eric A. Sanjaya
+ */
+public class RPCPWebSocketServer extends NioServer {
+    private final RPCPHost<NioWebSocketSession> rpcpHost;
+
+    private String path;
+
+    /**
+     * Create server, call {@link #start()} to listen
+     *
+     * @param rpcpHost host of the connections
+     * @param address  address to listen, port 0 for any free port
+     */
+    public RPCPWebSocketServer(RPCPHost<NioWebSocketSession> rpcpHost, InetSocketAddress address) {
+        super(address, "rpcp-nio");
+        this.rpcpHost = rpcpHost;
+    }
+
+    /**
+     * @param path path of the websocket endpoint, ex. "/ws". Default null, any path is accepted
+     */
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Bind the address and start the selector loops
+     *
+     * @return this server
+     * @throws IOException if the address can not be bound
+     * @throws IllegalStateException if the server is already started
+     */
+    public RPCPWebSocketServer start() throws IOException {
+        listen();
+        return this;
+    }
+
+    @Override
+    NioConnection connection(SocketChannel channel, NioLoop loop) {
+        return new NioWebSocketSession(channel, loop, rpcpHost, path, getMaxMessageSize());
+    }
+}
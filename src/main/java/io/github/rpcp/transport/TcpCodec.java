@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.rpcp.transport;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Frame of the TCP transport, a 4 bytes big-endian length followed by the UTF-8 bytes of one RPCP message
+ * @author Eric A. Sanjaya
+ */
+final class TcpCodec {
+    static final int HEADER_LENGTH = 4;
+
+    private TcpCodec() {
+    }
+
+    /**
+     * @param length length of the message in bytes
+     * @return length prefix of the message
+     */
+    static ByteBuffer header(int length) {
+        return ByteBuffer.allocate(HEADER_LENGTH).putInt(0, length);
+    }
+}
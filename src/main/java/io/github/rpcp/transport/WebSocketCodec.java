@@ -0,0 +1,278 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.transport;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * RFC 6455 opening handshake and frame header of the server side
+ * @author Eric A. Sanjaya
+ */
+final class WebSocketCodec {
+    static final int OPCODE_CONTINUATION = 0x0;
+    static final int OPCODE_TEXT = 0x1;
+    static final int OPCODE_BINARY = 0x2;
+    static final int OPCODE_CLOSE = 0x8;
+    static final int OPCODE_PING = 0x9;
+    static final int OPCODE_PONG = 0xA;
+
+    static final int CLOSE_NORMAL = 1000;
+    static final int CLOSE_GOING_AWAY = 1001;
+    static final int CLOSE_PROTOCOL_ERROR = 1002;
+    static final int CLOSE_NO_STATUS = 1005;
+    static final int CLOSE_INVALID_PAYLOAD = 1007;
+    static final int CLOSE_MESSAGE_TOO_BIG = 1009;
+
+    static final int UTF8_ACCEPT = 0;
+    static final int UTF8_REJECT = -1;
+
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private WebSocketCodec() {
+    }
+
+    /**
+     * Answer the opening handshake
+     *
+     * @param request HTTP request until the blank line
+     * @param path    path accepted, null to accept any path
+     * @return HTTP response, "101 Switching Protocols" if the request is a valid websocket upgrade
+     */
+    static String handshake(String request, String path) {
+        var lines = request.split("\r\n");
+        var requestLine = lines[0].split(" ");
+        if (requestLine.length != 3 || !"GET".equals(requestLine[0]) || !"HTTP/1.1".equals(requestLine[2])) {
+            return response("400 Bad Request");
+        }
+
+        var target = requestLine[1];
+        var query = target.indexOf('?');
+        if (path != null && !path.equals(query < 0 ? target : target.substring(0, query))) {
+            return response("404 Not Found");
+        }
+
+        String upgrade = null;
+        String connection = null;
+        String key = null;
+        String version = null;
+        for (var i = 1; i < lines.length; i++) {
+            var colon = lines[i].indexOf(':');
+            if (colon < 0) {
+                return response("400 Bad Request");
+            }
+
+            var name = lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            var value = lines[i].substring(colon + 1).trim();
+            switch (name) {
+                case "upgrade":
+                    upgrade = value;
+                    break;
+                case "connection":
+                    connection = value;
+                    break;
+                case "sec-websocket-key":
+                    key = value;
+                    break;
+                case "sec-websocket-version":
+                    version = value;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (upgrade == null || !upgrade.equalsIgnoreCase("websocket") || connection == null
+                || !connection.toLowerCase(Locale.ROOT).contains("upgrade") || key == null) {
+            return response("400 Bad Request");
+        }
+        if (!"13".equals(version)) {
+            return "HTTP/1.1 426 Upgrade Required\r\n" +
+                    "Sec-WebSocket-Version: 13\r\n" +
+                    "Connection: close\r\n" +
+                    "Content-Length: 0\r\n" +
+                    "\r\n";
+        }
+
+        return "HTTP/1.1 101 Switching Protocols\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Accept: " + accept(key) + "\r\n" +
+                "\r\n";
+    }
+
+    private static String response(String status) {
+        return "HTTP/1.1 " + status + "\r\n" +
+                "Connection: close\r\n" +
+                "Content-Length: 0\r\n" +
+                "\r\n";
+    }
+
+    /**
+     * @param key Sec-WebSocket-Key of the request
+     * @return Sec-WebSocket-Accept of the response
+     */
+    static String accept(String key) {
+        try {
+            var sha1 = MessageDigest.getInstance("SHA-1");
+            var digest = sha1.digest((key + GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Find the end of HTTP request
+     *
+     * @return index after the blank line, -1 if the request is not complete
+     */
+    static int headEnd(ByteBuffer buffer) {
+        for (var i = buffer.position(); i + 3 < buffer.limit(); i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n'
+                    && buffer.get(i + 2) == '\r' && buffer.get(i + 3) == '\n') {
+                return i + 4;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Header of unmasked server frame with FIN set
+     *
+     * @param opcode frame opcode
+     * @param length payload length
+     * @return header ready to write
+     */
+    static ByteBuffer header(int opcode, int length) {
+        ByteBuffer header;
+        if (length < 126) {
+            header = ByteBuffer.allocate(2).put((byte) (0x80 | opcode)).put((byte) length);
+        } else if (length < 65536) {
+            header = ByteBuffer.allocate(4).put((byte) (0x80 | opcode)).put((byte) 126).putShort((short) length);
+        } else {
+            header = ByteBuffer.allocate(10).put((byte) (0x80 | opcode)).put((byte) 127).putLong(length);
+        }
+        return header.flip();
+    }
+
+    /**
+     * Payload of a close frame
+     */
+    static ByteBuffer closePayload(int code) {
+        return ByteBuffer.allocate(2).putShort((short) code).flip();
+    }
+
+    /**
+     * Status of a close frame received from the peer, RFC 6455 section 7.4. 1005, 1006 and 1015 are never sent on the
+     * wire, the other code under 3000 that is not assigned is reserved.
+     *
+     * @return true if the code can be sent in a close frame
+     */
+    static boolean isValidCloseCode(int code) {
+        return code >= 1000 && code <= 1003 || code >= 1007 && code <= 1014 || code >= 3000 && code <= 4999;
+    }
+
+    /**
+     * Validate UTF-8 bytes of a text message, the state is carried from one part of the message to the next. The
+     * state keep the number of continuation byte expected and the range of the next byte, so overlong encoding,
+     * surrogate and code point over U+10FFFF are rejected.
+     *
+     * @param state  state after the previous part, {@link #UTF8_ACCEPT} at the start of the message
+     * @param buffer buffer of the payload
+     * @param start  index of the first byte
+     * @param end    index after the last byte
+     * @return {@link #UTF8_ACCEPT} if the bytes end on a complete character, {@link #UTF8_REJECT} if invalid, else
+     * the state of an incomplete character
+     */
+    static int validateUtf8(int state, ByteBuffer buffer, int start, int end) {
+        var i = start;
+        while (i < end) {
+            if (state == UTF8_ACCEPT) {
+                // ASCII eight bytes at a time
+                while (i + 8 <= end && (buffer.getLong(i) & 0x8080808080808080L) == 0) {
+                    i += 8;
+                }
+                if (i == end) {
+                    break;
+                }
+            }
+
+            var b = buffer.get(i++) & 0xFF;
+            if (state == UTF8_ACCEPT) {
+                if (b < 0x80) {
+                    continue;
+                } else if (b < 0xC2) {
+                    return UTF8_REJECT;
+                } else if (b < 0xE0) {
+                    state = utf8State(1, 0x80, 0xBF);
+                } else if (b < 0xF0) {
+                    state = utf8State(2, b == 0xE0 ? 0xA0 : 0x80, b == 0xED ? 0x9F : 0xBF);
+                } else if (b < 0xF5) {
+                    state = utf8State(3, b == 0xF0 ? 0x90 : 0x80, b == 0xF4 ? 0x8F : 0xBF);
+                } else {
+                    return UTF8_REJECT;
+                }
+            } else {
+                if (b < ((state >>> 8) & 0xFF) || b > (state >>> 16)) {
+                    return UTF8_REJECT;
+                }
+                var remaining = (state & 0xFF) - 1;
+                state = remaining == 0 ? UTF8_ACCEPT : utf8State(remaining, 0x80, 0xBF);
+            }
+        }
+        return state;
+    }
+
+    private static int utf8State(int remaining, int min, int max) {
+        return remaining | (min << 8) | (max << 16);
+    }
+
+    /**
+     * Unmask the payload in place, eight bytes at a time
+     *
+     * @param buffer buffer of the payload
+     * @param start  index of the first byte
+     * @param end    index after the last byte
+     * @param mask   masking key, the first byte of the key is the most significant byte
+     * @param offset index of the first byte in the payload modulo 4
+     * @return true if every unmasked byte is ASCII, the UTF-8 validation of the payload can be skipped
+     */
+    static boolean unmask(ByteBuffer buffer, int start, int end, int mask, int offset) {
+        var rotated = Integer.rotateLeft(mask, 8 * offset);
+        var wide = ((rotated & 0xFFFFFFFFL) << 32) | (rotated & 0xFFFFFFFFL);
+
+        var bits = 0L;
+        var i = start;
+        for (; i + 8 <= end; i += 8) {
+            var value = buffer.getLong(i) ^ wide;
+            buffer.putLong(i, value);
+            bits |= value;
+        }
+        for (var shift = 24; i < end; i++, shift -= 8) {
+            var value = (byte) (buffer.get(i) ^ (rotated >>> shift));
+            buffer.put(i, value);
+            bits |= value;
+        }
+        return (bits & 0x8080808080808080L) == 0;
+    }
+}
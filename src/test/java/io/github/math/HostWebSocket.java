@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.math;
+
+import io.github.rpcp.RPCPHost;
+
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client side JDK websocket connected in process to an RPCP host, the text sent by the client is given to the host
+ * and the message sent by the host is given to the listener of the client
+ */
+public class HostWebSocket implements WebSocket {
+    private final RPCPHost<SocketMock> rpcpHost;
+    private final Listener listener;
+    private final SocketMock socketMock;
+    private volatile boolean outputClosed;
+    private volatile boolean inputClosed;
+
+    public HostWebSocket(RPCPHost<SocketMock> rpcpHost, Listener listener) {
+        this.rpcpHost = rpcpHost;
+        this.listener = listener;
+        this.socketMock = new SocketMock() {
+            @Override
+            public void close() {
+                super.close();
+                closedByHost();
+            }
+        };
+        socketMock.addMessageListener(this::receive);
+    }
+
+    /**
+     * Open the websocket to the host
+     */
+    public void open() {
+        rpcpHost.onWsConnect(socketMock);
+        listener.onOpen(this);
+    }
+
+    public SocketMock getSocketMock() {
+        return socketMock;
+    }
+
+    // one reader at a time, same as the JDK websocket
+    private synchronized void receive(String message) {
+        if (!inputClosed) {
+            listener.onText(this, message, true);
+        }
+    }
+
+    private synchronized void closedByHost() {
+        if (!inputClosed) {
+            inputClosed = true;
+            outputClosed = true;
+            listener.onClose(this, NORMAL_CLOSURE, "");
+        }
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendText(CharSequence data, boolean last) {
+        if (outputClosed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Output closed"));
+        }
+        rpcpHost.onGetMessagePart(data, last, socketMock);
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendBinary(ByteBuffer data, boolean last) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException());
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendPing(ByteBuffer message) {
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendPong(ByteBuffer message) {
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendClose(int statusCode, String reason) {
+        outputClosed = true;
+        rpcpHost.onWsDisconnect(socketMock, reason);
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public String getSubprotocol() {
+        return "";
+    }
+
+    @Override
+    public boolean isOutputClosed() {
+        return outputClosed;
+    }
+
+    @Override
+    public boolean isInputClosed() {
+        return inputClosed;
+    }
+
+    @Override
+    public void abort() {
+        closedByHost();
+    }
+
+    /**
+     * Builder that open {@link HostWebSocket} to the host, the uri is ignored
+     */
+    public static class Builder implements WebSocket.Builder {
+        private final RPCPHost<SocketMock> rpcpHost;
+        private volatile HostWebSocket last;
+
+        public Builder(RPCPHost<SocketMock> rpcpHost) {
+            this.rpcpHost = rpcpHost;
+        }
+
+        /**
+         * @return the last websocket opened by this builder
+         */
+        public HostWebSocket getLast() {
+            return last;
+        }
+
+        @Override
+        public WebSocket.Builder header(String name, String value) {
+            return this;
+        }
+
+        @Override
+        public WebSocket.Builder connectTimeout(java.time.Duration timeout) {
+            return this;
+        }
+
+        @Override
+        public WebSocket.Builder subprotocols(String mostPreferred, String... lesserPreferred) {
+            return this;
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> buildAsync(URI uri, Listener listener) {
+            var webSocket = new HostWebSocket(rpcpHost, listener);
+            last = webSocket;
+            webSocket.open();
+            return CompletableFuture.completedFuture(webSocket);
+        }
+    }
+}
@@ -41,6 +41,9 @@ public class MyRPCPHostHandler<G> implements RPCPHostHandler<G> {
     public String getWsSessionId(G session) {
         if (session instanceof SocketMock) {
             return ((SocketMock) session).getId();
+        } else if (session instanceof RPCPWebSocketSession) {
+            // transport session that is the RPCP session too, ex. NioWebSocketSession
+            return ((RPCPWebSocketSession) session).getId();
         } else {
             return null;
         }
@@ -51,6 +54,8 @@ public class MyRPCPHostHandler<G> implements RPCPHostHandler<G> {
         if (session instanceof SocketMock) {
             var socketMock = (SocketMock) session;
             return new io.github.math.RPCPWebSocketSession(socketMock);
+        } else if (session instanceof RPCPWebSocketSession) {
+            return (RPCPWebSocketSession) session;
         } else {
             return null;
         }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.method.AsyncAdd;
+import io.github.rpcp.RPCPHost;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncIT {
+
+    static RPCPHost<SocketMock> rpcpHost;
+    static SocketMock socketMock = new SocketMock();
+    static BlockingQueue<String> messages;
+
+    @BeforeAll
+    static void setup() {
+        // Config RPCP
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+
+        // Add Method to RPCP
+        rpcpHost.addAsyncMethod(new AsyncAdd());
+        rpcpHost.addAsyncMethod("io.github.math.method.Fail",
+                (rpcpSession, messageCall, rpcpBuilder) -> CompletableFuture.failedFuture(new IllegalStateException("Service unavailable")));
+    }
+
+    @BeforeEach
+    void init() {
+        socketMock = new SocketMock();
+        rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+        messages = new LinkedBlockingQueue<>();
+        socketMock.addMessageListener(messages::add);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_AsyncAddSuccess_ResultMessage() throws Exception {
+
+        StringBuilder strMsg;
+        strMsg = new StringBuilder();
+        strMsg.append("CALL io.github.math.method.AsyncAdd\r\n");
+        strMsg.append("content-type: application/json\r\n");
+        strMsg.append("id: 001\r\n");
+        strMsg.append("\r\n");
+        strMsg.append("{\"a\": 10, \"b\": 10}");
+        rpcpHost.onGetMessage(strMsg.toString(), socketMock);
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("RESULT io.github.math.method.AsyncAdd 200\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 001\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"result\": 20}");
+
+        assertEquals(strExpect.toString(), messages.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_AsyncAddInvalidBody_ErrorMessageWithId() throws Exception {
+
+        StringBuilder strMsg;
+        strMsg = new StringBuilder();
+        strMsg.append("CALL io.github.math.method.AsyncAdd\r\n");
+        strMsg.append("content-type: application/json\r\n");
+        strMsg.append("id: 002\r\n");
+        strMsg.append("\r\n");
+        strMsg.append("{\"a\": 10");
+        rpcpHost.onGetMessage(strMsg.toString(), socketMock);
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("ERROR io.github.math.method.AsyncAdd\r\n");
+        strExpect.append("message: Call failed\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 002\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"detail\":\"Body is not valid\",\"code\":\"CALL_FAILED\"}");
+
+        assertEquals(strExpect.toString(), messages.poll(5, TimeUnit.SECONDS));
+        assertTrue(socketMock.isOpen());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_AsyncFailedStage_ErrorMessageWithId() throws Exception {
+
+        StringBuilder strMsg;
+        strMsg = new StringBuilder();
+        strMsg.append("CALL io.github.math.method.Fail\r\n");
+        strMsg.append("content-type: application/json\r\n");
+        strMsg.append("id: 003\r\n");
+        strMsg.append("\r\n");
+        strMsg.append("{}");
+        rpcpHost.onGetMessage(strMsg.toString(), socketMock);
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("ERROR io.github.math.method.Fail\r\n");
+        strExpect.append("message: Call failed\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 003\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"detail\":\"Service unavailable\",\"code\":\"CALL_FAILED\"}");
+
+        assertEquals(strExpect.toString(), messages.poll(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.rpcp.EventBuilder;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.model.MessageEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BroadcastIT {
+
+    RPCPHost<SocketMock> rpcpHost;
+
+    @BeforeEach
+    void init() {
+        // Config RPCP
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Broadcast_AllSession_SameEventMessage() throws Exception {
+        var sockets = connect(3);
+
+        var sent = rpcpHost.broadcast(priceEvent());
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("EVENT event.price 200\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 004\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"symbol\":\"BBCA\",\"price\":9000}");
+
+        assertEquals(3, sent);
+        for (var socketMock : sockets) {
+            assertEquals(strExpect.toString(), socketMock.getLastReceiveMessage());
+        }
+        // written once, every session receive the same string
+        assertSame(sockets.get(0).getLastReceiveMessage(), sockets.get(2).getLastReceiveMessage());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Broadcast_Group_OnlyMemberReceive() throws Exception {
+        var sockets = connect(3);
+        rpcpHost.joinGroup("BBCA", sockets.get(0).getId());
+        rpcpHost.joinGroup("BBCA", sockets.get(1).getId());
+
+        var sent = rpcpHost.broadcast(priceEvent(), "BBCA");
+
+        assertEquals(2, sent);
+        assertTrue(sockets.get(0).getLastReceiveMessage().startsWith("EVENT event.price 200\r\n"));
+        assertTrue(sockets.get(1).getLastReceiveMessage().startsWith("EVENT event.price 200\r\n"));
+        assertTrue(sockets.get(2).getLastReceiveMessage().startsWith("CONNECTED"));
+
+        rpcpHost.leaveGroup("BBCA", sockets.get(0).getId());
+        rpcpHost.onGetMessage("DISCONNECT api.glexpress.id/ws\r\n\r\n", sockets.get(1));
+        assertEquals(0, rpcpHost.broadcast(priceEvent(), "BBCA"));
+        assertEquals(0, rpcpHost.broadcast(priceEvent(), "NOT_EXIST"));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Broadcast_Predicate_OnlyAcceptedReceive() throws Exception {
+        var sockets = connect(2);
+        var target = sockets.get(1).getId();
+
+        var sent = rpcpHost.broadcast(priceEvent(), rpcpSession -> rpcpSession.getId().equals(target));
+
+        assertEquals(1, sent);
+        assertTrue(sockets.get(0).getLastReceiveMessage().startsWith("CONNECTED"));
+        assertTrue(sockets.get(1).getLastReceiveMessage().startsWith("EVENT event.price 200\r\n"));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Broadcast_ManySession_AllReceive() throws Exception {
+        var sockets = connect(5000);
+        var received = new AtomicInteger();
+        for (var socketMock : sockets) {
+            socketMock.addMessageListener(message -> received.incrementAndGet());
+        }
+
+        assertEquals(5000, rpcpHost.broadcast(priceEvent()));
+        assertEquals(5000, received.get());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Broadcast_JoinGroupWhileDisconnect_NoDeadMember() throws Exception {
+        var racers = Executors.newFixedThreadPool(2);
+        for (var socketMock : connect(500)) {
+            var join = racers.submit(() -> {
+                try {
+                    rpcpHost.joinGroup("BBCA", socketMock.getId());
+                } catch (Exception e) {
+                    // disconnected first
+                }
+            });
+            var disconnect = racers.submit(() -> rpcpHost.onWsDisconnect(socketMock, "gone"));
+            join.get(5, TimeUnit.SECONDS);
+            disconnect.get(5, TimeUnit.SECONDS);
+        }
+        racers.shutdown();
+
+        assertEquals(0, rpcpHost.getSessionCount());
+        assertEquals(0, rpcpHost.broadcast(priceEvent(), "BBCA"));
+    }
+
+    private List<SocketMock> connect(int count) {
+        var sockets = new ArrayList<SocketMock>();
+        for (var i = 0; i < count; i++) {
+            var socketMock = new SocketMock();
+            rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                    "agent: gle-openapi-js/1.0\r\n" +
+                    "\r\n", socketMock);
+            sockets.add(socketMock);
+        }
+        return sockets;
+    }
+
+    private static MessageEvent priceEvent() {
+        return new EventBuilder("event.price").build("application/json", "200",
+                "{\"symbol\":\"BBCA\",\"price\":9000}", "004");
+    }
+}
@@ -27,6 +27,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -99,6 +101,43 @@ public class CallIT {
         assertTrue(socketMock.isOpen());
     }
 
+    @Tag("IntegrationTest")
+    @Test
+    public void Call_AddSuccessFromBytes_ResultMessage() {
+
+        socketMock.addMessageListener(message -> {
+            System.out.println("\nRPCP Client Receive Message : ");
+            System.out.println("-----------------------------");
+            System.out.println(message);
+            System.out.println("\n");
+        });
+
+        var strMsg1 = "CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n";
+        System.out.println(strMsg1);
+        rpcpHost.onGetMessage(ByteBuffer.wrap(strMsg1.getBytes(StandardCharsets.UTF_8)), socketMock);
+
+        var strMsg2 = "CALL io.github.math.method.Add\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 002\r\n" +
+                "\r\n" +
+                "{\"a\": 30, \"b\": 20}";
+        System.out.println(strMsg2);
+        rpcpHost.onGetMessage(ByteBuffer.wrap(strMsg2.getBytes(StandardCharsets.UTF_8)), socketMock);
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("RESULT io.github.math.method.Add 200\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 002\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"result\": 50}");
+
+        assertEquals(strExpect.toString(), socketMock.getLastReceiveMessage());
+        assertTrue(socketMock.isOpen());
+    }
+
     @Tag("IntegrationTest")
     @Test
     public void Call_CustomAddSuccess_ResultMessage() {
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.math.integrationtest;
+
+import io.github.math.HostWebSocket;
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.event.EventAlarm;
+import io.github.math.method.Add;
+import io.github.math.method.AsyncAdd;
+import io.github.math.method.Delivery;
+import io.github.rpcp.RPCPCallException;
+import io.github.rpcp.RPCPClient;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientIT {
+
+    static final URI HOST_URI = URI.create("ws://localhost/ws");
+    static final String VHOST = "api.glexpress.id/ws";
+    static final String EVENT_ALARM = "io.github.math.event.EventAlarm";
+
+    RPCPHost<SocketMock> rpcpHost;
+    HostWebSocket.Builder builder;
+
+    @BeforeEach
+    void init() {
+        rpcpHost = new RPCPHost<>(VHOST, new MyRPCPHostHandler<>());
+        rpcpHost.addMethod(new Add());
+        rpcpHost.addMethod(new Delivery());
+        rpcpHost.addAsyncMethod(new AsyncAdd());
+        rpcpHost.addEvent(new EventAlarm());
+        builder = new HostWebSocket.Builder(rpcpHost);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_ValidVHost_ConnectedWithMethods() throws Exception {
+        var client = RPCPClient.connect(builder, HOST_URI, VHOST, "gle-openapi-java/1.0").get(5, TimeUnit.SECONDS);
+
+        assertTrue(client.isOpen());
+        assertEquals(VHOST, client.getConnected().getvHost());
+        assertTrue(List.of(client.getConnected().getHeader().getMethod()).contains("io.github.math.method.Add"));
+        assertEquals(1, rpcpHost.getSessionCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_UnknownVHost_ExceptionWithError() {
+        var future = RPCPClient.connect(builder, HOST_URI, "unknown.glexpress.id/ws", "gle-openapi-java/1.0");
+
+        var exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof RPCPCallException);
+        assertEquals("Connect failed", exception.getCause().getMessage());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_PipelinedAsyncCalls_EveryResultMatchedById() throws Exception {
+        var client = RPCPClient.connect(builder, HOST_URI, VHOST, "gle-openapi-java/1.0").get(5, TimeUnit.SECONDS);
+
+        // AsyncAdd complete on the common pool, the results come in any order
+        var futures = new ArrayList<CompletableFuture<MessageResult>>();
+        for (var i = 0; i < 500; i++) {
+            futures.add(client.call("io.github.math.method.AsyncAdd", "application/json",
+                    "{\"a\": " + i + ", \"b\": 1}"));
+        }
+
+        for (var i = 0; i < futures.size(); i++) {
+            var result = futures.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals("200", result.getStatusCode());
+            assertEquals("{\"result\": " + (i + 1) + "}", result.getBody());
+        }
+        assertEquals(0, client.getPendingCallCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_HostReplyError_ExceptionWithError() throws Exception {
+        var client = RPCPClient.connect(builder, HOST_URI, VHOST, "gle-openapi-java/1.0").get(5, TimeUnit.SECONDS);
+
+        var future = client.call("io.github.math.method.AsyncAdd", "application/json", "not json");
+
+        var exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof RPCPCallException);
+        var error = ((RPCPCallException) exception.getCause()).getError();
+        assertEquals("Call failed", error.getHeader().getMessage());
+        assertTrue(error.getBody().contains("CALL_FAILED"));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_UnknownMethod_ExceptionWithError() throws Exception {
+        var client = RPCPClient.connect(builder, HOST_URI, VHOST, "gle-openapi-java/1.0").get(5, TimeUnit.SECONDS);
+
+        var future = client.call("io.github.math.method.Unknown", "application/json", "{}");
+
+        var exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof RPCPCallException);
+        var error = ((RPCPCallException) exception.getCause()).getError();
+        assertEquals("Method not found", error.getHeader().getMessage());
+        assertTrue(error.getBody().contains("METHOD_NOT_FOUND"));
+        assertTrue(client.isOpen());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_PlanAndProgress_ListenerThenResult() throws Exception {
+        var client = RPCPClient.connect(builder, HOST_URI, VHOST, "gle-openapi-java/1.0").get(5, TimeUnit.SECONDS);
+
+        var steps = new CopyOnWriteArrayList<String>();
+        var result = client.call("io.github.math.method.Delivery", "application/json", "{}", new RPCPCallListener() {
+            @Override
+            public void onPlan(MessagePlan plan) {
+                steps.add("PLAN " + String.join(",", plan.getHeader().getPlaningCode()));
+            }
+
+            @Override
+            public void onProgress(MessageProgress progress) {
+                steps.add("PROGRESS " + progress.getHeader().getPlanCode());
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("PLAN SEARCH_DRIVER,FOUND_DRIVER", "PROGRESS SEARCH_DRIVER", "PROGRESS FOUND_DRIVER"), steps);
+        assertEquals("{\"driver\": \"Eric\"}", result.getBody());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Subscribe_HostPublish_ListenerReceiveEvent() throws Exception {
+        var client = RPCPClient.connect(builder, HOST_URI, VHOST, "gle-openapi-java/1.0").get(5, TimeUnit.SECONDS);
+        var events = new LinkedBlockingQueue<MessageEvent>();
+        client.subscribe(EVENT_ALARM, events::add);
+
+        var event = new MessageEvent(EVENT_ALARM, "200", new HeaderEvent("application/json", "004"));
+        event.setBody("{\"name\":\"wake up\"}");
+        assertEquals(1, rpcpHost.publish(event));
+
+        var received = events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(received);
+        assertEquals("{\"name\":\"wake up\"}", received.getBody());
+
+        client.unsubscribe(EVENT_ALARM);
+        assertEquals(0, rpcpHost.publish(event));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_HostCloseWithPendingCall_CallFailed() throws Exception {
+        var client = RPCPClient.connect(builder, HOST_URI, VHOST, "gle-openapi-java/1.0").get(5, TimeUnit.SECONDS);
+
+        // the method does not reply with RESULT or ERROR
+        rpcpHost.addMethod("io.github.math.method.NoReply", (rpcpSession, messageCall, rpcpBuilder) -> {
+        });
+        var future = client.call("io.github.math.method.NoReply", "application/json", "{}");
+        assertEquals(1, client.getPendingCallCount());
+
+        builder.getLast().getSocketMock().close();
+
+        var exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertEquals("Connection closed", exception.getCause().getMessage());
+        assertFalse(client.isOpen());
+        assertTrue(client.getCloseFuture().isDone());
+        assertThrows(ExecutionException.class, () -> client.call("io.github.math.method.Add", "application/json",
+                "{\"a\": 1, \"b\": 2}").get(5, TimeUnit.SECONDS));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_ClientClose_SessionRemoved() throws Exception {
+        var client = RPCPClient.connect(builder, HOST_URI, VHOST, "gle-openapi-java/1.0").get(5, TimeUnit.SECONDS);
+        assertEquals(1, rpcpHost.getSessionCount());
+
+        client.close();
+
+        client.getCloseFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(0, rpcpHost.getSessionCount());
+        assertEquals(0, rpcpHost.getWebsocketSessionCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Ping_HostKeepAlive_ClientReplyPong() throws Exception {
+        rpcpHost.setIdleTimeout(600, 100);
+        try {
+            var client = RPCPClient.connect(builder, HOST_URI, VHOST, "gle-openapi-java/1.0").get(5, TimeUnit.SECONDS);
+
+            // the client reply every PING, the host never close the session for idle
+            Thread.sleep(1500);
+            assertTrue(client.isOpen());
+            assertTrue(rpcpHost.getKeepAliveCount() > 0);
+            assertEquals(0, rpcpHost.getIdleClosedCount());
+        } finally {
+            rpcpHost.setIdleTimeout(0, 0);
+        }
+    }
+}
@@ -198,4 +198,34 @@ public class ConnectIT {
         assertEquals(strExpect.toString(), socketMock.getLastReceiveMessage());
         assertFalse(socketMock.isOpen());
     }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_AfterAddMethod_ConnectedMessageUpdated() {
+        var host = new RPCPHost<SocketMock>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        host.addMethod(new Sum());
+
+        var connect = "CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n";
+        var firstSocket = new SocketMock();
+        host.onGetMessage(connect, firstSocket);
+        assertEquals("CONNECTED api.glexpress.id/ws RPCP/1.0\r\n" +
+                "server: Menjangan/1.0\r\n" +
+                "event: \r\n" +
+                "method: io.github.math.method.Sum\r\n" +
+                "\r\n", firstSocket.getLastReceiveMessage());
+
+        host.addMethod(new Add());
+        host.addEvent(new EventAlarm());
+
+        var secondSocket = new SocketMock();
+        host.onGetMessage(connect, secondSocket);
+        assertEquals("CONNECTED api.glexpress.id/ws RPCP/1.0\r\n" +
+                "server: Menjangan/1.0\r\n" +
+                "event: io.github.math.event.EventAlarm\r\n" +
+                "method: io.github.math.method.Sum, io.github.math.method.Add\r\n" +
+                "\r\n", secondSocket.getLastReceiveMessage());
+        assertTrue(secondSocket.isOpen());
+    }
 }
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.method.Add;
+import io.github.math.method.Upload;
+import io.github.rpcp.RPCPCallDispatcher;
+import io.github.rpcp.RPCPHost;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DispatchIT {
+
+    static RPCPHost<SocketMock> rpcpHost;
+    static ExecutorService callExecutor;
+    static CountDownLatch release;
+
+    @BeforeAll
+    static void setup() {
+        // Config RPCP
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        callExecutor = RPCPCallDispatcher.newCallExecutor(4, 100);
+        rpcpHost.setCallExecutor(callExecutor);
+
+        // Add Method to RPCP
+        rpcpHost.addMethod(new Add());
+        rpcpHost.addMethod("io.github.math.method.Slow", (rpcpSession, messageCall, rpcpBuilder) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            rpcpSession.sendMessage("slow done");
+        });
+    }
+
+    @AfterAll
+    static void tearDown() {
+        callExecutor.shutdownNow();
+    }
+
+    @BeforeEach
+    void init() {
+        release = new CountDownLatch(1);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_SlowMethodOtherSession_NotDelayed() throws Exception {
+        var slowSocket = new SocketMock();
+        var slowMessages = connect(slowSocket);
+        var fastSocket = new SocketMock();
+        var fastMessages = connect(fastSocket);
+
+        rpcpHost.onGetMessage("CALL io.github.math.method.Slow\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n" +
+                "{}", slowSocket);
+
+        // the receiving thread is not held by the slow method
+        rpcpHost.onGetMessage("CALL io.github.math.method.Add\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 002\r\n" +
+                "\r\n" +
+                "{\"a\": 10, \"b\": 10}", fastSocket);
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("RESULT io.github.math.method.Add 200\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 002\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"result\": 20}");
+
+        assertEquals(strExpect.toString(), fastMessages.poll(5, TimeUnit.SECONDS));
+        assertNull(slowMessages.poll());
+        assertTrue(rpcpHost.getCallDispatcher().getActiveCount() >= 1);
+
+        release.countDown();
+        assertEquals("slow done", slowMessages.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_QueueFull_ErrorMessage() throws Exception {
+        var host = new RPCPHost<SocketMock>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        var executor = RPCPCallDispatcher.newCallExecutor(1, 1);
+        host.setCallExecutor(executor);
+        host.addMethod("io.github.math.method.Slow", (rpcpSession, messageCall, rpcpBuilder) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        var socketMock = new SocketMock();
+        var messages = new LinkedBlockingQueue<String>();
+        socketMock.addMessageListener(messages::add);
+        host.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+        messages.clear();
+
+        for (var i = 1; i <= 3; i++) {
+            host.onGetMessage("CALL io.github.math.method.Slow\r\n" +
+                    "content-type: application/json\r\n" +
+                    "id: 00" + i + "\r\n" +
+                    "\r\n" +
+                    "{}", socketMock);
+        }
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("ERROR io.github.math.method.Slow\r\n");
+        strExpect.append("message: Server busy\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 003\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"detail\":\"Call rejected, too many call in queue\",\"code\":\"SERVER_BUSY\"}");
+
+        assertEquals(strExpect.toString(), messages.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, host.getCallDispatcher().getRejectedCount());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, host.getCallDispatcher().getQueueDepth());
+        assertEquals(2, host.getCallDispatcher().getCompletedCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_SessionOrderedFlood_ErrorMessage() throws Exception {
+        var host = new RPCPHost<SocketMock>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        var executor = RPCPCallDispatcher.newCallExecutor(1, 2);
+        host.setCallExecutor(executor, true);
+        host.addMethod("io.github.math.method.Slow", (rpcpSession, messageCall, rpcpBuilder) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        var socketMock = new SocketMock();
+        var messages = new LinkedBlockingQueue<String>();
+        host.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+        socketMock.addMessageListener(messages::add);
+
+        host.onGetMessage(slow("001"), socketMock);
+        for (var i = 0; i < 500 && host.getCallDispatcher().getActiveCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+
+        // the pool queue is empty, the call wait in the serial queue of the session
+        for (var i = 2; i <= 4; i++) {
+            host.onGetMessage(slow("00" + i), socketMock);
+        }
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("ERROR io.github.math.method.Slow\r\n");
+        strExpect.append("message: Server busy\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 004\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"detail\":\"Call rejected, too many call in queue\",\"code\":\"SERVER_BUSY\"}");
+
+        assertEquals(strExpect.toString(), messages.poll(5, TimeUnit.SECONDS));
+        assertEquals(2, host.getCallDispatcher().getQueueDepth());
+        assertEquals(1, host.getCallDispatcher().getRejectedCount());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, host.getCallDispatcher().getCompletedCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_SessionOrdered_ArrivalOrderPerSession() throws Exception {
+        var host = new RPCPHost<SocketMock>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        var executor = RPCPCallDispatcher.newCallExecutor(4, 1000);
+        host.setCallExecutor(executor, true);
+        host.addMethod("io.github.math.method.Echo", (rpcpSession, messageCall, rpcpBuilder) -> {
+            if (messageCall.getBody().equals("block")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            rpcpSession.sendMessage(messageCall.getBody());
+        });
+
+        var blockedSocket = new SocketMock();
+        var blockedMessages = new LinkedBlockingQueue<String>();
+        var orderedSocket = new SocketMock();
+        var orderedMessages = new LinkedBlockingQueue<String>();
+        for (var socketMock : new SocketMock[]{blockedSocket, orderedSocket}) {
+            host.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                    "agent: gle-openapi-js/1.0\r\n" +
+                    "\r\n", socketMock);
+        }
+        blockedSocket.addMessageListener(blockedMessages::add);
+        orderedSocket.addMessageListener(orderedMessages::add);
+
+        host.onGetMessage(echo("block"), blockedSocket);
+        host.onGetMessage(echo("after block"), blockedSocket);
+        for (var i = 0; i < 200; i++) {
+            host.onGetMessage(echo(String.valueOf(i)), orderedSocket);
+        }
+
+        // the other session is not blocked and keep the order
+        for (var i = 0; i < 200; i++) {
+            assertEquals(String.valueOf(i), orderedMessages.poll(5, TimeUnit.SECONDS));
+        }
+
+        // the call after the blocked call of the same session wait
+        assertNull(blockedMessages.poll(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertEquals("block", blockedMessages.poll(5, TimeUnit.SECONDS));
+        assertEquals("after block", blockedMessages.poll(5, TimeUnit.SECONDS));
+
+        executor.shutdown();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_SessionOrderedStreaming_AfterQueuedCall() throws Exception {
+        var host = new RPCPHost<SocketMock>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        var executor = RPCPCallDispatcher.newCallExecutor(4, 1000);
+        host.setCallExecutor(executor, true);
+        host.addMethod("io.github.math.method.Echo", (rpcpSession, messageCall, rpcpBuilder) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            rpcpSession.sendMessage(messageCall.getBody());
+        });
+        host.addStreamingMethod(new Upload());
+
+        var socketMock = new SocketMock();
+        var messages = new LinkedBlockingQueue<String>();
+        host.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+        socketMock.addMessageListener(messages::add);
+
+        host.onGetMessage(echo("block"), socketMock);
+        host.onGetMessage("CALL io.github.math.method.Upload\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 002\r\n" +
+                "\r\n" +
+                "12345", socketMock);
+
+        // the streaming call wait behind the blocked call of the same session
+        assertNull(messages.poll(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertEquals("block", messages.poll(5, TimeUnit.SECONDS));
+        assertTrue(messages.poll(5, TimeUnit.SECONDS).endsWith("{\"length\": 5}"));
+
+        executor.shutdown();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Disconnect_CallWhileDisconnect_SessionQueueRemoved() throws Exception {
+        var host = new RPCPHost<SocketMock>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        var executor = RPCPCallDispatcher.newCallExecutor(2, 100000);
+        host.setCallExecutor(executor, true);
+        host.addMethod(new Add());
+
+        var racers = Executors.newFixedThreadPool(2);
+        for (var i = 0; i < 500; i++) {
+            var socketMock = new SocketMock();
+            host.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                    "agent: gle-openapi-js/1.0\r\n" +
+                    "\r\n", socketMock);
+            var call = racers.submit(() -> host.onGetMessage("CALL io.github.math.method.Add\r\n" +
+                    "content-type: application/json\r\n" +
+                    "id: 001\r\n" +
+                    "\r\n" +
+                    "{\"a\": 1, \"b\": 1}", socketMock));
+            var disconnect = racers.submit(() -> host.onWsDisconnect(socketMock, "gone"));
+            call.get(5, TimeUnit.SECONDS);
+            disconnect.get(5, TimeUnit.SECONDS);
+        }
+        racers.shutdown();
+
+        assertEquals(0, host.getSessionCount());
+        assertEquals(0, host.getCallDispatcher().getSessionQueueCount());
+        executor.shutdown();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_DirectMethodThrow_ExceptionToCaller() {
+        var host = new RPCPHost<SocketMock>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        host.addMethod("io.github.math.method.Fail", (rpcpSession, messageCall, rpcpBuilder) -> {
+            throw new IllegalStateException("boom");
+        });
+        var otherHost = new RPCPHost<SocketMock>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+
+        var socketMock = new SocketMock();
+        host.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+        var error = assertThrows(IllegalStateException.class, () -> host.onGetMessage(fail(), socketMock));
+        assertEquals("boom", error.getMessage());
+
+        // the direct dispatcher count the call of its own host only
+        assertEquals(1, host.getCallDispatcher().getCompletedCount());
+        assertEquals(0, otherHost.getCallDispatcher().getCompletedCount());
+        assertNotSame(host.getCallDispatcher(), otherHost.getCallDispatcher());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_ExecutorMethodThrow_ErrorMessage() throws Exception {
+        var host = new RPCPHost<SocketMock>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        var executor = RPCPCallDispatcher.newCallExecutor(1, 10);
+        host.setCallExecutor(executor);
+        host.addMethod("io.github.math.method.Fail", (rpcpSession, messageCall, rpcpBuilder) -> {
+            throw new IllegalStateException("boom");
+        });
+
+        var socketMock = new SocketMock();
+        var messages = new LinkedBlockingQueue<String>();
+        host.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+        socketMock.addMessageListener(messages::add);
+        host.onGetMessage(fail(), socketMock);
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("ERROR io.github.math.method.Fail\r\n");
+        strExpect.append("message: Call failed\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 001\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"detail\":\"boom\",\"code\":\"CALL_FAILED\"}");
+
+        assertEquals(strExpect.toString(), messages.poll(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    private static String slow(String id) {
+        return "CALL io.github.math.method.Slow\r\n" +
+                "content-type: application/json\r\n" +
+                "id: " + id + "\r\n" +
+                "\r\n" +
+                "{}";
+    }
+
+    private static String fail() {
+        return "CALL io.github.math.method.Fail\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n" +
+                "{}";
+    }
+
+    private static String echo(String body) {
+        return "CALL io.github.math.method.Echo\r\n" +
+                "content-type: text/plain\r\n" +
+                "id: 001\r\n" +
+                "\r\n" +
+                body;
+    }
+
+    private static BlockingQueue<String> connect(SocketMock socketMock) {
+        var messages = new LinkedBlockingQueue<String>();
+        rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+        socketMock.addMessageListener(messages::add);
+        return messages;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.model.MessageDisconnect;
+import io.github.rpcp.model.RPCPWebSocketSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdleIT {
+
+    RPCPHost<SocketMock> rpcpHost;
+    AtomicInteger disconnectCount;
+
+    @BeforeEach
+    void init() {
+        disconnectCount = new AtomicInteger();
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>() {
+            @Override
+            public void onDisconnect(MessageDisconnect messageDisconnect, RPCPWebSocketSession session) {
+                disconnectCount.incrementAndGet();
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        rpcpHost.setIdleTimeout(0, 0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Idle_NoMessage_KeepAliveThenClosed() throws Exception {
+        rpcpHost.setIdleTimeout(400, 100);
+        var received = new LinkedBlockingQueue<String>();
+        var socketMock = connect(received);
+
+        assertEquals("PING\r\n\r\n", received.poll(5, TimeUnit.SECONDS));
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("ERROR .internal\r\n");
+        strExpect.append("message: Idle timeout\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"detail\":\"No message receive in the idle timeout, the session is closed\",\"code\":\"IDLE_TIMEOUT\"}");
+
+        assertEquals(strExpect.toString(), received.poll(5, TimeUnit.SECONDS));
+
+        // the session is closed and removed after the error message sent
+        for (var i = 0; i < 50 && disconnectCount.get() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(socketMock.isOpen());
+        assertEquals(0, rpcpHost.getSessionCount());
+        assertEquals(0, rpcpHost.getWebsocketSessionCount());
+        assertEquals(1, rpcpHost.getIdleClosedCount());
+        assertEquals(1, rpcpHost.getKeepAliveCount());
+        assertEquals(1, disconnectCount.get());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Idle_ClientAnswerPong_StayConnected() throws Exception {
+        rpcpHost.setIdleTimeout(300, 100);
+        var socketMock = new SocketMock();
+        socketMock.addMessageListener(message -> {
+            if (message.startsWith("PING")) {
+                rpcpHost.onGetMessage("PONG\r\n\r\n", socketMock);
+            }
+        });
+        connect(socketMock);
+
+        Thread.sleep(1000);
+
+        assertTrue(socketMock.isOpen());
+        assertEquals(1, rpcpHost.getSessionCount());
+        assertTrue(rpcpHost.getKeepAliveCount() >= 3);
+        assertEquals(0, rpcpHost.getIdleClosedCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Idle_ClientSendMessage_NoKeepAlive() throws Exception {
+        rpcpHost.setIdleTimeout(400, 200);
+        var socketMock = connect(new LinkedBlockingQueue<>());
+
+        for (var i = 0; i < 20; i++) {
+            Thread.sleep(50);
+            rpcpHost.onGetMessage("SUBSCRIBE event.notRegistered\r\n\r\n", socketMock);
+        }
+
+        assertTrue(socketMock.isOpen());
+        assertEquals(0, rpcpHost.getKeepAliveCount());
+        assertEquals(0, rpcpHost.getIdleClosedCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Idle_OneClientSendBlocked_OtherSessionClosed() throws Exception {
+        rpcpHost.setIdleTimeout(400, 100);
+        var release = new CountDownLatch(1);
+        var stalledSocket = new SocketMock();
+        connect(stalledSocket);
+        stalledSocket.addMessageListener(message -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        var received = new LinkedBlockingQueue<String>();
+        var socketMock = connect(received);
+
+        try {
+            // the PING to the stalled client does not hold the timer thread
+            assertEquals("PING\r\n\r\n", received.poll(5, TimeUnit.SECONDS));
+            assertTrue(received.poll(5, TimeUnit.SECONDS).startsWith("ERROR .internal\r\nmessage: Idle timeout"));
+            for (var i = 0; i < 50 && socketMock.isOpen(); i++) {
+                Thread.sleep(10);
+            }
+            assertFalse(socketMock.isOpen());
+            assertTrue(stalledSocket.isOpen());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Ping_ClientSendPing_ReceivePong() {
+        var socketMock = connect(new LinkedBlockingQueue<>());
+        rpcpHost.onGetMessage("PING\r\n\r\n", socketMock);
+        assertEquals("PONG\r\n\r\n", socketMock.getLastReceiveMessage());
+    }
+
+    private SocketMock connect(LinkedBlockingQueue<String> received) {
+        var socketMock = new SocketMock();
+        connect(socketMock);
+        socketMock.addMessageListener(received::add);
+        return socketMock;
+    }
+
+    private void connect(SocketMock socketMock) {
+        rpcpHost.onWsConnect(socketMock);
+        rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+    }
+}
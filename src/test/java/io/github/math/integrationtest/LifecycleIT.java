@@ -0,0 +1,126 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.event.EventAlarm;
+import io.github.rpcp.EventBuilder;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.model.MessageDisconnect;
+import io.github.rpcp.model.RPCPWebSocketSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LifecycleIT {
+
+    static final String EVENT_ALARM = "io.github.math.event.EventAlarm";
+
+    RPCPHost<SocketMock> rpcpHost;
+    AtomicInteger disconnectCount;
+
+    @BeforeEach
+    void init() {
+        disconnectCount = new AtomicInteger();
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>() {
+            @Override
+            public void onDisconnect(MessageDisconnect messageDisconnect, RPCPWebSocketSession session) {
+                disconnectCount.incrementAndGet();
+            }
+        });
+        rpcpHost.addEvent(new EventAlarm());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Disconnect_WebsocketClosedWithoutDisconnect_SessionRemoved() throws Exception {
+        var socketMock = connect();
+        rpcpHost.onGetMessage("SUBSCRIBE " + EVENT_ALARM + "\r\n\r\n", socketMock);
+        rpcpHost.joinGroup("room", socketMock.getId());
+        assertEquals(1, rpcpHost.getSessionCount());
+        assertTrue(rpcpHost.getSessionHandle(socketMock.getId()) >= 0);
+
+        rpcpHost.onWsDisconnect(socketMock, "1006");
+
+        assertEquals(-1, rpcpHost.getSessionHandle(socketMock.getId()));
+
+        assertEquals(0, rpcpHost.getSessionCount());
+        assertEquals(0, rpcpHost.getWebsocketSessionCount());
+        assertTrue(rpcpHost.getSubscriptions(socketMock.getId()).isEmpty());
+        assertEquals(0, rpcpHost.publish(new EventBuilder(EVENT_ALARM).build("text/plain", "200", "ring", "001")));
+        assertEquals(0, rpcpHost.broadcast(new EventBuilder(EVENT_ALARM).build("text/plain", "200", "ring", "001"), "room"));
+        assertEquals(1, disconnectCount.get());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Disconnect_DisconnectThenWebsocketClosed_HandlerCalledOnce() {
+        var socketMock = connect();
+        rpcpHost.onGetMessage("DISCONNECT api.glexpress.id/ws\r\n\r\n", socketMock);
+        rpcpHost.onWsDisconnect(socketMock, "1000");
+
+        assertEquals(0, rpcpHost.getSessionCount());
+        assertEquals(0, rpcpHost.getWebsocketSessionCount());
+        assertEquals(1, disconnectCount.get());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Disconnect_WebsocketClosedBeforeConnect_HandlerNotCalled() {
+        var socketMock = new SocketMock();
+        rpcpHost.onWsConnect(socketMock);
+        assertEquals(1, rpcpHost.getWebsocketSessionCount());
+
+        rpcpHost.onWsDisconnect(socketMock, "1006");
+
+        assertEquals(0, rpcpHost.getWebsocketSessionCount());
+        assertEquals(0, disconnectCount.get());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Disconnect_AbandonMillionSessions_RegistryEmpty() throws Exception {
+        var total = 1_000_000;
+        for (var i = 0; i < total; i++) {
+            var socketMock = connect();
+            if (i % 100 == 0) {
+                rpcpHost.onGetMessage("SUBSCRIBE " + EVENT_ALARM + "\r\n\r\n", socketMock);
+                rpcpHost.joinGroup("room", socketMock.getId());
+            }
+            rpcpHost.onWsDisconnect(socketMock, "1006");
+        }
+
+        assertEquals(0, rpcpHost.getSessionCount());
+        assertEquals(0, rpcpHost.getWebsocketSessionCount());
+        assertEquals(0, rpcpHost.publish(new EventBuilder(EVENT_ALARM).build("text/plain", "200", "ring", "001")));
+        assertEquals(total, disconnectCount.get());
+    }
+
+    private SocketMock connect() {
+        var socketMock = new SocketMock();
+        rpcpHost.onWsConnect(socketMock);
+        rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+        return socketMock;
+    }
+}
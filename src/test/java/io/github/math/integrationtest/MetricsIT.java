@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.method.Add;
+import io.github.math.method.AsyncAdd;
+import io.github.math.method.Upload;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.RPCPParseError;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsIT {
+
+    static final String ADD = "io.github.math.method.Add";
+    static final String ASYNC_ADD = "io.github.math.method.AsyncAdd";
+    static final String UPLOAD = "io.github.math.method.Upload";
+
+    RPCPHost<SocketMock> rpcpHost;
+    SocketMock socketMock;
+
+    @BeforeEach
+    void init() {
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        rpcpHost.addMethod(new Add());
+        rpcpHost.addAsyncMethod(new AsyncAdd());
+        rpcpHost.addStreamingMethod(new Upload());
+
+        socketMock = new SocketMock();
+        rpcpHost.onWsConnect(socketMock);
+        rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Metrics_SyncCall_CountErrorAndLatency() {
+        for (var i = 0; i < 3; i++) {
+            rpcpHost.onGetMessage(call(ADD, "{\"a\": 30, \"b\": 20}"), socketMock);
+        }
+        // "a" is missing, the method throw NullPointerException to the caller in direct mode
+        assertThrows(NullPointerException.class, () -> rpcpHost.onGetMessage(call(ADD, "{\"b\": 20}"), socketMock));
+
+        var metrics = rpcpHost.getMetrics().getMethod(ADD);
+        assertEquals(ADD, metrics.getName());
+        assertEquals(4, metrics.getCallCount());
+        assertEquals(1, metrics.getErrorCount());
+
+        var latency = metrics.getLatency();
+        assertEquals(4, latency.getCount());
+        assertTrue(latency.getMax() > 0);
+        assertTrue(latency.getValueAtPercentile(50) <= latency.getMax());
+        assertNull(rpcpHost.getMetrics().getMethod("io.github.math.method.Sum"));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Metrics_AsyncCall_RecordedWhenStageComplete() throws Exception {
+        rpcpHost.onGetMessage(call(ASYNC_ADD, "{\"a\": 30, \"b\": 20}"), socketMock);
+        rpcpHost.onGetMessage(call(ASYNC_ADD, "not json"), socketMock);
+
+        var metrics = rpcpHost.getMetrics().getMethod(ASYNC_ADD);
+        for (var i = 0; i < 500 && metrics.getCallCount() < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, metrics.getCallCount());
+        assertEquals(1, metrics.getErrorCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Metrics_StreamingCall_RecordedAtEnd() {
+        var head = "CALL " + UPLOAD + "\r\n" +
+                "content-type: text/plain\r\n" +
+                "id: 003\r\n" +
+                "\r\n";
+        rpcpHost.onGetMessagePart(ByteBuffer.wrap(head.getBytes(StandardCharsets.UTF_8)), false, socketMock);
+        rpcpHost.onGetMessagePart(ByteBuffer.wrap("x".repeat(1024).getBytes(StandardCharsets.UTF_8)), false, socketMock);
+
+        // the call is not complete until the last part
+        assertEquals(0, rpcpHost.getMetrics().getMethod(UPLOAD).getCallCount());
+
+        rpcpHost.onGetMessagePart(ByteBuffer.allocate(0), true, socketMock);
+        assertTrue(socketMock.getLastReceiveMessage().endsWith("{\"length\": 1024}"));
+
+        var metrics = rpcpHost.getMetrics().getMethod(UPLOAD);
+        assertEquals(1, metrics.getCallCount());
+        assertEquals(0, metrics.getErrorCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Metrics_ParseFailed_CountByReason() {
+        rpcpHost.onGetMessage("CAL " + ADD + "\r\n\r\n", new SocketMock());
+        rpcpHost.onGetMessage("CALL " + ADD + "\r\nid 001\r\n\r\n", new SocketMock());
+        rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPC/1.0\r\nagent: gle-openapi-js/1.0\r\n\r\n", new SocketMock());
+
+        var metrics = rpcpHost.getMetrics();
+        assertEquals(3, metrics.getParseFailureCount());
+        assertEquals(1, metrics.getParseFailures().get(RPCPParseError.INVALID_COMMAND));
+        assertEquals(1, metrics.getParseFailures().get(RPCPParseError.BAD_HEADER));
+        assertEquals(1, metrics.getParseFailures().get(RPCPParseError.BAD_PROTOCOL));
+        assertNull(metrics.getParseFailures().get(RPCPParseError.MISSING_HEADER));
+    }
+
+    private static String call(String method, String body) {
+        return "CALL " + method + "\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 002\r\n" +
+                "\r\n" +
+                body;
+    }
+}
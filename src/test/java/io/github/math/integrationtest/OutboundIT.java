@@ -0,0 +1,231 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.event.EventAlarm;
+import io.github.rpcp.EventBuilder;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.RPCPOutboundQueue;
+import io.github.rpcp.RPCPOverflowPolicy;
+import io.github.rpcp.RPCPPreparedFrame;
+import io.github.rpcp.model.MessageEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutboundIT {
+
+    static final String EVENT_ALARM = "io.github.math.event.EventAlarm";
+
+    RPCPHost<SocketMock> rpcpHost;
+    ExecutorService writerExecutor = RPCPOutboundQueue.newWriterExecutor(2);
+    CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        writerExecutor.shutdownNow();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Send_SlowClientDropOldest_SenderNotBlocked() throws Exception {
+        var received = new LinkedBlockingQueue<String>();
+        var slowSocket = connectSlow(4, RPCPOverflowPolicy.DROP_OLDEST, received);
+
+        var start = System.nanoTime();
+        for (var i = 0; i < 10; i++) {
+            rpcpHost.broadcast(event("event.news", String.valueOf(i)));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+        var queue = rpcpHost.getOutboundQueue(slowSocket.getId());
+        assertEquals(4, queue.getQueueDepth());
+
+        release.countDown();
+        assertTrue(received.poll(5, TimeUnit.SECONDS).startsWith("CONNECTED"));
+        assertEquals(List.of("6", "7", "8", "9"), bodies(received, 4));
+        assertEquals(6, queue.getDroppedCount());
+        assertEquals(6, rpcpHost.getDroppedFrameCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Send_SlowClientDropNewest_KeepOldest() throws Exception {
+        var received = new LinkedBlockingQueue<String>();
+        connectSlow(2, RPCPOverflowPolicy.DROP_NEWEST, received);
+
+        for (var i = 0; i < 5; i++) {
+            rpcpHost.broadcast(event("event.news", String.valueOf(i)));
+        }
+
+        release.countDown();
+        assertTrue(received.poll(5, TimeUnit.SECONDS).startsWith("CONNECTED"));
+        assertEquals(List.of("0", "1"), bodies(received, 2));
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Send_SlowClientConflate_LatestValuePerEvent() throws Exception {
+        var received = new LinkedBlockingQueue<String>();
+        connectSlow(2, RPCPOverflowPolicy.CONFLATE, received);
+
+        rpcpHost.broadcast(event("event.price", "0"));
+        rpcpHost.broadcast(event("event.price", "1"));
+        rpcpHost.broadcast(event("event.volume", "2"));
+        rpcpHost.broadcast(event("event.price", "3"));
+        rpcpHost.broadcast(event("event.volume", "4"));
+
+        release.countDown();
+        assertTrue(received.poll(5, TimeUnit.SECONDS).startsWith("CONNECTED"));
+        assertEquals(List.of("3", "4"), bodies(received, 2));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Publish_SlowSubscriberConflationKey_LatestValuePerKey() throws Exception {
+        var received = new LinkedBlockingQueue<String>();
+        var slowSocket = connectSlow(16, RPCPOverflowPolicy.DROP_OLDEST, received);
+        rpcpHost.addEvent(new EventAlarm());
+        rpcpHost.onGetMessage("SUBSCRIBE " + EVENT_ALARM + "\r\n\r\n", slowSocket);
+
+        var symbols = new String[]{"A", "A", "B", "A", "B", "A"};
+        for (var i = 0; i < symbols.length; i++) {
+            assertEquals(1, rpcpHost.publish(event(EVENT_ALARM, String.valueOf(i)), symbols[i]));
+        }
+        rpcpHost.broadcast(event(EVENT_ALARM, "6"));
+
+        var queue = rpcpHost.getOutboundQueue(slowSocket.getId());
+        assertEquals(3, queue.getQueueDepth());
+        assertEquals(4, queue.getConflatedCount());
+        assertEquals(0, queue.getDroppedCount());
+
+        release.countDown();
+        assertTrue(received.poll(5, TimeUnit.SECONDS).startsWith("CONNECTED"));
+        assertEquals(List.of("5", "4", "6"), bodies(received, 3));
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Send_SlowClientDisconnect_ErrorMessageAndClose() throws Exception {
+        var received = new LinkedBlockingQueue<String>();
+        var slowSocket = connectSlow(2, RPCPOverflowPolicy.DISCONNECT, received);
+
+        for (var i = 0; i < 4; i++) {
+            rpcpHost.broadcast(event("event.news", String.valueOf(i)));
+        }
+        assertFalse(rpcpHost.getOutboundQueue(slowSocket.getId()).isOpen());
+
+        release.countDown();
+        assertTrue(received.poll(5, TimeUnit.SECONDS).startsWith("CONNECTED"));
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("ERROR .internal\r\n");
+        strExpect.append("message: Slow consumer\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"detail\":\"Outbound queue is full, the session is closed\",\"code\":\"SLOW_CONSUMER\"}");
+
+        assertEquals(strExpect.toString(), received.poll(5, TimeUnit.SECONDS));
+        for (var i = 0; i < 50 && slowSocket.isOpen(); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(slowSocket.isOpen());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Send_WriterExecutorShutdown_LongQueueDrained() throws Exception {
+        var count = 1_000_000;
+        var sent = new AtomicInteger();
+        var slowSocket = connectSlow(count, RPCPOverflowPolicy.DROP_OLDEST, new LinkedBlockingQueue<>());
+        slowSocket.addMessageListener(message -> sent.incrementAndGet());
+
+        var frame = new RPCPPreparedFrame(event("event.news", "news"));
+        for (var i = 0; i < count; i++) {
+            rpcpHost.broadcast(frame);
+        }
+
+        // every batch after the running one is rejected, the rest is drained on the writer thread without recursion
+        writerExecutor.shutdown();
+        release.countDown();
+        assertTrue(writerExecutor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(count, sent.get());
+        assertEquals(0, rpcpHost.getOutboundQueue(slowSocket.getId()).getQueueDepth());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void SetOutboundQueue_ZeroCapacity_Rejected() {
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        assertThrows(IllegalArgumentException.class,
+                () -> rpcpHost.setOutboundQueue(0, RPCPOverflowPolicy.DROP_OLDEST, writerExecutor));
+    }
+
+    /**
+     * Connect a client that block on every receive until released
+     */
+    private SocketMock connectSlow(int capacity, RPCPOverflowPolicy policy, BlockingQueue<String> received) throws Exception {
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        rpcpHost.setOutboundQueue(capacity, policy, writerExecutor);
+
+        var socketMock = new SocketMock();
+        var writing = new CountDownLatch(1);
+        socketMock.addMessageListener(message -> {
+            writing.countDown();
+            received.add(message);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+
+        // the writer is blocked sending CONNECTED
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        return socketMock;
+    }
+
+    private static List<String> bodies(BlockingQueue<String> received, int count) throws InterruptedException {
+        var bodies = new ArrayList<String>();
+        for (var i = 0; i < count; i++) {
+            var message = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(message);
+            bodies.add(message.substring(message.indexOf("\r\n\r\n") + 4));
+        }
+        return bodies;
+    }
+
+    private static MessageEvent event(String name, String body) {
+        return new EventBuilder(name).build("text/plain", "200", body, "001");
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.math.integrationtest;
+
+import io.github.math.HostWebSocket;
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.event.EventAlarm;
+import io.github.math.method.Add;
+import io.github.rpcp.RPCPBalancePolicy;
+import io.github.rpcp.RPCPBuilder;
+import io.github.rpcp.RPCPClientPool;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PoolIT {
+
+    static final URI HOST1_URI = URI.create("ws://host1/ws");
+    static final URI HOST2_URI = URI.create("ws://host2/ws");
+    static final String VHOST = "api.glexpress.id/ws";
+    static final String HOLD = "io.github.math.method.Hold";
+    static final String EVENT_ALARM = "io.github.math.event.EventAlarm";
+
+    RPCPHost<SocketMock> host1;
+    RPCPHost<SocketMock> host2;
+    ConcurrentLinkedQueue<CompletableFuture<MessageResult>> held;
+    RoutingBuilder builder;
+    RPCPClientPool pool;
+
+    /**
+     * Open the websocket to host1 or host2 by the uri, host2 can be taken down
+     */
+    class RoutingBuilder extends HostWebSocket.Builder {
+        final HostWebSocket.Builder host2Builder = new HostWebSocket.Builder(host2);
+        final List<HostWebSocket> host2Sockets = new ArrayList<>();
+        volatile boolean host2Down;
+
+        RoutingBuilder() {
+            super(host1);
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> buildAsync(URI uri, WebSocket.Listener listener) {
+            if (!HOST2_URI.equals(uri)) {
+                return super.buildAsync(uri, listener);
+            }
+            if (host2Down) {
+                return CompletableFuture.failedFuture(new Exception("Connection refused"));
+            }
+
+            // the members connect at the same time, the last socket is read under the same lock
+            synchronized (host2Sockets) {
+                var future = host2Builder.buildAsync(uri, listener);
+                host2Sockets.add(host2Builder.getLast());
+                return future;
+            }
+        }
+
+        void takeHost2Down() {
+            host2Down = true;
+            synchronized (host2Sockets) {
+                for (var socket : host2Sockets) {
+                    host2.onWsDisconnect(socket.getSocketMock(), "down");
+                    socket.getSocketMock().close();
+                }
+                host2Sockets.clear();
+            }
+        }
+    }
+
+    @BeforeEach
+    void init() {
+        held = new ConcurrentLinkedQueue<>();
+        host1 = host();
+        host2 = host();
+        builder = new RoutingBuilder();
+        pool = new RPCPClientPool(builder, List.of(HOST1_URI, HOST2_URI), 4, VHOST, "gle-openapi-java/1.0");
+        pool.setBackoff(10, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private RPCPHost<SocketMock> host() {
+        var rpcpHost = new RPCPHost<SocketMock>(VHOST, new MyRPCPHostHandler<>());
+        rpcpHost.addMethod(new Add());
+        rpcpHost.addEvent(new EventAlarm());
+        // the reply wait until the test release it
+        rpcpHost.addAsyncMethod(HOLD, new AsyncRPCPMethod() {
+            @Override
+            public CompletionStage<MessageResult> execute(RPCPSession rpcpSession, MessageCall messageCall,
+                                                          RPCPBuilder rpcpBuilder) {
+                var future = new CompletableFuture<MessageResult>();
+                held.add(future);
+                return future.thenApply(ignored -> rpcpBuilder.result("200", "{}"));
+            }
+        });
+        return rpcpHost;
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_TwoEndpoint_ConnectionSpreadOverHost() throws Exception {
+        pool.connect().get(5, TimeUnit.SECONDS);
+        waitHealthy(4);
+
+        assertEquals(2, host1.getSessionCount());
+        assertEquals(2, host2.getSessionCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_LeastOutstanding_SameCountOnEveryConnection() throws Exception {
+        pool.setBalancePolicy(RPCPBalancePolicy.LEAST_OUTSTANDING);
+        pool.connect().get(5, TimeUnit.SECONDS);
+        waitHealthy(4);
+
+        var calls = new ArrayList<CompletableFuture<MessageResult>>();
+        for (var i = 0; i < 8; i++) {
+            calls.add(pool.call(HOLD, "application/json", "{}"));
+        }
+
+        for (var member : pool.getMembers()) {
+            assertEquals(2, member.getPendingCallCount());
+        }
+        releaseAll();
+        for (var call : calls) {
+            assertEquals("200", call.get(5, TimeUnit.SECONDS).getStatusCode());
+        }
+        assertEquals(0, pool.getPendingCallCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_PowerOfTwoChoices_CountCloseOnEveryConnection() throws Exception {
+        pool.connect().get(5, TimeUnit.SECONDS);
+        waitHealthy(4);
+
+        for (var i = 0; i < 400; i++) {
+            pool.call(HOLD, "application/json", "{}");
+        }
+
+        var min = Integer.MAX_VALUE;
+        var max = 0;
+        for (var member : pool.getMembers()) {
+            min = Math.min(min, member.getPendingCallCount());
+            max = Math.max(max, member.getPendingCallCount());
+        }
+        assertEquals(400, pool.getPendingCallCount());
+        assertTrue(max - min <= 5, "min " + min + " max " + max);
+        releaseAll();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_HostDown_NotChosenUntilReconnect() throws Exception {
+        pool.connect().get(5, TimeUnit.SECONDS);
+        waitHealthy(4);
+
+        builder.takeHost2Down();
+        waitHealthy(2);
+        for (var i = 0; i < 20; i++) {
+            var result = pool.call("io.github.math.method.Add", "application/json", "{\"a\": 1, \"b\": 2}")
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals("{\"result\": 3}", result.getBody());
+        }
+
+        builder.host2Down = false;
+        waitHealthy(4);
+        for (var i = 0; i < 40; i++) {
+            pool.call(HOLD, "application/json", "{}");
+        }
+        assertEquals(2, host2.getSessionCount());
+        for (var member : pool.getMembers()) {
+            assertTrue(member.getPendingCallCount() > 0);
+        }
+        releaseAll();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Subscribe_TwoEndpoint_EventReceivedOnce() throws Exception {
+        var events = new LinkedBlockingQueue<MessageEvent>();
+        pool.subscribe(EVENT_ALARM, events::add);
+        pool.connect().get(5, TimeUnit.SECONDS);
+        waitHealthy(4);
+
+        var event = new MessageEvent(EVENT_ALARM, "200", new HeaderEvent("application/json", "004"));
+        event.setBody("{\"name\":\"wake up\"}");
+        assertEquals(1, publish(host1, event));
+        assertEquals(1, publish(host2, event));
+
+        assertNotNull(events.poll(5, TimeUnit.SECONDS));
+        assertNotNull(events.poll(5, TimeUnit.SECONDS));
+        assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    // the subscription is sent after CONNECTED, publish until the host has the subscriber
+    private int publish(RPCPHost<SocketMock> rpcpHost, MessageEvent event) throws Exception {
+        var count = 0;
+        for (var i = 0; i < 500 && count == 0; i++) {
+            count = rpcpHost.publish(event);
+            if (count == 0) {
+                Thread.sleep(10);
+            }
+        }
+        return count;
+    }
+
+    private void releaseAll() {
+        CompletableFuture<MessageResult> future;
+        while ((future = held.poll()) != null) {
+            future.complete(null);
+        }
+    }
+
+    private void waitHealthy(int count) throws InterruptedException {
+        for (var i = 0; i < 500 && pool.getHealthyCount() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, pool.getHealthyCount());
+    }
+}
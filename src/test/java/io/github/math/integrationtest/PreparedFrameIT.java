@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.event.EventAlarm;
+import io.github.math.method.Add;
+import io.github.rpcp.RPCPErrorFrames;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.RPCPPreparedFrame;
+import io.github.rpcp.model.RPCPWebSocketSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PreparedFrameIT {
+
+    static final String CONNECT = "CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+            "agent: gle-openapi-js/1.0\r\n" +
+            "\r\n";
+
+    RPCPHost<FrameSession> rpcpHost;
+
+    /**
+     * Session that record the prepared frames, the String send is the frame encoded again for this session
+     */
+    static class FrameSession implements RPCPWebSocketSession {
+        final String id;
+        final List<RPCPPreparedFrame> frames = new ArrayList<>();
+        final List<String> texts = new ArrayList<>();
+        boolean open = true;
+
+        FrameSession(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void sendMessage(String msg) {
+            texts.add(msg);
+        }
+
+        @Override
+        public void sendMessage(RPCPPreparedFrame frame) {
+            frames.add(frame);
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+    }
+
+    @BeforeEach
+    void init() {
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        rpcpHost.addMethod(new Add());
+        rpcpHost.addEvent(new EventAlarm());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_TwoSessions_SameConnectedFrame() {
+        var first = new FrameSession("first");
+        var second = new FrameSession("second");
+        rpcpHost.onWsConnect(first);
+        rpcpHost.onWsConnect(second);
+
+        rpcpHost.onGetMessage(CONNECT, first);
+        rpcpHost.onGetMessage(CONNECT, second);
+
+        assertEquals(1, first.frames.size());
+        assertTrue(first.frames.get(0).getText().startsWith("CONNECTED api.glexpress.id/ws RPCP/1.0\r\n"));
+        assertSame(first.frames.get(0), second.frames.get(0));
+        assertTrue(first.texts.isEmpty());
+        assertTrue(second.texts.isEmpty());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Subscribe_EventNotFound_PreparedErrorFrame() {
+        var session = new FrameSession("subscriber");
+        rpcpHost.onWsConnect(session);
+        rpcpHost.onGetMessage(CONNECT, session);
+
+        rpcpHost.onGetMessage("SUBSCRIBE io.github.math.event.Unknown\r\n\r\n", session);
+
+        assertEquals(2, session.frames.size());
+        assertSame(rpcpHost.getErrorFrames().get(RPCPErrorFrames.EVENT_NOT_FOUND), session.frames.get(1));
+        assertTrue(session.texts.isEmpty());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Read_InvalidMessage_PreparedErrorFrameAndClose() {
+        var session = new FrameSession("invalid");
+        rpcpHost.onWsConnect(session);
+
+        rpcpHost.onGetMessage("HELLO\r\n\r\n", session);
+
+        assertEquals(1, session.frames.size());
+        assertTrue(session.frames.get(0).getText().startsWith("ERROR .internal"));
+        assertTrue(session.texts.isEmpty());
+        assertFalse(session.open);
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.math.integrationtest;
+
+import io.github.math.HostWebSocket;
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.event.EventAlarm;
+import io.github.math.method.Add;
+import io.github.rpcp.RPCPBuilder;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.RPCPReconnectingClient;
+import io.github.rpcp.RPCPRetryPolicy;
+import io.github.rpcp.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReconnectIT {
+
+    static final URI HOST_URI = URI.create("ws://localhost/ws");
+    static final String VHOST = "api.glexpress.id/ws";
+    static final String SLOW_ADD = "io.github.math.method.SlowAdd";
+    static final String EVENT_ALARM = "io.github.math.event.EventAlarm";
+
+    RPCPHost<SocketMock> rpcpHost;
+    HostWebSocket.Builder builder;
+    RPCPReconnectingClient client;
+    AtomicInteger slowAddCount;
+
+    @BeforeEach
+    void init() {
+        rpcpHost = new RPCPHost<>(VHOST, new MyRPCPHostHandler<>());
+        rpcpHost.addMethod(new Add());
+        rpcpHost.addEvent(new EventAlarm());
+
+        // the first call is never replied, the host restart before the reply
+        slowAddCount = new AtomicInteger();
+        rpcpHost.addAsyncMethod(SLOW_ADD, new AsyncRPCPMethod() {
+            @Override
+            public CompletionStage<MessageResult> execute(RPCPSession rpcpSession, MessageCall messageCall,
+                                                          RPCPBuilder rpcpBuilder) {
+                if (slowAddCount.incrementAndGet() == 1) {
+                    return new CompletableFuture<>();
+                }
+                return CompletableFuture.completedFuture(rpcpBuilder.result("200", "{\"result\": 3}"));
+            }
+        });
+
+        builder = new HostWebSocket.Builder(rpcpHost);
+        client = new RPCPReconnectingClient(builder, HOST_URI, VHOST, "gle-openapi-java/1.0");
+        client.setBackoff(10, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Reconnect_HostCloseConnection_ReconnectAndSubscriptionRestored() throws Exception {
+        client.connect().get(5, TimeUnit.SECONDS);
+        var events = new LinkedBlockingQueue<MessageEvent>();
+        client.subscribe(EVENT_ALARM, events::add);
+
+        hostClose();
+        waitReconnect(1);
+
+        var result = client.call("io.github.math.method.Add", "application/json", "{\"a\": 1, \"b\": 2}")
+                .get(5, TimeUnit.SECONDS);
+        assertEquals("{\"result\": 3}", result.getBody());
+
+        var event = new MessageEvent(EVENT_ALARM, "200", new HeaderEvent("application/json", "004"));
+        event.setBody("{\"name\":\"wake up\"}");
+        assertEquals(1, rpcpHost.publish(event));
+        assertNotNull(events.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Reconnect_ReplayPolicy_InFlightCallReplayed() throws Exception {
+        client.setRetryPolicy(SLOW_ADD, RPCPRetryPolicy.REPLAY);
+        client.connect().get(5, TimeUnit.SECONDS);
+
+        var future = client.call(SLOW_ADD, "application/json", "{\"a\": 1, \"b\": 2}");
+        assertFalse(future.isDone());
+
+        hostClose();
+
+        assertEquals("{\"result\": 3}", future.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(2, slowAddCount.get());
+        assertEquals(1, client.getReplayedCallCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Reconnect_FailFastPolicy_InFlightCallFailed() throws Exception {
+        client.connect().get(5, TimeUnit.SECONDS);
+
+        var future = client.call(SLOW_ADD, "application/json", "{\"a\": 1, \"b\": 2}");
+        hostClose();
+
+        var exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertEquals("Connection closed", exception.getCause().getMessage());
+        assertEquals(1, slowAddCount.get());
+        assertEquals(0, client.getReplayedCallCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Reconnect_HostDown_RetryWithBackoffUntilUp() throws Exception {
+        var down = new AtomicInteger(3);
+        var failing = new HostWebSocket.Builder(rpcpHost) {
+            @Override
+            public CompletableFuture<WebSocket> buildAsync(URI uri, WebSocket.Listener listener) {
+                if (down.getAndDecrement() > 0) {
+                    return CompletableFuture.failedFuture(new Exception("Connection refused"));
+                }
+                return super.buildAsync(uri, listener);
+            }
+        };
+        client.close();
+        client = new RPCPReconnectingClient(failing, HOST_URI, VHOST, "gle-openapi-java/1.0");
+        client.setBackoff(10, 50);
+        client.setRetryPolicy("io.github.math.method.Add", RPCPRetryPolicy.REPLAY);
+
+        var connect = client.connect();
+        // replay call wait for the connection, fail fast call is failed while not connected
+        var waiting = client.call("io.github.math.method.Add", "application/json", "{\"a\": 1, \"b\": 2}");
+        var failed = client.call(SLOW_ADD, "application/json", "{\"a\": 1, \"b\": 2}");
+
+        connect.get(5, TimeUnit.SECONDS);
+        assertEquals(3, client.getConnectFailedCount());
+        assertEquals("{\"result\": 3}", waiting.get(5, TimeUnit.SECONDS).getBody());
+        var exception = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertEquals("Not connected", exception.getCause().getMessage());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Reconnect_HostDown_WaitingCallOverLimitFailed() throws Exception {
+        client.close();
+        client = new RPCPReconnectingClient(hostDown(), HOST_URI, VHOST, "gle-openapi-java/1.0");
+        client.setBackoff(10, 50);
+        client.setDefaultRetryPolicy(RPCPRetryPolicy.REPLAY);
+        client.setMaxWaitingCalls(2);
+        client.connect();
+
+        var first = client.call("io.github.math.method.Add", "application/json", "{\"a\": 1, \"b\": 2}");
+        var second = client.call("io.github.math.method.Add", "application/json", "{\"a\": 1, \"b\": 2}");
+        var third = client.call("io.github.math.method.Add", "application/json", "{\"a\": 1, \"b\": 2}");
+
+        var exception = assertThrows(ExecutionException.class, () -> third.get(5, TimeUnit.SECONDS));
+        assertEquals("Replay queue full", exception.getCause().getMessage());
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(2, client.getPendingCallCount());
+        assertEquals(1, client.getExpiredCallCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Reconnect_HostDown_WaitingCallFailedAtDeadline() throws Exception {
+        client.close();
+        client = new RPCPReconnectingClient(hostDown(), HOST_URI, VHOST, "gle-openapi-java/1.0");
+        client.setBackoff(10, 50);
+        client.setDefaultRetryPolicy(RPCPRetryPolicy.REPLAY);
+        client.setCallDeadline(100);
+        client.connect();
+
+        var future = client.call("io.github.math.method.Add", "application/json", "{\"a\": 1, \"b\": 2}");
+
+        var exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertEquals("Call deadline exceeded", exception.getCause().getMessage());
+        assertEquals(0, client.getPendingCallCount());
+        assertEquals(1, client.getExpiredCallCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_ClientClose_NoReconnect() throws Exception {
+        client.connect().get(5, TimeUnit.SECONDS);
+
+        client.close();
+        Thread.sleep(200);
+
+        assertFalse(client.isConnected());
+        assertEquals(0, client.getReconnectCount());
+        assertEquals(0, rpcpHost.getSessionCount());
+    }
+
+    // every connect is refused
+    private HostWebSocket.Builder hostDown() {
+        return new HostWebSocket.Builder(rpcpHost) {
+            @Override
+            public CompletableFuture<WebSocket> buildAsync(URI uri, WebSocket.Listener listener) {
+                return CompletableFuture.failedFuture(new Exception("Connection refused"));
+            }
+        };
+    }
+
+    // host side close, the session is removed from the host then the socket is closed
+    private void hostClose() {
+        var socketMock = builder.getLast().getSocketMock();
+        rpcpHost.onWsDisconnect(socketMock, "restart");
+        socketMock.close();
+    }
+
+    private void waitReconnect(long count) throws InterruptedException {
+        for (var i = 0; i < 500 && (client.getReconnectCount() < count || !client.isConnected()); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, client.getReconnectCount());
+        assertTrue(client.isConnected());
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.method.Add;
+import io.github.math.method.Sum;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.RPCPServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerIT {
+
+    RPCPServer<SocketMock> rpcpServer;
+    RPCPHost<SocketMock> tenantA;
+    RPCPHost<SocketMock> tenantB;
+
+    @BeforeEach
+    void init() {
+        tenantA = new RPCPHost<>("tenant-a.glexpress.id/ws", new MyRPCPHostHandler<>());
+        tenantA.addMethod(new Add());
+        tenantB = new RPCPHost<>("tenant-b.glexpress.id/ws", new MyRPCPHostHandler<>());
+        tenantB.addMethod(new Sum());
+
+        rpcpServer = new RPCPServer<>(new MyRPCPHostHandler<>());
+        rpcpServer.addHost(tenantA);
+        rpcpServer.addHost(tenantB);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_TwoVHost_RoutedToOwnHost() {
+        var socketA = connect("tenant-a.glexpress.id/ws");
+        var socketB = connect("TENANT-B.glexpress.id/ws");
+
+        assertTrue(socketA.getLastReceiveMessage().startsWith("CONNECTED tenant-a.glexpress.id/ws"));
+        assertTrue(socketB.getLastReceiveMessage().startsWith("CONNECTED tenant-b.glexpress.id/ws"));
+        assertEquals(1, tenantA.getSessionCount());
+        assertEquals(1, tenantB.getSessionCount());
+
+        rpcpServer.onGetMessage("CALL io.github.math.method.Add\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 002\r\n" +
+                "\r\n" +
+                "{\"a\": 30, \"b\": 20}", socketA);
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("RESULT io.github.math.method.Add 200\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 002\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"result\": 50}");
+        assertEquals(strExpect.toString(), socketA.getLastReceiveMessage());
+
+        // the method of tenant A is not available in tenant B
+        rpcpServer.onGetMessage(ByteBuffer.wrap(("CALL io.github.math.method.Add\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 003\r\n" +
+                "\r\n" +
+                "{\"a\": 30, \"b\": 20}").getBytes(StandardCharsets.UTF_8)), socketB);
+        assertTrue(socketB.getLastReceiveMessage().startsWith("ERROR io.github.math.method.Add\r\n" +
+                "message: Method not found\r\n"));
+        assertTrue(socketB.getLastReceiveMessage().contains("id: 003\r\n"));
+
+        assertEquals(2, rpcpServer.getMessageCount("tenant-a.glexpress.id/ws"));
+        assertEquals(2, rpcpServer.getMessageCount("tenant-b.glexpress.id/ws"));
+        assertEquals(1, rpcpServer.getConnectionCount("tenant-a.glexpress.id/ws"));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_UnknownVHost_ErrorMessage() {
+        var socketMock = connect("tenant-c.glexpress.id/ws");
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("ERROR .internal\r\n");
+        strExpect.append("message: Connect failed\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"detail\":\"Connect to RPCP failed, check your vHost\",\"code\":\"VHOST_NOT_FOUND\"}");
+
+        assertEquals(strExpect.toString(), socketMock.getLastReceiveMessage());
+        assertFalse(socketMock.isOpen());
+        assertEquals(1, rpcpServer.getUnknownVHostCount());
+        assertEquals(0, rpcpServer.getRouteCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_BeforeConnect_SessionNotValid() {
+        var socketMock = new SocketMock();
+        rpcpServer.onGetMessage("CALL io.github.math.method.Add\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 002\r\n" +
+                "\r\n" +
+                "{\"a\": 30, \"b\": 20}", socketMock);
+
+        assertTrue(socketMock.getLastReceiveMessage().startsWith("ERROR .internal\r\nmessage: Session not valid\r\n"));
+        assertFalse(socketMock.isOpen());
+        assertEquals(0, rpcpServer.getRouteCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_FirstPartContainConnectLine_Routed() {
+        var socketMock = new SocketMock();
+        rpcpServer.onGetMessagePart(ByteBuffer.wrap("CONNECT tenant-b.glexpress.id/ws RPCP/1.0\r\nagent: gle"
+                .getBytes(StandardCharsets.UTF_8)), false, socketMock);
+        rpcpServer.onGetMessagePart(ByteBuffer.wrap("-openapi-js/1.0\r\n\r\n"
+                .getBytes(StandardCharsets.UTF_8)), true, socketMock);
+
+        assertTrue(socketMock.getLastReceiveMessage().startsWith("CONNECTED tenant-b.glexpress.id/ws"));
+        assertEquals(1, rpcpServer.getMessageCount("tenant-b.glexpress.id/ws"));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_ConnectLineSplitInParts_Routed() {
+        var socketMock = new SocketMock();
+        rpcpServer.onGetMessagePart(ByteBuffer.wrap("CONNEC".getBytes(StandardCharsets.UTF_8)), false, socketMock);
+        rpcpServer.onGetMessagePart(ByteBuffer.wrap("T tenant-b.glex".getBytes(StandardCharsets.UTF_8)), false,
+                socketMock);
+        assertEquals(0, rpcpServer.getRouteCount());
+        assertTrue(socketMock.isOpen());
+
+        rpcpServer.onGetMessagePart(ByteBuffer.wrap("press.id/ws RPCP/1.0\r\nagent: gle"
+                .getBytes(StandardCharsets.UTF_8)), false, socketMock);
+        rpcpServer.onGetMessagePart(ByteBuffer.wrap("-openapi-js/1.0\r\n\r\n"
+                .getBytes(StandardCharsets.UTF_8)), true, socketMock);
+
+        assertTrue(socketMock.getLastReceiveMessage().startsWith("CONNECTED tenant-b.glexpress.id/ws"));
+        assertEquals(1, rpcpServer.getMessageCount("tenant-b.glexpress.id/ws"));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_TextConnectLineSplitInParts_Routed() {
+        var socketMock = new SocketMock();
+        rpcpServer.onGetMessagePart("CONNECT tenant-a", false, socketMock);
+        rpcpServer.onGetMessagePart(".glexpress.id/ws RPCP/1.0\r", false, socketMock);
+        rpcpServer.onGetMessagePart("\nagent: gle-openapi-js/1.0\r\n\r\n", true, socketMock);
+
+        assertTrue(socketMock.getLastReceiveMessage().startsWith("CONNECTED tenant-a.glexpress.id/ws"));
+        assertEquals(1, rpcpServer.getRouteCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_ConnectLineTooLong_SessionNotValid() {
+        var socketMock = new SocketMock();
+        var part = ByteBuffer.wrap(("CONNECT " + "a".repeat(4096))
+                .getBytes(StandardCharsets.UTF_8));
+        rpcpServer.onGetMessagePart(part, false, socketMock);
+
+        assertTrue(socketMock.getLastReceiveMessage().startsWith("ERROR .internal\r\nmessage: Session not valid\r\n"));
+        assertFalse(socketMock.isOpen());
+        assertEquals(0, rpcpServer.getRouteCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_NullSessionId_SessionNotValid() {
+        var server = new RPCPServer<SocketMock>(new MyRPCPHostHandler<>() {
+            @Override
+            public String getWsSessionId(SocketMock session) {
+                return null;
+            }
+        });
+        server.addHost(new RPCPHost<>("tenant-a.glexpress.id/ws", new MyRPCPHostHandler<>()));
+        var socketMock = new SocketMock();
+        server.onGetMessage("CONNECT tenant-a.glexpress.id/ws RPCP/1.0\r\n\r\n", socketMock);
+
+        assertTrue(socketMock.getLastReceiveMessage().startsWith("ERROR .internal\r\nmessage: Session not valid\r\n"));
+        assertFalse(socketMock.isOpen());
+        assertEquals(0, server.getRouteCount());
+        server.onWsDisconnect(socketMock, "1000");
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Disconnect_WebsocketClosed_RouteAndSessionRemoved() {
+        var socketMock = connect("tenant-a.glexpress.id/ws");
+        assertEquals(1, rpcpServer.getRouteCount());
+
+        rpcpServer.onWsDisconnect(socketMock, "1006");
+
+        assertEquals(0, rpcpServer.getRouteCount());
+        assertEquals(0, rpcpServer.getConnectionCount("tenant-a.glexpress.id/ws"));
+        assertEquals(1, rpcpServer.getConnectCount("tenant-a.glexpress.id/ws"));
+        assertEquals(0, tenantA.getSessionCount());
+        assertEquals(0, tenantA.getWebsocketSessionCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void AddHost_SameVHost_Exception() {
+        assertThrows(IllegalArgumentException.class,
+                () -> rpcpServer.addHost(new RPCPHost<>("Tenant-A.glexpress.id/ws", new MyRPCPHostHandler<>())));
+    }
+
+    private SocketMock connect(String vHost) {
+        var socketMock = new SocketMock();
+        rpcpServer.onWsConnect(socketMock);
+        rpcpServer.onGetMessage("CONNECT " + vHost + " RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+        return socketMock;
+    }
+}
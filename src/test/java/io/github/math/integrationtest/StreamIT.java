@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.method.Add;
+import io.github.math.method.Upload;
+import io.github.rpcp.RPCPHost;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamIT {
+
+    static RPCPHost<SocketMock> rpcpHost;
+    static SocketMock socketMock = new SocketMock();
+
+    @BeforeAll
+    static void setup() {
+        // Config RPCP
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+
+        // Add Method to RPCP
+        rpcpHost.addMethod(new Add());
+        rpcpHost.addStreamingMethod(new Upload());
+    }
+
+    @BeforeEach
+    void init() {
+        socketMock = new SocketMock();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    public void Stream_UploadInParts_ResultMessage() {
+
+        rpcpHost.onGetMessagePart("CONNECT api.glexpress.id/ws RPCP/1.0\r\n", false, socketMock);
+        rpcpHost.onGetMessagePart("agent: gle-openapi-js/1.0\r\n\r\n", true, socketMock);
+        assertTrue(socketMock.getLastReceiveMessage().startsWith("CONNECTED api.glexpress.id/ws RPCP/1.0\r\n"));
+
+        var head = "CALL io.github.math.method.Upload\r\n" +
+                "content-type: text/plain\r\n" +
+                "id: 003\r\n" +
+                "\r\n";
+        rpcpHost.onGetMessagePart(ByteBuffer.wrap(head.getBytes(StandardCharsets.UTF_8)), false, socketMock);
+
+        var part = "x".repeat(64 * 1024).getBytes(StandardCharsets.UTF_8);
+        for (var i = 0; i < 16; i++) {
+            rpcpHost.onGetMessagePart(ByteBuffer.wrap(part), false, socketMock);
+        }
+        rpcpHost.onGetMessagePart(ByteBuffer.allocate(0), true, socketMock);
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("RESULT io.github.math.method.Upload 200\r\n");
+        strExpect.append("content-type: text/plain\r\n");
+        strExpect.append("id: 003\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"length\": 1048576}");
+
+        assertEquals(strExpect.toString(), socketMock.getLastReceiveMessage());
+        assertTrue(socketMock.isOpen());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    public void Stream_AddInParts_ResultMessage() {
+
+        rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\nagent: gle-openapi-js/1.0\r\n\r\n", socketMock);
+
+        rpcpHost.onGetMessagePart("CALL io.github.math.method.Add\r\ncontent-type: application/json\r\n", false, socketMock);
+        rpcpHost.onGetMessagePart("id: 002\r\n\r\n{\"a\": 30,", false, socketMock);
+        rpcpHost.onGetMessagePart(" \"b\": 20}", true, socketMock);
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("RESULT io.github.math.method.Add 200\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 002\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"result\": 50}");
+
+        assertEquals(strExpect.toString(), socketMock.getLastReceiveMessage());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    public void Stream_InvalidInParts_ErrorMessage() {
+
+        rpcpHost.onGetMessagePart("CONNEC api.glexpress.id/ws RPCP/1.0\r\n", false, socketMock);
+        rpcpHost.onGetMessagePart("agent: gle-openapi-js/1.0\r\n\r\n", true, socketMock);
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("ERROR .internal\r\n");
+        strExpect.append("message: Invalid RPCP\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"detail\":\"Invalid RPCP, check your RPCP message\",\"code\":\"INVALID_RPCP\"}");
+
+        assertEquals(strExpect.toString(), socketMock.getLastReceiveMessage());
+        assertFalse(socketMock.isOpen());
+    }
+}
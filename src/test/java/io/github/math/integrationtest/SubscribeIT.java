@@ -0,0 +1,176 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.math.event.EventAlarm;
+import io.github.rpcp.EventBuilder;
+import io.github.rpcp.RPCPHost;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubscribeIT {
+
+    static final String EVENT_ALARM = "io.github.math.event.EventAlarm";
+
+    RPCPHost<SocketMock> rpcpHost;
+
+    @BeforeEach
+    void init() {
+        // Config RPCP
+        rpcpHost = new RPCPHost<>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+
+        // Add Event to RPCP
+        rpcpHost.addEvent(new EventAlarm());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Subscribe_TriggerEvent_OnlySubscriberReceive() throws Exception {
+        var sockets = connect(2);
+        rpcpHost.onGetMessage("SUBSCRIBE " + EVENT_ALARM + "\r\n\r\n", sockets.get(0));
+
+        var count = rpcpHost.triggerEvent(EVENT_ALARM, Map.of("Name", "Morning wakeup", "Clock", 10));
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("EVENT io.github.math.event.EventAlarm 200\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("id: 004\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"name\":\"Morning wakeup\",\"clock\":\"10\"}");
+
+        assertEquals(1, count);
+        assertEquals(strExpect.toString(), sockets.get(0).getLastReceiveMessage());
+        assertTrue(sockets.get(1).getLastReceiveMessage().startsWith("CONNECTED"));
+        assertEquals(Set.of(EVENT_ALARM), rpcpHost.getSubscriptions(sockets.get(0).getId()));
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Unsubscribe_Publish_NotReceive() throws Exception {
+        var sockets = connect(2);
+        for (var socketMock : sockets) {
+            rpcpHost.onGetMessage("SUBSCRIBE " + EVENT_ALARM + "\r\n\r\n", socketMock);
+        }
+        rpcpHost.onGetMessage("UNSUBSCRIBE " + EVENT_ALARM + "\r\n\r\n", sockets.get(1));
+
+        var event = new EventBuilder(EVENT_ALARM).build("application/json", "200", "{}", "005");
+        assertEquals(1, rpcpHost.publish(event));
+        assertTrue(sockets.get(0).getLastReceiveMessage().startsWith("EVENT " + EVENT_ALARM));
+        assertTrue(sockets.get(1).getLastReceiveMessage().startsWith("CONNECTED"));
+        assertTrue(rpcpHost.getSubscriptions(sockets.get(1).getId()).isEmpty());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Subscribe_Disconnect_SubscriptionRemoved() throws Exception {
+        var sockets = connect(1);
+        rpcpHost.onGetMessage("SUBSCRIBE " + EVENT_ALARM + "\r\n\r\n", sockets.get(0));
+        rpcpHost.onGetMessage("DISCONNECT api.glexpress.id/ws\r\n\r\n", sockets.get(0));
+
+        assertEquals(0, rpcpHost.triggerEvent(EVENT_ALARM, Map.of()));
+        assertTrue(rpcpHost.getSubscriptions(sockets.get(0).getId()).isEmpty());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Subscribe_NotRegisteredEvent_ErrorMessage() {
+        var sockets = connect(1);
+        rpcpHost.onGetMessage("SUBSCRIBE event.notRegistered\r\n\r\n", sockets.get(0));
+
+        StringBuilder strExpect;
+        strExpect = new StringBuilder();
+        strExpect.append("ERROR .internal\r\n");
+        strExpect.append("message: Event Not Found\r\n");
+        strExpect.append("content-type: application/json\r\n");
+        strExpect.append("\r\n");
+        strExpect.append("{\"detail\":\"Event Not Found\",\"code\":\"Event_NOT_FOUND\"}");
+
+        assertEquals(strExpect.toString(), sockets.get(0).getLastReceiveMessage());
+        assertTrue(sockets.get(0).isOpen());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Subscribe_ChurnWhilePublish_IndexConsistent() throws Exception {
+        var sockets = connect(200);
+        var executor = Executors.newFixedThreadPool(4);
+        var running = new AtomicBoolean(true);
+        var event = new EventBuilder(EVENT_ALARM).build("application/json", "200", "{}", "006");
+
+        Future<?> publisher = executor.submit(() -> {
+            while (running.get()) {
+                rpcpHost.publish(event);
+            }
+            return null;
+        });
+
+        var churn = new ArrayList<Future<?>>();
+        for (var t = 0; t < 3; t++) {
+            var offset = t;
+            churn.add(executor.submit(() -> {
+                for (var round = 0; round < 200; round++) {
+                    for (var i = offset; i < sockets.size(); i += 3) {
+                        var command = round % 2 == 0 ? "SUBSCRIBE " : "UNSUBSCRIBE ";
+                        rpcpHost.onGetMessage(command + EVENT_ALARM + "\r\n\r\n", sockets.get(i));
+                    }
+                }
+                // end subscribed
+                for (var i = offset; i < sockets.size(); i += 3) {
+                    rpcpHost.onGetMessage("SUBSCRIBE " + EVENT_ALARM + "\r\n\r\n", sockets.get(i));
+                }
+            }));
+        }
+        for (var future : churn) {
+            future.get();
+        }
+        running.set(false);
+        publisher.get();
+        executor.shutdown();
+
+        assertEquals(200, rpcpHost.publish(event));
+        for (var i = 0; i < 100; i++) {
+            rpcpHost.onGetMessage("DISCONNECT api.glexpress.id/ws\r\n\r\n", sockets.get(i));
+        }
+        assertEquals(100, rpcpHost.publish(event));
+    }
+
+    private List<SocketMock> connect(int count) {
+        var sockets = new ArrayList<SocketMock>();
+        for (var i = 0; i < count; i++) {
+            var socketMock = new SocketMock();
+            rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                    "agent: gle-openapi-js/1.0\r\n" +
+                    "\r\n", socketMock);
+            sockets.add(socketMock);
+        }
+        return sockets;
+    }
+}
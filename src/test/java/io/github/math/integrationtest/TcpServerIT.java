@@ -0,0 +1,310 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package io.github.math.integrationtest;
+
+import io.github.math.event.EventAlarm;
+import io.github.math.method.Add;
+import io.github.math.method.Upload;
+import io.github.rpcp.RPCPClient;
+import io.github.rpcp.RPCPClientPool;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.model.HeaderEvent;
+import io.github.rpcp.model.MessageEvent;
+import io.github.rpcp.transport.NioHostHandler;
+import io.github.rpcp.transport.NioTcpSession;
+import io.github.rpcp.transport.NioTcpWebSocketBuilder;
+import io.github.rpcp.transport.RPCPTcpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TcpServerIT {
+
+    static final String VHOST = "api.glexpress.id/ws";
+    static final String AGENT = "gle-openapi-java/1.0";
+    static final String ADD = "io.github.math.method.Add";
+    static final String UPLOAD = "io.github.math.method.Upload";
+    static final String EVENT_ALARM = "io.github.math.event.EventAlarm";
+    static final String CONNECT = "CONNECT " + VHOST + " RPCP/1.0\r\n" +
+            "agent: " + AGENT + "\r\n" +
+            "\r\n";
+
+    RPCPHost<NioTcpSession> rpcpHost;
+    RPCPTcpServer server;
+    NioTcpWebSocketBuilder builder;
+    URI uri;
+
+    @BeforeEach
+    void init() throws IOException {
+        rpcpHost = new RPCPHost<>(VHOST, new NioHostHandler<>());
+        rpcpHost.addMethod(new Add());
+        rpcpHost.addStreamingMethod(new Upload());
+        rpcpHost.addEvent(new EventAlarm());
+
+        server = new RPCPTcpServer(rpcpHost, new InetSocketAddress("127.0.0.1", 0));
+        server.setLoopCount(2);
+        server.start();
+        builder = new NioTcpWebSocketBuilder(1024);
+        uri = URI.create("tcp://127.0.0.1:" + server.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        builder.close();
+        server.close();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_RPCPClient_Result() throws Exception {
+        try (var client = RPCPClient.connect(builder, uri, VHOST, AGENT).get(5, TimeUnit.SECONDS)) {
+            var result = client.call(ADD, "application/json", "{\"a\": 1, \"b\": 2}").get(5, TimeUnit.SECONDS);
+            assertEquals("{\"result\": 3}", result.getBody());
+            assertEquals(1, rpcpHost.getSessionCount());
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_AsyncMethodReadBodyLater_BodyNotOverwritten() throws Exception {
+        // one loop, the read buffer of the loop is shared by both client
+        server.close();
+        server = new RPCPTcpServer(rpcpHost, new InetSocketAddress("127.0.0.1", 0));
+        server.setLoopCount(1);
+        server.start();
+        uri = URI.create("tcp://127.0.0.1:" + server.getPort());
+
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        rpcpHost.addAsyncMethod("io.github.math.method.AsyncEcho", (rpcpSession, messageCall, rpcpBuilder) -> {
+            started.countDown();
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rpcpBuilder.result("200", messageCall.getBody());
+            });
+        });
+
+        try (var first = RPCPClient.connect(builder, uri, VHOST, AGENT).get(5, TimeUnit.SECONDS);
+             var second = RPCPClient.connect(builder, uri, VHOST, AGENT).get(5, TimeUnit.SECONDS)) {
+            var body = "{\"data\": \"" + "a".repeat(200) + "\"}";
+            var echo = first.call("io.github.math.method.AsyncEcho", "application/json", body);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // the next read of the loop overwrite the bytes of the first call
+            var padded = "{\"a\": 1, \"b\": 2}" + " ".repeat(400);
+            assertEquals("{\"result\": 3}", second.call(ADD, "application/json", padded).get(5, TimeUnit.SECONDS).getBody());
+
+            release.countDown();
+            assertEquals(body, echo.get(5, TimeUnit.SECONDS).getBody());
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_ManyClientPipelined_EveryResult() throws Exception {
+        var clients = new RPCPClient[8];
+        for (var i = 0; i < clients.length; i++) {
+            clients[i] = RPCPClient.connect(builder, uri, VHOST, AGENT).get(5, TimeUnit.SECONDS);
+        }
+
+        var calls = new CompletableFuture<?>[800];
+        for (var i = 0; i < calls.length; i++) {
+            calls[i] = clients[i % clients.length].call(ADD, "application/json", "{\"a\": " + i + ", \"b\": 1}");
+        }
+        CompletableFuture.allOf(calls).get(10, TimeUnit.SECONDS);
+        assertEquals(8, rpcpHost.getSessionCount());
+
+        for (var client : clients) {
+            client.close();
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_BodyBiggerThanReadBuffer_StreamedToMethod() throws Exception {
+        var body = "x".repeat(1_000_000);
+        try (var client = RPCPClient.connect(builder, uri, VHOST, AGENT).get(5, TimeUnit.SECONDS)) {
+            var result = client.call(UPLOAD, "application/json", body).get(10, TimeUnit.SECONDS);
+            assertEquals("{\"length\": 1000000}", result.getBody());
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_ClientPool_EveryResult() throws Exception {
+        try (var pool = new RPCPClientPool(builder, List.of(uri), 4, VHOST, AGENT)) {
+            pool.connect().get(5, TimeUnit.SECONDS);
+
+            var calls = new CompletableFuture<?>[100];
+            for (var i = 0; i < calls.length; i++) {
+                calls[i] = pool.call(ADD, "application/json", "{\"a\": " + i + ", \"b\": 1}");
+            }
+            CompletableFuture.allOf(calls).get(10, TimeUnit.SECONDS);
+            waitSessionCount(4);
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Subscribe_EventBiggerThanReadBuffer_EventReceived() throws Exception {
+        try (var client = RPCPClient.connect(builder, uri, VHOST, AGENT).get(5, TimeUnit.SECONDS)) {
+            var events = new LinkedBlockingQueue<MessageEvent>();
+            client.subscribe(EVENT_ALARM, events::add);
+            // the subscribe is handled before the call on the same connection
+            client.call(ADD, "application/json", "{\"a\": 1, \"b\": 2}").get(5, TimeUnit.SECONDS);
+
+            var body = "{\"name\":\"" + "z".repeat(10_000) + "\"}";
+            var event = new MessageEvent(EVENT_ALARM, "200", new HeaderEvent("application/json", "004"));
+            event.setBody(body);
+            assertEquals(1, rpcpHost.publish(event));
+            assertEquals(body, events.poll(5, TimeUnit.SECONDS).getBody());
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Frame_LengthPrefixed_Connected() throws Exception {
+        try (var socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(5000);
+            var output = new DataOutputStream(socket.getOutputStream());
+            var bytes = CONNECT.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+
+            var input = new DataInputStream(socket.getInputStream());
+            var reply = new byte[input.readInt()];
+            input.readFully(reply);
+            assertTrue(new String(reply, StandardCharsets.UTF_8).startsWith("CONNECTED"));
+        }
+        waitSessionCount(0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Frame_NegativeLength_Closed() throws Exception {
+        try (var socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(5000);
+            new DataOutputStream(socket.getOutputStream()).writeInt(-1);
+            assertEquals(0, socket.getInputStream().readAllBytes().length);
+        }
+        waitSessionCount(0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Frame_LengthNearIntMax_Closed() throws Exception {
+        try (var socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(5000);
+            new DataOutputStream(socket.getOutputStream()).writeInt(Integer.MAX_VALUE - 1);
+            assertEquals(0, socket.getInputStream().readAllBytes().length);
+        }
+        waitWebsocketSessionCount(0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Frame_LengthOverMaxMessageSize_Closed() throws Exception {
+        server.close();
+        server = new RPCPTcpServer(rpcpHost, new InetSocketAddress("127.0.0.1", 0));
+        server.setLoopCount(1);
+        server.setMaxMessageSize(16);
+        server.start();
+
+        try (var socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(5000);
+            var output = new DataOutputStream(socket.getOutputStream());
+            var bytes = CONNECT.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+            assertEquals(0, socket.getInputStream().readAllBytes().length);
+        }
+        waitWebsocketSessionCount(0);
+        assertEquals(0, rpcpHost.getSessionCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_ClientClose_SessionRemoved() throws Exception {
+        var client = RPCPClient.connect(builder, uri, VHOST, AGENT).get(5, TimeUnit.SECONDS);
+        assertEquals(1, rpcpHost.getSessionCount());
+
+        client.close();
+        client.getCloseFuture().get(5, TimeUnit.SECONDS);
+        waitSessionCount(0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_ServerClose_ClientClosed() throws Exception {
+        var client = RPCPClient.connect(builder, uri, VHOST, AGENT).get(5, TimeUnit.SECONDS);
+
+        server.close();
+        client.getCloseFuture().get(5, TimeUnit.SECONDS);
+        assertFalse(client.isOpen());
+        assertEquals(0, rpcpHost.getSessionCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Connect_NoServer_Failed() throws Exception {
+        int port;
+        try (var serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+
+        var connect = RPCPClient.connect(builder, URI.create("tcp://127.0.0.1:" + port), VHOST, AGENT);
+        assertThrows(ExecutionException.class, () -> connect.get(5, TimeUnit.SECONDS));
+    }
+
+    private void waitWebsocketSessionCount(int count) throws InterruptedException {
+        for (var i = 0; i < 500 && rpcpHost.getWebsocketSessionCount() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, rpcpHost.getWebsocketSessionCount());
+    }
+
+    private void waitSessionCount(int count) throws InterruptedException {
+        for (var i = 0; i < 500 && rpcpHost.getSessionCount() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, rpcpHost.getSessionCount());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.integrationtest;
+
+import io.github.math.MyRPCPHostHandler;
+import io.github.math.SocketMock;
+import io.github.rpcp.RPCPCallDispatcher;
+import io.github.rpcp.RPCPHost;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The Java 21 layer is tested by the test-java21-layer execution of the build, on the packaged multi-release jar with
+ * the JDK 21 toolchain. The default test run load the classes directory, so the Java 11 layer is tested.
+ */
+public class VirtualThreadIT {
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_VirtualThreadExecutor_RunOnVirtualThread() throws Exception {
+        assumeTrue(RPCPCallDispatcher.isVirtualThreadSupported());
+
+        var rpcpHost = new RPCPHost<SocketMock>("api.glexpress.id/ws", new MyRPCPHostHandler<>());
+        var executor = RPCPCallDispatcher.newVirtualThreadExecutor();
+        rpcpHost.setCallExecutor(executor);
+        rpcpHost.addMethod("io.github.math.method.Thread", (rpcpSession, messageCall, rpcpBuilder) -> {
+            try {
+                var thread = Thread.currentThread();
+                // the test is compiled for Java 11
+                var virtual = Thread.class.getMethod("isVirtual").invoke(thread);
+                rpcpSession.sendMessage(virtual + " " + thread.getName());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        var socketMock = new SocketMock();
+        var messages = new LinkedBlockingQueue<String>();
+        rpcpHost.onGetMessage("CONNECT api.glexpress.id/ws RPCP/1.0\r\n" +
+                "agent: gle-openapi-js/1.0\r\n" +
+                "\r\n", socketMock);
+        socketMock.addMessageListener(messages::add);
+        rpcpHost.onGetMessage("CALL io.github.math.method.Thread\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n" +
+                "{}", socketMock);
+
+        var reply = messages.poll(5, TimeUnit.SECONDS);
+        assertNotNull(reply);
+        assertTrue(reply.startsWith("true rpcp-call-"), reply);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, rpcpHost.getCallDispatcher().getCompletedCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void NewVirtualThreadExecutor_Java11Layer_Unsupported() {
+        assumeFalse(RPCPCallDispatcher.isVirtualThreadSupported());
+
+        var error = assertThrows(UnsupportedOperationException.class, RPCPCallDispatcher::newVirtualThreadExecutor);
+        assertEquals("Virtual thread need Java 21 or newer", error.getMessage());
+    }
+}
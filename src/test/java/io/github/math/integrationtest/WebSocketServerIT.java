@@ -0,0 +1,594 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.math.integrationtest;
+
+import io.github.math.event.EventAlarm;
+import io.github.math.method.Add;
+import io.github.math.method.Upload;
+import io.github.rpcp.RPCPClient;
+import io.github.rpcp.RPCPHost;
+import io.github.rpcp.RPCPOutboundQueue;
+import io.github.rpcp.RPCPOverflowPolicy;
+import io.github.rpcp.model.HeaderEvent;
+import io.github.rpcp.model.MessageEvent;
+import io.github.rpcp.model.RPCPSession;
+import io.github.rpcp.transport.NioHostHandler;
+import io.github.rpcp.transport.NioWebSocketSession;
+import io.github.rpcp.transport.RPCPWebSocketServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebSocketServerIT {
+
+    static final String VHOST = "api.glexpress.id/ws";
+    static final String AGENT = "gle-openapi-java/1.0";
+    static final String ADD = "io.github.math.method.Add";
+    static final String UPLOAD = "io.github.math.method.Upload";
+    static final String EVENT_ALARM = "io.github.math.event.EventAlarm";
+    static final String CONNECT = "CONNECT " + VHOST + " RPCP/1.0\r\n" +
+            "agent: " + AGENT + "\r\n" +
+            "\r\n";
+
+    RPCPHost<NioWebSocketSession> rpcpHost;
+    RPCPWebSocketServer server;
+    URI uri;
+
+    @BeforeEach
+    void init() throws IOException {
+        rpcpHost = new RPCPHost<>(VHOST, new NioHostHandler<>());
+        rpcpHost.addMethod(new Add());
+        rpcpHost.addStreamingMethod(new Upload());
+        rpcpHost.addEvent(new EventAlarm());
+
+        server = new RPCPWebSocketServer(rpcpHost, new InetSocketAddress("127.0.0.1", 0));
+        server.setLoopCount(2);
+        server.setPath("/ws");
+        server.start();
+        uri = URI.create("ws://127.0.0.1:" + server.getPort() + "/ws");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_JdkWebSocketClient_Result() throws Exception {
+        try (var client = RPCPClient.connect(uri, VHOST, AGENT).get(5, TimeUnit.SECONDS)) {
+            var result = client.call(ADD, "application/json", "{\"a\": 1, \"b\": 2}").get(5, TimeUnit.SECONDS);
+            assertEquals("{\"result\": 3}", result.getBody());
+            assertEquals(1, rpcpHost.getSessionCount());
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_ManyClientPipelined_EveryResult() throws Exception {
+        var clients = new RPCPClient[8];
+        for (var i = 0; i < clients.length; i++) {
+            clients[i] = RPCPClient.connect(uri, VHOST, AGENT).get(5, TimeUnit.SECONDS);
+        }
+
+        var calls = new CompletableFuture<?>[800];
+        for (var i = 0; i < calls.length; i++) {
+            calls[i] = clients[i % clients.length].call(ADD, "application/json", "{\"a\": " + i + ", \"b\": 1}");
+        }
+        CompletableFuture.allOf(calls).get(10, TimeUnit.SECONDS);
+        assertEquals(8, rpcpHost.getSessionCount());
+
+        for (var client : clients) {
+            client.close();
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_AsyncMethodReadBodyLater_BodyNotOverwritten() throws Exception {
+        // one loop, the read buffer of the loop is shared by both client
+        server.close();
+        server = new RPCPWebSocketServer(rpcpHost, new InetSocketAddress("127.0.0.1", 0));
+        server.setLoopCount(1);
+        server.start();
+        uri = URI.create("ws://127.0.0.1:" + server.getPort() + "/ws");
+
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        rpcpHost.addAsyncMethod("io.github.math.method.AsyncEcho", (rpcpSession, messageCall, rpcpBuilder) -> {
+            started.countDown();
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rpcpBuilder.result("200", messageCall.getBody());
+            });
+        });
+
+        try (var first = RPCPClient.connect(uri, VHOST, AGENT).get(5, TimeUnit.SECONDS);
+             var second = RPCPClient.connect(uri, VHOST, AGENT).get(5, TimeUnit.SECONDS)) {
+            var body = "{\"data\": \"" + "a".repeat(200) + "\"}";
+            var echo = first.call("io.github.math.method.AsyncEcho", "application/json", body);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // the next read of the loop overwrite the bytes of the first call
+            var padded = "{\"a\": 1, \"b\": 2}" + " ".repeat(400);
+            assertEquals("{\"result\": 3}", second.call(ADD, "application/json", padded).get(5, TimeUnit.SECONDS).getBody());
+
+            release.countDown();
+            assertEquals(body, echo.get(5, TimeUnit.SECONDS).getBody());
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_BodyBiggerThanReadBuffer_StreamedToMethod() throws Exception {
+        var body = "x".repeat(1_000_000);
+        try (var client = RPCPClient.connect(uri, VHOST, AGENT).get(5, TimeUnit.SECONDS)) {
+            var result = client.call(UPLOAD, "application/json", body).get(10, TimeUnit.SECONDS);
+            assertEquals("{\"length\": 1000000}", result.getBody());
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Call_FragmentedMessage_StreamedToMethod() throws Exception {
+        var replies = new LinkedBlockingQueue<String>();
+        var webSocket = open(replies);
+        webSocket.sendText(CONNECT, true).get(5, TimeUnit.SECONDS);
+        assertTrue(replies.poll(5, TimeUnit.SECONDS).startsWith("CONNECTED"));
+
+        webSocket.sendText("CALL " + UPLOAD + "\r\ncontent-type: application/json\r\nid: 001\r\n\r\n", false)
+                .get(5, TimeUnit.SECONDS);
+        webSocket.sendText("{\"data\": \"", false).get(5, TimeUnit.SECONDS);
+        webSocket.sendText("caf\u00e9\"}", true).get(5, TimeUnit.SECONDS);
+
+        var reply = replies.poll(5, TimeUnit.SECONDS);
+        assertNotNull(reply);
+        assertTrue(reply.endsWith("{\"length\": 16}"), reply);
+        webSocket.abort();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Subscribe_Publish_EventReceived() throws Exception {
+        try (var client = RPCPClient.connect(uri, VHOST, AGENT).get(5, TimeUnit.SECONDS)) {
+            var events = new LinkedBlockingQueue<MessageEvent>();
+            client.subscribe(EVENT_ALARM, events::add);
+            // the subscribe is handled before the call on the same connection
+            client.call(ADD, "application/json", "{\"a\": 1, \"b\": 2}").get(5, TimeUnit.SECONDS);
+
+            var event = new MessageEvent(EVENT_ALARM, "200", new HeaderEvent("application/json", "004"));
+            event.setBody("{\"name\":\"wake up\"}");
+            assertEquals(1, rpcpHost.publish(event));
+            assertEquals("{\"name\":\"wake up\"}", events.poll(5, TimeUnit.SECONDS).getBody());
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Ping_WebSocketPing_Pong() throws Exception {
+        var pong = new CompletableFuture<String>();
+        var webSocket = HttpClient.newHttpClient().newWebSocketBuilder()
+                .buildAsync(uri, new WebSocket.Listener() {
+                    @Override
+                    public CompletionStage<?> onPong(WebSocket webSocket, ByteBuffer message) {
+                        pong.complete(StandardCharsets.UTF_8.decode(message).toString());
+                        return null;
+                    }
+                }).get(5, TimeUnit.SECONDS);
+
+        webSocket.sendPing(ByteBuffer.wrap("hello".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("hello", pong.get(5, TimeUnit.SECONDS));
+        webSocket.abort();
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_ClientClose_SessionRemoved() throws Exception {
+        var client = RPCPClient.connect(uri, VHOST, AGENT).get(5, TimeUnit.SECONDS);
+        assertEquals(1, rpcpHost.getSessionCount());
+
+        client.close();
+        client.getCloseFuture().get(5, TimeUnit.SECONDS);
+        waitSessionCount(0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_ServerClose_ClientClosed() throws Exception {
+        var client = RPCPClient.connect(uri, VHOST, AGENT).get(5, TimeUnit.SECONDS);
+
+        server.close();
+        client.getCloseFuture().get(5, TimeUnit.SECONDS);
+        assertFalse(client.isOpen());
+        assertEquals(0, rpcpHost.getSessionCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Handshake_WrongPath_NotFound() throws Exception {
+        try (var socket = new Socket("127.0.0.1", server.getPort())) {
+            var request = "GET /other HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    "Upgrade: websocket\r\n" +
+                    "Connection: Upgrade\r\n" +
+                    "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                    "Sec-WebSocket-Version: 13\r\n" +
+                    "\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.ISO_8859_1));
+            socket.setSoTimeout(5000);
+
+            var response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+            assertTrue(response.startsWith("HTTP/1.1 404 Not Found\r\n"), response);
+        }
+        assertEquals(0, rpcpHost.getSessionCount());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Frame_NotMasked_ProtocolErrorClose() throws Exception {
+        try (var socket = new Socket("127.0.0.1", server.getPort())) {
+            var request = "GET /ws HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    "Upgrade: websocket\r\n" +
+                    "Connection: Upgrade\r\n" +
+                    "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                    "Sec-WebSocket-Version: 13\r\n" +
+                    "\r\n";
+            var output = socket.getOutputStream();
+            output.write(request.getBytes(StandardCharsets.ISO_8859_1));
+            // text frame "hi" without mask
+            output.write(new byte[]{(byte) 0x81, 0x02, 'h', 'i'});
+            socket.setSoTimeout(5000);
+
+            var response = socket.getInputStream().readAllBytes();
+            var text = new String(response, StandardCharsets.ISO_8859_1);
+            assertTrue(text.startsWith("HTTP/1.1 101 Switching Protocols\r\n"), text);
+
+            // the last frame is close with status 1002
+            var close = ByteBuffer.wrap(response, response.length - 4, 4);
+            assertEquals((byte) 0x88, close.get());
+            assertEquals(2, close.get());
+            assertEquals(1002, close.getShort());
+        }
+        waitSessionCount(0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Frame_OverMaxMessageSize_MessageTooBigClose() throws Exception {
+        try (var socket = openRaw()) {
+            // text frame declaring 2^40 bytes, masked with key 0
+            var output = socket.getOutputStream();
+            output.write(ByteBuffer.allocate(14).put((byte) 0x81).put((byte) 0xFF).putLong(1L << 40).putInt(0)
+                    .array());
+
+            assertEquals(1009, lastCloseStatus(socket.getInputStream().readAllBytes()));
+        }
+        waitWebsocketSessionCount(0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Frame_FragmentsOverMaxMessageSize_MessageTooBigClose() throws Exception {
+        server.close();
+        server = new RPCPWebSocketServer(rpcpHost, new InetSocketAddress("127.0.0.1", 0));
+        server.setLoopCount(1);
+        server.setMaxMessageSize(100);
+        server.start();
+
+        try (var socket = openRaw()) {
+            var output = socket.getOutputStream();
+            output.write(frame(0x01, new byte[60]));
+            output.write(frame(0x80, new byte[60]));
+
+            assertEquals(1009, lastCloseStatus(socket.getInputStream().readAllBytes()));
+        }
+        waitWebsocketSessionCount(0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Frame_InvalidUtf8_InvalidPayloadClose() throws Exception {
+        try (var socket = openRaw()) {
+            socket.getOutputStream().write(frame(0x81, new byte[]{'o', 'k', (byte) 0xC3, 0x28}));
+
+            assertEquals(1007, lastCloseStatus(socket.getInputStream().readAllBytes()));
+        }
+        waitWebsocketSessionCount(0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Frame_Utf8SplitInFragments_Accepted() throws Exception {
+        try (var socket = openRaw()) {
+            var connect = CONNECT.replace("agent: ", "agent: \u00e9").getBytes(StandardCharsets.UTF_8);
+            var split = CONNECT.indexOf("agent: ") + 8;
+            var output = socket.getOutputStream();
+            output.write(frame(0x01, Arrays.copyOfRange(connect, 0, split)));
+            output.write(frame(0x80, Arrays.copyOfRange(connect, split, connect.length)));
+
+            waitSessionCount(1);
+        }
+        waitSessionCount(0);
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_ReservedStatus_ProtocolErrorClose() throws Exception {
+        for (var code : new int[]{999, 1004, 1006, 1015, 1016, 2999, 5000}) {
+            try (var socket = openRaw()) {
+                var payload = ByteBuffer.allocate(2).putShort((short) code).array();
+                socket.getOutputStream().write(frame(0x88, payload));
+                assertEquals(1002, lastCloseStatus(socket.getInputStream().readAllBytes()), "code " + code);
+            }
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_OneBytePayload_ProtocolErrorClose() throws Exception {
+        try (var socket = openRaw()) {
+            socket.getOutputStream().write(frame(0x88, new byte[]{0x03}));
+            assertEquals(1002, lastCloseStatus(socket.getInputStream().readAllBytes()));
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_InvalidUtf8Reason_InvalidPayloadClose() throws Exception {
+        try (var socket = openRaw()) {
+            socket.getOutputStream().write(frame(0x88, new byte[]{0x03, (byte) 0xE8, (byte) 0xC0, (byte) 0xAF}));
+            assertEquals(1007, lastCloseStatus(socket.getInputStream().readAllBytes()));
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Close_ValidStatus_Echoed() throws Exception {
+        for (var code : new int[]{1000, 1001, 3000, 4999}) {
+            try (var socket = openRaw()) {
+                var reason = "caf\u00e9".getBytes(StandardCharsets.UTF_8);
+                var payload = ByteBuffer.allocate(2 + reason.length).putShort((short) code).put(reason).array();
+                socket.getOutputStream().write(frame(0x88, payload));
+                assertEquals(code, lastCloseStatus(socket.getInputStream().readAllBytes()), "code " + code);
+            }
+        }
+        try (var socket = openRaw()) {
+            // no status is answered with normal closure
+            socket.getOutputStream().write(frame(0x88, new byte[0]));
+            assertEquals(1000, lastCloseStatus(socket.getInputStream().readAllBytes()));
+        }
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Send_OverMaxPendingBytes_SlowConsumerClosed() throws Exception {
+        server.close();
+        server = new RPCPWebSocketServer(rpcpHost, new InetSocketAddress("127.0.0.1", 0));
+        server.setLoopCount(1);
+        server.setMaxPendingBytes(256 * 1024);
+        server.start();
+
+        // the frames are queued on the loop thread, nothing is written until the method return
+        var sent = new AtomicInteger();
+        var body = "x".repeat(64 * 1024);
+        rpcpHost.addMethod("io.github.math.method.Flood", (rpcpSession, messageCall, rpcpBuilder) -> {
+            try {
+                for (var i = 0; i < 64; i++) {
+                    rpcpSession.sendMessage(body);
+                    sent.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                // closed as slow consumer
+            }
+        });
+
+        try (var socket = openRaw()) {
+            var output = socket.getOutputStream();
+            output.write(frame(0x81, CONNECT.getBytes(StandardCharsets.UTF_8)));
+            waitSessionCount(1);
+            output.write(frame(0x81, ("CALL io.github.math.method.Flood\r\n" +
+                    "content-type: application/json\r\n" +
+                    "id: 001\r\n" +
+                    "\r\n" +
+                    "{}").getBytes(StandardCharsets.UTF_8)));
+
+            socket.getInputStream().readAllBytes();
+        }
+        waitSessionCount(0);
+        assertTrue(sent.get() < 64, "sent " + sent.get());
+    }
+
+    @Tag("IntegrationTest")
+    @Test
+    void Send_SlowClientDropOldest_WriterPausedNotClosed() throws Exception {
+        var writerExecutor = RPCPOutboundQueue.newWriterExecutor(1);
+        rpcpHost.setOutboundQueue(8, RPCPOverflowPolicy.DROP_OLDEST, writerExecutor);
+        server.close();
+        server = new RPCPWebSocketServer(rpcpHost, new InetSocketAddress("127.0.0.1", 0));
+        server.setLoopCount(1);
+        server.setWritableWatermark(64 * 1024);
+        server.setMaxPendingBytes(1024 * 1024);
+        server.start();
+
+        var flood = new CompletableFuture<RPCPSession>();
+        rpcpHost.addMethod("io.github.math.method.Flood", (rpcpSession, messageCall, rpcpBuilder) ->
+                flood.complete(rpcpSession));
+
+        try (var socket = openRaw()) {
+            var output = socket.getOutputStream();
+            output.write(frame(0x81, CONNECT.getBytes(StandardCharsets.UTF_8)));
+            waitSessionCount(1);
+            output.write(frame(0x81, ("CALL io.github.math.method.Flood\r\n" +
+                    "content-type: application/json\r\n" +
+                    "id: 001\r\n" +
+                    "\r\n" +
+                    "{}").getBytes(StandardCharsets.UTF_8)));
+            var rpcpSession = flood.get(5, TimeUnit.SECONDS);
+            var queue = rpcpHost.getOutboundQueue(rpcpSession.getId());
+
+            // 16 MiB to a client that read nothing, every message wait the writer to drain the queue until paused
+            var body = "x".repeat(16 * 1024);
+            for (var i = 0; i < 1000; i++) {
+                rpcpSession.sendMessage(i + " " + body);
+                for (var j = 0; j < 100 && queue.getQueueDepth() > 0 && queue.getTarget().isWritable(); j++) {
+                    Thread.sleep(1);
+                }
+            }
+
+            // the writer is paused under the max pending bytes, the session is not closed as slow consumer
+            assertFalse(queue.getTarget().isWritable());
+            assertTrue(queue.getDroppedCount() > 0);
+            assertTrue(queue.isOpen());
+
+            var input = new DataInputStream(socket.getInputStream());
+            var received = 0;
+            String last;
+            do {
+                last = readText(input);
+                if (Character.isDigit(last.charAt(0))) {
+                    received++;
+                }
+            } while (!last.startsWith("999 "));
+            assertTrue(received < 1000, "received " + received);
+            assertEquals(1, rpcpHost.getSessionCount());
+        } finally {
+            writerExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Open websocket on a plain socket, the 101 response is read
+     */
+    private Socket openRaw() throws IOException {
+        var socket = new Socket("127.0.0.1", server.getPort());
+        socket.setSoTimeout(5000);
+        var request = "GET /ws HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                "Sec-WebSocket-Version: 13\r\n" +
+                "\r\n";
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.ISO_8859_1));
+
+        var input = socket.getInputStream();
+        var response = new StringBuilder();
+        while (!response.toString().endsWith("\r\n\r\n")) {
+            response.append((char) input.read());
+        }
+        assertTrue(response.toString().startsWith("HTTP/1.1 101 Switching Protocols\r\n"), response.toString());
+        return socket;
+    }
+
+    /**
+     * Client frame masked with key 0, the payload is sent as is
+     */
+    private static byte[] frame(int b0, byte[] payload) {
+        var header = payload.length < 126 ? 6 : 8;
+        var frame = ByteBuffer.allocate(header + payload.length).put((byte) b0);
+        if (payload.length < 126) {
+            frame.put((byte) (0x80 | payload.length));
+        } else {
+            frame.put((byte) (0x80 | 126)).putShort((short) payload.length);
+        }
+        return frame.putInt(0).put(payload).array();
+    }
+
+    /**
+     * @return payload of the next server text frame, server frame is not masked
+     */
+    private static String readText(DataInputStream input) throws IOException {
+        assertEquals(0x81, input.readUnsignedByte());
+        long length = input.readUnsignedByte();
+        if (length == 126) {
+            length = input.readUnsignedShort();
+        } else if (length == 127) {
+            length = input.readLong();
+        }
+        var payload = new byte[(int) length];
+        input.readFully(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return status of the close frame at the end of the bytes
+     */
+    private static int lastCloseStatus(byte[] response) {
+        var close = ByteBuffer.wrap(response, response.length - 4, 4);
+        assertEquals((byte) 0x88, close.get());
+        assertEquals(2, close.get());
+        return close.getShort() & 0xFFFF;
+    }
+
+    private WebSocket open(LinkedBlockingQueue<String> replies) throws Exception {
+        return HttpClient.newHttpClient().newWebSocketBuilder()
+                .buildAsync(uri, new WebSocket.Listener() {
+                    final StringBuilder parts = new StringBuilder();
+
+                    @Override
+                    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                        parts.append(data);
+                        if (last) {
+                            replies.add(parts.toString());
+                            parts.setLength(0);
+                        }
+                        webSocket.request(1);
+                        return null;
+                    }
+                }).get(5, TimeUnit.SECONDS);
+    }
+
+    private void waitWebsocketSessionCount(int count) throws InterruptedException {
+        for (var i = 0; i < 500 && rpcpHost.getWebsocketSessionCount() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, rpcpHost.getWebsocketSessionCount());
+    }
+
+    private void waitSessionCount(int count) throws InterruptedException {
+        for (var i = 0; i < 500 && rpcpHost.getSessionCount() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, rpcpHost.getSessionCount());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.method;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.rpcp.RPCPBuilder;
+import io.github.rpcp.model.AsyncRPCPMethod;
+import io.github.rpcp.model.MessageCall;
+import io.github.rpcp.model.MessageResult;
+import io.github.rpcp.model.RPCPSession;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+public class AsyncAdd implements AsyncRPCPMethod {
+    @Override
+    public CompletionStage<MessageResult> execute(RPCPSession rpcpSession, MessageCall messageCall, RPCPBuilder rpcpBuilder) {
+        return CompletableFuture.supplyAsync(() -> {
+            var objectMapper = new ObjectMapper();
+
+            try {
+                var bodyJson = objectMapper.readTree(messageCall.getBody());
+                var c = bodyJson.get("a").asInt() + bodyJson.get("b").asInt();
+                return rpcpBuilder.result("200", "{\"result\": " + c + "}");
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Body is not valid");
+            }
+        });
+    }
+}
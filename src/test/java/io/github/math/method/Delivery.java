@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.math.method;
+
+import io.github.rpcp.RPCPBuilder;
+import io.github.rpcp.RPCPUtils;
+import io.github.rpcp.model.MessageCall;
+import io.github.rpcp.model.RPCPMethod;
+import io.github.rpcp.model.RPCPSession;
+
+public class Delivery implements RPCPMethod {
+    @Override
+    public void execute(RPCPSession rpcpSession, MessageCall messageCall, RPCPBuilder rpcpBuilder) {
+        try {
+            var planingCode = new String[]{"SEARCH_DRIVER", "FOUND_DRIVER"};
+            rpcpSession.sendMessage(RPCPUtils.write(rpcpBuilder.plan(planingCode, "{\"step\": 2}")));
+            rpcpSession.sendMessage(RPCPUtils.write(rpcpBuilder.progress("SEARCH_DRIVER", "200", "{\"driver\": null}")));
+            rpcpSession.sendMessage(RPCPUtils.write(rpcpBuilder.progress("FOUND_DRIVER", "200", "{\"driver\": \"Eric\"}")));
+            rpcpSession.sendMessage(RPCPUtils.write(rpcpBuilder.result("FOUND_DRIVER", "200", "{\"driver\": \"Eric\"}")));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
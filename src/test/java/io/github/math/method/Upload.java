@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.math.method;
+
+import io.github.rpcp.RPCPBuilder;
+import io.github.rpcp.RPCPUtils;
+import io.github.rpcp.model.MessageCall;
+import io.github.rpcp.model.RPCPBodyStream;
+import io.github.rpcp.model.RPCPSession;
+import io.github.rpcp.model.RPCPStreamingMethod;
+
+public class Upload implements RPCPStreamingMethod {
+    @Override
+    public RPCPBodyStream execute(RPCPSession rpcpSession, MessageCall messageCall, RPCPBuilder rpcpBuilder) {
+        return new RPCPBodyStream() {
+            long length = 0;
+
+            @Override
+            public void onBody(CharSequence chunk) {
+                length += chunk.length();
+            }
+
+            @Override
+            public void onEnd() {
+                var xn = rpcpBuilder.result("200", "{\"length\": " + length + "}");
+                String z = null;
+                try {
+                    z = RPCPUtils.write(xn);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                rpcpSession.sendMessage(z);
+            }
+        };
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RPCPCodecTest {
+
+    @Test
+    void Read_CallValid_Success() throws Exception {
+        var string = "CALL procedure.sum\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n" +
+                "{\"name\":\"Caf\u00e9 \u2615\"}";
+        var buffer = ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8));
+
+        var rpcpMessage = RPCPCodec.read(buffer);
+        assertTrue(rpcpMessage instanceof MessageCall);
+        var call = (MessageCall) rpcpMessage;
+        assertEquals("procedure.sum", call.getMethod());
+        assertEquals("application/json", call.getHeader().getContentType());
+        assertEquals("001", call.getHeader().getId());
+        assertEquals("{\"name\":\"Caf\u00e9 \u2615\"}", call.getBody());
+        assertEquals(buffer.limit(), buffer.position());
+    }
+
+    @Test
+    void Read_CallDirectBuffer_BodyBufferNotDecoded() throws Exception {
+        var string = "CALL procedure.sum\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n" +
+                "{\"a\":10, \"b\":20}";
+        var bytes = string.getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+        var call = (MessageCall) RPCPCodec.read(buffer);
+        var body = call.getBodyBuffer();
+        assertEquals("{\"a\":10, \"b\":20}", StandardCharsets.UTF_8.decode(body).toString());
+        assertEquals("{\"a\":10, \"b\":20}", call.getBody());
+    }
+
+    @Test
+    void Read_ConnectedValid_SameAsString() throws Exception {
+        var string = "CONNECTED api.rpcp.org RPCP/1.0\r\n" +
+                "server: Apache/1.3.9\r\n" +
+                "event: event.onRequest, event.onCustomerCancel\r\n" +
+                "method: procedure.sum, procedure.add\r\n" +
+                "\r\n";
+
+        var fromBytes = RPCPCodec.read(ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8)));
+        var fromString = RPCPUtils.read(string);
+        assertEquals(fromString.toString(), fromBytes.toString());
+    }
+
+    @Test
+    void Read_ResultMultiLineBody_LineBreakRemoved() throws Exception {
+        var string = "RESULT procedure.sum 200\r\n" +
+                "Content-Type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n" +
+                "{\"result\":\r\n30}\r\n";
+
+        var result = (MessageResult) RPCPCodec.read(ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("application/json", result.getHeader().getContentType());
+        assertEquals("{\"result\":30}", result.getBody());
+    }
+
+    @Test
+    void Read_CallWrongCommand_ExceptionInvalidRPCP() {
+        var exception = assertThrows(Exception.class, () -> {
+            var string = "CAL procedure.sum\r\n" +
+                    "content-type: application/json\r\n" +
+                    "id: 001\r\n" +
+                    "\r\n";
+            RPCPCodec.read(ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8)));
+        });
+        assertEquals("Invalid RPCP", exception.getMessage());
+    }
+
+    @Test
+    void Read_ConnectInvalidProtocol_ExceptionInvalidProtocolFormat() {
+        var exception = assertThrows(Exception.class, () -> {
+            var string = "CONNECT api.rpcp.org RPC/1.0\r\n" +
+                    "agent: menjangan-js/1.0\r\n" +
+                    "\r\n";
+            RPCPCodec.read(ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8)));
+        });
+        assertEquals("Incorrect Protocol Format", exception.getMessage());
+    }
+
+    @Test
+    void Write_EventValid_SameAsString() throws Exception {
+        var event = new MessageEvent("event.price", "200", new HeaderEvent("application/json", "004"));
+        event.setBody("{\"symbol\":\"\u20acUR\",\"emoji\":\"\uD83D\uDE80\"}");
+
+        var buffer = ByteBuffer.allocate(256);
+        var length = RPCPCodec.write(event, buffer);
+        buffer.flip();
+
+        assertEquals(length, buffer.remaining());
+        assertArrayEquals(RPCPUtils.write(event).getBytes(StandardCharsets.UTF_8), toArray(buffer));
+    }
+
+    @Test
+    void Write_BufferTooSmall_ExceptionBufferOverflow() {
+        var call = new MessageCall("procedure.sum", new HeaderCall("application/json", "001"));
+        call.setBody("{\"a\": 10, \"b\": 10}");
+
+        var buffer = ByteBuffer.allocate(16);
+        assertThrows(BufferOverflowException.class, () -> RPCPCodec.write(call, buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        var bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.MessageError;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RPCPErrorFramesTest {
+
+    @Test
+    void Get_InvalidRPCP_SameAsWrite() throws Exception {
+        var errorFrames = new RPCPErrorFrames();
+        var frame = errorFrames.get(RPCPErrorFrames.INVALID_RPCP);
+
+        var error = (MessageError) RPCPUtils.read(frame.getText());
+        assertEquals(".internal", error.getMethod());
+        assertEquals("Invalid RPCP", error.getHeader().getMessage());
+        assertEquals("application/json", error.getHeader().getContentType());
+        assertEquals("{\"detail\":\"Invalid RPCP, check your RPCP message\",\"code\":\"INVALID_RPCP\"}", error.getBody());
+        assertEquals(RPCPUtils.write(error), frame.getText());
+    }
+
+    @Test
+    void Get_Bytes_SameAsText() {
+        var frame = new RPCPErrorFrames().get(RPCPErrorFrames.EVENT_NOT_FOUND);
+
+        var first = frame.getBytes();
+        var second = frame.getBytes();
+        assertEquals(frame.getText(), StandardCharsets.UTF_8.decode(first).toString());
+        assertEquals(frame.getText(), StandardCharsets.UTF_8.decode(second).toString());
+        assertTrue(first.isReadOnly());
+    }
+
+    @Test
+    void Register_CustomError_Success() throws Exception {
+        var errorFrames = new RPCPErrorFrames();
+        errorFrames.register("QUOTA_EXCEEDED", "Quota exceeded", "Your quota is exceeded", "QUOTA_EXCEEDED");
+
+        var error = (MessageError) RPCPUtils.read(errorFrames.get("QUOTA_EXCEEDED").getText());
+        assertEquals("Quota exceeded", error.getHeader().getMessage());
+        assertEquals("{\"detail\":\"Your quota is exceeded\",\"code\":\"QUOTA_EXCEEDED\"}", error.getBody());
+        assertNull(errorFrames.get("NOT_REGISTERED"));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RPCPLatencyHistogramTest {
+
+    @Test
+    void Bucket_EveryValue_InsideBucketBound() {
+        var previous = 0;
+        for (long nanos = 0; nanos < 1 << 20; nanos++) {
+            var bucket = RPCPLatencyHistogram.bucket(nanos);
+            assertTrue(bucket == previous || bucket == previous + 1, "bucket of " + nanos);
+            assertTrue(nanos <= RPCPLatencyHistogram.bucketUpperBound(bucket));
+            if (bucket > 0) {
+                assertTrue(nanos > RPCPLatencyHistogram.bucketUpperBound(bucket - 1));
+            }
+            previous = bucket;
+        }
+        assertEquals(RPCPLatencyHistogram.BUCKETS - 1, RPCPLatencyHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void Snapshot_UniformValues_PercentileWithinBucketError() {
+        var histogram = new RPCPLatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        var snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000_000, snapshot.getMax());
+        assertEquals(50_000_500, snapshot.getMean(), 1);
+
+        var p50 = snapshot.getValueAtPercentile(50);
+        var p99 = snapshot.getValueAtPercentile(99);
+        assertTrue(p50 >= 50_000_000 && p50 <= 50_000_000 * 1.07, "p50 " + p50);
+        assertTrue(p99 >= 99_000_000 && p99 <= 99_000_000 * 1.07, "p99 " + p99);
+        assertEquals(100_000_000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    void Snapshot_Empty_Zero() {
+        var snapshot = new RPCPLatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMean());
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+    }
+
+    @Test
+    void Record_ConcurrentThreads_NoLostCount() throws Exception {
+        var histogram = new RPCPLatencyHistogram();
+        var threads = new ArrayList<Thread>();
+        var start = new CountDownLatch(1);
+        for (var t = 0; t < 8; t++) {
+            var thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (var i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        var snapshot = histogram.snapshot();
+        assertEquals(800_000, snapshot.getCount());
+        assertEquals(8L * (99_999L * 100_000L / 2), snapshot.getSum());
+        assertEquals(99_999, snapshot.getMax());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.MessageCall;
+import io.github.rpcp.model.MessageConnected;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RPCPParserTest {
+
+    @Test
+    void Read_CallMultiLineBody_LineBreakRemoved() throws Exception {
+        var string = "CALL procedure.sum\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n" +
+                "{\"a\":10,\r\n" +
+                "\"b\":20}\r\n";
+
+        var call = (MessageCall) RPCPParser.read(string);
+        assertEquals("{\"a\":10,\"b\":20}", call.getBody());
+    }
+
+    @Test
+    void Read_CallHeaderCaseInsensitiveAndUnknownHeader_Success() throws Exception {
+        var string = "CALL procedure.sum\r\n" +
+                "Content-Type: application/json\r\n" +
+                "x-trace: abc\r\n" +
+                "ID:001\r\n" +
+                "\r\n";
+
+        var call = (MessageCall) RPCPParser.read(string);
+        assertEquals("application/json", call.getHeader().getContentType());
+        assertEquals("001", call.getHeader().getId());
+        assertEquals("", call.getBody());
+    }
+
+    @Test
+    void Read_CallHeaderValueWithColon_Success() throws Exception {
+        var string = "CALL procedure.sum\r\n" +
+                "content-type: application/json\r\n" +
+                "id: urn:call:001\r\n" +
+                "\r\n";
+
+        var call = (MessageCall) RPCPParser.read(string);
+        assertEquals("urn:call:001", call.getHeader().getId());
+    }
+
+    @Test
+    void Read_CallHeaderWithoutColon_ExceptionInvalidRPCP() {
+        var exception = assertThrows(Exception.class, () -> {
+            var string = "CALL procedure.sum\r\n" +
+                    "content-type application/json\r\n" +
+                    "id: 001\r\n" +
+                    "\r\n";
+            RPCPParser.read(string);
+        });
+        assertEquals("Invalid RPCP", exception.getMessage());
+    }
+
+    @Test
+    void Read_ConnectedTrailingComma_Success() throws Exception {
+        var string = "CONNECTED api.rpcp.org RPCP/1.0\r\n" +
+                "server: Apache/1.3.9\r\n" +
+                "event: event.onRequest,\r\n" +
+                "method: procedure.sum , procedure.add\r\n" +
+                "\r\n";
+
+        var connected = (MessageConnected) RPCPParser.read(string);
+        assertEquals("[event.onRequest]", Arrays.toString(connected.getHeader().getEvent()));
+        assertEquals("[procedure.sum, procedure.add]", Arrays.toString(connected.getHeader().getMethod()));
+    }
+
+    @Test
+    void Read_EmptyString_ExceptionInvalidRPCP() {
+        var exception = assertThrows(Exception.class, () -> RPCPParser.read(""));
+        assertEquals("Invalid RPCP", exception.getMessage());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RPCPReconnectingClientTest {
+
+    @Test
+    void Backoff_EveryAttempt_BetweenZeroAndCeiling() {
+        for (var attempt = 0; attempt < 40; attempt++) {
+            var ceiling = Math.min(30_000, 100L << Math.min(attempt, 30));
+            for (var i = 0; i < 1000; i++) {
+                var delay = RPCPReconnectingClient.backoff(attempt, 100, 30_000);
+                assertTrue(delay >= 0 && delay <= ceiling, "attempt " + attempt + " delay " + delay);
+            }
+        }
+    }
+
+    @Test
+    void Backoff_ManyClient_Spread() {
+        // clients of a restarted host does not reconnect at the same time
+        var early = 0;
+        for (var i = 0; i < 10_000; i++) {
+            if (RPCPReconnectingClient.backoff(3, 100, 30_000) < 400) {
+                early++;
+            }
+        }
+        assertTrue(early > 4000 && early < 6000, "early " + early);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.MessageCall;
+import io.github.rpcp.model.MessageConnect;
+import io.github.rpcp.model.RPCPMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RPCPStreamDecoderTest {
+
+    private final List<String> events = new ArrayList<>();
+    private final StringBuilder body = new StringBuilder();
+    private RPCPMessage head;
+    private Exception error;
+    private RPCPStreamDecoder decoder;
+
+    @BeforeEach
+    void init() {
+        decoder = new RPCPStreamDecoder(new RPCPStreamDecoder.Listener() {
+            @Override
+            public void onHead(RPCPMessage message) {
+                events.add("head");
+                head = message;
+            }
+
+            @Override
+            public void onBody(CharSequence chunk) {
+                events.add("body");
+                body.append(chunk);
+            }
+
+            @Override
+            public void onEnd() {
+                events.add("end");
+            }
+
+            @Override
+            public void onError(Exception e) {
+                events.add("error");
+                error = e;
+            }
+        }, 64);
+    }
+
+    @Test
+    void Feed_CallSplitBytes_HeadBeforeBody() {
+        var string = "CALL procedure.sum\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n" +
+                "{\"name\":\r\n\"Caf\u00e9 \uD83D\uDE80\"}";
+        var bytes = string.getBytes(StandardCharsets.UTF_8);
+
+        // one byte per part, split every line break and multibyte character
+        for (var i = 0; i < bytes.length; i++) {
+            decoder.feed(ByteBuffer.wrap(bytes, i, 1));
+            if (i == string.indexOf("\r\n\r\n") + 3) {
+                assertEquals(List.of("head"), events);
+            }
+        }
+        decoder.end();
+
+        assertTrue(head instanceof MessageCall);
+        var call = (MessageCall) head;
+        assertEquals("procedure.sum", call.getMethod());
+        assertEquals("001", call.getHeader().getId());
+        assertEquals("{\"name\":\"Caf\u00e9 \uD83D\uDE80\"}", body.toString());
+        assertEquals("end", events.get(events.size() - 1));
+    }
+
+    @Test
+    void Feed_ConnectWithoutBlankLine_HeadAndEnd() {
+        decoder.feed("CONNECT api.rpcp.org RPCP/1.0\r\n");
+        decoder.feed("agent: menjangan-js/1.0\r\n");
+        assertTrue(events.isEmpty());
+
+        decoder.end();
+        assertEquals(List.of("head", "end"), events);
+        assertTrue(head instanceof MessageConnect);
+    }
+
+    @Test
+    void Feed_TwoMessages_DecoderReused() {
+        decoder.feed("CALL procedure.sum\r\ncontent-type: application/json\r\nid: 001\r\n\r\nfirst");
+        decoder.end();
+        decoder.feed("CALL procedure.sum\r\ncontent-type: application/json\r\nid: 002\r\n\r\nsecond");
+        decoder.end();
+
+        assertEquals(List.of("head", "body", "end", "head", "body", "end"), events);
+        assertEquals("002", ((MessageCall) head).getHeader().getId());
+        assertEquals("firstsecond", body.toString());
+    }
+
+    @Test
+    void Feed_HeadTooLarge_ErrorInvalidRPCP() {
+        decoder.feed("CALL procedure.sum\r\n");
+        decoder.feed("x-padding: " + "x".repeat(100) + "\r\n");
+        decoder.feed("\r\nbody");
+        decoder.end();
+
+        assertEquals(List.of("error"), events);
+        assertEquals("Invalid RPCP", error.getMessage());
+    }
+
+    @Test
+    void Feed_WrongCommand_ErrorInvalidRPCP() {
+        decoder.feed("CAL procedure.sum\r\ncontent-type: application/json\r\nid: 001\r\n\r\n");
+        decoder.feed("ignored body");
+        decoder.end();
+
+        assertEquals(List.of("error"), events);
+        assertEquals("Invalid RPCP", error.getMessage());
+    }
+}
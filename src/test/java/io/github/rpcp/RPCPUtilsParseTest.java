@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.MessageCall;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RPCPUtilsParseTest {
+
+    @Test
+    void Parse_CallValid_Success() {
+        var string = "CALL procedure.sum\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n" +
+                "{\"a\": 10, \"b\": 10}";
+
+        var result = RPCPUtils.parse(string);
+        assertTrue(result.isSuccess());
+        assertNull(result.getError());
+        var call = (MessageCall) result.getMessage();
+        assertEquals("procedure.sum", call.getMethod());
+        assertEquals("{\"a\": 10, \"b\": 10}", call.getBody());
+    }
+
+    @Test
+    void Parse_WrongCommand_InvalidCommand() {
+        var result = RPCPUtils.parse("CAL procedure.sum\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n");
+        assertFalse(result.isSuccess());
+        assertNull(result.getMessage());
+        assertEquals(RPCPParseError.INVALID_COMMAND, result.getError());
+        assertEquals(RPCPParseError.INVALID_COMMAND, RPCPUtils.parse("").getError());
+    }
+
+    @Test
+    void Parse_HeaderWithoutColon_BadHeader() {
+        var result = RPCPUtils.parse("CALL procedure.sum\r\n" +
+                "content-type application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n");
+        assertEquals(RPCPParseError.BAD_HEADER, result.getError());
+    }
+
+    @Test
+    void Parse_CallWithoutId_MissingHeader() {
+        var result = RPCPUtils.parse("CALL procedure.sum\r\n" +
+                "content-type: application/json\r\n" +
+                "\r\n");
+        assertEquals(RPCPParseError.MISSING_HEADER, result.getError());
+    }
+
+    @Test
+    void Parse_ResultWithoutStatus_MissingArgument() {
+        var result = RPCPUtils.parse("RESULT procedure.sum\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n");
+        assertEquals(RPCPParseError.MISSING_ARGUMENT, result.getError());
+    }
+
+    @Test
+    void Parse_ConnectInvalidProtocol_BadProtocol() {
+        var result = RPCPUtils.parse("CONNECT api.rpcp.org RPC/1.0\r\n" +
+                "agent: menjangan-js/1.0\r\n" +
+                "\r\n");
+        assertEquals(RPCPParseError.BAD_PROTOCOL, result.getError());
+    }
+
+    @Test
+    void Parse_SameError_SameResult() {
+        var first = RPCPUtils.parse("CAL procedure.sum\r\n\r\n");
+        var second = RPCPUtils.parse("PIN\r\n\r\n");
+        assertSame(first, second);
+    }
+
+    @Test
+    void Parse_Bytes_SameAsString() {
+        var string = "CONNECT api.rpcp.org RPC/1.0\r\n" +
+                "agent: menjangan-js/1.0\r\n" +
+                "\r\n";
+        var buffer = ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8));
+
+        var result = RPCPCodec.parse(buffer);
+        assertEquals(RPCPParseError.BAD_PROTOCOL, result.getError());
+        assertEquals(buffer.limit(), buffer.position());
+    }
+
+    @Test
+    void Read_EveryError_ExceptionMessageOfError() {
+        var exception = assertThrows(Exception.class, () -> RPCPUtils.parse("RESULT procedure.sum\r\n" +
+                "content-type: application/json\r\n" +
+                "id: 001\r\n" +
+                "\r\n").getMessageOrThrow());
+        assertEquals("Parse error", exception.getMessage());
+        assertEquals("Invalid RPCP", RPCPParseError.BAD_HEADER.getMessage());
+        assertEquals("Incorrect Protocol Format", RPCPParseError.BAD_PROTOCOL.getMessage());
+        assertEquals(RPCPErrorFrames.INVALID_RPCP, RPCPParseError.MISSING_HEADER.getErrorFrameKey());
+        assertNull(RPCPParseError.MISSING_ARGUMENT.getErrorFrameKey());
+    }
+}
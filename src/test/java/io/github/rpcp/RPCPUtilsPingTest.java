@@ -0,0 +1,48 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.MessagePing;
+import io.github.rpcp.model.MessagePong;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RPCPUtilsPingTest {
+
+    @Test
+    void Read_PingValid_Success() throws Exception {
+        var rpcpMessage = RPCPUtils.read("PING\r\n" +
+                "\r\n");
+        assertTrue(rpcpMessage instanceof MessagePing);
+    }
+
+    @Test
+    void Read_PongBytes_Success() throws Exception {
+        var rpcpMessage = RPCPCodec.read(ByteBuffer.wrap("PONG\r\n\r\n".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(rpcpMessage instanceof MessagePong);
+    }
+
+    @Test
+    void Write_PingAndPong_CommandOnly() throws Exception {
+        assertEquals("PING\r\n\r\n", RPCPUtils.write(new MessagePing()));
+        assertEquals("PONG\r\n\r\n", RPCPUtils.write(new MessagePong()));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.MessageSubscribe;
+import io.github.rpcp.model.MessageUnsubscribe;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RPCPUtilsSubscribeTest {
+
+    @Test
+    void Read_SubscribeValid_Success() throws Exception {
+        var string = "SUBSCRIBE event.price\r\n" +
+                "\r\n";
+
+        var rpcpMessage = RPCPUtils.read(string);
+        assertTrue(rpcpMessage instanceof MessageSubscribe);
+        var subscribe = (MessageSubscribe) rpcpMessage;
+        assertEquals("event.price", subscribe.getEvent());
+    }
+
+    @Test
+    void Read_UnsubscribeValid_Success() throws Exception {
+        var string = "UNSUBSCRIBE event.price\r\n" +
+                "\r\n";
+
+        var rpcpMessage = RPCPUtils.read(string);
+        assertTrue(rpcpMessage instanceof MessageUnsubscribe);
+        var unsubscribe = (MessageUnsubscribe) rpcpMessage;
+        assertEquals("event.price", unsubscribe.getEvent());
+    }
+
+    @Test
+    void Read_SubscribeWithoutEvent_ExceptionParseError() {
+        Throwable exception;
+
+        exception = assertThrows(Exception.class, () -> {
+            var string = "SUBSCRIBE\r\n" +
+                    "\r\n";
+            RPCPUtils.read(string);
+        });
+        assertEquals("Parse error", exception.getMessage());
+    }
+
+    @Test
+    void Read_SubscribeWrongCommand_ExceptionInvalidRPCP() {
+        Throwable exception;
+
+        exception = assertThrows(Exception.class, () -> {
+            var string = "SUBSCRIB event.price\r\n" +
+                    "\r\n";
+            RPCPUtils.read(string);
+        });
+        assertEquals("Invalid RPCP", exception.getMessage());
+    }
+
+    @Test
+    void Write_SubscribeValid_Success() throws Exception {
+        var actual = RPCPUtils.write(new MessageSubscribe("event.price"));
+        var expected = "SUBSCRIBE event.price\r\n" +
+                "\r\n";
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void Write_UnsubscribeValid_Success() throws Exception {
+        var actual = RPCPUtils.write(new MessageUnsubscribe("event.price"));
+        var expected = "UNSUBSCRIBE event.price\r\n" +
+                "\r\n";
+
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerialExecutorTest {
+
+    @Test
+    void Execute_TaskThrowError_NextTaskRun() {
+        var serialExecutor = new SerialExecutor(Runnable::run);
+        var ran = new ArrayList<String>();
+
+        serialExecutor.execute(() -> {
+            throw new AssertionError("boom");
+        });
+        serialExecutor.execute(() -> ran.add("after error"));
+
+        assertEquals(List.of("after error"), ran);
+    }
+
+    @Test
+    void Execute_RejectedWhileOtherTaskAdded_OtherTaskRun() {
+        var ran = new ArrayList<String>();
+        var serialExecutor = new SerialExecutor[1];
+        // other thread add its task between the reject and the reset of scheduled
+        Executor rejecting = runnable -> {
+            serialExecutor[0].execute(() -> ran.add("other"));
+            throw new RejectedExecutionException("full");
+        };
+        serialExecutor[0] = new SerialExecutor(rejecting);
+
+        assertThrows(RejectedExecutionException.class, () -> serialExecutor[0].execute(() -> ran.add("rejected")));
+
+        assertEquals(List.of("other"), ran);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.rpcp;
+
+import io.github.rpcp.model.RPCPWebSocketSession;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionRegistryTest {
+
+    @Test
+    void GetOrCreate_ManyThread_BuiltOnce() throws Exception {
+        var registry = new SessionRegistry();
+        var built = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(4);
+        var records = new SessionRecord[8];
+        for (var i = 0; i < records.length; i++) {
+            var index = i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                records[index] = registry.getOrCreate("s1", id -> {
+                    built.incrementAndGet();
+                    return new WebSocketSession(id);
+                });
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(1, built.get());
+        for (var record : records) {
+            assertSame(records[0], record);
+        }
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void Connect_RegisteredRecord_CountedOnce() {
+        var registry = new SessionRegistry();
+        var record = registry.getOrCreate("s1", WebSocketSession::new);
+        assertNull(registry.getConnected("s1"));
+
+        assertTrue(registry.connect(record));
+        assertFalse(registry.connect(record));
+        assertSame(record, registry.getConnected("s1"));
+        assertEquals(1, registry.connectedCount());
+    }
+
+    @Test
+    void Remove_ConnectedRecord_ReturnedOnce() {
+        var registry = new SessionRegistry();
+        var record = registry.getOrCreate("s1", WebSocketSession::new);
+        registry.connect(record);
+
+        assertSame(record, registry.remove("s1"));
+        assertNull(registry.remove("s1"));
+        assertFalse(registry.connect(record));
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.connectedCount());
+    }
+
+    @Test
+    void Remove_NotConnectedRecord_Null() {
+        var registry = new SessionRegistry();
+        registry.getOrCreate("s1", WebSocketSession::new);
+
+        assertNull(registry.remove("s1"));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void GetOrCreate_NewRecord_UniqueHandle() {
+        var registry = new SessionRegistry();
+        var first = registry.getOrCreate("s1", WebSocketSession::new);
+        var second = registry.getOrCreate("s2", WebSocketSession::new);
+
+        assertNotEquals(first.getHandle(), second.getHandle());
+        assertEquals("s2", second.getId());
+    }
+
+    private static final class WebSocketSession implements RPCPWebSocketSession {
+        private final String id;
+
+        WebSocketSession(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void sendMessage(String msg) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 PT Tohjiwa Teknologi Indonesia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.rpcp.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebSocketCodecTest {
+
+    static final String UPGRADE = "GET /ws?token=1 HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Upgrade: websocket\r\n" +
+            "Connection: keep-alive, Upgrade\r\n" +
+            "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+            "Sec-WebSocket-Version: 13\r\n";
+
+    @Test
+    void Accept_SampleKey_SameAsRFC() {
+        assertEquals("s3pPLMBiTxaQ9kYGzzhZRbK+xOo=", WebSocketCodec.accept("dGhlIHNhbXBsZSBub25jZQ=="));
+    }
+
+    @Test
+    void Handshake_ValidUpgrade_SwitchingProtocols() {
+        var response = WebSocketCodec.handshake(UPGRADE, "/ws");
+        assertTrue(response.startsWith("HTTP/1.1 101 Switching Protocols\r\n"));
+        assertTrue(response.contains("Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo=\r\n"));
+        assertTrue(response.endsWith("\r\n\r\n"));
+    }
+
+    @Test
+    void Handshake_OtherPath_NotFound() {
+        assertTrue(WebSocketCodec.handshake(UPGRADE, "/rpcp").startsWith("HTTP/1.1 404"));
+    }
+
+    @Test
+    void Handshake_NotUpgrade_BadRequest() {
+        var request = "GET /ws HTTP/1.1\r\n" +
+                "Host: localhost\r\n";
+        assertTrue(WebSocketCodec.handshake(request, null).startsWith("HTTP/1.1 400"));
+    }
+
+    @Test
+    void Handshake_OldVersion_UpgradeRequired() {
+        var request = UPGRADE.replace("Sec-WebSocket-Version: 13", "Sec-WebSocket-Version: 8");
+        var response = WebSocketCodec.handshake(request, null);
+        assertTrue(response.startsWith("HTTP/1.1 426"));
+        assertTrue(response.contains("Sec-WebSocket-Version: 13\r\n"));
+    }
+
+    @Test
+    void Header_EveryLengthEncoding_RFCLayout() {
+        assertEquals(2, WebSocketCodec.header(WebSocketCodec.OPCODE_TEXT, 125).remaining());
+
+        var medium = WebSocketCodec.header(WebSocketCodec.OPCODE_TEXT, 126);
+        assertEquals(4, medium.remaining());
+        assertEquals((byte) 0x81, medium.get(0));
+        assertEquals(126, medium.get(1));
+        assertEquals(126, medium.getShort(2));
+
+        var large = WebSocketCodec.header(WebSocketCodec.OPCODE_TEXT, 65536);
+        assertEquals(10, large.remaining());
+        assertEquals(127, large.get(1));
+        assertEquals(65536, large.getLong(2));
+    }
+
+    @Test
+    void Unmask_AnyOffset_SameAsBytewise() {
+        var mask = 0x37FA213D;
+        var text = "CALL io.github.math.method.Add\r\ncontent-type: application/json\r\n\r\n{}";
+        var plain = text.getBytes(StandardCharsets.UTF_8);
+        var maskBytes = ByteBuffer.allocate(4).putInt(mask).array();
+
+        for (var offset = 0; offset < 4; offset++) {
+            var masked = new byte[plain.length];
+            for (var i = 0; i < plain.length; i++) {
+                masked[i] = (byte) (plain[i] ^ maskBytes[(offset + i) & 3]);
+            }
+
+            var buffer = ByteBuffer.wrap(masked);
+            assertTrue(WebSocketCodec.unmask(buffer, 0, masked.length, mask, offset));
+            assertArrayEquals(plain, masked, "offset " + offset);
+        }
+
+        var utf8 = "id: caf\u00e9".getBytes(StandardCharsets.UTF_8);
+        assertFalse(WebSocketCodec.unmask(ByteBuffer.wrap(utf8), 0, utf8.length, 0, 0));
+    }
+
+    @Test
+    void IsValidCloseCode_RFCRanges() {
+        for (var code : new int[]{1000, 1001, 1002, 1003, 1007, 1011, 1014, 3000, 4999}) {
+            assertTrue(WebSocketCodec.isValidCloseCode(code), "code " + code);
+        }
+        for (var code : new int[]{0, 999, 1004, 1005, 1006, 1015, 1016, 2999, 5000, 65535}) {
+            assertFalse(WebSocketCodec.isValidCloseCode(code), "code " + code);
+        }
+    }
+
+    @Test
+    void ValidateUtf8_SplitAtEveryByte_Accept() {
+        // one, two, three and four bytes character after ASCII longer than eight bytes
+        var bytes = "CALL io.github.math \u00e9 \u20ac \ud83d\ude00".getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.wrap(bytes);
+        assertEquals(WebSocketCodec.UTF8_ACCEPT, WebSocketCodec.validateUtf8(0, buffer, 0, bytes.length));
+
+        for (var split = 0; split <= bytes.length; split++) {
+            var state = WebSocketCodec.validateUtf8(WebSocketCodec.UTF8_ACCEPT, buffer, 0, split);
+            assertNotEquals(WebSocketCodec.UTF8_REJECT, state, "split " + split);
+            assertEquals(WebSocketCodec.UTF8_ACCEPT, WebSocketCodec.validateUtf8(state, buffer, split, bytes.length),
+                    "split " + split);
+        }
+    }
+
+    @Test
+    void ValidateUtf8_InvalidSequence_Reject() {
+        var invalid = new byte[][]{
+                {(byte) 0xC3, 0x28},                            // missing continuation
+                {(byte) 0xC0, (byte) 0xAF},                     // overlong '/'
+                {(byte) 0xE0, (byte) 0x80, (byte) 0xAF},        // overlong three bytes
+                {(byte) 0xED, (byte) 0xA0, (byte) 0x80},        // surrogate
+                {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, // over U+10FFFF
+                {(byte) 0xF8, (byte) 0x88, (byte) 0x80, (byte) 0x80, (byte) 0x80},
+                {(byte) 0x80},                                  // continuation without lead
+        };
+        for (var bytes : invalid) {
+            assertEquals(WebSocketCodec.UTF8_REJECT,
+                    WebSocketCodec.validateUtf8(0, ByteBuffer.wrap(bytes), 0, bytes.length));
+        }
+
+        // truncated character is not rejected but not accepted either
+        var truncated = new byte[]{(byte) 0xE2, (byte) 0x82};
+        var state = WebSocketCodec.validateUtf8(0, ByteBuffer.wrap(truncated), 0, truncated.length);
+        assertNotEquals(WebSocketCodec.UTF8_REJECT, state);
+        assertNotEquals(WebSocketCodec.UTF8_ACCEPT, state);
+    }
+
+    @Test
+    void HeadEnd_IncompleteRequest_NotFound() {
+        var request = ByteBuffer.wrap(UPGRADE.getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals(-1, WebSocketCodec.headEnd(request));
+
+        var complete = ByteBuffer.wrap((UPGRADE + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals(complete.limit(), WebSocketCodec.headEnd(complete));
+    }
+}